@@ -0,0 +1,101 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares answering fan-out requests, such as the routes from one dorm to each of several
+ * classes, with one findRoute() call per route against one findRoutes() batch. For campus.dot and a
+ * generated grid map, and for several fan-outs, it reports the average time per route each way.
+ * Batches run on a single-threaded pool so the comparison shows the work saved by grouping, not
+ * the parallelism.
+ *
+ * Compile against the project classes and run from the src directory so campus.dot is found:
+ * javac -cp ../bin -d ../bin ../benchmarks/BatchRouteBenchmark.java
+ * java -cp ../bin BatchRouteBenchmark
+ */
+public class BatchRouteBenchmark {
+
+  /**
+   * Number of routes timed per configuration.
+   */
+  private static final int ROUTES = 20000;
+
+  public static void main(String[] args) throws Exception {
+    Backend campus = new Backend();
+    campus.loadGraphData("campus.dot");
+    run("campus.dot", campus);
+
+    File grid = File.createTempFile("grid", ".dot");
+    try {
+      writeGrid(grid, 100);
+      Backend backend = new Backend();
+      backend.loadGraphData(grid.getPath());
+      run("100x100 grid", backend);
+    } finally {
+      grid.delete();
+    }
+  }
+
+  /**
+   * Prints the time per route of single and batched queries for several fan-outs.
+   */
+  private static void run(String label, Backend backend) {
+    List<String> locations = backend.getListOfAllLocations();
+    ForkJoinPool pool = new ForkJoinPool(1);
+    System.out.printf("%s: %d locations%n", label, locations.size());
+    System.out.printf("  %8s %14s %14s %9s%n", "fan-out", "single us", "batch us", "speedup");
+    for (int fanOut : new int[] {1, 5, 20, 100}) {
+      Random random = new Random(fanOut);
+      List<RouteRequest> requests = new ArrayList<>(ROUTES);
+      while (requests.size() < ROUTES) {
+        String start = locations.get(random.nextInt(locations.size()));
+        for (int i = 0; i < fanOut && requests.size() < ROUTES; i++) {
+          requests.add(new RouteRequest(start, locations.get(random.nextInt(locations.size()))));
+        }
+      }
+
+      double single = Double.POSITIVE_INFINITY;
+      double batch = Double.POSITIVE_INFINITY;
+      for (int round = 0; round < 5; round++) {
+        long start = System.nanoTime();
+        for (RouteRequest request : requests) {
+          backend.findRoute(request.getStart(), request.getEnd());
+        }
+        single = Math.min(single, (System.nanoTime() - start) / 1e3 / ROUTES);
+        start = System.nanoTime();
+        backend.findRoutes(requests, pool);
+        batch = Math.min(batch, (System.nanoTime() - start) / 1e3 / ROUTES);
+      }
+      System.out.printf("  %8d %14.2f %14.2f %8.2fx%n", fanOut, single, batch, single / batch);
+    }
+    pool.shutdown();
+  }
+
+  /**
+   * Writes a side x side grid map with coordinates, in the style of campus.dot.
+   */
+  private static void writeGrid(File file, int side) throws Exception {
+    Random random = new Random(side);
+    try (BufferedWriter out = Files.newBufferedWriter(file.toPath())) {
+      out.write("digraph campus {\n");
+      for (int x = 0; x < side; x++) {
+        for (int y = 0; y < side; y++) {
+          out.write("\t\"Building " + x + "-" + y + "\" [pos=\"" + x * 100 + "," + y * 100
+              + "\"];\n");
+          int[][] neighbors = {{x + 1, y}, {x - 1, y}, {x, y + 1}, {x, y - 1}};
+          for (int[] n : neighbors) {
+            if (n[0] >= 0 && n[0] < side && n[1] >= 0 && n[1] < side) {
+              out.write("\t\"Building " + x + "-" + y + "\" -> \"Building " + n[0] + "-" + n[1]
+                  + "\" [seconds=" + (100.0 + random.nextDouble() * 100.0) + "];\n");
+            }
+          }
+        }
+      }
+      out.write("}\n");
+    }
+  }
+}
@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares ConcurrentHashtableMap with the single-threaded OpenHashtableMap on a node-name index.
+ * The first table fills each map with a million names one put at a time and reports the total
+ * time and the slowest puts: the single-threaded map rehashes everything at once when it grows,
+ * while the concurrent map spreads the move over later puts. The second table reports lookups per
+ * second, for the single-threaded map on one thread and for the concurrent map on one thread up to
+ * twice the number of cores.
+ *
+ * Compile against the project classes and run from the src directory, with a fixed heap large
+ * enough that collections do not hide the resize pauses in the slowest puts:
+ * javac -cp ../bin -d ../bin ../benchmarks/ConcurrentMapBenchmark.java
+ * java -Xms2g -Xmx2g -Xmn1g -cp ../bin ConcurrentMapBenchmark
+ */
+public class ConcurrentMapBenchmark {
+
+  /**
+   * Number of names put in each map.
+   */
+  private static final int NAMES = 1_000_000;
+
+  /**
+   * How long each lookup configuration is measured for.
+   */
+  private static final long MEASURE_MILLIS = 2000;
+
+  public static void main(String[] args) throws Exception {
+    String[] names = new String[NAMES];
+    for (int i = 0; i < NAMES; i++) {
+      names[i] = "Building " + i;
+    }
+
+    System.out.printf("%-24s %10s %12s %12s %12s%n", "fill " + NAMES, "total ms", "p99.9 us",
+        "p99.99 us", "max us");
+    for (int round = 0; round < 3; round++) {
+      fill("OpenHashtableMap", new OpenHashtableMap<>(), names, round == 2);
+      fill("ConcurrentHashtableMap", new ConcurrentHashtableMap<>(), names, round == 2);
+    }
+
+    OpenHashtableMap<String, Integer> single = new OpenHashtableMap<>();
+    ConcurrentHashtableMap<String, Integer> shared = new ConcurrentHashtableMap<>();
+    for (int i = 0; i < NAMES; i++) {
+      single.put(names[i], i);
+      shared.put(names[i], i);
+    }
+    int cores = Runtime.getRuntime().availableProcessors();
+    System.out.printf("%n%-24s %8s %16s%n", "get, " + cores + " cores", "threads", "lookups/s");
+    lookups(single, names, 1);
+    System.out.printf("%-24s %8d %16.0f%n", "OpenHashtableMap", 1, lookups(single, names, 1));
+    for (int threads = 1; threads <= 2 * cores; threads *= 2) {
+      System.out.printf("%-24s %8d %16.0f%n", "ConcurrentHashtableMap", threads,
+          lookups(shared, names, threads));
+    }
+  }
+
+  /**
+   * Puts every name into map, timing each put, and prints the total time and tail latencies.
+   */
+  private static void fill(String label, MapADT<String, Integer> map, String[] names,
+      boolean print) {
+    long[] nanos = new long[names.length];
+    long start = System.nanoTime();
+    for (int i = 0; i < names.length; i++) {
+      long before = System.nanoTime();
+      map.put(names[i], i);
+      nanos[i] = System.nanoTime() - before;
+    }
+    long total = System.nanoTime() - start;
+    Arrays.sort(nanos);
+    if (print) {
+      System.out.printf("%-24s %10.1f %12.2f %12.2f %12.2f%n", label, total / 1e6,
+          nanos[(int) (names.length * 0.999)] / 1e3, nanos[(int) (names.length * 0.9999)] / 1e3,
+          nanos[names.length - 1] / 1e3);
+    }
+  }
+
+  /**
+   * Runs threads looking up names in map for MEASURE_MILLIS and returns lookups per second.
+   */
+  private static double lookups(MapADT<String, Integer> map, String[] names, int threads)
+      throws Exception {
+    AtomicBoolean done = new AtomicBoolean();
+    LongAdder count = new LongAdder();
+    CountDownLatch ready = new CountDownLatch(threads);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int seed = t;
+      Thread worker = new Thread(() -> {
+        ready.countDown();
+        long local = 0;
+        long sum = 0;
+        // A multiplicative step visits the names in a scattered order
+        for (long i = seed; !done.get(); i += 0x9E3779B9L) {
+          sum += map.get(names[(int) ((i & 0x7FFFFFFFL) % names.length)]);
+          local++;
+        }
+        count.add(local + (sum == 42 ? 1 : 0));
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    ready.await();
+    long start = System.nanoTime();
+    Thread.sleep(MEASURE_MILLIS);
+    done.set(true);
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return count.sum() / ((System.nanoTime() - start) / 1e9);
+  }
+}
@@ -0,0 +1,108 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how Backend.findShortestPath() throughput scales with the number of querying threads
+ * on campus.dot, from one thread up to twice the number of cores. Each row is run twice: once on a
+ * quiet backend and once while another thread reloads the map over and over, which publishes a new
+ * snapshot after every load. Speedup is relative to one thread on the quiet backend; with queries
+ * sharing no mutable state it should track the number of cores until they run out.
+ *
+ * Compile against the project classes and run from the src directory so campus.dot is found:
+ * javac -cp ../bin -d ../bin ../benchmarks/ConcurrentRoutingBenchmark.java
+ * java -cp ../bin ConcurrentRoutingBenchmark
+ */
+public class ConcurrentRoutingBenchmark {
+
+  /**
+   * How long each configuration is measured for, after warming up.
+   */
+  private static final long MEASURE_MILLIS = 2000;
+
+  /**
+   * Number of random location pairs the threads cycle through.
+   */
+  private static final int PAIRS = 4096;
+
+  public static void main(String[] args) throws Exception {
+    Backend backend = new Backend();
+    backend.loadGraphData("campus.dot");
+    List<String> locations = backend.getListOfAllLocations();
+    Random random = new Random(42);
+    String[] starts = new String[PAIRS];
+    String[] ends = new String[PAIRS];
+    for (int i = 0; i < PAIRS; i++) {
+      starts[i] = locations.get(random.nextInt(locations.size()));
+      ends[i] = locations.get(random.nextInt(locations.size()));
+    }
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    System.out.printf("campus.dot: %d locations, %d cores%n", locations.size(), cores);
+    System.out.printf("%8s %16s %9s %16s %9s%n", "threads", "queries/s", "speedup",
+        "reloading q/s", "speedup");
+    run(backend, starts, ends, 1, false);
+    double base = run(backend, starts, ends, 1, false);
+    for (int threads = 1; threads <= 2 * cores; threads *= 2) {
+      double quiet = run(backend, starts, ends, threads, false);
+      double reloading = run(backend, starts, ends, threads, true);
+      System.out.printf("%8d %16.0f %8.2fx %16.0f %8.2fx%n", threads, quiet, quiet / base,
+          reloading, reloading / base);
+    }
+  }
+
+  /**
+   * Runs threads querying threads for MEASURE_MILLIS, with or without a reloading thread, and
+   * returns the number of queries completed per second.
+   */
+  private static double run(Backend backend, String[] starts, String[] ends, int threads,
+      boolean reload) throws Exception {
+    AtomicBoolean done = new AtomicBoolean();
+    LongAdder queries = new LongAdder();
+    CountDownLatch ready = new CountDownLatch(threads);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int offset = t * (PAIRS / threads);
+      Thread worker = new Thread(() -> {
+        ready.countDown();
+        long count = 0;
+        for (int i = offset; !done.get(); i = (i + 1) % PAIRS) {
+          backend.findShortestPath(starts[i], ends[i]);
+          count++;
+        }
+        queries.add(count);
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    Thread reloader = null;
+    if (reload) {
+      reloader = new Thread(() -> {
+        while (!done.get()) {
+          try {
+            backend.loadGraphData("campus.dot");
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+        }
+      });
+      reloader.start();
+    }
+
+    ready.await();
+    long start = System.nanoTime();
+    Thread.sleep(MEASURE_MILLIS);
+    done.set(true);
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    if (reloader != null) {
+      reloader.join();
+    }
+    return queries.sum() / seconds;
+  }
+}
@@ -0,0 +1,139 @@
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares contraction hierarchy preprocessing time against the query speedup it buys. For
+ * campus.dot and for synthetic grid graphs up to roughly 100 times its size, this reports how long
+ * contract() takes, how many shortcuts it adds, and the average time and settled nodes per random
+ * point-to-point query for Dijkstra, bidirectional Dijkstra and the hierarchy.
+ *
+ * Compile against the project classes and run from the src directory so campus.dot is found:
+ * javac -cp ../bin -d ../bin ../benchmarks/ContractionHierarchyBenchmark.java
+ * java -cp ../bin ContractionHierarchyBenchmark
+ */
+public class ContractionHierarchyBenchmark {
+
+  /**
+   * Number of random queries timed per engine and graph.
+   */
+  private static final int QUERIES = 2000;
+
+  /**
+   * Matches one edge line of campus.dot.
+   */
+  private static final Pattern EDGE = Pattern.compile("\"(.*)\"\\s*->\\s*\"(.*)\"\\s*\\[seconds=([^\\]]+)\\]");
+
+  public static void main(String[] args) throws Exception {
+    ArrayGraph campus = new ArrayGraph();
+    for (String line : Files.readAllLines(Paths.get("campus.dot"))) {
+      Matcher edge = EDGE.matcher(line);
+      if (edge.find()) {
+        campus.insertNode(edge.group(1));
+        campus.insertNode(edge.group(2));
+        campus.insertEdge(edge.group(1), edge.group(2), Double.parseDouble(edge.group(3)));
+      }
+    }
+    run("campus.dot", campus);
+
+    for (int side : new int[] {40, 80, 127}) {
+      run(side + "x" + side + " grid", grid(side, side * 31L));
+    }
+  }
+
+  /**
+   * Prints preprocessing cost and per-engine query cost for one graph.
+   */
+  private static void run(String label, ArrayGraph graph) {
+    int n = graph.getIdLimit();
+    Random random = new Random(42);
+    int[] sources = new int[QUERIES];
+    int[] targets = new int[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      sources[i] = random.nextInt(n);
+      targets[i] = random.nextInt(n);
+    }
+
+    DijkstraSearch dijkstra = new DijkstraSearch(graph);
+    BidirectionalSearch bidirectional = new BidirectionalSearch(graph);
+    long start = System.nanoTime();
+    ContractionHierarchy hierarchy = new ContractionHierarchy(graph);
+    double preprocessMillis = (System.nanoTime() - start) / 1e6;
+    ContractionHierarchySearch hierarchySearch = new ContractionHierarchySearch(hierarchy);
+
+    // Warm up every engine before timing it
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < QUERIES; i++) {
+        dijkstra.run(sources[i], targets[i]);
+        bidirectional.run(sources[i], targets[i]);
+        hierarchySearch.run(sources[i], targets[i]);
+      }
+    }
+
+    long settled = 0;
+    start = System.nanoTime();
+    for (int i = 0; i < QUERIES; i++) {
+      dijkstra.run(sources[i], targets[i]);
+      settled += dijkstra.getSettledCount();
+    }
+    double dijkstraMicros = (System.nanoTime() - start) / 1e3 / QUERIES;
+    double dijkstraSettled = settled / (double) QUERIES;
+
+    settled = 0;
+    start = System.nanoTime();
+    for (int i = 0; i < QUERIES; i++) {
+      bidirectional.run(sources[i], targets[i]);
+      settled += bidirectional.getSettledCount();
+    }
+    double bidirectionalMicros = (System.nanoTime() - start) / 1e3 / QUERIES;
+    double bidirectionalSettled = settled / (double) QUERIES;
+
+    settled = 0;
+    start = System.nanoTime();
+    for (int i = 0; i < QUERIES; i++) {
+      hierarchySearch.run(sources[i], targets[i]);
+      settled += hierarchySearch.getSettledCount();
+    }
+    double hierarchyMicros = (System.nanoTime() - start) / 1e3 / QUERIES;
+    double hierarchySettled = settled / (double) QUERIES;
+
+    System.out.printf("%s: %d nodes, %d edges%n", label, graph.getNodeCount(), graph.getEdgeCount());
+    System.out.printf("  preprocessing      %10.1f ms, %d shortcuts%n", preprocessMillis,
+        hierarchy.getShortcutCount());
+    System.out.printf("  dijkstra           %10.2f us/query, %8.1f settled%n", dijkstraMicros,
+        dijkstraSettled);
+    System.out.printf("  bidirectional      %10.2f us/query, %8.1f settled%n", bidirectionalMicros,
+        bidirectionalSettled);
+    System.out.printf("  hierarchy          %10.2f us/query, %8.1f settled, %.1fx faster%n",
+        hierarchyMicros, hierarchySettled, dijkstraMicros / hierarchyMicros);
+    System.out.printf("  break-even after   %10.0f queries%n",
+        preprocessMillis * 1e3 / Math.max(1e-9, dijkstraMicros - hierarchyMicros));
+  }
+
+  /**
+   * Builds a side x side grid with different walking times in each direction, like campus.dot.
+   */
+  private static ArrayGraph grid(int side, long seed) {
+    ArrayGraph graph = new ArrayGraph();
+    Random random = new Random(seed);
+    for (int i = 0; i < side * side; i++) {
+      graph.insertNode("n" + i);
+    }
+    for (int x = 0; x < side; x++) {
+      for (int y = 0; y < side; y++) {
+        int id = x * side + y;
+        if (x + 1 < side) {
+          graph.insertEdge("n" + id, "n" + (id + side), 60.0 + random.nextInt(120));
+          graph.insertEdge("n" + (id + side), "n" + id, 60.0 + random.nextInt(120));
+        }
+        if (y + 1 < side) {
+          graph.insertEdge("n" + id, "n" + (id + 1), 60.0 + random.nextInt(120));
+          graph.insertEdge("n" + (id + 1), "n" + id, 60.0 + random.nextInt(120));
+        }
+      }
+    }
+    return graph;
+  }
+}
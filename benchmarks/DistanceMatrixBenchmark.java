@@ -0,0 +1,103 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Times DistanceMatrix.compute() on one thread and on every core, for campus.dot and for synthetic
+ * grid graphs up to 10,000 nodes. The largest grid is memory-mapped from a temporary file, since
+ * its matrix does not fit comfortably on a default heap. The time per source search shows how the
+ * computation scales with graph size, and the ratio of the two timings how it scales with cores.
+ *
+ * Compile against the project classes and run from the src directory so campus.dot is found:
+ * javac -cp ../bin -d ../bin ../benchmarks/DistanceMatrixBenchmark.java
+ * java -cp ../bin DistanceMatrixBenchmark
+ */
+public class DistanceMatrixBenchmark {
+
+  /**
+   * Matches one edge line of campus.dot.
+   */
+  private static final Pattern EDGE = Pattern.compile("\"(.*)\"\\s*->\\s*\"(.*)\"\\s*\\[seconds=([^\\]]+)\\]");
+
+  public static void main(String[] args) throws Exception {
+    ArrayGraph campus = new ArrayGraph();
+    for (String line : Files.readAllLines(Paths.get("campus.dot"))) {
+      Matcher edge = EDGE.matcher(line);
+      if (edge.find()) {
+        campus.insertNode(edge.group(1));
+        campus.insertNode(edge.group(2));
+        campus.insertEdge(edge.group(1), edge.group(2), Double.parseDouble(edge.group(3)));
+      }
+    }
+    run("campus.dot", campus, false);
+    run("30x30 grid", grid(30, 7), false);
+    run("60x60 grid", grid(60, 11), false);
+    run("100x100 grid", grid(100, 13), true);
+  }
+
+  /**
+   * Prints single-threaded and all-core computation times for one graph.
+   */
+  private static void run(String label, ArrayGraph graph, boolean mapped) throws Exception {
+    int cores = Runtime.getRuntime().availableProcessors();
+    ForkJoinPool single = new ForkJoinPool(1);
+    ForkJoinPool all = new ForkJoinPool(cores);
+    File file = mapped ? File.createTempFile("matrix", ".bin") : null;
+    try {
+      // Warm up both pools before timing them
+      for (int round = 0; round < 2; round++) {
+        DistanceMatrix.compute(graph, single, file);
+        DistanceMatrix.compute(graph, all, file);
+      }
+      long start = System.nanoTime();
+      DistanceMatrix.compute(graph, single, file);
+      double singleMillis = (System.nanoTime() - start) / 1e6;
+      start = System.nanoTime();
+      DistanceMatrix.compute(graph, all, file);
+      double allMillis = (System.nanoTime() - start) / 1e6;
+
+      int n = graph.getNodeCount();
+      System.out.printf("%s: %d nodes, %d edges%s%n", label, n, graph.getEdgeCount(),
+          mapped ? ", memory-mapped" : "");
+      System.out.printf("  1 thread    %10.1f ms, %8.1f us per source%n", singleMillis,
+          singleMillis * 1e3 / n);
+      System.out.printf("  %2d threads  %10.1f ms, %8.1f us per source, %.1fx speedup%n", cores,
+          allMillis, allMillis * 1e3 / n, singleMillis / allMillis);
+    } finally {
+      single.shutdown();
+      all.shutdown();
+      if (file != null) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Builds a side x side grid with different walking times in each direction, like campus.dot.
+   */
+  private static ArrayGraph grid(int side, long seed) {
+    ArrayGraph graph = new ArrayGraph();
+    Random random = new Random(seed);
+    for (int i = 0; i < side * side; i++) {
+      graph.insertNode("n" + i);
+    }
+    for (int x = 0; x < side; x++) {
+      for (int y = 0; y < side; y++) {
+        int id = x * side + y;
+        if (x + 1 < side) {
+          graph.insertEdge("n" + id, "n" + (id + side), 60.0 + random.nextInt(120));
+          graph.insertEdge("n" + (id + side), "n" + id, 60.0 + random.nextInt(120));
+        }
+        if (y + 1 < side) {
+          graph.insertEdge("n" + id, "n" + (id + 1), 60.0 + random.nextInt(120));
+          graph.insertEdge("n" + (id + 1), "n" + id, 60.0 + random.nextInt(120));
+        }
+      }
+    }
+    return graph;
+  }
+}
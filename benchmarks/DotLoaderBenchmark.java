@@ -0,0 +1,203 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the original line-splitting DOT loader with the streaming DotParser, on one thread and
+ * split between every core over a memory-mapped file. All of them build the same ArrayGraph and
+ * location list from campus.dot and from generated grid maps written in the same style, and the
+ * benchmark reports load time and bytes allocated by the loading thread; the parallel loader's
+ * worker threads are not counted. The old loader checks every name against the location list,
+ * which is quadratic in the number of locations, so it only runs on the smaller maps.
+ *
+ * Compile against the project classes and run from the src directory so campus.dot is found:
+ * javac -cp ../bin -d ../bin ../benchmarks/DotLoaderBenchmark.java
+ * java -Xmx4g -cp ../bin DotLoaderBenchmark
+ */
+public class DotLoaderBenchmark {
+
+  /**
+   * Largest map, in edges, the old loader is run on.
+   */
+  private static final int OLD_LOADER_LIMIT = 200_000;
+
+  public static void main(String[] args) throws Exception {
+    run("campus.dot", new File("campus.dot"));
+    for (int side : new int[] {50, 100, 200, 400, 700, 1000}) {
+      File file = File.createTempFile("grid", ".dot");
+      try {
+        int edges = writeGrid(file, side, side);
+        run(side + "x" + side + " grid (" + edges + " edges)", file);
+      } finally {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Loads file with both loaders, warming each up first, and prints their cost.
+   */
+  private static void run(String label, File file) throws IOException {
+    System.out.printf("%s, %.1f MB%n", label, file.length() / 1e6);
+    boolean runOld = Files.lines(file.toPath()).count() <= OLD_LOADER_LIMIT;
+    ArrayGraph oldGraph = null;
+    if (runOld) {
+      loadOld(file, new ArrayGraph(), new ArrayList<>());
+      oldGraph = new ArrayGraph();
+      long allocated = allocatedBytes();
+      long start = System.nanoTime();
+      loadOld(file, oldGraph, new ArrayList<>());
+      report("old loader", start, allocated);
+    }
+
+    loadNew(file, new ArrayGraph(), new ArrayList<>(), false);
+    ArrayGraph newGraph = new ArrayGraph();
+    long allocated = allocatedBytes();
+    long start = System.nanoTime();
+    loadNew(file, newGraph, new ArrayList<>(), false);
+    report("DotParser", start, allocated);
+
+    loadNew(file, new ArrayGraph(), new ArrayList<>(), true);
+    ArrayGraph parallelGraph = new ArrayGraph();
+    allocated = allocatedBytes();
+    start = System.nanoTime();
+    loadNew(file, parallelGraph, new ArrayList<>(), true);
+    report("parallel", start, allocated);
+
+    if (oldGraph != null && (oldGraph.getNodeCount() != newGraph.getNodeCount()
+        || oldGraph.getEdgeCount() != newGraph.getEdgeCount())) {
+      throw new IllegalStateException("The loaders built different graphs");
+    }
+    for (int u = 0; u < newGraph.getIdLimit(); u++) {
+      if (!newGraph.nameOf(u).equals(parallelGraph.nameOf(u))
+          || newGraph.outDegree(u) != parallelGraph.outDegree(u)) {
+        throw new IllegalStateException("The parallel loader built a different graph");
+      }
+    }
+  }
+
+  /**
+   * Prints the time since start and bytes allocated since allocated.
+   */
+  private static void report(String loader, long start, long allocated) {
+    double millis = (System.nanoTime() - start) / 1e6;
+    System.out.printf("  %-12s %10.1f ms %10.1f MB allocated%n", loader, millis,
+        (allocatedBytes() - allocated) / 1e6);
+  }
+
+  /**
+   * Returns the number of bytes the current thread has allocated so far.
+   */
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getCurrentThreadAllocatedBytes();
+  }
+
+  /**
+   * The edge-loading part of Backend.loadGraphData before it used DotParser.
+   */
+  private static void loadOld(File file, ArrayGraph graph, List<String> allLocations)
+      throws IOException {
+    Scanner scnr = new Scanner(file);
+    while (scnr.hasNextLine()) {
+      String line = scnr.nextLine();
+      if (line.contains("->")) {
+        String[] temp = line.split("->");
+        String start = temp[0].trim();
+        start = start.replace("\"", "");
+        if (!allLocations.contains(start)) {
+          allLocations.add(start);
+        }
+        if (!graph.containsNode(start)) {
+          graph.insertNode(start);
+        }
+        String[] temp2 = temp[1].split("\"");
+        String end = temp2[1].trim();
+        if (!graph.containsNode(end)) {
+          graph.insertNode(end);
+        }
+        if (!allLocations.contains(end)) {
+          allLocations.add(end);
+        }
+        String[] temp3 = temp2[2].split("=");
+        String edge = temp3[1].trim();
+        edge = edge.replaceAll("];", "");
+        Double edgeValue = Double.parseDouble(edge);
+        if (!graph.containsEdge(start, end)) {
+          graph.insertEdge(start, end, edgeValue);
+        }
+      }
+    }
+    scnr.close();
+  }
+
+  /**
+   * The edge-loading part of Backend.loadGraphData with DotLoader, on one thread or on every core.
+   */
+  private static void loadNew(File file, ArrayGraph graph, List<String> allLocations,
+      boolean parallel) throws IOException {
+    DotLoader.Sink sink = new DotLoader.Sink() {
+      private String[] names = new String[64];
+
+      public void node(int id, String name) {
+        if (id == names.length) {
+          names = Arrays.copyOf(names, id * 2);
+        }
+        names[id] = name;
+        if (graph.insertNode(name)) {
+          allLocations.add(name);
+        }
+      }
+
+      public void position(int id, String pos) {
+      }
+
+      public void edge(int from, int to, double seconds) {
+        if (!graph.containsEdge(names[from], names[to])) {
+          graph.insertEdge(names[from], names[to], seconds);
+        }
+      }
+    };
+    if (parallel) {
+      DotLoader.loadParallel(file, sink, ForkJoinPool.commonPool());
+    } else {
+      DotLoader.loadSequential(file, sink);
+    }
+  }
+
+  /**
+   * Writes a width x height grid map in the style of campus.dot, with every node's edges on
+   * consecutive lines and walking times printed at full double precision.
+   *
+   * @return the number of edges written
+   */
+  private static int writeGrid(File file, int width, int height) throws IOException {
+    Random random = new Random(width * 31L + height);
+    int edges = 0;
+    try (BufferedWriter out = Files.newBufferedWriter(file.toPath())) {
+      out.write("digraph campus {\n");
+      for (int x = 0; x < width; x++) {
+        for (int y = 0; y < height; y++) {
+          int[][] neighbors = {{x + 1, y}, {x - 1, y}, {x, y + 1}, {x, y - 1}};
+          for (int[] n : neighbors) {
+            if (n[0] >= 0 && n[0] < width && n[1] >= 0 && n[1] < height) {
+              out.write("\t\"Building " + x + "-" + y + "\" -> \"Building " + n[0] + "-" + n[1]
+                  + "\" [seconds=" + (30.0 + random.nextDouble() * 170.0) + "];\n");
+              edges++;
+            }
+          }
+        }
+      }
+      out.write("}\n");
+    }
+    return edges;
+  }
+}
@@ -0,0 +1,145 @@
+import java.util.Random;
+
+/**
+ * Compares searching an ArrayGraph with searching its frozen CSR copy. For generated grid graphs
+ * this reports how long freeze() takes and the average time per random query for Dijkstra,
+ * bidirectional Dijkstra and containsEdge() on each form. Both forms have the same ids and edges,
+ * so the searches settle exactly the same nodes and only the memory layout differs.
+ *
+ * Compile against the project classes and run from the src directory:
+ * javac -cp ../bin -d ../bin ../benchmarks/FrozenGraphBenchmark.java
+ * java -cp ../bin FrozenGraphBenchmark
+ */
+public class FrozenGraphBenchmark {
+
+  /**
+   * Number of random point-to-point queries timed per engine and graph.
+   */
+  private static final int QUERIES = 200;
+
+  /**
+   * Number of random edge lookups timed per graph.
+   */
+  private static final int LOOKUPS = 2_000_000;
+
+  public static void main(String[] args) {
+    for (int side : new int[] {100, 300, 600}) {
+      run(side + "x" + side + " grid", grid(side, side * 31L));
+    }
+  }
+
+  /**
+   * Prints freezing cost and per-query cost on both forms of one graph.
+   */
+  private static void run(String label, ArrayGraph graph) {
+    long start = System.nanoTime();
+    FrozenGraph frozen = graph.freeze();
+    double freezeMillis = (System.nanoTime() - start) / 1e6;
+
+    int n = graph.getIdLimit();
+    Random random = new Random(42);
+    int[] sources = new int[QUERIES];
+    int[] targets = new int[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      sources[i] = random.nextInt(n);
+      targets[i] = random.nextInt(n);
+    }
+    String[] from = new String[LOOKUPS];
+    String[] to = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      int u = random.nextInt(n);
+      from[i] = graph.nameOf(u);
+      // Half the lookups hit an edge, half miss
+      to[i] = graph.nameOf(i % 2 == 0 && graph.outDegree(u) > 0
+          ? graph.outTarget(u, random.nextInt(graph.outDegree(u))) : random.nextInt(n));
+    }
+
+    System.out.printf("%s: %d nodes, %d edges, frozen in %.1f ms%n", label, graph.getNodeCount(),
+        graph.getEdgeCount(), freezeMillis);
+    System.out.printf("  %-14s %14s %14s%n", "", "ArrayGraph", "FrozenGraph");
+    System.out.printf("  %-14s %11.2f us %11.2f us%n", "dijkstra",
+        dijkstra(new DijkstraSearch(graph), sources, targets),
+        dijkstra(new DijkstraSearch(frozen), sources, targets));
+    System.out.printf("  %-14s %11.2f us %11.2f us%n", "bidirectional",
+        bidirectional(new BidirectionalSearch(graph), sources, targets),
+        bidirectional(new BidirectionalSearch(frozen), sources, targets));
+    System.out.printf("  %-14s %11.2f ns %11.2f ns%n", "containsEdge",
+        lookups(graph, from, to), lookups(frozen, from, to));
+  }
+
+  /**
+   * Returns the average microseconds per Dijkstra query, after a warm-up round.
+   */
+  private static double dijkstra(DijkstraSearch search, int[] sources, int[] targets) {
+    double best = Double.POSITIVE_INFINITY;
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < sources.length; i++) {
+        search.run(sources[i], targets[i]);
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1e3 / sources.length);
+    }
+    return best;
+  }
+
+  /**
+   * Returns the average microseconds per bidirectional query, after a warm-up round.
+   */
+  private static double bidirectional(BidirectionalSearch search, int[] sources, int[] targets) {
+    double best = Double.POSITIVE_INFINITY;
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < sources.length; i++) {
+        search.run(sources[i], targets[i]);
+      }
+      best = Math.min(best, (System.nanoTime() - start) / 1e3 / sources.length);
+    }
+    return best;
+  }
+
+  /**
+   * Returns the average nanoseconds per containsEdge() call, after a warm-up round.
+   */
+  private static double lookups(GraphADT<String, Double> graph, String[] from, String[] to) {
+    double best = Double.POSITIVE_INFINITY;
+    int found = 0;
+    for (int round = 0; round < 3; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < from.length; i++) {
+        if (graph.containsEdge(from[i], to[i])) {
+          found++;
+        }
+      }
+      best = Math.min(best, (double) (System.nanoTime() - start) / from.length);
+    }
+    if (found == 0) {
+      System.out.println("  (no edges found)");
+    }
+    return best;
+  }
+
+  /**
+   * Builds a side x side grid with different walking times in each direction, like campus.dot.
+   */
+  private static ArrayGraph grid(int side, long seed) {
+    ArrayGraph graph = new ArrayGraph();
+    Random random = new Random(seed);
+    for (int i = 0; i < side * side; i++) {
+      graph.insertNode("n" + i);
+    }
+    for (int x = 0; x < side; x++) {
+      for (int y = 0; y < side; y++) {
+        int id = x * side + y;
+        if (x + 1 < side) {
+          graph.insertEdge("n" + id, "n" + (id + side), 60.0 + random.nextInt(120));
+          graph.insertEdge("n" + (id + side), "n" + id, 60.0 + random.nextInt(120));
+        }
+        if (y + 1 < side) {
+          graph.insertEdge("n" + id, "n" + (id + 1), 60.0 + random.nextInt(120));
+          graph.insertEdge("n" + (id + 1), "n" + id, 60.0 + random.nextInt(120));
+        }
+      }
+    }
+    return graph;
+  }
+}
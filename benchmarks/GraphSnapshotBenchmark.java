@@ -0,0 +1,149 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares reading a map from its DOT file with reading it from a binary snapshot, for campus.dot
+ * and for generated grid maps. For each map it reports the time to parse the DOT file into an
+ * ArrayGraph, to open the snapshot, which checks its header and index, and to freeze the opened
+ * snapshot into a FrozenGraph, which together are what Backend.loadGraphSnapshot() takes before
+ * the map answers queries. It also reports what Backend leaves to a background thread: verifying
+ * the snapshot's body and copying it into an ArrayGraph. Contraction and landmark selection are
+ * left out.
+ *
+ * Compile against the project classes and run from the src directory so campus.dot is found:
+ * javac -cp ../bin -d ../bin ../benchmarks/GraphSnapshotBenchmark.java
+ * java -Xmx4g -cp ../bin GraphSnapshotBenchmark
+ */
+public class GraphSnapshotBenchmark {
+
+  /**
+   * Number of timed runs of each load, of which the fastest is reported.
+   */
+  private static final int RUNS = 5;
+
+  public static void main(String[] args) throws Exception {
+    run("campus.dot", new File("campus.dot"));
+    for (int side : new int[] {100, 300, 700}) {
+      File file = File.createTempFile("grid", ".dot");
+      try {
+        writeGrid(file, side);
+        run(side + "x" + side + " grid", file);
+      } finally {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Times the three ways of loading file and prints the fastest run of each.
+   */
+  private static void run(String label, File dot) throws IOException {
+    File snapshot = File.createTempFile("graph", ".snapshot");
+    try {
+      ArrayGraph graph = parse(dot);
+      GraphSnapshot.write(graph, dot, snapshot);
+      System.out.printf("%s: %d nodes, %d edges, %.1f MB DOT, %.1f MB snapshot%n", label,
+          graph.getNodeCount(), graph.getEdgeCount(), dot.length() / 1e6, snapshot.length() / 1e6);
+
+      double parse = Double.POSITIVE_INFINITY;
+      double open = Double.POSITIVE_INFINITY;
+      double freeze = Double.POSITIVE_INFINITY;
+      double verify = Double.POSITIVE_INFINITY;
+      double copy = Double.POSITIVE_INFINITY;
+      for (int run = 0; run < RUNS; run++) {
+        long start = System.nanoTime();
+        parse(dot);
+        parse = Math.min(parse, (System.nanoTime() - start) / 1e6);
+        start = System.nanoTime();
+        GraphSnapshot opened = GraphSnapshot.open(snapshot);
+        open = Math.min(open, (System.nanoTime() - start) / 1e6);
+        start = System.nanoTime();
+        opened.freeze(0);
+        freeze = Math.min(freeze, (System.nanoTime() - start) / 1e6);
+        start = System.nanoTime();
+        opened.verify();
+        verify = Math.min(verify, (System.nanoTime() - start) / 1e6);
+        start = System.nanoTime();
+        copy(opened);
+        copy = Math.min(copy, (System.nanoTime() - start) / 1e6);
+      }
+      System.out.printf("  parse DOT         %10.2f ms%n", parse);
+      System.out.printf("  open snapshot     %10.2f ms%n", open);
+      System.out.printf("  freeze snapshot   %10.2f ms%n", freeze);
+      System.out.printf("  verify body       %10.2f ms%n", verify);
+      System.out.printf("  copy to ArrayGraph%10.2f ms%n", copy);
+    } finally {
+      snapshot.delete();
+    }
+  }
+
+  /**
+   * Loads a DOT map into a new ArrayGraph the way Backend.loadGraphData() does.
+   */
+  private static ArrayGraph parse(File dot) throws IOException {
+    ArrayGraph graph = new ArrayGraph();
+    DotLoader.load(dot, new DotLoader.Sink() {
+      private int[] ids = new int[64];
+
+      public void node(int id, String name) {
+        if (id == ids.length) {
+          ids = Arrays.copyOf(ids, id * 2);
+        }
+        graph.insertNode(name);
+        ids[id] = graph.idOf(name);
+      }
+
+      public void position(int id, String pos) {
+      }
+
+      public void edge(int from, int to, double seconds) {
+        graph.insertEdgeIfAbsent(ids[from], ids[to], seconds);
+      }
+    });
+    return graph;
+  }
+
+  /**
+   * Copies a snapshot into a new ArrayGraph the way Backend does in the background.
+   */
+  private static ArrayGraph copy(GraphSnapshot snapshot) {
+    ArrayGraph graph = new ArrayGraph();
+    int[] ids = new int[snapshot.getNodeCount()];
+    for (int v = 0; v < ids.length; v++) {
+      graph.insertNode(snapshot.nameOf(v));
+      ids[v] = graph.idOf(snapshot.nameOf(v));
+    }
+    for (int u = 0; u < ids.length; u++) {
+      for (int i = 0; i < snapshot.outDegree(u); i++) {
+        graph.insertEdgeIfAbsent(ids[u], ids[snapshot.outTarget(u, i)], snapshot.outWeight(u, i));
+      }
+    }
+    return graph;
+  }
+
+  /**
+   * Writes a side x side grid map in the style of campus.dot.
+   */
+  private static void writeGrid(File file, int side) throws IOException {
+    Random random = new Random(side);
+    try (BufferedWriter out = Files.newBufferedWriter(file.toPath())) {
+      out.write("digraph campus {\n");
+      for (int x = 0; x < side; x++) {
+        for (int y = 0; y < side; y++) {
+          int[][] neighbors = {{x + 1, y}, {x - 1, y}, {x, y + 1}, {x, y - 1}};
+          for (int[] n : neighbors) {
+            if (n[0] >= 0 && n[0] < side && n[1] >= 0 && n[1] < side) {
+              out.write("\t\"Building " + x + "-" + y + "\" -> \"Building " + n[0] + "-" + n[1]
+                  + "\" [seconds=" + (30.0 + random.nextDouble() * 170.0) + "];\n");
+            }
+          }
+        }
+      }
+      out.write("}\n");
+    }
+  }
+}
@@ -0,0 +1,159 @@
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Compares the open-addressing maps with java.util.HashMap on the work they do in routing: looking
+ * node names up to get their int ids, and looking weights up by int id. For maps of several sizes
+ * it reports the time per lookup and the bytes allocated per put and per lookup, the latter read
+ * from the JVM's per-thread allocation counter. Lookups alternate between present and missing keys
+ * in a random order, so most of them miss the CPU caches on the larger maps.
+ *
+ * Compile against the project classes and run from the src directory:
+ * javac -cp ../bin -d ../bin ../benchmarks/HashMapBenchmark.java
+ * java -cp ../bin HashMapBenchmark
+ */
+public class HashMapBenchmark {
+
+  /**
+   * Number of lookups timed per configuration.
+   */
+  private static final int LOOKUPS = 5_000_000;
+
+  /**
+   * Sink for lookup results, so the JIT cannot drop the lookups.
+   */
+  private static long blackhole;
+
+  public static void main(String[] args) {
+    System.out.printf("%-22s %9s %12s %12s %12s%n", "map", "entries", "ns/lookup", "B/put",
+        "B/lookup");
+    for (int entries : new int[] {1_000, 100_000, 1_000_000}) {
+      String[] names = new String[entries];
+      for (int i = 0; i < entries; i++) {
+        names[i] = "Building " + i;
+      }
+      Random random = new Random(entries);
+      String[] probes = new String[LOOKUPS];
+      int[] keys = new int[LOOKUPS];
+      for (int i = 0; i < LOOKUPS; i++) {
+        int k = random.nextInt(2 * entries);
+        probes[i] = k < entries ? names[k] : "Missing " + k;
+        keys[i] = k;
+      }
+      for (int round = 0; round < 3; round++) {
+        boolean print = round == 2;
+        objectInt(names, probes, print);
+        hashMap(names, probes, print);
+        intDouble(entries, keys, print);
+        boxedIntDouble(entries, keys, print);
+      }
+    }
+    if (blackhole == 42) {
+      System.out.println();
+    }
+  }
+
+  /**
+   * Interns names in an ObjectIntHashMap and looks up every probe.
+   */
+  private static void objectInt(String[] names, String[] probes, boolean print) {
+    long allocated = allocated();
+    ObjectIntHashMap<String> map = new ObjectIntHashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      map.put(names[i], i);
+    }
+    long puts = allocated() - allocated;
+    allocated = allocated();
+    long start = System.nanoTime();
+    long sum = 0;
+    for (String probe : probes) {
+      sum += map.get(probe, -1);
+    }
+    report("ObjectIntHashMap", names.length, start, puts, allocated, print);
+    blackhole += sum;
+  }
+
+  /**
+   * Interns names in a HashMap and looks up every probe.
+   */
+  private static void hashMap(String[] names, String[] probes, boolean print) {
+    long allocated = allocated();
+    HashMap<String, Integer> map = new HashMap<>();
+    for (int i = 0; i < names.length; i++) {
+      map.put(names[i], i);
+    }
+    long puts = allocated() - allocated;
+    allocated = allocated();
+    long start = System.nanoTime();
+    long sum = 0;
+    for (String probe : probes) {
+      Integer id = map.get(probe);
+      sum += id == null ? -1 : id;
+    }
+    report("HashMap<String,Int>", names.length, start, puts, allocated, print);
+    blackhole += sum;
+  }
+
+  /**
+   * Stores a weight for every id in an IntDoubleHashMap and looks up every key.
+   */
+  private static void intDouble(int entries, int[] keys, boolean print) {
+    long allocated = allocated();
+    IntDoubleHashMap map = new IntDoubleHashMap();
+    for (int i = 0; i < entries; i++) {
+      map.put(i, i * 0.5);
+    }
+    long puts = allocated() - allocated;
+    allocated = allocated();
+    long start = System.nanoTime();
+    double sum = 0;
+    for (int key : keys) {
+      sum += map.get(key, 0.0);
+    }
+    report("IntDoubleHashMap", entries, start, puts, allocated, print);
+    blackhole += (long) sum;
+  }
+
+  /**
+   * Stores a weight for every id in a HashMap and looks up every key.
+   */
+  private static void boxedIntDouble(int entries, int[] keys, boolean print) {
+    long allocated = allocated();
+    HashMap<Integer, Double> map = new HashMap<>();
+    for (int i = 0; i < entries; i++) {
+      map.put(i, i * 0.5);
+    }
+    long puts = allocated() - allocated;
+    allocated = allocated();
+    long start = System.nanoTime();
+    double sum = 0;
+    for (int key : keys) {
+      Double weight = map.get(key);
+      sum += weight == null ? 0.0 : weight;
+    }
+    report("HashMap<Int,Double>", entries, start, puts, allocated, print);
+    blackhole += (long) sum;
+  }
+
+  /**
+   * Prints one row of results if print is set.
+   */
+  private static void report(String label, int entries, long start, long puts, long allocated,
+      boolean print) {
+    long nanos = System.nanoTime() - start;
+    long lookups = allocated() - allocated;
+    if (print) {
+      System.out.printf("%-22s %9d %12.2f %12.1f %12.2f%n", label, entries,
+          (double) nanos / LOOKUPS, (double) puts / entries, (double) lookups / LOOKUPS);
+    }
+  }
+
+  /**
+   * Returns the number of bytes the current thread has allocated so far.
+   */
+  private static long allocated() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+        .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
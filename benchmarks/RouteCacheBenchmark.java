@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the route cache on skewed traffic over campus.dot. Queries pick (start, end) pairs from
+ * a Zipf distribution over all pairs, so a few pairs make up most of the traffic, and every run
+ * replays the same query stream through Backend.findRoute(). For each policy and size this reports
+ * the hit rate, the evictions and the average time per query, with a cache too small to hold any
+ * route as the baseline.
+ *
+ * Compile against the project classes and run from the src directory so campus.dot is found:
+ * javac -cp ../bin -d ../bin ../benchmarks/RouteCacheBenchmark.java
+ * java -cp ../bin RouteCacheBenchmark
+ */
+public class RouteCacheBenchmark {
+
+  /**
+   * Number of queries in the stream.
+   */
+  private static final int QUERIES = 2_000_000;
+
+  /**
+   * Skew of the Zipf distribution; larger values concentrate traffic on fewer pairs.
+   */
+  private static final double SKEW = 0.9;
+
+  public static void main(String[] args) throws Exception {
+    Backend loader = new Backend();
+    loader.loadGraphData("campus.dot");
+    List<String> locations = loader.getListOfAllLocations();
+
+    // Rank every pair randomly, then draw ranks from the Zipf distribution
+    List<String[]> pairs = new ArrayList<>();
+    for (String start : locations) {
+      for (String end : locations) {
+        pairs.add(new String[] {start, end});
+      }
+    }
+    Random random = new Random(42);
+    Collections.shuffle(pairs, random);
+    double[] cumulative = new double[pairs.size()];
+    double total = 0.0;
+    for (int rank = 0; rank < cumulative.length; rank++) {
+      total += 1.0 / Math.pow(rank + 1, SKEW);
+      cumulative[rank] = total;
+    }
+    String[] starts = new String[QUERIES];
+    String[] ends = new String[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+      String[] pair = pairs.get(rank < 0 ? -rank - 1 : rank);
+      starts[i] = pair[0];
+      ends[i] = pair[1];
+    }
+
+    System.out.printf("campus.dot: %d pairs, %d queries, Zipf skew %.1f%n", pairs.size(), QUERIES,
+        SKEW);
+    System.out.printf("  %-9s %10s %9s %11s %10s%n", "policy", "size", "hit rate", "evictions",
+        "us/query");
+    run(RouteCache.Policy.LRU, 0, starts, ends);
+    for (long size : new long[] {64L << 10, 256L << 10, 1L << 20}) {
+      for (RouteCache.Policy policy : RouteCache.Policy.values()) {
+        run(policy, size, starts, ends);
+      }
+    }
+  }
+
+  /**
+   * Replays the query stream through a backend with the given cache and prints its metrics.
+   */
+  private static void run(RouteCache.Policy policy, long size, String[] starts, String[] ends)
+      throws Exception {
+    RouteCache cache = new RouteCache(size, policy);
+    Backend backend = new Backend(cache);
+    backend.loadGraphData("campus.dot");
+    long start = System.nanoTime();
+    for (int i = 0; i < starts.length; i++) {
+      backend.findRoute(starts[i], ends[i]);
+    }
+    double micros = (System.nanoTime() - start) / 1e3 / starts.length;
+    System.out.printf("  %-9s %7d KB %9.3f %11d %10.3f%n", size == 0 ? "none" : policy,
+        size >> 10, cache.getHitRate(), cache.getEvictionCount(), micros);
+  }
+}
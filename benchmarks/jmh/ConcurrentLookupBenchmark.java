@@ -0,0 +1,90 @@
+package jmh;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Lookups per second in one ConcurrentHashtableMap of 100,000 names shared by one thread per
+ * core, each looking up its own seeded random sequence of names. Compare the score with
+ * MapBenchmark.concurrentHashtableMapGet on one thread to see how lookups scale; pass -t to try
+ * other thread counts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(Threads.MAX)
+@Fork(1)
+public class ConcurrentLookupBenchmark {
+
+  /**
+   * Number of names in the map.
+   */
+  private static final int NAMES = 100_000;
+
+  /**
+   * Number of lookups per operation, a power of two.
+   */
+  private static final int LOOKUPS = 1 << 12;
+
+  /**
+   * Seed of the next thread's sequence of names.
+   */
+  private final AtomicInteger seeds = new AtomicInteger();
+
+  private String[] names;
+
+  private Object map;
+
+  @Setup(Level.Trial)
+  public void fill() throws Throwable {
+    names = new String[NAMES];
+    map = (Object) Project.NEW_CONCURRENT_HASHTABLE_MAP.invokeExact();
+    for (int i = 0; i < NAMES; i++) {
+      names[i] = "Building " + i;
+      Project.MAP_PUT.invokeExact(map, (Object) names[i], (Object) i);
+    }
+  }
+
+  /**
+   * The names one thread looks up.
+   */
+  @State(Scope.Thread)
+  public static class Probes {
+
+    private String[] probes;
+
+    @Setup(Level.Trial)
+    public void pick(ConcurrentLookupBenchmark shared) {
+      Random random = new Random(shared.seeds.incrementAndGet());
+      probes = new String[LOOKUPS];
+      for (int i = 0; i < LOOKUPS; i++) {
+        probes[i] = shared.names[random.nextInt(NAMES)];
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void concurrentHashtableMapGet(Probes probes, Blackhole blackhole) throws Throwable {
+    for (String probe : probes.probes) {
+      blackhole.consume((Object) Project.MAP_GET.invokeExact(map, (Object) probe));
+    }
+  }
+}
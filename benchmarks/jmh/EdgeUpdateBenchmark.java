@@ -0,0 +1,118 @@
+package jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of keeping the travel time matrix current under a stream of small batches of edge updates.
+ * Each operation applies the next batch with updateEdges: batches alternately slow down a few
+ * edges taken from random shortest paths and put them back. repair asks for the matrix afterwards,
+ * which updateEdges has already repaired from the previous one; recompute updates a Backend that
+ * never computed its matrix and computes the updated map's matrix from scratch, which is what
+ * every batch would cost without repair.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EdgeUpdateBenchmark {
+
+  /**
+   * Number of batches in the sequence, a power of two.
+   */
+  private static final int BATCHES = 1 << 8;
+
+  /**
+   * Number of edges each batch changes.
+   */
+  private static final int BATCH_SIZE = 8;
+
+  /**
+   * The graph to update: "campus", or a DotGenerator layout and number of edges.
+   */
+  @Param({"campus", "grid-4000"})
+  public String graph;
+
+  /**
+   * Backend whose travel time matrix updateEdges repairs.
+   */
+  private Object backend;
+
+  /**
+   * Backend without a travel time matrix, so updateEdges only swaps in the new map.
+   */
+  private Object plain;
+
+  private List<List<Object>> batches;
+
+  private int next;
+
+  @Setup(Level.Trial)
+  public void load() throws Throwable {
+    String file = Project.graphFile(graph);
+    backend = Project.loadedBackend(file);
+    plain = Project.loadedBackend(file);
+    @SuppressWarnings("unchecked")
+    List<String> locations = (List<String>) Project.GET_LIST_OF_ALL_LOCATIONS.invokeExact(backend);
+    Random random = new Random(42);
+    batches = new ArrayList<>(BATCHES);
+    while (batches.size() < BATCHES) {
+      List<Object> slower = new ArrayList<>(BATCH_SIZE);
+      List<Object> restored = new ArrayList<>(BATCH_SIZE);
+      while (slower.size() < BATCH_SIZE) {
+        String start = locations.get(random.nextInt(locations.size()));
+        String end = locations.get(random.nextInt(locations.size()));
+        @SuppressWarnings("unchecked")
+        List<String> path = (List<String>) Project.FIND_SHORTEST_PATH.invokeExact(backend, start,
+            end);
+        @SuppressWarnings("unchecked")
+        List<Double> times = (List<Double>) Project.GET_TRAVEL_TIMES_ON_PATH.invokeExact(backend,
+            start, end);
+        if (times.isEmpty()) {
+          continue;
+        }
+        int hop = random.nextInt(times.size());
+        double seconds = times.get(hop);
+        slower.add((Object) Project.NEW_EDGE_UPDATE.invokeExact(path.get(hop), path.get(hop + 1),
+            seconds * 2.0));
+        restored.add((Object) Project.NEW_EDGE_UPDATE.invokeExact(path.get(hop),
+            path.get(hop + 1), seconds));
+      }
+      batches.add(slower);
+      batches.add(restored);
+    }
+    Object matrix = (Object) Project.GET_TRAVEL_TIME_MATRIX.invokeExact(backend);
+    if (matrix == null) {
+      throw new IllegalStateException("No travel time matrix");
+    }
+  }
+
+  @Benchmark
+  public Object repair() throws Throwable {
+    Project.UPDATE_EDGES.invokeExact(backend, batches.get(next++ & (BATCHES - 1)));
+    return (Object) Project.GET_TRAVEL_TIME_MATRIX.invokeExact(backend);
+  }
+
+  @Benchmark
+  public Object recompute() throws Throwable {
+    Project.UPDATE_EDGES.invokeExact(plain, batches.get(next++ & (BATCHES - 1)));
+    Object frozen = (Object) Project.GET_SNAPSHOT_GRAPH.invokeExact(plain);
+    return (Object) Project.COMPUTE_DISTANCE_MATRIX.invokeExact(frozen);
+  }
+}
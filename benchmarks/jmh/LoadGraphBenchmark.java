@@ -0,0 +1,50 @@
+package jmh;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time and allocation of Backend.loadGraphData, from reading the file to publishing the snapshot
+ * that queries run on, for the campus map and for maps of 10,000 edges in each of DotGenerator's
+ * layouts and of 100,000 edges in the clustered one. Loads take tens of microseconds per edge, so
+ * larger maps are left to -p graph=clustered-1000000 and the like. Every operation loads into a
+ * new Backend. None of the maps have coordinates and no landmark cache is set, so every load
+ * chooses its landmarks again, as the application does by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadGraphBenchmark {
+
+  /**
+   * The graph to load: "campus", or a DotGenerator layout and number of edges.
+   */
+  @Param({"campus", "grid-10000", "geometric-10000", "clustered-10000", "clustered-100000"})
+  public String graph;
+
+  private String file;
+
+  @Setup(Level.Trial)
+  public void writeGraph() throws Throwable {
+    file = Project.graphFile(graph);
+  }
+
+  @Benchmark
+  public Object loadGraphData() throws Throwable {
+    return Project.loadedBackend(file);
+  }
+}
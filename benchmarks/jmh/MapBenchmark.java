@@ -0,0 +1,119 @@
+package jmh;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Time and allocation per get of the name maps: the MapADT hashtables (OpenHashtableMap and
+ * ConcurrentHashtableMap), the ObjectIntHashMap that interns node names to ids, and
+ * java.util.HashMap for reference. Each operation looks up one of a seeded random sequence of the
+ * names in a full map. Every name looked up is present, since MapADT.get throws for missing ones.
+ * MapPutBenchmark measures filling the same maps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapBenchmark {
+
+  /**
+   * Number of lookups per get operation, a power of two.
+   */
+  private static final int LOOKUPS = 1 << 12;
+
+  /**
+   * Number of names in each map.
+   */
+  @Param({"1000", "100000"})
+  public int size;
+
+  private String[] names;
+
+  private String[] probes;
+
+  private Object openMap;
+
+  private Object concurrentMap;
+
+  private Object objectIntMap;
+
+  private HashMap<String, Integer> hashMap;
+
+  @Setup(Level.Trial)
+  public void fill() throws Throwable {
+    names = new String[size];
+    for (int i = 0; i < size; i++) {
+      names[i] = "Building " + i;
+    }
+    Random random = new Random(size);
+    probes = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      probes[i] = names[random.nextInt(size)];
+    }
+    openMap = (Object) Project.NEW_OPEN_HASHTABLE_MAP.invokeExact();
+    concurrentMap = (Object) Project.NEW_CONCURRENT_HASHTABLE_MAP.invokeExact();
+    objectIntMap = (Object) Project.NEW_OBJECT_INT_HASH_MAP.invokeExact();
+    hashMap = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      Project.MAP_PUT.invokeExact(openMap, (Object) names[i], (Object) i);
+      Project.MAP_PUT.invokeExact(concurrentMap, (Object) names[i], (Object) i);
+      Project.OBJECT_INT_PUT.invokeExact(objectIntMap, (Object) names[i], i);
+      hashMap.put(names[i], i);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void openHashtableMapGet(Blackhole blackhole) throws Throwable {
+    mapGet(openMap, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void concurrentHashtableMapGet(Blackhole blackhole) throws Throwable {
+    mapGet(concurrentMap, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void objectIntHashMapGet(Blackhole blackhole) throws Throwable {
+    for (String probe : probes) {
+      int id = (int) Project.OBJECT_INT_GET.invokeExact(objectIntMap, (Object) probe, -1);
+      blackhole.consume(id);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LOOKUPS)
+  public void hashMapGet(Blackhole blackhole) {
+    for (String probe : probes) {
+      blackhole.consume(hashMap.get(probe));
+    }
+  }
+
+  /**
+   * Looks up every probe in a MapADT.
+   */
+  private void mapGet(Object map, Blackhole blackhole) throws Throwable {
+    for (String probe : probes) {
+      blackhole.consume((Object) Project.MAP_GET.invokeExact(map, (Object) probe));
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package jmh;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time and allocation per put of the name maps that MapBenchmark looks names up in. Each
+ * invocation fills a new map with 100,000 names, so the score per put includes every resize on
+ * the way from the default capacity. ConcurrentMapBenchmark reports the slowest of those puts,
+ * which an average hides.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapPutBenchmark {
+
+  /**
+   * Number of names put in each map.
+   */
+  private static final int NAMES = 100_000;
+
+  private String[] names;
+
+  private Integer[] values;
+
+  @Setup(Level.Trial)
+  public void makeNames() {
+    names = new String[NAMES];
+    values = new Integer[NAMES];
+    for (int i = 0; i < NAMES; i++) {
+      names[i] = "Building " + i;
+      values[i] = i;
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NAMES)
+  public Object openHashtableMapPut() throws Throwable {
+    return mapPut((Object) Project.NEW_OPEN_HASHTABLE_MAP.invokeExact());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NAMES)
+  public Object concurrentHashtableMapPut() throws Throwable {
+    return mapPut((Object) Project.NEW_CONCURRENT_HASHTABLE_MAP.invokeExact());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NAMES)
+  public Object objectIntHashMapPut() throws Throwable {
+    Object map = (Object) Project.NEW_OBJECT_INT_HASH_MAP.invokeExact();
+    for (int i = 0; i < NAMES; i++) {
+      Project.OBJECT_INT_PUT.invokeExact(map, (Object) names[i], i);
+    }
+    return map;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(NAMES)
+  public Object hashMapPut() {
+    HashMap<String, Integer> map = new HashMap<>();
+    for (int i = 0; i < NAMES; i++) {
+      map.put(names[i], values[i]);
+    }
+    return map;
+  }
+
+  /**
+   * Puts every name into a MapADT. The values are boxed up front, so only the map allocates.
+   */
+  private Object mapPut(Object map) throws Throwable {
+    for (int i = 0; i < NAMES; i++) {
+      Project.MAP_PUT.invokeExact(map, (Object) names[i], (Object) values[i]);
+    }
+    return map;
+  }
+}
@@ -0,0 +1,67 @@
+package jmh;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of BackendMetrics on the cheapest and the most expensive query, with metrics off and on.
+ * findShortestPath asks for the same campus route every time, so it is a route cache hit of a few
+ * tens of nanoseconds and any overhead shows up in full. getMostDistantLocation searches the whole
+ * campus. cachedFindRoute makes the same lookup as findShortestPath past the metrics check, so with
+ * metrics off cachedFindShortestPath should match it within noise; on, the difference is the two
+ * clock reads and histogram updates of every query. Run with -t to see recording contend.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+  /**
+   * Whether the Backend records metrics.
+   */
+  @Param({"false", "true"})
+  public boolean metrics;
+
+  private Object backend;
+
+  @Setup(Level.Trial)
+  public void load() throws Throwable {
+    backend = Project.loadedBackend(Project.CAMPUS);
+    Project.setMetricsEnabled(backend, metrics);
+  }
+
+  /**
+   * The same cached lookup as cachedFindShortestPath without going through the metrics check, as
+   * the baseline that metrics off is compared to.
+   */
+  @Benchmark
+  public Object cachedFindRoute() throws Throwable {
+    return (Object) Project.FIND_ROUTE.invokeExact(backend, "Memorial Union", "Union South");
+  }
+
+  @Benchmark
+  public List<?> cachedFindShortestPath() throws Throwable {
+    return (List<?>) Project.FIND_SHORTEST_PATH.invokeExact(backend, "Memorial Union",
+        "Union South");
+  }
+
+  @Benchmark
+  public String getMostDistantLocation() throws Throwable {
+    return (String) Project.GET_MOST_DISTANT_LOCATION.invokeExact(backend, "Memorial Union");
+  }
+}
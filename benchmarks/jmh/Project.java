@@ -0,0 +1,262 @@
+package jmh;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Calls into the map's classes for the JMH benchmarks. The project's classes are in the unnamed
+ * package, which code in a named package cannot import, while JMH will not run benchmarks that are
+ * in the unnamed package. So the benchmarks reach the project through the method handles here,
+ * looked up by class name once. Every handle is a static final with a fixed type, which the JIT
+ * treats as a constant and inlines, so a call through one costs the same as a direct call.
+ *
+ * Handles that take or return a project class use Object in its place. Call them with
+ * invokeExact and cast the result to the exact type shown, or the call fails.
+ */
+final class Project {
+
+  /**
+   * Path of the campus map, relative to the project root that the benchmarks are run from.
+   */
+  static final String CAMPUS = System.getProperty("campus.dot", "src/campus.dot");
+
+  /**
+   * () -> Object: a new Backend with the default route cache.
+   */
+  static final MethodHandle NEW_BACKEND =
+      constructor("Backend", MethodType.methodType(void.class));
+
+  /**
+   * (Object backend, String filename) -> void: Backend.loadGraphData.
+   */
+  static final MethodHandle LOAD_GRAPH_DATA = virtual("Backend", "loadGraphData",
+      MethodType.methodType(void.class, String.class));
+
+  /**
+   * (Object backend) -> List: Backend.getListOfAllLocations.
+   */
+  static final MethodHandle GET_LIST_OF_ALL_LOCATIONS = virtual("Backend",
+      "getListOfAllLocations", MethodType.methodType(List.class));
+
+  /**
+   * (Object backend, String start, String end) -> List: Backend.findShortestPath.
+   */
+  static final MethodHandle FIND_SHORTEST_PATH = virtual("Backend", "findShortestPath",
+      MethodType.methodType(List.class, String.class, String.class));
+
+  /**
+   * (Object backend, String start, String end) -> Object: Backend.findRoute, which findShortestPath
+   * and getTravelTimesOnPath answer from.
+   */
+  static final MethodHandle FIND_ROUTE = virtual("Backend", "findRoute",
+      MethodType.methodType(projectClass("Route"), String.class, String.class));
+
+  /**
+   * (Object backend, String start, String end) -> List: Backend.getTravelTimesOnPath.
+   */
+  static final MethodHandle GET_TRAVEL_TIMES_ON_PATH = virtual("Backend", "getTravelTimesOnPath",
+      MethodType.methodType(List.class, String.class, String.class));
+
+  /**
+   * (Object backend, String start) -> String: Backend.getMostDistantLocation.
+   */
+  static final MethodHandle GET_MOST_DISTANT_LOCATION = virtual("Backend",
+      "getMostDistantLocation", MethodType.methodType(String.class, String.class));
+
+  /**
+   * (Object backend) -> Object: Backend.getTravelTimeMatrix.
+   */
+  static final MethodHandle GET_TRAVEL_TIME_MATRIX = virtual("Backend", "getTravelTimeMatrix",
+      MethodType.methodType(projectClass("DistanceMatrix")));
+
+  /**
+   * (Object backend, List updates) -> void: Backend.updateEdges.
+   */
+  static final MethodHandle UPDATE_EDGES = virtual("Backend", "updateEdges",
+      MethodType.methodType(void.class, List.class));
+
+  /**
+   * (Object backend) -> Object: the FrozenGraph of Backend.getSnapshot.
+   */
+  static final MethodHandle GET_SNAPSHOT_GRAPH = MethodHandles.filterReturnValue(
+      virtual("Backend", "getSnapshot", MethodType.methodType(projectClass("RoutingSnapshot"))),
+      virtual("RoutingSnapshot", "getGraph", MethodType.methodType(projectClass("FrozenGraph"))));
+
+  /**
+   * (Object graph) -> Object: DistanceMatrix.compute on the common ForkJoinPool.
+   */
+  static final MethodHandle COMPUTE_DISTANCE_MATRIX = staticMethod("DistanceMatrix", "compute",
+      MethodType.methodType(projectClass("DistanceMatrix"), projectClass("IntGraph")));
+
+  /**
+   * (String from, String to, double seconds) -> Object: a new EdgeUpdate.
+   */
+  static final MethodHandle NEW_EDGE_UPDATE = constructor("EdgeUpdate",
+      MethodType.methodType(void.class, String.class, String.class, double.class));
+
+  /**
+   * () -> Object: a new, empty OpenHashtableMap.
+   */
+  static final MethodHandle NEW_OPEN_HASHTABLE_MAP =
+      constructor("OpenHashtableMap", MethodType.methodType(void.class));
+
+  /**
+   * () -> Object: a new, empty ConcurrentHashtableMap.
+   */
+  static final MethodHandle NEW_CONCURRENT_HASHTABLE_MAP =
+      constructor("ConcurrentHashtableMap", MethodType.methodType(void.class));
+
+  /**
+   * (Object map, Object key, Object value) -> void: MapADT.put.
+   */
+  static final MethodHandle MAP_PUT = virtual("MapADT", "put",
+      MethodType.methodType(void.class, Object.class, Object.class));
+
+  /**
+   * (Object map, Object key) -> Object: MapADT.get.
+   */
+  static final MethodHandle MAP_GET = virtual("MapADT", "get",
+      MethodType.methodType(Object.class, Object.class));
+
+  /**
+   * () -> Object: a new, empty ObjectIntHashMap.
+   */
+  static final MethodHandle NEW_OBJECT_INT_HASH_MAP =
+      constructor("ObjectIntHashMap", MethodType.methodType(void.class));
+
+  /**
+   * (Object map, Object key, int value) -> void: ObjectIntHashMap.put.
+   */
+  static final MethodHandle OBJECT_INT_PUT = virtual("ObjectIntHashMap", "put",
+      MethodType.methodType(void.class, Object.class, int.class));
+
+  /**
+   * (Object map, Object key, int missing) -> int: ObjectIntHashMap.get.
+   */
+  static final MethodHandle OBJECT_INT_GET = virtual("ObjectIntHashMap", "get",
+      MethodType.methodType(int.class, Object.class, int.class));
+
+  private Project() {
+  }
+
+  /**
+   * Returns a Backend with the graph in filename loaded.
+   *
+   * @param filename the DOT file to load
+   * @return the loaded Backend
+   * @throws Throwable if the file cannot be loaded
+   */
+  static Object loadedBackend(String filename) throws Throwable {
+    Object backend = (Object) NEW_BACKEND.invokeExact();
+    LOAD_GRAPH_DATA.invokeExact(backend, filename);
+    return backend;
+  }
+
+  /**
+   * Turns a Backend's metrics on or off. Only meant for setup, so it goes through reflection.
+   *
+   * @param backend the Backend
+   * @param enabled true to record metrics
+   * @throws Exception if the Backend has no metrics
+   */
+  static void setMetricsEnabled(Object backend, boolean enabled) throws Exception {
+    Object metrics = backend.getClass().getMethod("getMetrics").invoke(backend);
+    metrics.getClass().getMethod("setEnabled", boolean.class).invoke(metrics, enabled);
+  }
+
+  /**
+   * Returns the DOT file for a graph parameter: "campus" for the campus map, or a DotGenerator
+   * layout and number of edges such as "grid-10000" or "clustered-100000" for a generated map
+   * written to a temporary file. Generated maps always use the same seed, so every run measures
+   * the same map. Their files are deleted when the JVM exits.
+   *
+   * @param graph the graph parameter
+   * @return the path of the DOT file
+   * @throws Exception if the parameter names no layout or the map cannot be written
+   */
+  static String graphFile(String graph) throws Exception {
+    if (graph.equals("campus")) {
+      return CAMPUS;
+    }
+    int dash = graph.lastIndexOf('-');
+    if (dash < 0) {
+      throw new IllegalArgumentException("Unknown graph: " + graph);
+    }
+    Class<?> generator = Class.forName("DotGenerator");
+    Class<?> topology = Class.forName("DotGenerator$Topology");
+    Object layout = topology.getMethod("valueOf", String.class)
+        .invoke(null, graph.substring(0, dash).toUpperCase());
+    Object instance = generator.getConstructor(topology, int.class, long.class, boolean.class)
+        .newInstance(layout, Integer.parseInt(graph.substring(dash + 1)), 42L, false);
+    File file = File.createTempFile(graph, ".dot");
+    file.deleteOnExit();
+    generator.getMethod("write", File.class).invoke(instance, file);
+    return file.getPath();
+  }
+
+  /**
+   * Returns a project class, for the types of handles that take or return one.
+   */
+  private static Class<?> projectClass(String className) {
+    try {
+      return Class.forName(className);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Cannot find " + className + "; is the project built?", e);
+    }
+  }
+
+  /**
+   * Returns a handle on a public constructor of a project class, typed to return Object.
+   */
+  private static MethodHandle constructor(String className, MethodType type) {
+    try {
+      return MethodHandles.publicLookup().findConstructor(Class.forName(className), type)
+          .asType(type.changeReturnType(Object.class));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot find " + className + "; is the project built?", e);
+    }
+  }
+
+  /**
+   * Returns a handle on a public static method of a project class, typed to take and return
+   * Object in place of project classes.
+   */
+  private static MethodHandle staticMethod(String className, String name, MethodType type) {
+    try {
+      MethodType erased = type;
+      for (int i = 0; i < type.parameterCount(); i++) {
+        if (type.parameterType(i).getPackageName().isEmpty()) {
+          erased = erased.changeParameterType(i, Object.class);
+        }
+      }
+      if (type.returnType().getPackageName().isEmpty()) {
+        erased = erased.changeReturnType(Object.class);
+      }
+      return MethodHandles.publicLookup().findStatic(Class.forName(className), name, type)
+          .asType(erased);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot find " + className + "." + name
+          + "; is the project built?", e);
+    }
+  }
+
+  /**
+   * Returns a handle on a public instance method of a project class, typed to take the receiver
+   * as an Object and to return Object in place of a project class.
+   */
+  private static MethodHandle virtual(String className, String name, MethodType type) {
+    try {
+      Class<?> owner = Class.forName(className);
+      Class<?> returned = type.returnType().getPackageName().isEmpty() ? Object.class
+          : type.returnType();
+      return MethodHandles.publicLookup().findVirtual(owner, name, type)
+          .asType(type.insertParameterTypes(0, Object.class).changeReturnType(returned));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Cannot find " + className + "." + name
+          + "; is the project built?", e);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package jmh;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time and allocation of the Backend's queries between random locations: findShortestPath,
+ * getTravelTimesOnPath and getMostDistantLocation. Each operation takes the next of a fixed,
+ * seeded sequence of random pairs. On the campus map the pairs repeat well within a measurement,
+ * so those scores are mostly route cache hits. A clustered map of 100,000 edges has 20,000
+ * buildings and far more pairs than the route cache holds, so nearly every query there is a
+ * contraction hierarchy search.
+ * getMostDistantLocation is never cached and always searches the whole map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteBenchmark {
+
+  /**
+   * Number of pairs in the sequence, a power of two.
+   */
+  private static final int PAIRS = 1 << 16;
+
+  /**
+   * The graph to query: "campus", or a DotGenerator layout and number of edges.
+   */
+  @Param({"campus", "clustered-100000"})
+  public String graph;
+
+  private Object backend;
+
+  private String[] starts;
+
+  private String[] ends;
+
+  private int next;
+
+  @Setup(Level.Trial)
+  public void load() throws Throwable {
+    backend = Project.loadedBackend(Project.graphFile(graph));
+    @SuppressWarnings("unchecked")
+    List<String> locations = (List<String>) Project.GET_LIST_OF_ALL_LOCATIONS.invokeExact(backend);
+    Random random = new Random(42);
+    starts = new String[PAIRS];
+    ends = new String[PAIRS];
+    for (int i = 0; i < PAIRS; i++) {
+      starts[i] = locations.get(random.nextInt(locations.size()));
+      ends[i] = locations.get(random.nextInt(locations.size()));
+    }
+  }
+
+  @Benchmark
+  public List<?> findShortestPath() throws Throwable {
+    int i = next++ & (PAIRS - 1);
+    return (List<?>) Project.FIND_SHORTEST_PATH.invokeExact(backend, starts[i], ends[i]);
+  }
+
+  @Benchmark
+  public List<?> getTravelTimesOnPath() throws Throwable {
+    int i = next++ & (PAIRS - 1);
+    return (List<?>) Project.GET_TRAVEL_TIMES_ON_PATH.invokeExact(backend, starts[i], ends[i]);
+  }
+
+  @Benchmark
+  public String getMostDistantLocation() throws Throwable {
+    int i = next++ & (PAIRS - 1);
+    return (String) Project.GET_MOST_DISTANT_LOCATION.invokeExact(backend, starts[i]);
+  }
+}
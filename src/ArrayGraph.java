@@ -0,0 +1,821 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Array-backed implementation of GraphADT for String location names and Double walking times.
+ * Every node name is interned to a dense int id in the graph's SymbolTable when it is inserted, and
+ * read-only copies of that table are shared with everything built from the graph. The edges
+ * leaving and entering each node are kept in primitive int/double arrays indexed by that id, and a
+ * hash index from the packed (pred, succ) id pair to the edge's position in those arrays makes
+ * insertEdge, removeEdge, containsEdge and getEdge O(1) amortized. Ids of removed nodes are
+ * recycled by later inserts.
+ *
+ * Shortest path queries are answered by a DijkstraSearch that is kept between calls, so an
+ * ArrayGraph must not be queried from several threads at once.
+ */
+public class ArrayGraph implements GraphADT<String, Double>, IntGraph {
+
+  /**
+   * Number of node ids allocated up front.
+   */
+  private static final int INITIAL_NODES = 16;
+
+  /**
+   * Number of edge slots allocated for a node when its first edge is added.
+   */
+  private static final int INITIAL_DEGREE = 4;
+
+  /**
+   * Ids of the nodes' names. Ids freed by removeNode are reused by later inserts.
+   */
+  protected SymbolTable symbols;
+
+  /**
+   * Successor ids of the outgoing edges of every node. Only the first outDegree[u] entries of
+   * outTargets[u] are in use.
+   */
+  protected int[][] outTargets;
+
+  /**
+   * Weights of the outgoing edges of every node, parallel to outTargets.
+   */
+  protected double[][] outWeights;
+
+  /**
+   * Number of outgoing edges of every node.
+   */
+  protected int[] outDegree;
+
+  /**
+   * Predecessor ids of the incoming edges of every node. This reverse adjacency is maintained as
+   * edges are inserted, so it is complete as soon as a graph has been loaded. It lets removeNode
+   * detach incoming edges without scanning the whole graph and lets searches run backwards from a
+   * destination.
+   */
+  protected int[][] inSources;
+
+  /**
+   * Weights of the incoming edges of every node, parallel to inSources.
+   */
+  protected double[][] inWeights;
+
+  /**
+   * Number of incoming edges of every node.
+   */
+  protected int[] inDegree;
+
+  /**
+   * X coordinate of every node, or NaN if the node has no coordinates.
+   */
+  protected double[] xs;
+
+  /**
+   * Y coordinate of every node, or NaN if the node has no coordinates.
+   */
+  protected double[] ys;
+
+  /**
+   * Position of every edge (pred, succ) within outTargets[pred].
+   */
+  protected LongIntHashMap outSlots;
+
+  /**
+   * Position of every edge (pred, succ) within inSources[succ].
+   */
+  protected LongIntHashMap inSlots;
+
+  /**
+   * Number of edges currently in the graph.
+   */
+  protected int edgeCount;
+
+  /**
+   * Search state reused by every shortest path query, created on the first query.
+   */
+  protected DijkstraSearch search;
+
+  /**
+   * Bidirectional search state reused by point-to-point queries, created on first use.
+   */
+  protected BidirectionalSearch bidirectional;
+
+  /**
+   * Number of nodes settled by the most recent query of any kind.
+   */
+  protected int lastSettledCount;
+
+  /**
+   * Counter bumped by every change to the graph's nodes or edges and by contract(), used to tell
+   * whether precomputed structures such as the contraction hierarchy still describe the graph.
+   */
+  protected long version;
+
+  /**
+   * Contraction hierarchy built by the last call to contract(), or null.
+   */
+  protected ContractionHierarchy hierarchy;
+
+  /**
+   * Value of version when hierarchy was built.
+   */
+  protected long hierarchyVersion;
+
+  /**
+   * Query state for hierarchy, created on first use.
+   */
+  protected ContractionHierarchySearch hierarchySearch;
+
+  /**
+   * Creates an empty graph.
+   */
+  public ArrayGraph() {
+    symbols = new SymbolTable();
+    outTargets = new int[INITIAL_NODES][];
+    outWeights = new double[INITIAL_NODES][];
+    outDegree = new int[INITIAL_NODES];
+    inSources = new int[INITIAL_NODES][];
+    inWeights = new double[INITIAL_NODES][];
+    inDegree = new int[INITIAL_NODES];
+    xs = new double[INITIAL_NODES];
+    ys = new double[INITIAL_NODES];
+    outSlots = new LongIntHashMap();
+    inSlots = new LongIntHashMap();
+  }
+
+  /**
+   * Insert a new node into the graph.
+   *
+   * @param data is the data item stored in the new node
+   * @return true if the data is unique and can be inserted into a new node, or false if this data
+   *     is already in the graph
+   * @throws NullPointerException if data is null
+   */
+  public boolean insertNode(String data) {
+    if (data == null) {
+      throw new NullPointerException("Cannot insert a null node");
+    }
+    int id = symbols.add(data);
+    if (id < 0) {
+      return false;
+    }
+    if (id == xs.length) {
+      growNodes(xs.length * 2);
+    }
+    xs[id] = Double.NaN;
+    ys[id] = Double.NaN;
+    version++;
+    return true;
+  }
+
+  /**
+   * Remove a node from the graph. And also remove all edges adjacent to that node.
+   *
+   * @param data is the data item stored in the node to be removed
+   * @return true if a vertex with data is found and removed, or false if that data value is not
+   *     found in the graph
+   * @throws NullPointerException if data is null
+   */
+  public boolean removeNode(String data) {
+    if (data == null) {
+      throw new NullPointerException("Cannot remove a null node");
+    }
+    int id = symbols.remove(data);
+    if (id < 0) {
+      return false;
+    }
+
+    // Detach outgoing edges from their successors' incoming lists (this also handles self loops)
+    for (int i = 0; i < outDegree[id]; i++) {
+      int succ = outTargets[id][i];
+      long key = LongIntHashMap.pack(id, succ);
+      outSlots.remove(key, -1);
+      removeIncoming(succ, inSlots.remove(key, -1));
+    }
+    edgeCount -= outDegree[id];
+    outDegree[id] = 0;
+
+    // Detach the remaining incoming edges from their predecessors' outgoing lists
+    for (int i = 0; i < inDegree[id]; i++) {
+      int pred = inSources[id][i];
+      long key = LongIntHashMap.pack(pred, id);
+      inSlots.remove(key, -1);
+      removeOutgoing(pred, outSlots.remove(key, -1));
+    }
+    edgeCount -= inDegree[id];
+    inDegree[id] = 0;
+
+    version++;
+    return true;
+  }
+
+  /**
+   * Check whether the graph contains a node with the provided data.
+   *
+   * @param data the node contents to check for
+   * @return true if data item is stored in a node within the graph, or false otherwise
+   */
+  public boolean containsNode(String data) {
+    return symbols.idOf(data) >= 0;
+  }
+
+  /**
+   * Return the number of nodes in the graph.
+   *
+   * @return the number of nodes in the graph
+   */
+  public int getNodeCount() {
+    return symbols.size();
+  }
+
+  /**
+   * Insert a new directed edge with positive edges weight into the graph. Or if an edge between
+   * pred and succ already exists, update the data stored in that edge with the new weight.
+   *
+   * @param pred is the data item contained in the new edge's predecesor node
+   * @param succ is the data item contained in the new edge's successor node
+   * @param weight is the non-negative data item stored in the new edge
+   * @return true if the edge could be inserted or updated, or false if the pred or succ data are
+   *     not found in any graph nodes
+   * @throws NullPointerException if weight is null
+   * @throws IllegalArgumentException if weight is negative or NaN
+   */
+  public boolean insertEdge(String pred, String succ, Double weight) {
+    if (weight == null) {
+      throw new NullPointerException("Cannot insert an edge with a null weight");
+    }
+    double value = weight;
+    if (!(value >= 0.0)) {
+      throw new IllegalArgumentException("Edge weights must be non-negative: " + weight);
+    }
+    int from = idOf(pred);
+    int to = idOf(succ);
+    if (from < 0 || to < 0) {
+      return false;
+    }
+    long key = LongIntHashMap.pack(from, to);
+    int slot = outSlots.get(key, -1);
+    if (slot >= 0) {
+      outWeights[from][slot] = value;
+      inWeights[to][inSlots.get(key, -1)] = value;
+      version++;
+      return true;
+    }
+    appendEdge(from, to, value, key);
+    return true;
+  }
+
+  /**
+   * Insert a new directed edge between two node ids, unless the graph already has an edge from pred
+   * to succ, in which case that edge keeps its weight. Map loaders use this to keep the first of
+   * repeated edges with a single lookup.
+   *
+   * @param pred id of the new edge's predecessor node
+   * @param succ id of the new edge's successor node
+   * @param weight is the non-negative data item stored in the new edge
+   * @return true if the edge was inserted, or false if it was already present
+   * @throws IllegalArgumentException if weight is negative or NaN, or either id is not in use
+   */
+  public boolean insertEdgeIfAbsent(int pred, int succ, double weight) {
+    if (!(weight >= 0.0)) {
+      throw new IllegalArgumentException("Edge weights must be non-negative: " + weight);
+    }
+    if (nameOf(pred) == null || nameOf(succ) == null) {
+      throw new IllegalArgumentException("No node with id " + (nameOf(pred) == null ? pred : succ));
+    }
+    long key = LongIntHashMap.pack(pred, succ);
+    if (outSlots.containsKey(key)) {
+      return false;
+    }
+    appendEdge(pred, succ, weight, key);
+    return true;
+  }
+
+  /**
+   * Appends a new edge to the adjacency arrays of both of its nodes.
+   */
+  private void appendEdge(int from, int to, double value, long key) {
+    // Append to the predecessor's outgoing arrays
+    int out = outDegree[from];
+    if (outTargets[from] == null) {
+      outTargets[from] = new int[INITIAL_DEGREE];
+      outWeights[from] = new double[INITIAL_DEGREE];
+    } else if (out == outTargets[from].length) {
+      outTargets[from] = Arrays.copyOf(outTargets[from], out * 2);
+      outWeights[from] = Arrays.copyOf(outWeights[from], out * 2);
+    }
+    outTargets[from][out] = to;
+    outWeights[from][out] = value;
+    outDegree[from] = out + 1;
+    outSlots.put(key, out);
+
+    // Append to the successor's incoming array
+    int in = inDegree[to];
+    if (inSources[to] == null) {
+      inSources[to] = new int[INITIAL_DEGREE];
+      inWeights[to] = new double[INITIAL_DEGREE];
+    } else if (in == inSources[to].length) {
+      inSources[to] = Arrays.copyOf(inSources[to], in * 2);
+      inWeights[to] = Arrays.copyOf(inWeights[to], in * 2);
+    }
+    inSources[to][in] = from;
+    inWeights[to][in] = value;
+    inDegree[to] = in + 1;
+    inSlots.put(key, in);
+
+    edgeCount++;
+    version++;
+  }
+
+  /**
+   * Remove an edge from the graph.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return true if the edge could be removed, or false if such an edge is not found in the graph
+   */
+  public boolean removeEdge(String pred, String succ) {
+    int from = idOf(pred);
+    int to = idOf(succ);
+    if (from < 0 || to < 0) {
+      return false;
+    }
+    long key = LongIntHashMap.pack(from, to);
+    int slot = outSlots.remove(key, -1);
+    if (slot < 0) {
+      return false;
+    }
+    removeOutgoing(from, slot);
+    removeIncoming(to, inSlots.remove(key, -1));
+    edgeCount--;
+    version++;
+    return true;
+  }
+
+  /**
+   * Check if edge is in the graph.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return true if the edge is found in the graph, or false other
+   */
+  public boolean containsEdge(String pred, String succ) {
+    int from = idOf(pred);
+    int to = idOf(succ);
+    return from >= 0 && to >= 0 && outSlots.containsKey(LongIntHashMap.pack(from, to));
+  }
+
+  /**
+   * Return the data associated with a specific edge.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return the non-negative data from the edge between those nodes
+   * @throws NoSuchElementException if either node or the edge between them are not found within
+   *     this graph
+   */
+  public Double getEdge(String pred, String succ) {
+    int from = idOf(pred);
+    int to = idOf(succ);
+    int slot = from < 0 || to < 0 ? -1 : outSlots.get(LongIntHashMap.pack(from, to), -1);
+    if (slot < 0) {
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    }
+    return outWeights[from][slot];
+  }
+
+  /**
+   * Return the number of edges in the graph.
+   *
+   * @return the number of edges in the graph
+   */
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from the node with the
+   * provided start value through the node with the provided end value, found with Dijkstra's
+   * shortest path algorithm, or with the contraction hierarchy if contract() has been called
+   * since the graph last changed.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public List<String> shortestPathData(String start, String end) {
+    if (isContracted()) {
+      return searchHierarchy(start, end).route().getNodes();
+    }
+    return search(start, end, null).pathTo(idOf(end));
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from start to end, found
+   * with an A* search guided by heuristic. For any admissible heuristic the path has the same cost
+   * as the one returned by shortestPathData(start, end).
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @param heuristic admissible lower bound on the remaining distance, or null for Dijkstra
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public List<String> shortestPathData(String start, String end, SearchHeuristic heuristic) {
+    return search(start, end, heuristic).pathTo(idOf(end));
+  }
+
+  /**
+   * Returns the cost of the path (sum over edge weights) of the shortest path from the node
+   * containing the start data to the node containing the end data, found with Dijkstra's shortest
+   * path algorithm, or with the contraction hierarchy if contract() has been called since the
+   * graph last changed.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public double shortestPathCost(String start, String end) {
+    if (isContracted()) {
+      return searchHierarchy(start, end).getDistance();
+    }
+    return search(start, end, null).getDistance(idOf(end));
+  }
+
+  /**
+   * Returns the shortest path from the node containing the start data to the node containing the
+   * end data, with the weight of each edge on it and its total cost, all from one Dijkstra search
+   * (or one contraction hierarchy search if contract() has been called since the graph last
+   * changed).
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public Route<String> shortestRoute(String start, String end) {
+    if (isContracted()) {
+      return searchHierarchy(start, end).route();
+    }
+    return search(start, end, null).routeTo(idOf(end));
+  }
+
+  /**
+   * Preprocesses the current graph into a contraction hierarchy. Until the graph is next changed,
+   * shortestPathData, shortestPathCost and shortestRoute answer from the hierarchy, which settles a
+   * tiny fraction of the nodes Dijkstra does. Any insert or removal makes the hierarchy stale and
+   * those methods fall back to Dijkstra until contract() is called again. Contracting also bumps
+   * the version, so results keyed by it tell the contracted graph from the one before.
+   *
+   * @return the new hierarchy
+   */
+  public ContractionHierarchy contract() {
+    hierarchy = new ContractionHierarchy(this);
+    hierarchyVersion = ++version;
+    hierarchySearch = null;
+    return hierarchy;
+  }
+
+  /**
+   * Returns an immutable copy of the graph's current state in compressed sparse row form, with the
+   * same node ids and, if the graph is contracted, the same contraction hierarchy. Later changes to
+   * this graph do not affect the copy.
+   *
+   * @return the frozen copy
+   */
+  public FrozenGraph freeze() {
+    return new FrozenGraph(this, isContracted() ? hierarchy : null);
+  }
+
+  /**
+   * Returns whether a contraction hierarchy exists that describes the graph's current state.
+   *
+   * @return true if queries are currently answered from the hierarchy
+   */
+  public boolean isContracted() {
+    return hierarchy != null && hierarchyVersion == version;
+  }
+
+  /**
+   * Returns the graph's version, which changes whenever a node or edge is inserted, removed or
+   * reweighted, and whenever the graph is contracted.
+   *
+   * @return the current version counter
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the shortest route from start to end found with an A* search guided by heuristic. For
+   * any admissible heuristic the route has the same cost as shortestRoute(start, end).
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @param heuristic admissible lower bound on the remaining distance, or null for Dijkstra
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public Route<String> shortestRoute(String start, String end, SearchHeuristic heuristic) {
+    return search(start, end, heuristic).routeTo(idOf(end));
+  }
+
+  /**
+   * Returns the number of nodes settled by the most recent point-to-point or tree query.
+   *
+   * @return the settled node count, or 0 before the first query
+   */
+  public int getLastSettledCount() {
+    return lastSettledCount;
+  }
+
+  /**
+   * Returns the shortest route from start to end found with a bidirectional Dijkstra search, which
+   * grows one search forward from start and one backward from end over the incoming edges until
+   * they meet. The route has the same cost as shortestRoute(start, end).
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public Route<String> shortestRouteBidirectional(String start, String end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    if (bidirectional == null) {
+      bidirectional = new BidirectionalSearch(this);
+    }
+    boolean found = bidirectional.run(source, target);
+    lastSettledCount = bidirectional.getSettledCount();
+    if (!found) {
+      throw new NoSuchElementException("No path from " + start + " to " + end);
+    }
+    return bidirectional.route();
+  }
+
+  /**
+   * Attaches planar coordinates to a node, for use by straight-line heuristics.
+   *
+   * @param data the node to attach the coordinates to
+   * @param x the node's x coordinate
+   * @param y the node's y coordinate
+   * @return true if the coordinates were stored, or false if the node is not in the graph
+   */
+  public boolean setCoordinates(String data, double x, double y) {
+    int id = idOf(data);
+    if (id < 0) {
+      return false;
+    }
+    xs[id] = x;
+    ys[id] = y;
+    return true;
+  }
+
+  /**
+   * Returns whether a node has coordinates attached.
+   *
+   * @param id a node id
+   * @return true if setCoordinates has been called for the node
+   */
+  public boolean hasCoordinates(int id) {
+    return !Double.isNaN(xs[id]) && !Double.isNaN(ys[id]);
+  }
+
+  /**
+   * Returns a node's x coordinate.
+   *
+   * @param id a node id
+   * @return the x coordinate, or NaN if the node has none
+   */
+  public double getX(int id) {
+    return xs[id];
+  }
+
+  /**
+   * Returns a node's y coordinate.
+   *
+   * @param id a node id
+   * @return the y coordinate, or NaN if the node has none
+   */
+  public double getY(int id) {
+    return ys[id];
+  }
+
+  /**
+   * Returns the shortest paths from the node containing the start data to every node reachable
+   * from it, computed by a single run of Dijkstra's shortest path algorithm.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return the shortest path tree rooted at the start node
+   * @throws NoSuchElementException if start is not found in the graph
+   */
+  public ShortestPathTree<String> shortestPathTree(String start) {
+    int source = requireId(start);
+    if (search == null) {
+      search = new DijkstraSearch(this);
+    }
+    search.run(source, -1);
+    lastSettledCount = search.getSettledCount();
+    return search.toTree();
+  }
+
+  /**
+   * Returns the id of a node, or -1 if the graph has no such node.
+   *
+   * @param data the node name to look up
+   * @return the node's id, or -1
+   */
+  public int idOf(String data) {
+    return symbols.idOf(data);
+  }
+
+  /**
+   * Returns the name of the node with the given id, or null if the id is not in use.
+   *
+   * @param id the node id to look up
+   * @return the node's name, or null
+   */
+  public String nameOf(int id) {
+    return symbols.nameOf(id);
+  }
+
+  /**
+   * Returns one past the largest node id currently handed out. Every live node has an id in
+   * [0, getIdLimit()).
+   *
+   * @return the exclusive upper bound on node ids
+   */
+  public int getIdLimit() {
+    return symbols.getIdLimit();
+  }
+
+  /**
+   * Returns a read-only copy of the graph's symbol table. The same copy is returned until a node
+   * is next inserted or removed.
+   *
+   * @return the graph's current names and ids
+   */
+  public SymbolTable getSymbols() {
+    return symbols.freeze();
+  }
+
+  /**
+   * Returns the number of edges leaving node u.
+   *
+   * @param u a node id
+   * @return the out-degree of u
+   */
+  public int outDegree(int u) {
+    return outDegree[u];
+  }
+
+  /**
+   * Returns the successor of the i-th edge leaving node u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the id of the edge's successor node
+   */
+  public int outTarget(int u, int i) {
+    return outTargets[u][i];
+  }
+
+  /**
+   * Returns the weight of the i-th edge leaving node u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the non-negative weight of the edge
+   */
+  public double outWeight(int u, int i) {
+    return outWeights[u][i];
+  }
+
+  /**
+   * Returns the number of edges entering node v.
+   *
+   * @param v a node id
+   * @return the in-degree of v
+   */
+  public int inDegree(int v) {
+    return inDegree[v];
+  }
+
+  /**
+   * Returns the predecessor of the i-th edge entering node v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the id of the edge's predecessor node
+   */
+  public int inSource(int v, int i) {
+    return inSources[v][i];
+  }
+
+  /**
+   * Returns the weight of the i-th edge entering node v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the non-negative weight of the edge
+   */
+  public double inWeight(int v, int i) {
+    return inWeights[v][i];
+  }
+
+  /**
+   * Looks up the id of a node that a query requires to exist.
+   */
+  private int requireId(String data) {
+    int id = idOf(data);
+    if (id < 0) {
+      throw new NoSuchElementException(data + " is not in the graph");
+    }
+    return id;
+  }
+
+  /**
+   * Runs a contraction hierarchy query from start to end.
+   *
+   * @return the hierarchy search, positioned on the finished query
+   * @throws NoSuchElementException if either node is missing or end cannot be reached from start
+   */
+  private ContractionHierarchySearch searchHierarchy(String start, String end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    if (hierarchySearch == null) {
+      hierarchySearch = new ContractionHierarchySearch(hierarchy);
+    }
+    boolean found = hierarchySearch.run(source, target);
+    lastSettledCount = hierarchySearch.getSettledCount();
+    if (!found) {
+      throw new NoSuchElementException("No path from " + start + " to " + end);
+    }
+    return hierarchySearch;
+  }
+
+  /**
+   * Runs the shared search from start until end is settled, as A* if a heuristic is given and as
+   * Dijkstra otherwise.
+   *
+   * @return the search, positioned on the finished query
+   * @throws NoSuchElementException if either node is missing or end cannot be reached from start
+   */
+  private DijkstraSearch search(String start, String end, SearchHeuristic heuristic) {
+    int source = requireId(start);
+    int target = requireId(end);
+    if (search == null) {
+      search = new DijkstraSearch(this);
+    }
+    boolean found = search.run(source, target, heuristic);
+    lastSettledCount = search.getSettledCount();
+    if (!found) {
+      throw new NoSuchElementException("No path from " + start + " to " + end);
+    }
+    return search;
+  }
+
+  /**
+   * Removes the outgoing edge stored at slot of node from by moving the node's last outgoing edge
+   * into that slot.
+   */
+  private void removeOutgoing(int from, int slot) {
+    int last = --outDegree[from];
+    if (slot != last) {
+      int moved = outTargets[from][last];
+      outTargets[from][slot] = moved;
+      outWeights[from][slot] = outWeights[from][last];
+      outSlots.put(LongIntHashMap.pack(from, moved), slot);
+    }
+  }
+
+  /**
+   * Removes the incoming edge stored at slot of node to by moving the node's last incoming edge
+   * into that slot.
+   */
+  private void removeIncoming(int to, int slot) {
+    int last = --inDegree[to];
+    if (slot != last) {
+      int moved = inSources[to][last];
+      inSources[to][slot] = moved;
+      inWeights[to][slot] = inWeights[to][last];
+      inSlots.put(LongIntHashMap.pack(moved, to), slot);
+    }
+  }
+
+  /**
+   * Grows every per-node array to hold the given number of ids.
+   */
+  private void growNodes(int capacity) {
+    outTargets = Arrays.copyOf(outTargets, capacity);
+    outWeights = Arrays.copyOf(outWeights, capacity);
+    outDegree = Arrays.copyOf(outDegree, capacity);
+    inSources = Arrays.copyOf(inSources, capacity);
+    inWeights = Arrays.copyOf(inWeights, capacity);
+    inDegree = Arrays.copyOf(inDegree, capacity);
+    xs = Arrays.copyOf(xs, capacity);
+    ys = Arrays.copyOf(ys, capacity);
+  }
+}
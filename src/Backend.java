@@ -1,128 +1,779 @@
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Loads campus maps and answers routing queries over them. Queries may be made from any number of
+ * threads at once and never block: each one reads the current RoutingSnapshot once and runs on
+ * that immutable copy of the map with its own thread's search state. Loads are serialized with
+ * each other, build up the next map in graph while queries keep using the last snapshot, and
+ * finish by publishing a new snapshot in a single atomic swap. Batches of edge updates are applied
+ * the same way, and repair what the last snapshot had computed instead of starting over. Reloading
+ * a map file that has changed, by hand or through a MapWatcher, applies just the difference.
+ */
 public class Backend implements BackendInterface{
   
   /**
    * Stores a series of nodes and edges. Each node in the graph is represented by a string
-   * and each edge has a weight, represented by a double. 
+   * and each edge has a weight, represented by a double. Only touched while holding this
+   * backend's lock.
    */
-  private GraphADT<String, Double> graph;
+  private ArrayGraph graph;
   
   /**
-   * Stores the file that is entered when loading the graph's data. 
+   * Stores the file that is entered when loading the graph's data. Only touched while holding
+   * this backend's lock.
    */
   private File file;
   
   /**
-   * Backend constructor that initializes the graph.
+   * Stores the name of every location loaded into the graph, in the order they were first seen.
+   * Only touched while holding this backend's lock.
+   */
+  private List<String> allLocations;
+  
+  /**
+   * Where the landmark index of maps without coordinates is kept between runs, or null to build
+   * it on every load. Only touched while holding this backend's lock.
+   */
+  private File landmarkCache;
+  
+  /**
+   * Number of landmarks used to guide searches over maps without coordinates.
+   */
+  private static final int LANDMARK_COUNT = 8;
+  
+  /**
+   * Default size limit of the route cache. Campus routes take a few hundred bytes each, so this
+   * holds the routes between every pair of a few hundred locations.
+   */
+  private static final long ROUTE_CACHE_BYTES = 16L << 20;
+  
+  /**
+   * The map every query runs on, replaced as a whole whenever a load finishes.
+   */
+  private final AtomicReference<RoutingSnapshot> current;
+  
+  /**
+   * Routes found by findRoute(), reused until the graph changes.
+   */
+  private final RouteCache routeCache;
+  
+  /**
+   * Load and query measurements, off until enabled.
+   */
+  private final BackendMetrics metrics;
+  
+  /**
+   * The snapshot the published map was frozen from by loadGraphSnapshot(), while its body is yet
+   * to be verified and copied into graph, or null. Only touched while holding this backend's lock.
+   */
+  private GraphSnapshot mapped;
+  
+  /**
+   * True while the published map came straight from a snapshot and has yet to be contracted and,
+   * without coordinates, given landmarks. Only touched while holding this backend's lock.
+   */
+  private boolean unprepared;
+  
+  /**
+   * Why the body of the last snapshot loaded turned out to be corrupt, or null.
+   */
+  private volatile IOException snapshotFailure;
+  
+  /**
+   * Backend constructor that initializes the graph, with a route cache that favors the most
+   * frequently asked for routes.
    */
   public Backend() {
-    graph = new GraphPlaceholder();
+    this(new RouteCache(ROUTE_CACHE_BYTES, RouteCache.Policy.TINY_LFU));
+  }
+  
+  /**
+   * Backend constructor that initializes the graph and answers repeated route queries from the
+   * given cache.
+   * 
+   * @param routeCache the cache for findRoute() and the queries built on it
+   */
+  public Backend(RouteCache routeCache) {
+    graph = new ArrayGraph();
+    allLocations = new ArrayList<>();
+    current = new AtomicReference<>(new RoutingSnapshot(graph.freeze(), null, allLocations, null));
+    this.routeCache = routeCache;
+    metrics = new BackendMetrics(routeCache);
   }
   
   /**
    * Takes in a file and loads in all of the nodes and edges stored within it.
-   * Every line in the file should be in the following format:
+   * Every edge statement in the file should be in the following format:
    * "nodeName" -> "neighborNodeName" [seconds="double"];
+   * Nodes may also be given coordinates on lines in the following format, which lets point-to-point
+   * searches head straight for their destination:
+   * "nodeName" [pos="x,y"];
+   * The file is read as DOT, so statements may span lines, and comments and other attributes are
+   * allowed. Large files are memory-mapped and parsed on several threads, which loads exactly the
+   * same graph.
    * 
    * @param filename the name of the file we are loading nodes and edges into
    * the graph from
-   * @throws IOException if filename is not a file that can be found
+   * @throws IOException if filename is not a file that can be found or is not valid DOT, in which
+   * case the loaded map is left as it was
    */
-  public void loadGraphData(String filename) throws IOException{
-    file = new File(filename);
-    Scanner scnr = new Scanner(file);
-
-    // Loop through every line in the provided file
-    while(scnr.hasNextLine()) {
-      String line = scnr.nextLine();
-
-      if(line.contains("->")) {
-        String[] temp = line.split("->");
-        String start = temp[0].trim();
-        start = start.replace("\"","");
-
-        // Insert start into graph and allLocations if it's not already in there
-        if(!allLocations.contains(start)){
-          allLocations.add(start);
-        }
-
-        if(!graph.containsNode(start)) {
-          graph.insertNode(start);
-        }
-
-        // Insert neighbor node into graph and allLocations if it's not already in there
-        String[] temp2 = temp[1].split("\"");
-        String end = temp2[1].trim();
-        if(!graph.containsNode(end)) {
-          graph.insertNode(end);
-        }
-
-        if(!allLocations.contains(end)){
-          allLocations.add(end);
-        }
-
-        // Only the edge would need to be added to the graph because allLocations does not contain edges
-        String[] temp3 = temp2[2].split("=");
-        String edge = temp3[1].trim();
-        edge = edge.replaceAll("];", "");
-        Double edgeValue = Double.parseDouble(edge);
-        if(!graph.containsEdge(start, end)) {
-          graph.insertEdge(start,  end,  edgeValue);
-        }
+  public synchronized void loadGraphData(String filename) throws IOException{
+    loadMapped();
+    File source = new File(filename);
+    boolean timed = metrics.isEnabled();
+    long start = System.nanoTime();
+    GraphLoadEvent parse = new GraphLoadEvent();
+    parse.begin();
+    
+    // The parser interns every name so each is only hashed once, and big files are split up. The
+    // file is parsed beside the map so a bad one changes nothing
+    ArrayGraph fresh = new ArrayGraph();
+    List<String> freshLocations = new ArrayList<>();
+    GraphLoader loader = new GraphLoader(fresh, freshLocations, timed || parse.isEnabled());
+    DotLoader.load(source, loader);
+    for(String location : freshLocations) {
+      if(graph.insertNode(location)) {
+        allLocations.add(location);
+      }
+      int id = fresh.idOf(location);
+      if(fresh.hasCoordinates(id)) {
+        graph.setCoordinates(location, fresh.getX(id), fresh.getY(id));
       }
     }
-
-    scnr.close();
-
+    for(String location : freshLocations) {
+      int u = fresh.idOf(location);
+      int pred = graph.idOf(location);
+      for(int i = 0; i < fresh.outDegree(u); i++) {
+        int succ = graph.idOf(fresh.nameOf(fresh.outTarget(u, i)));
+        graph.insertEdgeIfAbsent(pred, succ, fresh.outWeight(u, i));
+      }
+    }
+    file = source;
+    prepareGraph(parse, start, loader.internNanos, timed);
   }
   
   /**
-   * Gets a list of all the nodes in the graph by scanning through the graph again. 
+   * Loads the nodes, edges and coordinates saved by saveGraphSnapshot(). The snapshot is
+   * memory-mapped and nothing is parsed. If the DOT file it was saved from has changed since, that
+   * file is loaded instead and the snapshot is saved again.
    * 
-   * @return a list of all of the nodes in the graph
+   * Into an empty backend, the snapshot's edge arrays are copied in bulk into the map queries run
+   * on, which is published at once with the straight-line heuristic saved with it, or with
+   * bidirectional searches if it has none. Only the snapshot's header and index are checked first.
+   * A background thread then checks the rest of the file, copies it into the editable graph and
+   * contracts it, and publishes the map again with its hierarchy and, without coordinates,
+   * landmarks. Anything that changes the map finishes that copy first. Should the body turn out
+   * to be corrupt, the map is loaded from the snapshot's DOT file instead, or emptied if that
+   * cannot be read, and getSnapshotFailure() says why.
+   * 
+   * A snapshot loaded on top of another map is copied into the graph and prepared before it is
+   * published, as loadGraphData() does.
+   * 
+   * @param filename the name of the snapshot file to load
+   * @throws IOException if the snapshot cannot be read, if its header or index is corrupt or, when
+   * it is loaded on top of another map, any of it, or if it is stale and its DOT file cannot be
+   * loaded
    */
-  public List<String> getListOfAllLocations(){
-    List<String> returnList = new LinkedList<>();
-    Scanner scnr = null;
+  public synchronized void loadGraphSnapshot(String filename) throws IOException{
+    GraphSnapshot snapshot = GraphSnapshot.open(new File(filename));
+    if(snapshot.isStale()) {
+      loadGraphData(snapshot.getSource().getPath());
+      saveGraphSnapshot(filename);
+      return;
+    }
+    loadMapped();
+    boolean timed = metrics.isEnabled();
+    long start = System.nanoTime();
+    GraphLoadEvent parse = new GraphLoadEvent();
+    parse.begin();
+    if(graph.getIdLimit() == 0 && snapshot.getNodeCount() > 0) {
+      publishMapped(snapshot, parse, start, timed);
+      return;
+    }
+    snapshot.verify();
+    file = snapshot.getSource();
+    
+    int[] ids = new int[snapshot.getNodeCount()];
+    for(int v = 0; v < ids.length; v++) {
+      String name = snapshot.nameOf(v);
+      if(graph.insertNode(name)) {
+        allLocations.add(name);
+      }
+      ids[v] = graph.idOf(name);
+      if(snapshot.hasCoordinates(v)) {
+        graph.setCoordinates(name, snapshot.getX(v), snapshot.getY(v));
+      }
+    }
+    long interned = System.nanoTime();
+    for(int u = 0; u < ids.length; u++) {
+      for(int i = 0; i < snapshot.outDegree(u); i++) {
+        graph.insertEdgeIfAbsent(ids[u], ids[snapshot.outTarget(u, i)], snapshot.outWeight(u, i));
+      }
+    }
+    // Nothing is parsed, so copying the edges out of the snapshot counts as parsing
+    prepareGraph(parse, start, interned - start, timed);
+  }
+  
+  /**
+   * Publishes the graph of snapshot, frozen straight from its arrays, to an empty backend and
+   * starts preparing it in the background. See loadGraphSnapshot().
+   */
+  private void publishMapped(GraphSnapshot snapshot, GraphLoadEvent parse, long start,
+      boolean timed) throws IOException{
+    // The graph is empty, so copying the snapshot into it later gives every node its snapshot id
+    FrozenGraph frozen = snapshot.freeze(graph.getVersion() + 1);
+    int n = snapshot.getNodeCount();
+    double[] xs = new double[n];
+    double[] ys = new double[n];
+    for(int v = 0; v < n; v++) {
+      allLocations.add(frozen.nameOf(v));
+      xs[v] = frozen.getX(v);
+      ys[v] = frozen.getY(v);
+    }
+    file = snapshot.getSource();
+    mapped = snapshot;
+    unprepared = true;
+    snapshotFailure = null;
+    long parsed = System.nanoTime();
+    if(parse.shouldCommit()) {
+      parse.file = file.getPath();
+      parse.phase = "parse";
+      parse.internTime = parsed - start;
+      parse.commit();
+    }
+    GraphLoadEvent build = new GraphLoadEvent();
+    build.begin();
+    SearchHeuristic heuristic =
+        snapshot.getPace() > 0.0 ? new EuclideanHeuristic(xs, ys, snapshot.getPace()) : null;
+    RoutingSnapshot published = new RoutingSnapshot(frozen, heuristic, allLocations, file);
+    long built = System.nanoTime();
+    if(build.shouldCommit()) {
+      build.file = file.getPath();
+      build.phase = "build";
+      build.commit();
+    }
+    publish(published);
+    if(timed) {
+      // Freezing hashes every name and nothing else, so it all counts as interning
+      metrics.recordLoad(0, parsed - start, built - parsed);
+    }
     
+    Thread preparer = new Thread(this::prepareMapped, "backend-snapshot-preparer");
+    preparer.setDaemon(true);
+    preparer.start();
+  }
+  
+  /**
+   * Verifies the body of the snapshot loadGraphSnapshot() published straight from its arrays and
+   * copies it into graph, if that has not happened yet. If the body is corrupt, the snapshot's
+   * DOT file is loaded instead, or if that fails too, an empty map is published.
+   */
+  private void loadMapped() {
+    GraphSnapshot snapshot = mapped;
+    if(snapshot == null) {
+      return;
+    }
+    mapped = null;
     try {
-      scnr = new Scanner(file, "utf-8");
-    }catch(Exception e) {
-      System.out.println("File not found");
+      snapshot.verify();
+    }catch(IOException e) {
+      snapshotFailure = e;
+      unprepared = false;
+      allLocations.clear();
+      file = null;
+      try {
+        loadGraphData(snapshot.getSource().getPath());
+      }catch(IOException dotFailure) {
+        e.addSuppressed(dotFailure);
+        publish(new RoutingSnapshot(graph.freeze(), null, allLocations, null));
+      }
+      return;
+    }
+    for(int v = 0; v < snapshot.getNodeCount(); v++) {
+      String name = snapshot.nameOf(v);
+      graph.insertNode(name);
+      if(snapshot.hasCoordinates(v)) {
+        graph.setCoordinates(name, snapshot.getX(v), snapshot.getY(v));
+      }
+    }
+    for(int u = 0; u < snapshot.getNodeCount(); u++) {
+      for(int i = 0; i < snapshot.outDegree(u); i++) {
+        graph.insertEdgeIfAbsent(u, snapshot.outTarget(u, i), snapshot.outWeight(u, i));
+      }
+    }
+  }
+  
+  /**
+   * Finishes preparing a map that loadGraphSnapshot() published straight from a snapshot: copies
+   * it into graph, contracts it and, if it has no coordinates, gives it landmarks, then publishes
+   * it again, keeping any travel times already computed. Runs on the thread loadGraphSnapshot()
+   * starts, and does nothing if the map has been prepared or replaced since.
+   */
+  synchronized void prepareMapped() {
+    loadMapped();
+    if(!unprepared) {
+      return;
+    }
+    unprepared = false;
+    RoutingSnapshot published = current.get();
+    SearchHeuristic heuristic = published.getHeuristic();
+    if(heuristic == null) {
+      heuristic = loadLandmarks();
+    }
+    graph.contract();
+    publish(published.update(graph.freeze(), heuristic, List.of()));
+  }
+  
+  /**
+   * Returns why the body of the last snapshot loadGraphSnapshot() published straight from its
+   * arrays turned out to be corrupt, in which case the map was loaded from its DOT file instead.
+   * 
+   * @return the exception verifying it threw, or null if it was sound or has not been checked yet
+   */
+  public IOException getSnapshotFailure() {
+    return snapshotFailure;
+  }
+  
+  /**
+   * Saves the loaded graph to a binary snapshot that loadGraphSnapshot() can read back much faster
+   * than loadGraphData() reads the DOT file. The snapshot remembers the DOT file's modification
+   * time and a hash of its contents, so it is not used after the map changes.
+   * 
+   * @param filename the name of the snapshot file to write
+   * @throws IOException if the snapshot cannot be written
+   * @throws IllegalStateException if no graph has been loaded
+   */
+  public synchronized void saveGraphSnapshot(String filename) throws IOException{
+    loadMapped();
+    if(file == null) {
+      throw new IllegalStateException("Load a map before saving a snapshot of it");
     }
+    GraphSnapshot.write(graph, file, new File(filename));
+  }
+  
+  /**
+   * Reads the loaded map's DOT file again and brings the map queries run on in line with it,
+   * changing only what differs. The new version is parsed beside the live map, which is left as
+   * it was if the file cannot be read or is not valid DOT, so a half-written file does no harm.
+   * 
+   * If the file only changes, adds or removes paths, they are applied as one batch of
+   * updateEdges(), which repairs the travel time matrix, and the map is then contracted again and
+   * swapped in a second time with its hierarchy. Contracting gives the map a new version, so the
+   * route cache starts over then, including any routes updateEdges() kept. If locations are added
+   * or removed or have moved, the live map gets those changes and is prepared for queries again
+   * the way loadGraphData() prepares a new one. Either way queries keep running on the old version
+   * until the new one is swapped in, and ones already running finish on it, and the reload is
+   * recorded in the metrics as a load. A reload that changes nothing is not.
+   * 
+   * @return true if the map changed, or false if the file describes the map queries run on
+   * @throws IOException if the file cannot be read or is not valid DOT
+   * @throws IllegalStateException if no graph has been loaded
+   */
+  public synchronized boolean reloadGraphData() throws IOException{
+    loadMapped();
+    if(file == null) {
+      throw new IllegalStateException("Load a map before reloading it");
+    }
+    boolean timed = metrics.isEnabled();
+    long start = System.nanoTime();
+    GraphLoadEvent parse = new GraphLoadEvent();
+    parse.begin();
+    ArrayGraph fresh = new ArrayGraph();
+    List<String> freshLocations = new ArrayList<>();
+    GraphLoader loader = new GraphLoader(fresh, freshLocations, timed || parse.isEnabled());
+    DotLoader.load(file, loader);
     
-    // Skip first row
-    if(scnr.hasNext()) {
-      scnr.nextLine();
+    List<String> removed = new ArrayList<>();
+    for(String location : allLocations) {
+      if(!fresh.containsNode(location)) {
+        removed.add(location);
+      }
+    }
+    List<String> added = new ArrayList<>();
+    boolean moved = false;
+    for(String location : freshLocations) {
+      int id = graph.idOf(location);
+      int freshId = fresh.idOf(location);
+      if(id < 0) {
+        added.add(location);
+      }else if(Double.compare(graph.getX(id), fresh.getX(freshId)) != 0
+          || Double.compare(graph.getY(id), fresh.getY(freshId)) != 0) {
+        moved = true;
+      }
+    }
+    List<EdgeUpdate> updates = new ArrayList<>();
+    for(String location : freshLocations) {
+      int u = fresh.idOf(location);
+      for(int i = 0; i < fresh.outDegree(u); i++) {
+        String succ = fresh.nameOf(fresh.outTarget(u, i));
+        if(weightOf(location, succ) != fresh.outWeight(u, i)) {
+          updates.add(new EdgeUpdate(location, succ, fresh.outWeight(u, i)));
+        }
+      }
+    }
+    for(String location : allLocations) {
+      int u = graph.idOf(location);
+      for(int i = 0; i < graph.outDegree(u); i++) {
+        String succ = graph.nameOf(graph.outTarget(u, i));
+        // Paths of removed locations go with them
+        if(fresh.containsNode(location) && fresh.containsNode(succ)
+            && !fresh.containsEdge(location, succ)) {
+          updates.add(EdgeUpdate.closure(location, succ));
+        }
+      }
     }
     
-    while(scnr.hasNext()) {
-      String toAdd = scnr.nextLine();
-      int i = toAdd.indexOf("->");
-      
-      toAdd = toAdd.substring(0, i).trim();
-      toAdd = toAdd.substring(1, toAdd.length() - 1);
-      
-      // Don't add toAdd to the returnList if it's already in the returnList
-      if(!toAdd.equals(returnList.get(returnList.size() - 1))) {
-        returnList.add(toAdd);
+    if(removed.isEmpty() && added.isEmpty() && !moved) {
+      long parsed = System.nanoTime();
+      if(parse.shouldCommit()) {
+        parse.file = file.getPath();
+        parse.phase = "parse";
+        parse.internTime = loader.internNanos;
+        parse.commit();
+      }
+      if(updates.isEmpty()) {
+        return false;
+      }
+      updateEdges(updates);
+      // Queries use the updated map at once; contract it again meanwhile, which bumps its version
+      // so routes cached from the uncontracted map do not outlive it
+      graph.contract();
+      RoutingSnapshot updated = current.get();
+      publish(updated.update(graph.freeze(), updated.getHeuristic(), List.of()));
+      if(timed) {
+        // Applying the batch and contracting again is this reload's build
+        metrics.recordLoad(parsed - start - loader.internNanos, loader.internNanos,
+            System.nanoTime() - parsed);
+      }
+      return true;
+    }
+    // New locations may reuse the ids of removed ones and moved ones change the heuristic, so
+    // nothing computed for the old map carries over
+    for(String location : removed) {
+      graph.removeNode(location);
+    }
+    allLocations.removeAll(new HashSet<>(removed));
+    for(String location : added) {
+      graph.insertNode(location);
+      allLocations.add(location);
+    }
+    for(String location : freshLocations) {
+      int id = fresh.idOf(location);
+      graph.setCoordinates(location, fresh.getX(id), fresh.getY(id));
+    }
+    for(EdgeUpdate update : updates) {
+      if(update.isClosure()) {
+        graph.removeEdge(update.getFrom(), update.getTo());
+      }else {
+        graph.insertEdge(update.getFrom(), update.getTo(), update.getSeconds());
       }
     }
+    prepareGraph(parse, start, loader.internNanos, timed);
+    return true;
+  }
+  
+  /**
+   * Starts watching the loaded map's DOT file and reloading it with reloadGraphData() whenever it
+   * changes. See MapWatcher.
+   * 
+   * @return the running watcher, which close() stops
+   * @throws IOException if the file's directory cannot be watched
+   * @throws IllegalStateException if no graph has been loaded
+   */
+  public synchronized MapWatcher watchGraphData() throws IOException{
+    if(file == null) {
+      throw new IllegalStateException("Load a map before watching it");
+    }
+    return new MapWatcher(this, file);
+  }
+  
+  /**
+   * Reloads the map for a MapWatcher of source, unless a different map has been loaded since.
+   * Files are compared by their canonical paths, so a relative path, one through "." or a
+   * symbolic link still matches the map it names.
+   * 
+   * @param source the DOT file the watcher is watching
+   * @return true if the map changed
+   * @throws IOException if the file cannot be read or is not valid DOT, or a path cannot be
+   * resolved
+   */
+  synchronized boolean reloadGraphData(File source) throws IOException{
+    return file != null && source.getCanonicalFile().equals(file.getCanonicalFile())
+        && reloadGraphData();
+  }
+  
+  /**
+   * Sets up the speed-ups for searches over a freshly loaded map and publishes it to queries. Also
+   * finishes the load's flight recorder events and, if it was timed, its metrics.
+   * 
+   * @param parse the event begun when the map started loading
+   * @param start when the map started loading, from System.nanoTime()
+   * @param internNanos how long giving the map's names ids took, if it was measured
+   * @param timed true to record the load in the metrics
+   */
+  private void prepareGraph(GraphLoadEvent parse, long start, long internNanos, boolean timed) {
+    unprepared = false;
+    long parsed = System.nanoTime();
+    if(parse.shouldCommit()) {
+      parse.file = file.getPath();
+      parse.phase = "parse";
+      parse.internTime = internNanos;
+      parse.commit();
+    }
+    GraphLoadEvent build = new GraphLoadEvent();
+    build.begin();
+    
+    // Straight-line times only work if every location has coordinates to calibrate them with
+    EuclideanHeuristic straightLine = EuclideanHeuristic.calibrate(graph);
+    SearchHeuristic heuristic = straightLine.getPace() > 0.0 ? straightLine : loadLandmarks();
     
-    scnr.close();
-    return returnList;
+    // The map doesn't change after loading, so preprocess it once for fast point-to-point queries
+    graph.contract();
     
+    // Queries run on a compact copy whose edges sit in a few flat arrays; queries already running
+    // finish on the snapshot they started with
+    RoutingSnapshot snapshot = new RoutingSnapshot(graph.freeze(), heuristic, allLocations, file);
+    long built = System.nanoTime();
+    if(build.shouldCommit()) {
+      build.file = file.getPath();
+      build.phase = "build";
+      build.commit();
+    }
+    publish(snapshot);
+    if(timed) {
+      metrics.recordLoad(parsed - start - internNanos, internNanos, built - parsed);
+    }
+  }
+  
+  /**
+   * Swaps snapshot in for the one queries are using, recording the swap with the flight recorder.
+   * 
+   * @param snapshot the snapshot queries should run on from now on
+   */
+  private void publish(RoutingSnapshot snapshot) {
+    SnapshotSwapEvent swap = new SnapshotSwapEvent();
+    swap.begin();
+    RoutingSnapshot previous = current.getAndSet(snapshot);
+    if(swap.shouldCommit()) {
+      swap.file = file == null ? null : file.getPath();
+      swap.previousVersion = previous.getVersion();
+      swap.version = snapshot.getVersion();
+      swap.nodes = snapshot.getGraph().getNodeCount();
+      swap.edges = snapshot.getGraph().getEdgeCount();
+      swap.contracted = snapshot.getGraph().isContracted();
+      swap.commit();
+    }
+  }
+  
+  /**
+   * Changes the walking times of existing paths, opens new ones and closes others, all in one
+   * batch that queries see at once. Updates are applied in order, so a later update of the same
+   * path wins. Rather than preparing the map again from scratch, the batch only redoes what it
+   * invalidates:
+   * 
+   * The travel time matrix, if it was computed, is repaired row by row with
+   * DistanceMatrix.repair(), which searches again only below the changed edges of each row's
+   * shortest path tree and leaves rows the batch cannot affect alone.
+   * 
+   * Slower and closed paths never break the heuristic. After a faster or new path, straight-line
+   * times are kept if they stay consistent with it and recalibrated if not, while landmarks are
+   * chosen again, since their precomputed distances may no longer be lower bounds.
+   * 
+   * Cached routes survive a batch that only slows down or closes paths, unless they use one of
+   * them, since every other route is still as short as it was and nothing got shorter.
+   * 
+   * The contraction hierarchy no longer matches the map once it changes, so point-to-point queries
+   * use A* or bidirectional searches until the next load contracts the map again.
+   * 
+   * @param updates the path changes to apply
+   * @throws NoSuchElementException if a location in updates does not exist, in which case none of
+   * the updates are applied
+   */
+  public synchronized void updateEdges(List<EdgeUpdate> updates) throws NoSuchElementException{
+    loadMapped();
+    for(EdgeUpdate update : updates) {
+      for(String location : new String[] {update.getFrom(), update.getTo()}) {
+        if(graph.idOf(location) < 0) {
+          throw new NoSuchElementException(location + " is not in the graph");
+        }
+      }
+    }
+    
+    // Weight of every touched path before the batch, or infinity if there was none
+    LinkedHashMap<Long, EdgeChange> touched = new LinkedHashMap<>();
+    for(EdgeUpdate update : updates) {
+      int from = graph.idOf(update.getFrom());
+      int to = graph.idOf(update.getTo());
+      double old = weightOf(update.getFrom(), update.getTo());
+      touched.putIfAbsent(LongIntHashMap.pack(from, to), new EdgeChange(from, to, old, old));
+      if(old == update.getSeconds()) {
+        continue;
+      }
+      if(update.isClosure()) {
+        graph.removeEdge(update.getFrom(), update.getTo());
+      }else {
+        graph.insertEdge(update.getFrom(), update.getTo(), update.getSeconds());
+      }
+    }
+    List<EdgeChange> changes = new ArrayList<>(touched.size());
+    boolean faster = false;
+    for(EdgeChange edge : touched.values()) {
+      double now = weightOf(graph.nameOf(edge.getFrom()), graph.nameOf(edge.getTo()));
+      if(now != edge.getOldWeight()) {
+        EdgeChange change = new EdgeChange(edge.getFrom(), edge.getTo(), edge.getOldWeight(), now);
+        changes.add(change);
+        faster |= change.isDecrease();
+      }
+    }
+    if(changes.isEmpty()) {
+      return;
+    }
+    
+    RoutingSnapshot previous = current.get();
+    SearchHeuristic heuristic = previous.getHeuristic();
+    if(faster && heuristic != null) {
+      heuristic = refreshHeuristic(heuristic, changes);
+    }
+    RoutingSnapshot snapshot = previous.update(graph.freeze(), heuristic, changes);
+    if(!faster) {
+      LongIntHashMap slower = new LongIntHashMap(changes.size());
+      for(EdgeChange change : changes) {
+        slower.put(LongIntHashMap.pack(change.getFrom(), change.getTo()), 1);
+      }
+      routeCache.carryOver(previous.getVersion(), snapshot.getVersion(),
+          route -> !usesAny(route, slower));
+    }
+    publish(snapshot);
+  }
+  
+  /**
+   * Returns a heuristic that is admissible for graph after changes, which make some paths faster
+   * or add new ones. Straight-line times stay consistent as long as no changed edge beats their
+   * pace. Landmark bounds are differences of distances measured before the changes, which a
+   * faster path can shorten, and they skip nodes a landmark could not reach then, which a new path
+   * can connect, so the landmarks are always chosen again.
+   * 
+   * @param heuristic the heuristic of the map before the changes
+   * @param changes the changes just made to graph
+   * @return a heuristic for graph's current state
+   */
+  private SearchHeuristic refreshHeuristic(SearchHeuristic heuristic, List<EdgeChange> changes) {
+    if(heuristic instanceof EuclideanHeuristic) {
+      boolean consistent = true;
+      for(EdgeChange change : changes) {
+        // A consistent estimate never exceeds the length of any one edge
+        if(change.isDecrease()
+            && heuristic.estimate(change.getFrom(), change.getTo()) > change.getNewWeight()) {
+          consistent = false;
+        }
+      }
+      if(consistent) {
+        return heuristic;
+      }
+      EuclideanHeuristic straightLine = EuclideanHeuristic.calibrate(graph);
+      if(straightLine.getPace() > 0.0) {
+        return straightLine;
+      }
+    }
+    return LandmarkHeuristic.select(graph, LANDMARK_COUNT);
+  }
+  
+  /**
+   * Returns the weight of the edge from pred to succ, or infinity if there is none.
+   */
+  private double weightOf(String pred, String succ) {
+    return graph.containsEdge(pred, succ) ? graph.getEdge(pred, succ) : Double.POSITIVE_INFINITY;
+  }
+  
+  /**
+   * Returns whether route takes any of the edges whose packed node ids are keys of edges.
+   */
+  private boolean usesAny(Route<String> route, LongIntHashMap edges) {
+    for(int i = 0; i + 1 < route.getNodeCount(); i++) {
+      long key =
+          LongIntHashMap.pack(graph.idOf(route.getNode(i)), graph.idOf(route.getNode(i + 1)));
+      if(edges.containsKey(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * Keeps the landmark index of maps without coordinates in cacheFile, so that later loads of the
+   * same map, in this process or the next, read it back instead of choosing landmarks again.
+   * Nothing is written unless a cache file is set; the file is read only after checking its
+   * format and that it describes the loaded map, and is overwritten when it does not.
+   * 
+   * @param cacheFile the file to keep the index in, or null to build it on every load
+   */
+  public synchronized void setLandmarkCache(File cacheFile) {
+    landmarkCache = cacheFile;
+  }
+  
+  /**
+   * Returns the cache that findRoute() answers repeated queries from, for its hit rate and other
+   * metrics.
+   * 
+   * @return the route cache
+   */
+  public RouteCache getRouteCache() {
+    return routeCache;
+  }
+  
+  /**
+   * Returns the load and query metrics of this backend. They are off until enabled with
+   * setEnabled(true), and loads are only broken down while they are on.
+   * 
+   * @return the backend's metrics
+   */
+  public BackendMetrics getMetrics() {
+    return metrics;
+  }
+  
+  /**
+   * Returns the map that queries currently run on.
+   * 
+   * @return the most recently published snapshot
+   */
+  public RoutingSnapshot getSnapshot() {
+    return current.get();
+  }
+  
+  /**
+   * Returns the location ids of the map that queries currently run on. A location keeps its id
+   * while it stays in the map, so callers that hold on to locations can keep ids from this table
+   * and translate them back with nameOf() only when they need the name.
+   * 
+   * @return the read-only table of location names and ids
+   */
+  public SymbolTable getSymbols() {
+    return current.get().getGraph().getSymbols();
+  }
+  
+  /**
+   * Gets a list of all the nodes in the graph, in the order they were first read from the file. 
+   * 
+   * @return a list of all of the nodes in the graph
+   */
+  public List<String> getListOfAllLocations(){
+    return new LinkedList<>(current.get().getLocations());
   }
   
   /**
    * Finds the shortest path from the specified start and end locations. Relies on 
-   * the graph's shortestPathData() method to work.
+   * findRoute() to work, so the path always matches the one getTravelTimesOnPath() reports times
+   * for.
    * 
    * @param startLocation the place we are trying to find the shortest path from
    * @param endLocation the final destination we are trying to reach from startLocation
@@ -131,12 +782,19 @@ public class Backend implements BackendInterface{
    * and the endLocation in the list. Returns an empty list if no path exists.
    */
   public List<String> findShortestPath(String startLocation, String endLocation){
-    return graph.shortestPathData(startLocation, endLocation);
+    if(!metrics.isEnabled()) {
+      return findRoute(startLocation, endLocation, null).getNodes();
+    }
+    long start = System.nanoTime();
+    List<String> path =
+        findRoute(startLocation, endLocation, BackendMetrics.Query.FIND_SHORTEST_PATH).getNodes();
+    metrics.recordLatency(BackendMetrics.Query.FIND_SHORTEST_PATH, System.nanoTime() - start);
+    return path;
   }
   
   /**
    * Gets a list of the edges in between the shortestPath. This method does so by 
-   * relying on findShortestData().
+   * relying on findRoute(), which records every edge's weight during the search.
    * 
    * @param startLocation the place we are trying to find the shortest path from
    * @param endLocation the final destination we are trying to reach from startLocation
@@ -144,42 +802,107 @@ public class Backend implements BackendInterface{
    * shortest path. Returns an empty list if no path exists.
    */
   public List<Double> getTravelTimesOnPath(String startLocation, String endLocation){
-    List<Double> returnList = new LinkedList<>();
-    List<String> shortestPathList = findShortestPath(startLocation, endLocation);
-    
-    // Loop through all of the nodes in the list returned from findShortestPath()
-    for(int i = 0; i < shortestPathList.size() - 1; i++) {
-      Double toAdd = graph.getEdge(shortestPathList.get(i), shortestPathList.get(i + 1));
-      returnList.add(toAdd);
+    if(!metrics.isEnabled()) {
+      return findRoute(startLocation, endLocation, null).getHopWeightList();
     }
-    
-    return returnList;
+    long start = System.nanoTime();
+    List<Double> times = findRoute(startLocation, endLocation,
+        BackendMetrics.Query.GET_TRAVEL_TIMES_ON_PATH).getHopWeightList();
+    metrics.recordLatency(BackendMetrics.Query.GET_TRAVEL_TIMES_ON_PATH,
+        System.nanoTime() - start);
+    return times;
   }
   
   /**
-   * Calculates the total amount of time spent on the shortest path from startLocation to 
-   * endLocation
+   * Finds the shortest route from the specified start and end locations, including the walking
+   * time of every step and the total walking time, so the path and its times come from one search.
+   * Normally this is a contraction hierarchy search over the map preprocessed by loadGraphData().
+   * If the graph has changed since then, it is an A* search guided by straight-line walking times
+   * when the locations have coordinates, or by precomputed distances to landmark locations when
+   * they do not, and a bidirectional search that meets in the middle if no heuristic was loaded.
+   * Routes are cached by the ids of their start and end, so a repeated query is answered without
+   * searching until a change to the graph gives it a new version.
    * 
    * @param startLocation the place we are trying to find the shortest path from
    * @param endLocation the final destination we are trying to reach from startLocation
-   * @return a double representing the total time in seconds spent on the shortest path
-   * between startLocation and endLocation
+   * @return the shortest route between startLocation and endLocation. Returns an empty route if
+   * no path exists.
    */
-  private Double calculateTime(String startLocation, String endLocation) {
-    List<Double> times = getTravelTimesOnPath(startLocation, endLocation);
-    
-    Double d = 0.0;
-    // Loop through every double in the list returned by getTravelTimesOnPath()
-    for(Double time: times) {
-      d += time;
+  public Route<String> findRoute(String startLocation, String endLocation){
+    return findRoute(startLocation, endLocation, null);
+  }
+  
+  /**
+   * Finds the shortest route like findRoute(String, String), and records the work of the search
+   * under query if one is given and the route was not cached.
+   */
+  private Route<String> findRoute(String startLocation, String endLocation,
+      BackendMetrics.Query query){
+    RoutingSnapshot snapshot = current.get();
+    int start = snapshot.getGraph().idOf(startLocation);
+    int end = snapshot.getGraph().idOf(endLocation);
+    if(start < 0 || end < 0) {
+      return new Route<>(new String[0], new double[0], 0.0);
     }
-    
-    return d;
+    RouteCacheEvent event = new RouteCacheEvent();
+    event.begin();
+    Route<String> route = routeCache.get(snapshot.getVersion(), start, end);
+    boolean hit = route != null;
+    if(!hit) {
+      try {
+        route = snapshot.route(start, end);
+      }catch(NoSuchElementException e) {
+        // No path connects them, which is worth remembering too
+        route = new Route<>(new String[0], new double[0], 0.0);
+      }
+      if(query != null) {
+        metrics.recordSearch(query, snapshot.getRouteCounters());
+      }
+      routeCache.put(snapshot.getVersion(), start, end, route);
+    }
+    if(event.shouldCommit()) {
+      event.hit = hit;
+      event.start = startLocation;
+      event.end = endLocation;
+      event.version = snapshot.getVersion();
+      event.commit();
+    }
+    return route;
+  }
+  
+  /**
+   * Finds the shortest route for every request in a batch, with the requests answered on the
+   * common ForkJoinPool. See findRoutes(List, ForkJoinPool).
+   * 
+   * @param requests the start and end location of every route to find
+   * @return the shortest route for each request, in the same order. Returns an empty route for
+   * every request with no path.
+   */
+  public List<Route<String>> findRoutes(List<RouteRequest> requests){
+    return findRoutes(requests, ForkJoinPool.commonPool());
+  }
+  
+  /**
+   * Finds the shortest route for every request in a batch. Requests are grouped by start location
+   * and the groups are answered in parallel on pool. A group of several requests is answered by a
+   * single search from its start that stops once every end in the group is reached, so asking for
+   * the routes from one place to five others costs about as much as the longest of the five. All
+   * requests are answered from the same snapshot of the map, even if it is reloaded meanwhile.
+   * Batches bypass the route cache and are not counted in getMetrics().
+   * 
+   * @param requests the start and end location of every route to find
+   * @param pool the pool to answer groups on
+   * @return the shortest route for each request, in the same order. Returns an empty route for
+   * every request with no path.
+   */
+  public List<Route<String>> findRoutes(List<RouteRequest> requests, ForkJoinPool pool){
+    return current.get().routes(requests, pool);
   }
   
   /**
    * Gets the most distant location from a specified startLocation. This method does so by 
-   * exploring the shortest path to every node from the specified startLocation.
+   * building the shortest path tree from startLocation once and picking the node with the largest
+   * distance in it.
    * 
    * @param startLocation the place we are trying to find the furthest node from
    * @return a string representing the furthest node from the start location in the graph. Returns 
@@ -187,26 +910,183 @@ public class Backend implements BackendInterface{
    * @throws NoSuchElementException if the startLocation is not in the graph
    */
   public String getMostDistantLocation(String startLocation) throws NoSuchElementException{
-    if(!graph.containsNode(startLocation)) {
+    if(!metrics.isEnabled()) {
+      return getMostDistantLocationDetails(startLocation, false).getLocation();
+    }
+    long start = System.nanoTime();
+    String location = getMostDistantLocationDetails(startLocation, true).getLocation();
+    metrics.recordLatency(BackendMetrics.Query.GET_MOST_DISTANT_LOCATION,
+        System.nanoTime() - start);
+    return location;
+  }
+  
+  /**
+   * Gets the most distant location from a specified startLocation along with the walking time to
+   * it and the shortest path that leads there. All three come from a single shortest path tree
+   * search rooted at startLocation.
+   * 
+   * @param startLocation the place we are trying to find the furthest node from
+   * @return the furthest location, its walking time in seconds and the path to it. The location is
+   * an empty string and the path is empty if there are no edges away from the startLocation
+   * @throws NoSuchElementException if the startLocation is not in the graph
+   */
+  public DistantLocation getMostDistantLocationDetails(String startLocation) throws NoSuchElementException{
+    return getMostDistantLocationDetails(startLocation, false);
+  }
+  
+  /**
+   * Finds the most distant location like getMostDistantLocationDetails(String), and records the
+   * work of the search if measured is true.
+   */
+  private DistantLocation getMostDistantLocationDetails(String startLocation, boolean measured)
+      throws NoSuchElementException{
+    FrozenGraph frozen = current.get().getGraph();
+    if(!frozen.containsNode(startLocation)) {
       throw new NoSuchElementException(startLocation + " does not exist");
     }
-    List<String> allLocations = getListOfAllLocations();
-    Double max = 0.0;
-    String maxPath = "";
-    
-    // Loop through all of the locations. If the current node we are at is not the start node, then
-    // calculate the time it takes to get to the current node. If it is greater than the current
-    // max path, set the current path to be the max path.
-    for(int i = 0; i < allLocations.size(); i++) {
-      if(!startLocation.equals(allLocations.get(i))) {
-        Double currentTime = calculateTime(startLocation, allLocations.get(i));
-        if(currentTime > max) {
-          max = currentTime;
-          maxPath = allLocations.get(i);
+    ShortestPathTree<String> tree = frozen.shortestPathTree(startLocation);
+    if(measured) {
+      metrics.recordSearch(BackendMetrics.Query.GET_MOST_DISTANT_LOCATION,
+          frozen.getSearchCounters());
+    }
+    int farthest = tree.getFarthest();
+    
+    if(farthest < 0) {
+      return new DistantLocation("", 0.0, new LinkedList<>());
+    }
+    return new DistantLocation(tree.getNode(farthest), tree.getDistance(farthest), tree.getPathTo(farthest));
+  }
+  
+  /**
+   * Gets the walking time between every pair of locations. The matrix is computed with one search
+   * per location spread over all cores the first time it is asked for, then kept until the next
+   * load replaces the map.
+   * 
+   * @return the all-pairs travel time matrix of the loaded graph
+   */
+  public DistanceMatrix getTravelTimeMatrix() {
+    return current.get().getTravelTimes();
+  }
+  
+  /**
+   * Gets the landmark index for the loaded map. If a landmark cache is set, the index saved there
+   * earlier is reused if it still matches the graph, and otherwise a new one is built and saved
+   * there for next time; failing to save it only means it is rebuilt on the next load.
+   * 
+   * @return a landmark heuristic for the loaded graph
+   */
+  private LandmarkHeuristic loadLandmarks() {
+    File cacheFile = landmarkCache;
+    if(cacheFile == null) {
+      return LandmarkHeuristic.select(graph, LANDMARK_COUNT);
+    }
+    if(cacheFile.isFile()) {
+      try {
+        LandmarkHeuristic landmarks = LandmarkHeuristic.load(cacheFile);
+        if(landmarks.matches(graph)) {
+          return landmarks;
         }
+      }catch(IOException e) {
+        // An unreadable index is simply rebuilt
       }
     }
     
-    return maxPath;
+    LandmarkHeuristic landmarks = LandmarkHeuristic.select(graph, LANDMARK_COUNT);
+    try {
+      landmarks.save(cacheFile);
+    }catch(IOException e) {
+      // The index still works for this run
+    }
+    return landmarks;
+  }
+  
+  /**
+   * Adds what DotLoader reads to a graph. Every new name becomes a node and a location, node
+   * statements may give a node coordinates, and edges take their weight from the seconds
+   * attribute. If the file lists an edge twice, the first weight is kept.
+   */
+  private class GraphLoader implements DotLoader.Sink {
+    
+    /**
+     * The graph to add to.
+     */
+    private final ArrayGraph target;
+    
+    /**
+     * Receives every name that is new to target.
+     */
+    private final List<String> locations;
+    
+    /**
+     * Whether the time spent interning names is measured.
+     */
+    private final boolean timed;
+    
+    /**
+     * Nanoseconds spent giving names graph node ids, if timed.
+     */
+    private long internNanos;
+    
+    /**
+     * Graph node name of every loader id.
+     */
+    private String[] names = new String[64];
+    
+    /**
+     * Graph node id of every loader id.
+     */
+    private int[] ids = new int[64];
+    
+    /**
+     * Creates a loader that adds to target.
+     * 
+     * @param target the graph to add to
+     * @param locations receives every name that is new to target, in the order they are read
+     * @param timed true to measure the time spent interning names
+     */
+    GraphLoader(ArrayGraph target, List<String> locations, boolean timed) {
+      this.target = target;
+      this.locations = locations;
+      this.timed = timed;
+    }
+    
+    public void node(int id, String name) {
+      long start = timed ? System.nanoTime() : 0L;
+      if(id == names.length) {
+        names = Arrays.copyOf(names, id * 2);
+        ids = Arrays.copyOf(ids, id * 2);
+      }
+      names[id] = name;
+      if(target.insertNode(name)) {
+        locations.add(name);
+      }
+      ids[id] = target.idOf(name);
+      if(timed) {
+        internNanos += System.nanoTime() - start;
+      }
+    }
+    
+    public void position(int id, String pos) throws IOException {
+      // e.g. "Memorial Union" [pos="12.5,40.1"]; Graphviz may mark pinned positions with "!"
+      String[] coordinates = pos.replace("!", "").split(",");
+      if(coordinates.length < 2) {
+        throw new IOException("Bad position for " + names[id] + ": " + pos);
+      }
+      try {
+        double x = Double.parseDouble(coordinates[0].trim());
+        double y = Double.parseDouble(coordinates[1].trim());
+        target.setCoordinates(names[id], x, y);
+      }catch(NumberFormatException e) {
+        // DotLoader adds the line this position is on
+        throw new IOException("Bad position for " + names[id] + ": " + pos, e);
+      }
+    }
+    
+    public void edge(int from, int to, double seconds) throws IOException {
+      if(Double.isNaN(seconds)) {
+        throw new IOException("The edge from " + names[from] + " to " + names[to] + " has no seconds");
+      }
+      target.insertEdgeIfAbsent(ids[from], ids[to], seconds);
+    }
   }
 }
@@ -1,13 +1,54 @@
 import org.junit.jupiter.api.Test;
 import org.junit.Assert;
 import org.junit.jupiter.api.Assertions;
+import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.NoSuchElementException;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Pane;
+import javafx.stage.Stage;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testfx.framework.junit5.ApplicationTest;
 
 public class BackendDeveloperTests extends ApplicationTest{
 
+  private Pane testPane;
+
+  @Override
+  public void start(Stage stage) {
+    testPane = new Pane();
+    stage.setScene(new Scene(testPane, 800, 600));
+    stage.show();
+  }
+
   /**
    * Tests loading a file in and inserting the nodes from the file into a graph. There are two cases
    * that this test method checks.
@@ -34,11 +75,11 @@ public class BackendDeveloperTests extends ApplicationTest{
     // Test 2: Should throw an error
     try {
       backend.loadGraphData("DNE.dot");
+      Assert.fail("No error was thrown when one should have been thrown.");
     }catch(IOException e) {}
     catch(Exception e) {
       Assert.fail("An unexpected error was thrown when passing an invalid file into loadGraphData()");
     }
-    Assert.fail("No error was thrown when one should have been thrown.");
   }
   
   /**
@@ -99,6 +140,41 @@ public class BackendDeveloperTests extends ApplicationTest{
     Assertions.assertEquals(0, travelTime2.size(), "travelTime size is incorrect");
   }
   
+  /**
+   * Tests finding the full route between two locations. Two cases should be considered.
+   * 
+   * 1) Load in a valid file. Call findRoute() on an instance where start and end have a path
+   * between them. The route's locations should match findShortestPath(), its step times should
+   * match getTravelTimesOnPath(), and its total should be their sum.
+   * 2) Load in a valid file. Call findRoute() on an instance where start and end do NOT have a
+   * path between them. The returned route should be empty.
+   */
+  @Test
+  public void testFindRoute() {
+    BackendInterface backend = new Backend();
+    try {
+      backend.loadGraphData("campus.dot");
+    }catch(Exception e) {
+      Assert.fail("An unexpected error was thrown when passing an invalid file into loadGraphData()");
+    }
+    
+    // Test 1: Start = Memorial Union, End = Computer Sciences and Statistics
+    Route<String> route = backend.findRoute("Memorial Union", "Computer Sciences and Statistics");
+    Assertions.assertEquals(backend.findShortestPath("Memorial Union", "Computer Sciences and Statistics"), route.getNodes(),
+        "The route's locations don't match the shortest path");
+    List<Double> times = backend.getTravelTimesOnPath("Memorial Union", "Computer Sciences and Statistics");
+    Assertions.assertEquals(times.size(), route.getHopCount(), "The route has the wrong number of steps");
+    double total = 0.0;
+    for(int i = 0; i < route.getHopCount(); i++) {
+      Assertions.assertEquals(times.get(i), route.getHopWeight(i), "Step " + i + " of the route has the wrong time");
+      total += route.getHopWeight(i);
+    }
+    Assertions.assertEquals(total, route.getTotalCost(), 1e-9, "The route's total time is incorrect");
+    
+    // Test 2: Start = Memorial Union, End = DNE
+    Assertions.assertTrue(backend.findRoute("Memorial Union", "DNE").isEmpty(), "The route should be empty");
+  }
+  
   /**
    * Tests finding the most distant location from the inputed start location. Two cases should be
    * considered. 
@@ -117,14 +193,1427 @@ public class BackendDeveloperTests extends ApplicationTest{
       Assert.fail("An unexpected error was thrown when passing an invalid file into loadGraphData()");
     }
     
-    // Test 1: Start = Memorial Union, End should be Jorns Hall
-    Assertions.assertEquals("Jorns Hall", backend.getMostDistantLocation("Memorial Union"), 
-        "The furthest node from Memorial Union should be Jorns Hall, but it wasn't.");
+    // Test 1: Start = Memorial Union, End should be Smith Residence Hall
+    Assertions.assertEquals("Smith Residence Hall", backend.getMostDistantLocation("Memorial Union"), 
+        "The furthest node from Memorial Union should be Smith Residence Hall, but it wasn't.");
     
     // Test 2: Start = DNE
     Assertions.assertThrows(NoSuchElementException.class, () -> backend.getMostDistantLocation("DNE"));
   }
   
+  /**
+   * Tests that the details returned for the most distant location agree with the other backend
+   * methods. 
+   * 
+   * 1) Load in a valid file. The location in the details should match getMostDistantLocation(), the
+   * path should run from the start to that location, and the travel time should be the sum of the
+   * walking times along the shortest path to it.
+   * 2) Call getMostDistantLocationDetails() on a start location that doesn't exist.
+   */
+  @Test
+  public void testGetMostDistantLocationDetails() {
+    BackendInterface backend = new Backend();
+    try {
+      backend.loadGraphData("campus.dot");
+    }catch(Exception e) {
+      Assert.fail("An unexpected error was thrown when passing an invalid file into loadGraphData()");
+    }
+    
+    // Test 1: Start = Memorial Union
+    DistantLocation details = backend.getMostDistantLocationDetails("Memorial Union");
+    Assertions.assertEquals(backend.getMostDistantLocation("Memorial Union"), details.getLocation(), 
+        "The details name a different location than getMostDistantLocation().");
+    Assertions.assertEquals("Memorial Union", details.getPath().get(0), "The path doesn't start at Memorial Union");
+    Assertions.assertEquals(details.getLocation(), details.getPath().get(details.getPath().size() - 1), 
+        "The path doesn't end at the most distant location");
+    double total = 0.0;
+    for(double time : backend.getTravelTimesOnPath("Memorial Union", details.getLocation())) {
+      total += time;
+    }
+    Assertions.assertEquals(total, details.getTravelTime(), 1e-9, "The travel time doesn't match the path's walking times");
+    
+    // Test 2: Start = DNE
+    Assertions.assertThrows(NoSuchElementException.class, () -> backend.getMostDistantLocationDetails("DNE"));
+  }
+  
+  /**
+   * Builds a grid graph whose nodes have coordinates and whose walking times are at least the
+   * straight-line distance, with different times in each direction like the campus file.
+   */
+  private static ArrayGraph createGridGraph(int width, int height, long seed) {
+    ArrayGraph graph = new ArrayGraph();
+    Random random = new Random(seed);
+    for(int x = 0; x < width; x++) {
+      for(int y = 0; y < height; y++) {
+        graph.insertNode(x + "," + y);
+        graph.setCoordinates(x + "," + y, x, y);
+      }
+    }
+    for(int x = 0; x < width; x++) {
+      for(int y = 0; y < height; y++) {
+        if(x + 1 < width) {
+          graph.insertEdge(x + "," + y, (x + 1) + "," + y, 60.0 + random.nextInt(60));
+          graph.insertEdge((x + 1) + "," + y, x + "," + y, 60.0 + random.nextInt(60));
+        }
+        if(y + 1 < height) {
+          graph.insertEdge(x + "," + y, x + "," + (y + 1), 60.0 + random.nextInt(60));
+          graph.insertEdge(x + "," + (y + 1), x + "," + y, 60.0 + random.nextInt(60));
+        }
+      }
+    }
+    return graph;
+  }
+  
+  /**
+   * Differential test of A* against Dijkstra. On a grid graph with coordinates, the route found with
+   * the straight-line heuristic must have the same cost as shortestPathData()/shortestPathCost() for
+   * every sampled pair, and A* must settle fewer nodes overall.
+   */
+  @Test
+  public void testAStarMatchesDijkstra() {
+    ArrayGraph graph = createGridGraph(30, 30, 400);
+    EuclideanHeuristic heuristic = EuclideanHeuristic.calibrate(graph);
+    Assertions.assertTrue(heuristic.getPace() > 0.0, "The heuristic should be enabled for a graph with coordinates");
+    
+    Random random = new Random(7);
+    long dijkstraSettled = 0;
+    long aStarSettled = 0;
+    for(int i = 0; i < 200; i++) {
+      String start = random.nextInt(30) + "," + random.nextInt(30);
+      String end = random.nextInt(30) + "," + random.nextInt(30);
+      
+      double expected = graph.shortestPathCost(start, end);
+      List<String> expectedPath = graph.shortestPathData(start, end);
+      dijkstraSettled += graph.getLastSettledCount();
+      Route<String> route = graph.shortestRoute(start, end, heuristic);
+      aStarSettled += graph.getLastSettledCount();
+      
+      Assertions.assertEquals(expected, route.getTotalCost(), 1e-9, "A* found a different cost from " + start + " to " + end);
+      Assertions.assertEquals(expectedPath.get(0), route.getNode(0), "A* route has the wrong start");
+      Assertions.assertEquals(end, route.getNode(route.getNodeCount() - 1), "A* route has the wrong end");
+      double total = 0.0;
+      for(int hop = 0; hop < route.getHopCount(); hop++) {
+        Assertions.assertEquals(graph.getEdge(route.getNode(hop), route.getNode(hop + 1)), route.getHopWeight(hop),
+            "A* route reports the wrong weight for one of its edges");
+        total += route.getHopWeight(hop);
+      }
+      Assertions.assertEquals(expected, total, 1e-9, "A* route's edges don't add up to the shortest path cost");
+    }
+    Assertions.assertTrue(aStarSettled < dijkstraSettled, "A* should settle fewer nodes than Dijkstra");
+  }
+  
+  /**
+   * Differential test of bidirectional Dijkstra against Dijkstra. Some edges of a grid graph are
+   * removed so that many streets are one-way and some pairs have no path at all. For every sampled
+   * pair, the bidirectional route must have the same cost as shortestPathCost(), or both must report
+   * that no path exists.
+   */
+  @Test
+  public void testBidirectionalMatchesDijkstra() {
+    ArrayGraph graph = createGridGraph(20, 20, 11);
+    Random random = new Random(5);
+    for(int i = 0; i < 300; i++) {
+      graph.removeEdge(random.nextInt(20) + "," + random.nextInt(20), random.nextInt(20) + "," + random.nextInt(20));
+      int x = random.nextInt(19);
+      int y = random.nextInt(20);
+      graph.removeEdge(x + "," + y, (x + 1) + "," + y);
+    }
+    
+    for(int i = 0; i < 300; i++) {
+      String start = random.nextInt(20) + "," + random.nextInt(20);
+      String end = random.nextInt(20) + "," + random.nextInt(20);
+      double expected;
+      try {
+        expected = graph.shortestPathCost(start, end);
+      }catch(NoSuchElementException e) {
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestRouteBidirectional(start, end));
+        continue;
+      }
+      Route<String> route = graph.shortestRouteBidirectional(start, end);
+      Assertions.assertEquals(expected, route.getTotalCost(), 1e-9, "Bidirectional search found a different cost from " + start + " to " + end);
+      Assertions.assertEquals(start, route.getNode(0), "Bidirectional route has the wrong start");
+      Assertions.assertEquals(end, route.getNode(route.getNodeCount() - 1), "Bidirectional route has the wrong end");
+      for(int hop = 0; hop < route.getHopCount(); hop++) {
+        Assertions.assertEquals(graph.getEdge(route.getNode(hop), route.getNode(hop + 1)), route.getHopWeight(hop),
+            "Bidirectional route reports the wrong weight for one of its edges");
+      }
+    }
+  }
+  
+  /**
+   * Differential test of contraction hierarchy queries against Dijkstra on a grid graph with many
+   * one-way streets. Costs are computed with Dijkstra before contract(), then every route found by
+   * the hierarchy must have the same cost and be made of real edges. Changing the graph afterwards
+   * must drop the stale hierarchy.
+   */
+  @Test
+  public void testContractionHierarchyMatchesDijkstra() {
+    ArrayGraph graph = createGridGraph(20, 20, 17);
+    Random random = new Random(9);
+    for(int i = 0; i < 300; i++) {
+      int x = random.nextInt(20);
+      int y = random.nextInt(19);
+      graph.removeEdge(x + "," + y, x + "," + (y + 1));
+    }
+    
+    String[] starts = new String[300];
+    String[] ends = new String[300];
+    double[] expected = new double[300];
+    for(int i = 0; i < 300; i++) {
+      starts[i] = random.nextInt(20) + "," + random.nextInt(20);
+      ends[i] = random.nextInt(20) + "," + random.nextInt(20);
+      try {
+        expected[i] = graph.shortestPathCost(starts[i], ends[i]);
+      }catch(NoSuchElementException e) {
+        expected[i] = Double.POSITIVE_INFINITY;
+      }
+    }
+    
+    long version = graph.getVersion();
+    graph.contract();
+    Assertions.assertTrue(graph.isContracted(), "The graph should be contracted after contract()");
+    Assertions.assertTrue(graph.getVersion() > version, "Contracting should bump the version so cached routes are dropped");
+    for(int i = 0; i < 300; i++) {
+      String start = starts[i];
+      String end = ends[i];
+      if(expected[i] == Double.POSITIVE_INFINITY) {
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestRoute(start, end));
+        continue;
+      }
+      Route<String> route = graph.shortestRoute(start, end);
+      Assertions.assertEquals(expected[i], route.getTotalCost(), 1e-9, "The hierarchy found a different cost from " + start + " to " + end);
+      Assertions.assertEquals(start, route.getNode(0), "Hierarchy route has the wrong start");
+      Assertions.assertEquals(end, route.getNode(route.getNodeCount() - 1), "Hierarchy route has the wrong end");
+      for(int hop = 0; hop < route.getHopCount(); hop++) {
+        Assertions.assertEquals(graph.getEdge(route.getNode(hop), route.getNode(hop + 1)), route.getHopWeight(hop),
+            "Hierarchy route reports the wrong weight for one of its edges");
+      }
+    }
+    
+    graph.insertEdge("0,0", "19,19", 1.0);
+    Assertions.assertFalse(graph.isContracted(), "Changing the graph should invalidate the hierarchy");
+    Assertions.assertEquals(1.0, graph.shortestPathCost("0,0", "19,19"), 1e-9, "Queries should see the new edge");
+  }
+  
+  /**
+   * Differential test of A* guided by landmarks against Dijkstra on a grid graph with many one-way
+   * streets. The index is saved and loaded again first, so the loaded copy is what gets checked.
+   */
+  @Test
+  public void testLandmarkHeuristicMatchesDijkstra() throws IOException {
+    ArrayGraph graph = createGridGraph(20, 20, 23);
+    Random random = new Random(13);
+    for(int i = 0; i < 300; i++) {
+      int x = random.nextInt(19);
+      int y = random.nextInt(20);
+      graph.removeEdge((x + 1) + "," + y, x + "," + y);
+    }
+    
+    File file = File.createTempFile("landmarks", ".bin");
+    file.deleteOnExit();
+    LandmarkHeuristic.select(graph, 6).save(file);
+    LandmarkHeuristic landmarks = LandmarkHeuristic.load(file);
+    Assertions.assertEquals(6, landmarks.getLandmarkCount(), "The wrong number of landmarks was chosen");
+    Assertions.assertTrue(landmarks.matches(graph), "The loaded index should match the graph it was built from");
+    
+    long dijkstraSettled = 0;
+    long landmarkSettled = 0;
+    for(int i = 0; i < 300; i++) {
+      String start = random.nextInt(20) + "," + random.nextInt(20);
+      String end = random.nextInt(20) + "," + random.nextInt(20);
+      double expected;
+      try {
+        expected = graph.shortestPathCost(start, end);
+      }catch(NoSuchElementException e) {
+        Assertions.assertThrows(NoSuchElementException.class, () -> graph.shortestRoute(start, end, landmarks));
+        continue;
+      }
+      dijkstraSettled += graph.getLastSettledCount();
+      Route<String> route = graph.shortestRoute(start, end, landmarks);
+      landmarkSettled += graph.getLastSettledCount();
+      Assertions.assertEquals(expected, route.getTotalCost(), 1e-9, "A* with landmarks found a different cost from " + start + " to " + end);
+    }
+    Assertions.assertTrue(landmarkSettled < dijkstraSettled, "Landmarks should make A* settle fewer nodes than Dijkstra");
+    
+    graph.insertEdge("0,0", "19,19", 1.0);
+    Assertions.assertFalse(landmarks.matches(graph), "The index should no longer match a changed graph");
+    
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+    Assertions.assertThrows(IOException.class, () -> LandmarkHeuristic.load(file), "A truncated index should be rejected");
+    bytes[0] ^= 1;
+    Files.write(file.toPath(), bytes);
+    Assertions.assertThrows(IOException.class, () -> LandmarkHeuristic.load(file), "A file that is not an index should be rejected");
+    
+    // Without a landmark cache nothing is written beside the map, and with one the index is reused
+    File dot = File.createTempFile("landmarks", ".dot");
+    try {
+      Files.write(dot.toPath(), "digraph { A -> B [seconds=5]; B -> C [seconds=7]; C -> A [seconds=2]; }\n".getBytes());
+      new Backend().loadGraphData(dot.getPath());
+      Assertions.assertFalse(new File(dot.getPath() + ".landmarks").exists(), "No landmark index should be written unless asked for");
+      Backend cached = new Backend();
+      cached.setLandmarkCache(file);
+      cached.loadGraphData(dot.getPath());
+      Assertions.assertEquals(3, LandmarkHeuristic.load(file).getLandmarkCount(), "The damaged cache should be replaced");
+      Assertions.assertEquals(List.of("A", "B", "C"), cached.findShortestPath("A", "C"));
+    }finally {
+      dot.delete();
+    }
+  }
+  
+  /**
+   * Checks every entry of the travel time matrix against shortestPathCost(), and that the paths
+   * rebuilt from next hops cost exactly as much, for both heap and memory-mapped storage.
+   */
+  @Test
+  public void testTravelTimeMatrix() throws IOException {
+    ArrayGraph graph = createGridGraph(12, 12, 29);
+    Random random = new Random(17);
+    for(int i = 0; i < 100; i++) {
+      int x = random.nextInt(11);
+      int y = random.nextInt(12);
+      graph.removeEdge(x + "," + y, (x + 1) + "," + y);
+    }
+    
+    File file = File.createTempFile("matrix", ".bin");
+    file.deleteOnExit();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    DistanceMatrix[] matrices = {DistanceMatrix.compute(graph, pool), DistanceMatrix.compute(graph, pool, file)};
+    pool.shutdown();
+    for(DistanceMatrix matrix : matrices) {
+      for(int s = 0; s < 144; s++) {
+        for(int t = 0; t < 144; t++) {
+          String start = (s / 12) + "," + (s % 12);
+          String end = (t / 12) + "," + (t % 12);
+          double expected;
+          try {
+            expected = graph.shortestPathCost(start, end);
+          }catch(NoSuchElementException e) {
+            Assertions.assertEquals(Double.POSITIVE_INFINITY, matrix.getDistance(start, end), "Unreachable pairs should be infinitely far apart");
+            Assertions.assertThrows(NoSuchElementException.class, () -> matrix.getPath(start, end));
+            continue;
+          }
+          Assertions.assertEquals(expected, matrix.getDistance(start, end), "The matrix has the wrong travel time from " + start + " to " + end);
+          List<String> path = matrix.getPath(start, end);
+          double cost = 0.0;
+          for(int i = 0; i + 1 < path.size(); i++) {
+            cost += graph.getEdge(path.get(i), path.get(i + 1));
+          }
+          Assertions.assertEquals(start, path.get(0), "The rebuilt path has the wrong start");
+          Assertions.assertEquals(end, path.get(path.size() - 1), "The rebuilt path has the wrong end");
+          Assertions.assertEquals(expected, cost, 1e-9, "The rebuilt path from " + start + " to " + end + " is not a shortest one");
+        }
+      }
+    }
+  }
+  
+  /**
+   * Checks that DotParser handles the DOT syntax the old line-based loader could not: comments,
+   * statements spread over several lines, edge chains, escaped quotes, attribute lists with
+   * several entries and graph-level statements. Every name gets one id in order of appearance.
+   */
+  @Test
+  public void testDotParser() throws IOException {
+    String dot = "# exported map\n"
+        + "digraph campus {\n"
+        + "  rankdir=LR; node [shape=box];\n"
+        + "  /* a block\n     comment */ \"Memorial Union\" -> \"Science Hall\" -> Library [color=red, seconds=105.8];\n"
+        + "  // a line comment\n"
+        + "  \"The \\\"Quad\\\"\" ->\n    \"Memorial Union\" [seconds=\"42\"]\n"
+        + "  \"Science Hall\" [pos=\"1.5,2\"];\n"
+        + "}\n";
+    List<String> events = new ArrayList<>();
+    DotParser.Handler recorder = new DotParser.Handler() {
+      public void node(int id, String name) {
+        events.add(id + "=" + name);
+      }
+      public void nodeStatement(int id, DotParser.Attributes attributes) {
+        events.add(id + " at " + attributes.get("pos"));
+      }
+      public void edge(int from, int to, DotParser.Attributes attributes) {
+        events.add(from + "->" + to + " " + attributes.getNumber("seconds", -1.0));
+      }
+    };
+    DotParser parser = new DotParser(new StringReader(dot), recorder, 16);
+    parser.parse();
+    
+    Assertions.assertEquals(List.of("0=Memorial Union", "1=Science Hall", "2=Library", "0->1 105.8", "1->2 105.8",
+        "3=The \"Quad\"", "3->0 42.0", "1 at 1.5,2"), events, "The parser reported the wrong statements");
+    Assertions.assertEquals(4, parser.getNodeCount(), "The parser should have seen four distinct names");
+    Assertions.assertThrows(IOException.class, () -> new DotParser(new StringReader("digraph { \"A\" -> }"), recorder).parse(),
+        "An edge without a head should be a syntax error");
+  }
+  
+  /**
+   * Checks that the parallel loader reports the same nodes, edges and positions in the same order
+   * as the sequential one for a map big enough to be split into several chunks, with repeated
+   * edges, positions and comments spread over every chunk, and again once every edge's attribute
+   * list is moved to the next line, so that chunk boundaries split statements.
+   */
+  @Test
+  public void testParallelDotLoader() throws IOException {
+    Random random = new Random(11);
+    StringBuilder dot = new StringBuilder("digraph campus {\n");
+    for(int i = 0; i < 100000; i++) {
+      int from = random.nextInt(5000);
+      int to = random.nextInt(5000);
+      dot.append("  \"Building ").append(from).append("\" -> \"Building ").append(to)
+          .append("\" [seconds=").append(1 + random.nextInt(300)).append("];\n");
+      if(i % 500 == 0) {
+        dot.append("  # checkpoint\n  \"Building ").append(to).append("\" [pos=\"").append(i).append(",").append(from).append("\"];\n");
+      }
+    }
+    dot.append("}\n");
+    
+    File file = File.createTempFile("parallel", ".dot");
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      for(String text : new String[] {dot.toString(), dot.toString().replace("\" [seconds=", "\"\n    [seconds=")}) {
+        Files.write(file.toPath(), text.getBytes());
+        Assertions.assertTrue(file.length() > 4 * (1 << 20), "The map should be large enough to split");
+        List<String> sequentialNodes = new ArrayList<>();
+        List<String> sequential = new ArrayList<>();
+        List<String> parallelNodes = new ArrayList<>();
+        List<String> parallel = new ArrayList<>();
+        DotLoader.loadSequential(file, recorder(sequentialNodes, sequential));
+        DotLoader.loadParallel(file, recorder(parallelNodes, parallel), pool);
+        Assertions.assertEquals(sequentialNodes, parallelNodes, "The parallel loader numbered the nodes differently");
+        Assertions.assertEquals(sequential, parallel, "The parallel loader reported different statements");
+      }
+      
+      // A position that is not a number is a bad file, reported with its line however it is loaded
+      String broken = dot.toString().replace("[pos=\"99500,", "[pos=\"nowhere,");
+      int line = broken.substring(0, broken.indexOf("nowhere")).split("\n", -1).length;
+      Files.write(file.toPath(), broken.getBytes());
+      IOException parallel = Assertions.assertThrows(IOException.class, () -> new Backend().loadGraphData(file.getPath()));
+      Assertions.assertTrue(parallel.getMessage().startsWith("line " + line + ": Bad position"), parallel.getMessage());
+      Files.write(file.toPath(), "digraph {\n  A -> B [seconds=5];\n  A [pos=\"1,north\"];\n}\n".getBytes());
+      IOException sequential = Assertions.assertThrows(IOException.class, () -> new Backend().loadGraphData(file.getPath()));
+      Assertions.assertTrue(sequential.getMessage().startsWith("line 3: Bad position for A"), sequential.getMessage());
+    }finally {
+      pool.shutdown();
+      file.delete();
+    }
+  }
+  
+  /**
+   * Checks that a snapshot saved after loading campus.dot loads back the same locations and
+   * routes, both straight from its arrays and once prepared, that a snapshot with a damaged index
+   * is rejected, that one with a damaged body is caught and replaced by its DOT file, and that a
+   * snapshot of a map that has changed since is replaced by the new map.
+   */
+  @Test
+  public void testGraphSnapshot() throws IOException {
+    File snapshot = File.createTempFile("campus", ".snapshot");
+    File dot = File.createTempFile("small", ".dot");
+    try {
+      Backend original = new Backend();
+      original.loadGraphData("campus.dot");
+      original.saveGraphSnapshot(snapshot.getPath());
+      String[][] pairs = {{"Memorial Union", "Computer Sciences and Statistics"}, {"Union South", "Smith Residence Hall"}};
+      for(int round = 0; round < 2; round++) {
+        Backend restored = new Backend();
+        restored.loadGraphSnapshot(snapshot.getPath());
+        if(round == 1) {
+          restored.prepareMapped();
+          Assertions.assertTrue(restored.getSnapshot().getGraph().isContracted(), "A prepared snapshot should be contracted");
+          Assertions.assertNull(restored.getSnapshotFailure(), "A sound snapshot should verify");
+        }
+        Assertions.assertEquals(original.getListOfAllLocations(), restored.getListOfAllLocations(), "The snapshot has different locations");
+        for(String[] pair : pairs) {
+          if(round == 0) {
+            // Until it is contracted, the map is searched another way that may settle ties differently
+            Assertions.assertEquals(original.findRoute(pair[0], pair[1]).getTotalCost(), restored.findRoute(pair[0], pair[1]).getTotalCost(), 1e-9, "The snapshot gave a different time");
+            continue;
+          }
+          Assertions.assertEquals(original.findShortestPath(pair[0], pair[1]), restored.findShortestPath(pair[0], pair[1]), "The snapshot gave a different path");
+          Assertions.assertEquals(original.getTravelTimesOnPath(pair[0], pair[1]), restored.getTravelTimesOnPath(pair[0], pair[1]), "The snapshot gave different times");
+        }
+      }
+      
+      byte[] sound = Files.readAllBytes(snapshot.toPath());
+      byte[] bytes = sound.clone();
+      bytes[100] ^= 1;
+      Files.write(snapshot.toPath(), bytes);
+      Assertions.assertThrows(IOException.class, () -> new Backend().loadGraphSnapshot(snapshot.getPath()),
+          "A snapshot with a damaged index should be rejected");
+      bytes = sound.clone();
+      bytes[bytes.length - 1] ^= 1;
+      Files.write(snapshot.toPath(), bytes);
+      Backend damaged = new Backend();
+      damaged.loadGraphSnapshot(snapshot.getPath());
+      damaged.prepareMapped();
+      Assertions.assertNotNull(damaged.getSnapshotFailure(), "A snapshot with a damaged body should fail to verify");
+      Assertions.assertEquals(original.getListOfAllLocations(), damaged.getListOfAllLocations(), "A damaged snapshot should be replaced by its map");
+      Assertions.assertEquals(original.findShortestPath(pairs[0][0], pairs[0][1]), damaged.findShortestPath(pairs[0][0], pairs[0][1]), "A damaged snapshot should be replaced by its map");
+      
+      Files.write(dot.toPath(), "digraph { \"A\" -> \"B\" [seconds=5]; }\n".getBytes());
+      Backend small = new Backend();
+      small.loadGraphData(dot.getPath());
+      small.saveGraphSnapshot(snapshot.getPath());
+      Files.write(dot.toPath(), "digraph { \"A\" -> \"B\" [seconds=5]; \"B\" -> \"C\" [seconds=7]; }\n".getBytes());
+      Backend reloaded = new Backend();
+      reloaded.loadGraphSnapshot(snapshot.getPath());
+      Assertions.assertEquals(List.of("A", "B", "C"), reloaded.getListOfAllLocations(), "A stale snapshot should be reloaded from its map");
+    }finally {
+      snapshot.delete();
+      dot.delete();
+    }
+  }
+  
+  /**
+   * Differential test of a frozen graph against the ArrayGraph it was frozen from, on a grid graph
+   * with removed edges, a removed node and one node of high degree. Every edge lookup, cost and
+   * route must agree, before and after contraction, and the frozen copy must neither change nor
+   * accept changes once it exists.
+   */
+  @Test
+  public void testFrozenGraph() {
+    ArrayGraph graph = createGridGraph(15, 15, 23);
+    Random random = new Random(5);
+    for(int i = 0; i < 80; i++) {
+      int x = random.nextInt(15);
+      int y = random.nextInt(14);
+      graph.removeEdge(x + "," + y, x + "," + (y + 1));
+    }
+    graph.removeNode("7,7");
+    for(int i = 0; i < 60; i++) {
+      graph.insertEdge("0,0", random.nextInt(15) + "," + random.nextInt(15), 500.0 + i);
+    }
+    
+    FrozenGraph frozen = graph.freeze();
+    Assertions.assertEquals(graph.getNodeCount(), frozen.getNodeCount(), "The frozen graph has a different node count");
+    Assertions.assertEquals(graph.getEdgeCount(), frozen.getEdgeCount(), "The frozen graph has a different edge count");
+    Assertions.assertFalse(frozen.containsNode("7,7"), "A removed node should not be frozen");
+    Assertions.assertFalse(frozen.isContracted(), "An uncontracted graph should freeze without a hierarchy");
+    for(int i = 0; i < 2000; i++) {
+      String from = random.nextInt(15) + "," + random.nextInt(15);
+      String to = random.nextInt(15) + "," + random.nextInt(15);
+      Assertions.assertEquals(graph.containsEdge(from, to), frozen.containsEdge(from, to), "containsEdge differs for " + from + " -> " + to);
+      if(graph.containsEdge(from, to)) {
+        Assertions.assertEquals(graph.getEdge(from, to), frozen.getEdge(from, to), "getEdge differs for " + from + " -> " + to);
+      }else {
+        Assertions.assertThrows(NoSuchElementException.class, () -> frozen.getEdge(from, to));
+      }
+    }
+    
+    graph.contract();
+    FrozenGraph contracted = graph.freeze();
+    Assertions.assertTrue(contracted.isContracted(), "A contracted graph should freeze with its hierarchy");
+    for(int i = 0; i < 200; i++) {
+      String start = random.nextInt(15) + "," + random.nextInt(15);
+      String end = random.nextInt(15) + "," + random.nextInt(15);
+      double expected;
+      try {
+        expected = graph.shortestPathCost(start, end);
+      }catch(NoSuchElementException e) {
+        Assertions.assertThrows(NoSuchElementException.class, () -> frozen.shortestRoute(start, end));
+        Assertions.assertThrows(NoSuchElementException.class, () -> contracted.shortestRoute(start, end));
+        continue;
+      }
+      Assertions.assertEquals(expected, frozen.shortestPathCost(start, end), 1e-9, "Dijkstra on the frozen graph found a different cost");
+      Assertions.assertEquals(expected, frozen.shortestRouteBidirectional(start, end).getTotalCost(), 1e-9, "The bidirectional search on the frozen graph found a different cost");
+      Assertions.assertEquals(expected, contracted.shortestRoute(start, end).getTotalCost(), 1e-9, "The hierarchy on the frozen graph found a different cost");
+    }
+    
+    graph.insertEdge("0,0", "14,14", 1.0);
+    Assertions.assertFalse(frozen.containsEdge("0,0", "14,14"), "Changing the graph should not change a frozen copy");
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> frozen.insertEdge("0,0", "14,14", 1.0));
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> frozen.removeNode("0,0"));
+  }
+  
+  /**
+   * Tests that querying a frozen graph does not keep it alive. One thread freezes a changing graph
+   * over and over and runs every kind of search on each copy, as a query thread does while
+   * snapshots are swapped. Every copy but the last must be collectable afterwards, while the
+   * thread is still running.
+   */
+  @Test
+  public void testFrozenGraphsAreCollectable() {
+    ArrayGraph graph = createGridGraph(20, 20, 41);
+    Random random = new Random(8);
+    List<WeakReference<FrozenGraph>> copies = new ArrayList<>();
+    for(int round = 0; round < 200; round++) {
+      graph.insertEdge(random.nextInt(20) + ",0", random.nextInt(20) + ",19", 100.0 + round);
+      if(round % 20 == 0) {
+        graph.contract();
+      }
+      FrozenGraph frozen = graph.freeze();
+      String start = random.nextInt(20) + "," + random.nextInt(20);
+      String end = random.nextInt(20) + "," + random.nextInt(20);
+      double cost = frozen.shortestRoute(start, end, null).getTotalCost();
+      Assertions.assertEquals(cost, frozen.shortestRouteBidirectional(start, end).getTotalCost(), 1e-9);
+      Assertions.assertEquals(cost, frozen.shortestRoute(start, end).getTotalCost(), 1e-9, "The hierarchy search found a different cost after switching graphs");
+      frozen.shortestPathTree(start);
+      copies.add(new WeakReference<>(frozen));
+    }
+    copies.remove(copies.size() - 1);
+    Assertions.assertTrue(awaitCollection(copies), "Frozen graphs this thread queried should be collectable once dropped");
+  }
+  
+  /**
+   * Runs the garbage collector until every reference is cleared, for up to ten seconds.
+   * 
+   * @return true if every referent was collected
+   */
+  private static boolean awaitCollection(List<? extends WeakReference<?>> references) {
+    for(int i = 0; i < 100; i++) {
+      if(references.stream().allMatch(reference -> reference.get() == null)) {
+        return true;
+      }
+      System.gc();
+      try {
+        Thread.sleep(100);
+      }catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+    return false;
+  }
+  
+  /**
+   * Contention test of concurrent queries. Four threads ask for routes between random campus
+   * locations while the map is reloaded several times; every answer must match the one computed
+   * before the threads started, and queries must keep completing while each reload is running,
+   * which shows they never wait for the load to publish its snapshot.
+   */
+  @Test
+  public void testConcurrentQueries() throws Exception {
+    Backend backend = new Backend();
+    backend.loadGraphData("campus.dot");
+    List<String> locations = backend.getListOfAllLocations();
+    Random random = new Random(14);
+    String[][] pairs = new String[200][];
+    List<List<String>> expected = new ArrayList<>();
+    for(int i = 0; i < pairs.length; i++) {
+      pairs[i] = new String[] {locations.get(random.nextInt(locations.size())), locations.get(random.nextInt(locations.size()))};
+      expected.add(backend.findShortestPath(pairs[i][0], pairs[i][1]));
+    }
+    
+    ExecutorService readers = Executors.newFixedThreadPool(4);
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicLong completed = new AtomicLong();
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for(int t = 0; t < 4; t++) {
+        int offset = t * 50;
+        futures.add(readers.submit(() -> {
+          for(int i = offset; !done.get(); i = (i + 1) % pairs.length) {
+            Assertions.assertEquals(expected.get(i), backend.findShortestPath(pairs[i][0], pairs[i][1]), "A concurrent query found a different path");
+            completed.incrementAndGet();
+          }
+        }));
+      }
+      
+      for(int reload = 0; reload < 3; reload++) {
+        RoutingSnapshot before = backend.getSnapshot();
+        long queriesBefore = completed.get();
+        backend.loadGraphData("campus.dot");
+        Assertions.assertNotSame(before, backend.getSnapshot(), "A reload should publish a new snapshot");
+        Assertions.assertTrue(completed.get() > queriesBefore, "Queries should keep completing while the map reloads");
+      }
+      done.set(true);
+      for(Future<?> future : futures) {
+        // Rethrows any assertion that failed on a reader thread
+        future.get();
+      }
+    }finally {
+      done.set(true);
+      readers.shutdownNow();
+    }
+  }
+  
+  /**
+   * Tests batch route queries against one query per route. The batch mixes groups that share a
+   * start, requests with a missing location and repeated requests. Every route it returns must be
+   * as long as the one findRoute() gives, in request order, and run from the right start to the
+   * right end. Equally short paths may differ, since groups are answered by a different search.
+   */
+  @Test
+  public void testFindRoutes() {
+    Backend backend = new Backend();
+    try {
+      backend.loadGraphData("campus.dot");
+    }catch(IOException e) {
+      Assert.fail("An error was thrown when passing a valid file into loadGraphData()");
+    }
+    List<String> locations = backend.getListOfAllLocations();
+    Random random = new Random(15);
+    List<RouteRequest> requests = new ArrayList<>();
+    for(int i = 0; i < 300; i++) {
+      // A few popular starts, so most groups have several ends
+      String start = locations.get(random.nextInt(i % 3 == 0 ? locations.size() : 8));
+      requests.add(new RouteRequest(start, locations.get(random.nextInt(locations.size()))));
+    }
+    for(int i = 0; i < 40; i++) {
+      // Small groups too, which are answered differently from large ones
+      requests.add(new RouteRequest(locations.get(100 + i % 8), locations.get(random.nextInt(locations.size()))));
+    }
+    requests.add(new RouteRequest("Memorial Union", "DNE"));
+    requests.add(new RouteRequest("DNE", "Memorial Union"));
+    requests.add(new RouteRequest("Memorial Union", "Memorial Union"));
+    requests.add(requests.get(0));
+    
+    ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      List<Route<String>> routes = backend.findRoutes(requests, pool);
+      Assertions.assertEquals(requests.size(), routes.size(), "There should be one route per request");
+      for(int i = 0; i < requests.size(); i++) {
+        RouteRequest request = requests.get(i);
+        Route<String> expected = backend.findRoute(request.getStart(), request.getEnd());
+        Route<String> route = routes.get(i);
+        Assertions.assertEquals(expected.isEmpty(), route.isEmpty(), "The batch disagrees on whether there is a path for " + request);
+        if(!route.isEmpty()) {
+          Assertions.assertEquals(expected.getTotalCost(), route.getTotalCost(), 1e-9, "The batch found a different time for " + request);
+          Assertions.assertEquals(request.getStart(), route.getNode(0), "Batch route has the wrong start");
+          Assertions.assertEquals(request.getEnd(), route.getNode(route.getNodeCount() - 1), "Batch route has the wrong end");
+        }
+      }
+      Assertions.assertTrue(routes.get(340).isEmpty(), "A missing end should give an empty route");
+      Assertions.assertTrue(routes.get(341).isEmpty(), "A missing start should give an empty route");
+    }finally {
+      pool.shutdown();
+    }
+  }
+  
+  /**
+   * Tests the route cache. Through a backend, a repeated query must be a hit that returns the same
+   * path. Directly, the cache must stay within its byte limit, must not answer for a graph version
+   * other than the one it holds, and under TINY_LFU must keep a set of popular routes cached among
+   * a stream of one-off routes that flushes them out of a plain LRU cache of the same size, and
+   * must still favor them once a new graph version empties it.
+   */
+  @Test
+  public void testRouteCache() {
+    Backend backend = new Backend(new RouteCache(1 << 20, RouteCache.Policy.TINY_LFU));
+    try {
+      backend.loadGraphData("campus.dot");
+    }catch(IOException e) {
+      Assert.fail("An error was thrown when passing a valid file into loadGraphData()");
+    }
+    List<String> first = backend.findShortestPath("Memorial Union", "Union South");
+    Assertions.assertEquals(first, backend.findShortestPath("Memorial Union", "Union South"), "A cached path should be the same path");
+    Assertions.assertEquals(1, backend.getRouteCache().getHitCount(), "The second query should be answered from the cache");
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> first.set(0, "DNE"));
+    
+    Route<String> route = new Route<>(new String[] {"A", "B", "C", "D", "E"}, new double[] {1.0, 2.0, 3.0, 4.0}, 10.0);
+    for(RouteCache.Policy policy : RouteCache.Policy.values()) {
+      RouteCache small = new RouteCache(8192, policy);
+      for(int i = 0; i < 1000; i++) {
+        small.get(1, i, i + 1);
+        small.put(1, i, i + 1, route);
+      }
+      Assertions.assertTrue(small.getBytes() <= 8192, policy + " cache grew past its limit: " + small);
+      Assertions.assertTrue(small.getEvictionCount() > 0, policy + " cache should have evicted routes: " + small);
+    }
+    
+    RouteCache versioned = new RouteCache(1 << 20, RouteCache.Policy.LRU);
+    versioned.put(1, 0, 1, route);
+    Assertions.assertSame(route, versioned.get(1, 0, 1), "A route should be found in the version it was cached in");
+    Assertions.assertNull(versioned.get(2, 0, 1), "A newer graph version should invalidate cached routes");
+    versioned.put(1, 0, 1, route);
+    Assertions.assertNull(versioned.get(2, 0, 1), "A route from an older graph version should not be cached");
+    Assertions.assertEquals(1, versioned.getInvalidationCount(), "There should have been one invalidation");
+    
+    double[] hotHitRate = new double[2];
+    for(RouteCache.Policy policy : RouteCache.Policy.values()) {
+      // Room for about 300 routes; every tenth query asks for one of 50 popular routes
+      RouteCache cache = new RouteCache(64 * 1024, policy);
+      int hotHits = 0;
+      for(int i = 0; i < 40000; i++) {
+        int key = i % 10 == 0 ? i / 10 % 50 : 1000 + i;
+        Route<String> cached = cache.get(1, key, key);
+        if(cached == null) {
+          cache.put(1, key, key, route);
+        }else if(i >= 20000) {
+          hotHits++;
+        }
+      }
+      hotHitRate[policy.ordinal()] = hotHits / 2000.0;
+    }
+    Assertions.assertEquals(0.0, hotHitRate[RouteCache.Policy.LRU.ordinal()], 0.1, "A scan should flush an LRU cache");
+    Assertions.assertTrue(hotHitRate[RouteCache.Policy.TINY_LFU.ordinal()] >= 0.9, "TINY_LFU should keep popular routes through a scan, but kept " + hotHitRate[RouteCache.Policy.TINY_LFU.ordinal()]);
+    
+    // Popular routes stay popular across an edit: once one-off routes fill the emptied cache, the
+    // popular ones should still win admission over them
+    RouteCache edited = new RouteCache(64 * 1024, RouteCache.Policy.TINY_LFU);
+    for(int i = 0; i < 20000; i++) {
+      int key = i % 10 == 0 ? i / 10 % 50 : 1000 + i;
+      if(edited.get(1, key, key) == null) {
+        edited.put(1, key, key, route);
+      }
+    }
+    for(int key = 100000; key < 100500; key++) {
+      edited.get(2, key, key);
+      edited.put(2, key, key, route);
+    }
+    int admitted = 0;
+    for(int key = 0; key < 50; key++) {
+      edited.get(2, key, key);
+      edited.put(2, key, key, route);
+    }
+    for(int key = 0; key < 50; key++) {
+      if(edited.get(2, key, key) != null) {
+        admitted++;
+      }
+    }
+    Assertions.assertTrue(admitted >= 40, "A new graph version should not make popular routes look new, but only " + admitted + " of 50 were admitted");
+  }
+  
+  /**
+   * Tests the open-addressing maps against java.util.HashMap. OpenHashtableMap must keep the
+   * MapADT contract for duplicate, null and missing keys, and all three maps must agree with a
+   * HashMap through a long random mix of puts and removes over keys with negative and colliding
+   * hash codes, which exercises growing the table and shifting entries back after removals.
+   */
+  @Test
+  public void testOpenHashtableMap() {
+    MapADT<String, Integer> map = new OpenHashtableMap<>(4);
+    map.put("Aa", 1);
+    map.put("BB", 2);
+    Assertions.assertEquals("Aa".hashCode(), "BB".hashCode());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> map.put("Aa", 3));
+    Assertions.assertThrows(NullPointerException.class, () -> map.put(null, 3));
+    Assertions.assertThrows(NoSuchElementException.class, () -> map.get("C"));
+    Assertions.assertThrows(NoSuchElementException.class, () -> map.remove("C"));
+    Assertions.assertEquals(1, (int) map.remove("Aa"));
+    Assertions.assertEquals(2, (int) map.get("BB"), "Removing a key should not lose a key that collided with it");
+    Assertions.assertFalse(map.containsKey(null));
+    map.clear();
+    Assertions.assertEquals(0, map.getSize());
+    
+    Random random = new Random(17);
+    OpenHashtableMap<Integer, Integer> generic = new OpenHashtableMap<>();
+    ObjectIntHashMap<Integer> objectInt = new ObjectIntHashMap<>();
+    IntDoubleHashMap intDouble = new IntDoubleHashMap();
+    HashMap<Integer, Integer> expected = new HashMap<>();
+    for(int i = 0; i < 100000; i++) {
+      // Multiples of 1024 share their low hash bits, and negative keys have negative hash codes
+      int key = random.nextInt(2000) * (random.nextBoolean() ? 1024 : 1);
+      Integer old = expected.get(key);
+      if(random.nextInt(3) == 0) {
+        expected.remove(key);
+        if(old == null) {
+          Assertions.assertThrows(NoSuchElementException.class, () -> generic.remove(key));
+        }else {
+          Assertions.assertEquals(old, generic.remove(key));
+        }
+        Assertions.assertEquals(old == null ? -1 : old, objectInt.remove(-key, -1));
+        Assertions.assertEquals(old == null ? -1.0 : old, intDouble.remove(key, -1.0));
+      }else {
+        expected.put(key, i);
+        if(old != null) {
+          generic.remove(key);
+        }
+        generic.put(key, i);
+        objectInt.put(-key, i);
+        intDouble.put(key, i);
+      }
+    }
+    Assertions.assertEquals(expected.size(), generic.getSize());
+    Assertions.assertEquals(expected.size(), objectInt.size());
+    Assertions.assertEquals(expected.size(), intDouble.size());
+    Assertions.assertTrue(generic.getSize() <= 0.6 * generic.getCapacity(), "The table should grow before it is 60% full");
+    for(int key = -4096; key < 2000 * 1024; key += key < 2000 ? 1 : 1024) {
+      Integer value = expected.get(key);
+      Assertions.assertEquals(value != null, generic.containsKey(key), "Wrong membership for " + key);
+      Assertions.assertEquals(value == null ? -1 : value, objectInt.get(-key, -1), "Wrong int value for " + key);
+      Assertions.assertEquals(value == null ? -1.0 : value, intDouble.get(key, -1.0), "Wrong double value for " + key);
+      if(value != null) {
+        Assertions.assertEquals(value, generic.get(key), "Wrong value for " + key);
+      }
+    }
+  }
+  
+  /**
+   * Stress test of ConcurrentHashtableMap. Four writers put and remove their own keys in a map that
+   * starts at its smallest size, so it resizes many times while they run, and two readers keep
+   * checking that keys put before the threads started are found with the right value on every
+   * lookup, including while their bins are being moved. Afterwards the map must hold exactly the
+   * keys that were not removed, each with its value.
+   */
+  @Test
+  public void testConcurrentHashtableMap() throws Exception {
+    MapADT<String, Integer> map = new ConcurrentHashtableMap<>(1);
+    Assertions.assertEquals(16, map.getCapacity(), "The map should never have fewer bins than stripes");
+    for(int i = 0; i < 100; i++) {
+      map.put("stable " + i, i);
+    }
+    Assertions.assertThrows(IllegalArgumentException.class, () -> map.put("stable 0", 0));
+    Assertions.assertThrows(NoSuchElementException.class, () -> map.remove("DNE"));
+    
+    ExecutorService threads = Executors.newFixedThreadPool(6);
+    AtomicBoolean done = new AtomicBoolean();
+    try {
+      List<Future<?>> writers = new ArrayList<>();
+      for(int t = 0; t < 4; t++) {
+        String prefix = "writer " + t + " key ";
+        writers.add(threads.submit(() -> {
+          for(int i = 0; i < 20000; i++) {
+            map.put(prefix + i, i);
+            if(i % 3 == 0) {
+              Assertions.assertEquals(i, (int) map.remove(prefix + i), "Removed the wrong value");
+            }
+          }
+        }));
+      }
+      List<Future<?>> readers = new ArrayList<>();
+      for(int t = 0; t < 2; t++) {
+        readers.add(threads.submit(() -> {
+          for(int i = 0; !done.get(); i = (i + 1) % 100) {
+            Assertions.assertEquals(i, (int) map.get("stable " + i), "A key went missing during a resize");
+          }
+        }));
+      }
+      for(Future<?> writer : writers) {
+        // Rethrows any assertion that failed on a writer thread
+        writer.get();
+      }
+      done.set(true);
+      for(Future<?> reader : readers) {
+        reader.get();
+      }
+    }finally {
+      done.set(true);
+      threads.shutdownNow();
+    }
+    
+    Assertions.assertEquals(100 + 4 * 13333, map.getSize());
+    Assertions.assertTrue(map.getCapacity() >= 4 * 13333, "The map should have grown with its entries, but has " + map.getCapacity() + " bins");
+    for(int t = 0; t < 4; t++) {
+      for(int i = 0; i < 20000; i++) {
+        String key = "writer " + t + " key " + i;
+        Assertions.assertEquals(i % 3 != 0, map.containsKey(key), "Wrong membership for " + key);
+        if(i % 3 != 0) {
+          Assertions.assertEquals(i, (int) map.get(key));
+        }
+      }
+    }
+    map.clear();
+    Assertions.assertEquals(0, map.getSize());
+    Assertions.assertFalse(map.containsKey("stable 0"));
+  }
+  
+  /**
+   * Tests the symbol table shared by a graph and everything built from it. Ids must be dense and
+   * translate both ways, ids of removed nodes must be reused, and the graph, its frozen copy and
+   * its contraction hierarchy must share one read-only table until the graph changes. Through the
+   * backend, every location must round-trip through its id, and routing by ids must give the same
+   * routes as routing by names.
+   */
+  @Test
+  public void testSymbolTable() {
+    ArrayGraph graph = new ArrayGraph();
+    for(String name : new String[] {"A", "B", "C", "D"}) {
+      graph.insertNode(name);
+    }
+    graph.insertEdge("A", "B", 1.0);
+    graph.insertEdge("B", "C", 1.0);
+    SymbolTable symbols = graph.getSymbols();
+    Assertions.assertSame(symbols, graph.getSymbols(), "An unchanged graph should keep returning the same table");
+    Assertions.assertTrue(symbols.isReadOnly());
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> symbols.add("E"));
+    graph.contract();
+    Assertions.assertSame(symbols, graph.freeze().getSymbols(), "A frozen copy should share the graph's table");
+    
+    int removed = graph.idOf("B");
+    graph.removeNode("B");
+    Assertions.assertNotSame(symbols, graph.getSymbols(), "A change should give the graph a new table");
+    Assertions.assertEquals(removed, symbols.idOf("B"), "An old table should not see later changes");
+    graph.insertNode("E");
+    Assertions.assertEquals(removed, graph.idOf("E"), "A removed node's id should be reused");
+    Assertions.assertEquals(4, graph.getSymbols().getIdLimit());
+    Assertions.assertEquals(4, graph.getSymbols().size());
+    Assertions.assertEquals(-1, graph.getSymbols().idOf("B"));
+    
+    Backend backend = new Backend();
+    try {
+      backend.loadGraphData("campus.dot");
+    }catch(IOException e) {
+      Assert.fail("An error was thrown when passing a valid file into loadGraphData()");
+    }
+    SymbolTable campus = backend.getSymbols();
+    List<String> locations = backend.getListOfAllLocations();
+    Assertions.assertEquals(locations.size(), campus.size());
+    Assertions.assertEquals(locations.size(), campus.getIdLimit(), "Ids should be dense");
+    for(String location : locations) {
+      Assertions.assertEquals(location, campus.nameOf(campus.idOf(location)));
+    }
+    RoutingSnapshot snapshot = backend.getSnapshot();
+    Random random = new Random(19);
+    for(int i = 0; i < 100; i++) {
+      String start = locations.get(random.nextInt(locations.size()));
+      String end = locations.get(random.nextInt(locations.size()));
+      try {
+        List<String> byName = snapshot.route(start, end).getNodes();
+        Assertions.assertEquals(byName, snapshot.route(campus.idOf(start), campus.idOf(end)).getNodes(), "Routing by ids should find the same route");
+      }catch(NoSuchElementException e) {
+        Assertions.assertThrows(NoSuchElementException.class, () -> snapshot.route(campus.idOf(start), campus.idOf(end)));
+      }
+    }
+  }
+  
+  /**
+   * Checks that the map generator writes the same file for the same seed and a different one for
+   * another, in the dialect of campus.dot and close to the number of edges asked for, with walking
+   * times that differ between the two directions of a link. A generated grid, written with
+   * coordinates, should load and route like any other map.
+   */
+  @Test
+  public void testDotGenerator() throws IOException {
+    for(DotGenerator.Topology topology : DotGenerator.Topology.values()) {
+      StringWriter first = new StringWriter();
+      StringWriter again = new StringWriter();
+      StringWriter other = new StringWriter();
+      long edges = new DotGenerator(topology, 20000, 5, false).write(first);
+      new DotGenerator(topology, 20000, 5, false).write(again);
+      new DotGenerator(topology, 20000, 6, false).write(other);
+      Assertions.assertEquals(first.toString(), again.toString(), topology + " maps should only depend on their seed");
+      Assertions.assertNotEquals(first.toString(), other.toString(), topology + " maps should change with their seed");
+      Assertions.assertTrue(Math.abs(edges - 20000) < 1000, topology + " map has " + edges + " edges instead of about 20000");
+      
+      String[] lines = first.toString().split("\n");
+      Assertions.assertEquals("digraph campus {", lines[0]);
+      Assertions.assertEquals("}", lines[lines.length - 1]);
+      Assertions.assertEquals(edges, lines.length - 2, "Every line but the first and last should be an edge");
+      HashMap<String, Double> seconds = new HashMap<>();
+      for(int i = 1; i < lines.length - 1; i++) {
+        Assertions.assertTrue(lines[i].matches("\t\"[^\"]+\" -> \"[^\"]+\" \\[seconds=\\d+\\.\\d\\];"), "Not in the campus.dot dialect: " + lines[i]);
+        String[] ends = lines[i].split("\"");
+        seconds.put(ends[1] + "->" + ends[3], Double.parseDouble(lines[i].substring(lines[i].indexOf('=') + 1, lines[i].length() - 2)));
+      }
+      int reversed = 0;
+      int asymmetric = 0;
+      for(String edge : seconds.keySet()) {
+        String[] ends = edge.split("->");
+        Double back = seconds.get(ends[1] + "->" + ends[0]);
+        if(back != null) {
+          reversed++;
+          asymmetric += Math.abs(back - seconds.get(edge)) > 0.1 ? 1 : 0;
+        }
+      }
+      Assertions.assertTrue(asymmetric > reversed / 2, topology + " maps should mostly have different times in each direction");
+    }
+    
+    File file = File.createTempFile("grid", ".dot");
+    try {
+      new DotGenerator(DotGenerator.Topology.GRID, 2000, 7, true).write(file);
+      Backend backend = new Backend();
+      backend.loadGraphData(file.getPath());
+      Assertions.assertTrue(backend.getSnapshot().getGraph().hasCoordinates(backend.getSymbols().idOf("Building 0-0")), "The grid should have coordinates");
+      List<String> path = backend.findShortestPath("Building 0-0", "Building 9-9");
+      Assertions.assertEquals("Building 0-0", path.get(0));
+      Assertions.assertEquals("Building 9-9", path.get(path.size() - 1));
+      Assertions.assertTrue(path.size() >= 19, "A path across a grid cannot take fewer than 18 steps");
+      Assertions.assertNotEquals(backend.getTravelTimesOnPath("Building 0-0", "Building 9-9"), backend.getTravelTimesOnPath("Building 9-9", "Building 0-0"),
+          "Walking back should take a different time");
+    }finally {
+      file.delete();
+    }
+  }
+  
+  /**
+   * Tests the backend's metrics. The histogram must report percentiles within 2% above the true
+   * ones and the exact count, mean and maximum. A backend records nothing until its metrics are
+   * enabled; after that, it must break down its load, time every query, count the work of every
+   * search but not of cached routes, and serve the same numbers as JSON, over JMX and in periodic
+   * dumps.
+   */
+  @Test
+  public void testBackendMetrics() throws Exception {
+    ConcurrentHistogram histogram = new ConcurrentHistogram();
+    for(long value = 1; value <= 100000; value++) {
+      histogram.record(value);
+    }
+    Assertions.assertEquals(100000, histogram.getCount());
+    Assertions.assertEquals(50000.5, histogram.getMean(), 1e-9);
+    Assertions.assertEquals(100000, histogram.getMax());
+    for(double percentile : new double[] {1.0, 50.0, 90.0, 99.0, 99.9}) {
+      long reported = histogram.getValueAtPercentile(percentile);
+      long expected = (long) Math.ceil(percentile * 1000);
+      Assertions.assertTrue(reported >= expected && reported <= expected * 1.02, "p" + percentile + " should be about " + expected + " but was " + reported);
+    }
+    Assertions.assertEquals(100000, histogram.getValueAtPercentile(100.0));
+    histogram.record(Long.MAX_VALUE);
+    Assertions.assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100.0));
+    histogram.reset();
+    Assertions.assertEquals(0, histogram.getCount());
+    
+    Backend backend = new Backend();
+    BackendMetrics metrics = backend.getMetrics();
+    backend.loadGraphData("campus.dot");
+    backend.findShortestPath("Memorial Union", "Union South");
+    Assertions.assertEquals(0, metrics.getLoadCount(), "Nothing should be recorded while metrics are off");
+    Assertions.assertEquals(0, metrics.getFindShortestPathStatistics().getCount(), "Nothing should be recorded while metrics are off");
+    
+    backend = new Backend();
+    metrics = backend.getMetrics();
+    metrics.setEnabled(true);
+    backend.loadGraphData("campus.dot");
+    Assertions.assertEquals(1, metrics.getLoadCount());
+    Assertions.assertTrue(metrics.getParseMillis() > 0.0 && metrics.getInternMillis() > 0.0 && metrics.getBuildMillis() > 0.0, "Every load phase should take some time: " + metrics.toText());
+    
+    backend.findShortestPath("Memorial Union", "Union South");
+    backend.findShortestPath("Memorial Union", "Union South");
+    backend.getTravelTimesOnPath("Union South", "Memorial Union");
+    backend.getMostDistantLocation("Memorial Union");
+    QueryStatistics paths = metrics.getFindShortestPathStatistics();
+    Assertions.assertEquals(2, paths.getCount());
+    Assertions.assertEquals(1, paths.getSearches(), "The repeated path should come from the cache without a search");
+    Assertions.assertTrue(paths.getMeanSettled() > 0 && paths.getMeanHeapOperations() >= paths.getMeanSettled(), "Every settled node is polled from the heap");
+    Assertions.assertTrue(paths.getP50Micros() > 0.0 && paths.getP50Micros() <= paths.getMaxMicros());
+    Assertions.assertEquals(1, metrics.getTravelTimesOnPathStatistics().getSearches());
+    QueryStatistics distant = metrics.getMostDistantLocationStatistics();
+    Assertions.assertEquals(1, distant.getCount());
+    Assertions.assertTrue(distant.getMaxSettled() > paths.getMaxSettled() && distant.getMaxSettled() <= backend.getListOfAllLocations().size(), "A shortest path tree should settle every reachable location, far more than a hierarchy search");
+    Assertions.assertEquals(1.0 / 3, metrics.getRouteCacheHitRate(), 1e-9, "One of the three route lookups should have hit");
+    Assertions.assertTrue(metrics.toJson().contains("\"findShortestPath\":{\"count\":2,"), metrics.toJson());
+    
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = metrics.register();
+    try {
+      Assertions.assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+      CompositeData composite = (CompositeData) server.getAttribute(name, "FindShortestPathStatistics");
+      Assertions.assertEquals(2L, composite.get("count"));
+      server.setAttribute(name, new Attribute("Enabled", false));
+      Assertions.assertFalse(metrics.isEnabled(), "Metrics should be switched off over JMX");
+    }finally {
+      metrics.unregister();
+    }
+    Assertions.assertFalse(server.isRegistered(name));
+    
+    LinkedBlockingQueue<String> dumps = new LinkedBlockingQueue<>();
+    AtomicBoolean thrown = new AtomicBoolean();
+    ScheduledFuture<?> dumping = metrics.dumpEvery(10, TimeUnit.MILLISECONDS, true, dump -> {
+      if(thrown.compareAndSet(false, true)) {
+        throw new IllegalStateException("log is full");
+      }
+      dumps.offer(dump);
+    });
+    try {
+      String dump = dumps.poll(10, TimeUnit.SECONDS);
+      Assertions.assertNotNull(dump, "A dump should arrive within a few periods, even after one fails");
+      Assertions.assertTrue(dump.startsWith("{\"enabled\":false,\"loads\":1,"), dump);
+      Assertions.assertEquals(1, metrics.getDumpFailureCount());
+      Assertions.assertEquals("log is full", metrics.getLastDumpFailure().getMessage());
+    }finally {
+      dumping.cancel(false);
+    }
+    metrics.reset();
+    Assertions.assertEquals(0, metrics.getFindShortestPathStatistics().getCount());
+  }
+  
+  /**
+   * Tests the flight recorder events. Loading the campus and making a few queries during a
+   * recording must leave a parse and a build phase, one snapshot swap describing the new map, a
+   * miss and then a hit for a repeated route, and a search event for the route and for the tree
+   * behind getMostDistantLocation(), with the cost each search found.
+   */
+  @Test
+  public void testFlightRecorderEvents() throws IOException {
+    File file = File.createTempFile("routing", ".jfr");
+    Backend backend = new Backend();
+    try {
+      try(Recording recording = new Recording()) {
+        for(String name : new String[] {"campusmap.GraphLoad", "campusmap.SnapshotSwap", "campusmap.RouteCache", "campusmap.Search"}) {
+          recording.enable(name).withoutThreshold();
+        }
+        recording.start();
+        backend.loadGraphData("campus.dot");
+        backend.findShortestPath("Memorial Union", "Union South");
+        backend.findShortestPath("Memorial Union", "Union South");
+        backend.getMostDistantLocation("Memorial Union");
+        recording.stop();
+        recording.dump(file.toPath());
+      }
+      List<RecordedEvent> events = RecordingFile.readAllEvents(file.toPath());
+      
+      List<String> phases = events.stream().filter(e -> e.getEventType().getName().equals("campusmap.GraphLoad")).map(e -> e.getString("phase")).collect(Collectors.toList());
+      Assertions.assertEquals(List.of("parse", "build"), phases);
+      List<RecordedEvent> swaps = events.stream().filter(e -> e.getEventType().getName().equals("campusmap.SnapshotSwap")).collect(Collectors.toList());
+      Assertions.assertEquals(1, swaps.size());
+      Assertions.assertEquals(backend.getListOfAllLocations().size(), swaps.get(0).getInt("nodes"));
+      Assertions.assertEquals(backend.getSnapshot().getVersion(), swaps.get(0).getLong("version"));
+      
+      List<Boolean> hits = events.stream().filter(e -> e.getEventType().getName().equals("campusmap.RouteCache")).sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime())).map(e -> e.getBoolean("hit")).collect(Collectors.toList());
+      Assertions.assertEquals(List.of(false, true), hits, "The repeated route should miss and then hit");
+      
+      List<RecordedEvent> searches = events.stream().filter(e -> e.getEventType().getName().equals("campusmap.Search")).collect(Collectors.toList());
+      Assertions.assertEquals(2, searches.size(), "The cached route should not be searched again: " + searches);
+      RecordedEvent route = searches.stream().filter(e -> "Union South".equals(e.getString("end"))).findFirst().orElseThrow();
+      Assertions.assertEquals("hierarchy", route.getString("algorithm"));
+      Assertions.assertEquals("Memorial Union", route.getString("start"));
+      Assertions.assertTrue(route.getInt("settled") > 0);
+      Assertions.assertEquals(backend.findRoute("Memorial Union", "Union South").getTotalCost(), route.getDouble("cost"), 1e-9);
+      RecordedEvent tree = searches.stream().filter(e -> e.getString("algorithm").equals("tree")).findFirst().orElseThrow();
+      Assertions.assertEquals(backend.getMostDistantLocationDetails("Memorial Union").getTravelTime(), tree.getDouble("cost"), 1e-9);
+    }finally {
+      file.delete();
+    }
+  }
+  
+  /**
+   * Tests dynamic edge updates. Rounds of random slowdowns, speedups, closures and new paths on a
+   * grid must leave a repaired matrix, heap or mapped, equal to one computed from scratch, with
+   * valid next hops. On the campus, updateEdges() must repair the travel time matrix, answer
+   * routes at their new cost, keep cached routes that a slowdown cannot affect and reject a batch
+   * with an unknown location without applying any of it.
+   */
+  @Test
+  public void testDynamicUpdates() throws IOException {
+    ArrayGraph graph = createGridGraph(12, 12, 31);
+    File file = File.createTempFile("repair", ".bin");
+    file.deleteOnExit();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    DistanceMatrix[] matrices = {DistanceMatrix.compute(graph, pool), DistanceMatrix.compute(graph, pool, file)};
+    Random random = new Random(23);
+    for(int round = 0; round < 20; round++) {
+      FrozenGraph before = graph.freeze();
+      List<EdgeChange> changes = new ArrayList<>();
+      for(int i = 0; i < 1 + random.nextInt(8); i++) {
+        int from = random.nextInt(144);
+        int to = random.nextInt(3) == 0 ? random.nextInt(144) : (from + (random.nextBoolean() ? 1 : 12)) % 144;
+        String pred = graph.nameOf(from);
+        String succ = graph.nameOf(to);
+        if(from == to || changes.stream().anyMatch(c -> c.getFrom() == from && c.getTo() == to)) {
+          continue;
+        }
+        double old = graph.containsEdge(pred, succ) ? graph.getEdge(pred, succ) : Double.POSITIVE_INFINITY;
+        double weight = random.nextInt(4) == 0 ? Double.POSITIVE_INFINITY : 1 + random.nextInt(60);
+        if(weight == old) {
+          continue;
+        }
+        if(weight == Double.POSITIVE_INFINITY) {
+          graph.removeEdge(pred, succ);
+        }else {
+          graph.insertEdge(pred, succ, weight);
+        }
+        changes.add(new EdgeChange(from, to, old, weight));
+      }
+      FrozenGraph after = graph.freeze();
+      DistanceMatrix previous = DistanceMatrix.compute(before, pool);
+      DistanceMatrix expected = DistanceMatrix.compute(after, pool);
+      for(int m = 0; m < matrices.length; m++) {
+        DistanceMatrix old = matrices[m];
+        matrices[m] = old.repair(after, changes, pool);
+        for(int s = 0; s < 144; s++) {
+          for(int t = 0; t < 144; t++) {
+            Assertions.assertEquals(expected.getDistance(s, t), matrices[m].getDistance(s, t), 1e-9, "Round " + round + " repaired the wrong travel time from " + s + " to " + t);
+            Assertions.assertEquals(previous.getDistance(s, t), old.getDistance(s, t), 1e-9, "Repairing should not change the old matrix");
+            if(matrices[m].getDistance(s, t) == Double.POSITIVE_INFINITY || s == t) {
+              continue;
+            }
+            double cost = 0.0;
+            for(int v = s; v != t; ) {
+              int next = matrices[m].getNextHop(v, t);
+              cost += graph.getEdge(graph.nameOf(v), graph.nameOf(next));
+              v = next;
+            }
+            Assertions.assertEquals(expected.getDistance(s, t), cost, 1e-9, "Round " + round + " left a next hop off the shortest path from " + s + " to " + t);
+          }
+        }
+      }
+    }
+    pool.shutdown();
+    
+    Backend backend = new Backend();
+    backend.loadGraphData("campus.dot");
+    FrozenGraph campus = backend.getSnapshot().getGraph();
+    backend.getTravelTimeMatrix();
+    Route<String> route = backend.findRoute("Memorial Union", "Union South");
+    String first = route.getNode(0);
+    String second = route.getNode(1);
+    Route<String> other = null;
+    for(String location : backend.getListOfAllLocations()) {
+      Route<String> candidate = backend.findRoute("Memorial Union", location);
+      if(candidate.getNodeCount() > 1 && !candidate.getNode(1).equals(second)) {
+        other = candidate;
+        break;
+      }
+    }
+    Assertions.assertNotNull(other, "Some route from Memorial Union should start another way");
+    long hits = backend.getRouteCache().getHitCount();
+    
+    // Slowing the first hop down evicts the route through it but keeps the other
+    backend.updateEdges(List.of(new EdgeUpdate(first, second, route.getHopWeight(0) + 1000.0)));
+    Assertions.assertFalse(backend.getSnapshot().getGraph().isContracted(), "The hierarchy is stale after an update");
+    Assertions.assertEquals(other.getTotalCost(), backend.findRoute("Memorial Union", other.getNode(other.getNodeCount() - 1)).getTotalCost(), 1e-9);
+    Assertions.assertEquals(hits + 1, backend.getRouteCache().getHitCount(), "A route the slowdown does not use should stay cached");
+    Assertions.assertEquals(backend.getSnapshot().getGraph().shortestPathCost("Memorial Union", "Union South"), backend.findRoute("Memorial Union", "Union South").getTotalCost(), 1e-9);
+    
+    // Close the path, open a shortcut and undo the slowdown's effect elsewhere in one batch
+    String far = backend.getMostDistantLocation("Memorial Union");
+    backend.updateEdges(List.of(EdgeUpdate.closure(first, second), new EdgeUpdate("Memorial Union", far, 60.0), new EdgeUpdate(first, second, 5.0), EdgeUpdate.closure(first, second)));
+    FrozenGraph updated = backend.getSnapshot().getGraph();
+    Assertions.assertFalse(updated.containsEdge(first, second), "The last update of a path should win");
+    Assertions.assertEquals(60.0, backend.findRoute("Memorial Union", far).getTotalCost(), 1e-9);
+    DistanceMatrix expected = DistanceMatrix.compute(updated);
+    DistanceMatrix repaired = backend.getTravelTimeMatrix();
+    for(String start : backend.getListOfAllLocations()) {
+      for(String end : backend.getListOfAllLocations()) {
+        Assertions.assertEquals(expected.getDistance(start, end), repaired.getDistance(start, end), 1e-9, "The repaired campus matrix is wrong from " + start + " to " + end);
+      }
+    }
+    
+    long version = backend.getSnapshot().getVersion();
+    Assertions.assertThrows(NoSuchElementException.class, () -> backend.updateEdges(List.of(new EdgeUpdate("Memorial Union", far, 1.0), new EdgeUpdate("Memorial Union", "Nowhere", 1.0))));
+    Assertions.assertEquals(version, backend.getSnapshot().getVersion(), "A rejected batch should not publish anything");
+    Assertions.assertEquals(60.0, backend.findRoute("Memorial Union", far).getTotalCost(), 1e-9, "A rejected batch should not be applied in part");
+    Assertions.assertEquals(campus.getNodeCount(), updated.getNodeCount());
+  }
+  
+  /**
+   * Tests that a long stream of edge updates does not pile up old maps. Each update publishes a
+   * new snapshot, and queries between updates run on it from this thread; once replaced, every
+   * snapshot and its graph must be collectable.
+   */
+  @Test
+  public void testDynamicUpdatesReleaseSnapshots() throws IOException {
+    Backend backend = new Backend();
+    backend.loadGraphData("campus.dot");
+    backend.getTravelTimeMatrix();
+    Route<String> route = backend.findRoute("Memorial Union", "Union South");
+    String from = route.getNode(0);
+    String to = route.getNode(1);
+    double seconds = route.getHopWeight(0);
+    List<WeakReference<Object>> replaced = new ArrayList<>();
+    for(int round = 0; round < 500; round++) {
+      RoutingSnapshot snapshot = backend.getSnapshot();
+      replaced.add(new WeakReference<>(snapshot));
+      replaced.add(new WeakReference<>(snapshot.getGraph()));
+      backend.updateEdges(List.of(new EdgeUpdate(from, to, round % 2 == 0 ? seconds + 100.0 : seconds)));
+      backend.findRoute("Memorial Union", "Union South");
+      backend.getMostDistantLocation("Memorial Union");
+    }
+    Assertions.assertEquals(route.getTotalCost(), backend.findRoute("Memorial Union", "Union South").getTotalCost(), 1e-9);
+    Assertions.assertTrue(awaitCollection(replaced), "Snapshots replaced by edge updates should be collectable");
+  }
+  
+  /**
+   * Tests that a new path keeps A* correct on a map without coordinates, where the heuristic comes
+   * from landmarks. The only landmark that reaches T cannot reach B before the update, so its old
+   * distances say nothing about the shortcut through B.
+   */
+  @Test
+  public void testDynamicUpdatesLandmarks() throws IOException {
+    File file = File.createTempFile("landmarks", ".dot");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "digraph { L -> A [seconds=0.5]; L -> T [seconds=100]; S -> A [seconds=1]; S -> T [seconds=10]; B -> T [seconds=1]; }".getBytes());
+    Backend backend = new Backend();
+    backend.loadGraphData(file.getPath());
+    Assertions.assertEquals(List.of("S", "T"), backend.findShortestPath("S", "T"));
+    
+    backend.updateEdges(List.of(new EdgeUpdate("A", "B", 1.0)));
+    Assertions.assertFalse(backend.getSnapshot().getGraph().isContracted(), "The update should be searched with A*");
+    Assertions.assertEquals(List.of("S", "A", "B", "T"), backend.findShortestPath("S", "T"));
+    Assertions.assertEquals(3.0, backend.findRoute("S", "T").getTotalCost(), 1e-9);
+    Assertions.assertEquals(3.0, backend.getTravelTimeMatrix().getDistance("S", "T"), 1e-9);
+  }
+  
+  /**
+   * Tests reloading a changed map file. An unchanged file must not publish anything, a changed
+   * walking time must be applied as an edge update with a repaired matrix and a hierarchy again,
+   * a new location must show up while a removed one goes away, and a broken file must leave the
+   * map alone, whether it is reloaded or loaded in place of another. Queries holding the old
+   * snapshot keep their old answers. Finally a MapWatcher must notice a write to the file and
+   * reload it by itself.
+   */
+  @Test
+  public void testHotReload() throws IOException, InterruptedException {
+    File directory = Files.createTempDirectory("reload").toFile();
+    File file = new File(directory, "campus.dot");
+    String original = new String(Files.readAllBytes(new File("campus.dot").toPath()));
+    try {
+      Files.write(file.toPath(), original.getBytes());
+      Backend backend = new Backend();
+      backend.loadGraphData(file.getPath());
+      backend.getTravelTimeMatrix();
+      long version = backend.getSnapshot().getVersion();
+      Assertions.assertFalse(backend.reloadGraphData(), "An unchanged file should not change the map");
+      Assertions.assertEquals(version, backend.getSnapshot().getVersion());
+      
+      RoutingSnapshot old = backend.getSnapshot();
+      double before = backend.findRoute("Memorial Union", "Science Hall").getTotalCost();
+      Files.write(file.toPath(), original.replace("\"Memorial Union\" -> \"Science Hall\" [seconds=105.8]", "\"Memorial Union\" -> \"Science Hall\" [seconds=10.5]").getBytes());
+      backend.getMetrics().setEnabled(true);
+      Assertions.assertTrue(backend.reloadGraphData());
+      backend.getMetrics().setEnabled(false);
+      Assertions.assertEquals(1, backend.getMetrics().getLoadCount(), "A reload of changed paths should be recorded as a load");
+      Assertions.assertTrue(backend.getMetrics().getBuildMillis() > 0.0, "The reload's build should be timed");
+      Assertions.assertEquals(10.5, backend.findRoute("Memorial Union", "Science Hall").getTotalCost(), 1e-9);
+      Assertions.assertEquals(before, old.route("Memorial Union", "Science Hall").getTotalCost(), 1e-9, "The old snapshot should still answer with the old map");
+      Assertions.assertTrue(backend.getSnapshot().getGraph().isContracted(), "The reloaded map should be contracted again");
+      DistanceMatrix expected = DistanceMatrix.compute(backend.getSnapshot().getGraph());
+      for(String start : backend.getListOfAllLocations()) {
+        for(String end : backend.getListOfAllLocations()) {
+          Assertions.assertEquals(expected.getDistance(start, end), backend.getTravelTimeMatrix().getDistance(start, end), 1e-9, "The reloaded matrix is wrong from " + start + " to " + end);
+        }
+      }
+      
+      String moved = original.replace("\"Memorial Union\" -> \"Science Hall\" [seconds=105.8];", "\"Memorial Union\" -> \"Pier\" [seconds=30]; \"Pier\" -> \"Memorial Union\" [seconds=30];");
+      moved = moved.lines().filter(line -> !line.contains("\"Brat Stand\"")).collect(Collectors.joining("\n"));
+      Files.write(file.toPath(), moved.getBytes());
+      Assertions.assertTrue(backend.reloadGraphData());
+      Assertions.assertTrue(backend.getListOfAllLocations().contains("Pier"), "The new location should be loaded");
+      Assertions.assertFalse(backend.getListOfAllLocations().contains("Brat Stand"), "The removed location should be gone");
+      Assertions.assertEquals(30.0, backend.findRoute("Memorial Union", "Pier").getTotalCost(), 1e-9);
+      Assertions.assertEquals(DistanceMatrix.compute(backend.getSnapshot().getGraph()).getDistance("Memorial Union", "Science Hall"), backend.findRoute("Memorial Union", "Science Hall").getTotalCost(), 1e-9);
+      Assertions.assertTrue(backend.getSnapshot().getGraph().isContracted());
+      
+      version = backend.getSnapshot().getVersion();
+      Files.write(file.toPath(), "digraph { \"Memorial Union\" -> ".getBytes());
+      Assertions.assertThrows(IOException.class, () -> backend.reloadGraphData());
+      Assertions.assertEquals(version, backend.getSnapshot().getVersion(), "A broken file should leave the map alone");
+      File broken = new File(directory, "broken.dot");
+      Files.write(broken.toPath(), "digraph { \"Memorial Union\" -> \"Nowhere\" [seconds=5]; \"Nowhere\" [pos=\"x\"]; }".getBytes());
+      List<String> locations = new ArrayList<>(backend.getListOfAllLocations());
+      Assertions.assertThrows(IOException.class, () -> backend.loadGraphData(broken.getPath()));
+      Assertions.assertThrows(IOException.class, () -> backend.loadGraphData(new File(directory, "missing.dot").getPath()));
+      broken.delete();
+      Assertions.assertEquals(version, backend.getSnapshot().getVersion(), "A failed load should leave the map alone");
+      Assertions.assertEquals(locations, backend.getListOfAllLocations(), "A failed load should not add part of its file");
+      Assertions.assertFalse(backend.getSnapshot().getGraph().containsNode("Nowhere"));
+      
+      try(MapWatcher watcher = backend.watchGraphData()) {
+        Files.write(file.toPath(), original.getBytes());
+        for(int i = 0; i < 200 && watcher.getReloadCount() == 0; i++) {
+          Thread.sleep(50);
+        }
+        Assertions.assertEquals(1, watcher.getReloadCount(), "The watcher should reload the written file: " + watcher.getLastFailure());
+        Assertions.assertTrue(backend.getListOfAllLocations().contains("Brat Stand"));
+        Assertions.assertFalse(backend.getListOfAllLocations().contains("Pier"));
+        Assertions.assertEquals(before, backend.findRoute("Memorial Union", "Science Hall").getTotalCost(), 1e-9);
+      }
+      
+      // A watcher may name the file differently from the load
+      Files.write(file.toPath(), original.replace("\"Memorial Union\" -> \"Science Hall\" [seconds=105.8]", "\"Memorial Union\" -> \"Science Hall\" [seconds=10.5]").getBytes());
+      Assertions.assertTrue(backend.reloadGraphData(new File(new File(directory, "."), file.getName())), "Another spelling of the map's path should still reload it");
+      Assertions.assertEquals(10.5, backend.findRoute("Memorial Union", "Science Hall").getTotalCost(), 1e-9);
+    }finally {
+      file.delete();
+      directory.delete();
+    }
+  }
+  
+  /**
+   * Returns a DotLoader.Sink that describes the nodes it receives in nodes and the edges and
+   * positions in events.
+   */
+  private static DotLoader.Sink recorder(List<String> nodes, List<String> events) {
+    return new DotLoader.Sink() {
+      public void node(int id, String name) {
+        nodes.add(id + "=" + name);
+      }
+      public void position(int id, String pos) {
+        events.add(id + " at " + pos);
+      }
+      public void edge(int from, int to, double seconds) {
+        events.add(from + "->" + to + " " + seconds);
+      }
+    };
+  }
+  
   public void testShortestPathIntegration() {
     Frontend frontend = new Frontend();
     Backend backend = new Backend();
@@ -132,11 +1621,13 @@ public class BackendDeveloperTests extends ApplicationTest{
     frontend.setBackend(backend);
     Pane pane = new Pane();
     frontend.createShortestPathControls(pane);
+    frontend.createPathListDisplay(pane);
+    Label resultArea = (Label) pane.getChildren().get(pane.getChildren().size() - 1);
     
     Assertions.assertEquals(true, resultArea.getText().contains("Memorial Union -> Science Hall"), "The result area doesn't contain the correct text.");
   }
   
-  public void testFurthestDestinationIntegration() {
+  public void testFurthestDestinationIntegration() throws InterruptedException {
     Frontend frontend = new Frontend();
     Backend backend = new Backend();
     
@@ -154,10 +1645,11 @@ public class BackendDeveloperTests extends ApplicationTest{
     });
     Thread.sleep(1000); // wait for the updates to complete
     
-    //Start = Memorial Union, End should be Jorns Hall
+    //Start = Memorial Union, End should be Smith Residence Hall
     String backendResult = backend.getMostDistantLocation("Memorial Union");
     Pane pane = new Pane();
-    String frontendResult = frontend.createFurthestDestinationControls(pane);
-    Assertions.assertEquals(true, backendResult == frontendResult, "The frontend and backend do not match up.");
+    frontend.createFurthestDestinationControls(pane);
+    String frontendResult = ((Label) pane.getChildren().get(pane.getChildren().size() - 1)).getText();
+    Assertions.assertEquals(true, frontendResult.contains(backendResult), "The frontend and backend do not match up.");
   }
 }
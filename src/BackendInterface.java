@@ -17,6 +17,30 @@ public interface BackendInterface {
    */
   public void loadGraphData(String filename) throws IOException;
 
+  /**
+   * Loads graph data from a binary snapshot written by saveGraphSnapshot(), without parsing the
+   * dot file it was saved from. If that dot file has changed since, it is loaded instead.
+   * @param filename the path to a snapshot file to read graph data from
+   * @throws IOException if there was a problem reading in the specified file, or it is corrupt
+   */
+  public void loadGraphSnapshot(String filename) throws IOException;
+
+  /**
+   * Saves the loaded graph data to a binary snapshot file for loadGraphSnapshot().
+   * @param filename the path to write the snapshot file to
+   * @throws IOException if there was a problem writing the specified file
+   */
+  public void saveGraphSnapshot(String filename) throws IOException;
+
+  /**
+   * Reloads the dot file the graph was loaded from, applying only what changed in it. Queries see
+   * the old graph until the new one is ready.
+   * @return true if the graph changed
+   * @throws IOException if there was a problem reading in the file, in which case the graph is
+   *         unchanged
+   */
+  public boolean reloadGraphData() throws IOException;
+
   /**
    * Returns a list of all locations (nodes) available on the backend's graph.
    * @return list of all location names
@@ -43,6 +67,25 @@ public interface BackendInterface {
    */
   public List<Double> getTravelTimesOnPath(String startLocation, String endLocation);
 
+  /**
+   * Return the shortest route from startLocation to endLocation: the locations along it, the
+   * walking time in seconds of every step, and the total walking time, all from a single search.
+   * @param startLocation the start location of the route
+   * @param endLocation the end location of the route
+   * @return the shortest route from startLocation to endLocation, or an empty route if no such
+   *         path exists
+   */
+  public Route<String> findRoute(String startLocation, String endLocation);
+
+  /**
+   * Return the shortest route for every request in a batch, such as the routes from one location
+   * to each of several others. Requests that share a start location are answered together.
+   * @param requests the start and end location of every route to find
+   * @return the shortest route for each request, in the same order, with an empty route wherever
+   *         no such path exists
+   */
+  public List<Route<String>> findRoutes(List<RouteRequest> requests);
+
   /**
    * Return the most distant location from startLocation that is reachable in the graph.
    * @param startLocation the location to find the most distant location for
@@ -51,4 +94,29 @@ public interface BackendInterface {
    */
   public String getMostDistantLocation(String startLocation) throws NoSuchElementException;
 
+  /**
+   * Return the most distant location from startLocation that is reachable in the graph, together
+   * with the walking time to it and the shortest path leading there.
+   * @param startLocation the location to find the most distant location for
+   * @return the most distant location, its walking time in seconds and the path to it
+   * @throws NoSuchElementException if startLocation does not exist
+   */
+  public DistantLocation getMostDistantLocationDetails(String startLocation) throws NoSuchElementException;
+
+  /**
+   * Return the walking time between every pair of locations, with next hops to rebuild the paths.
+   * The matrix is computed in parallel on first use and reused until the graph changes.
+   * @return the all-pairs travel time matrix of the loaded graph
+   */
+  public DistanceMatrix getTravelTimeMatrix();
+
+  /**
+   * Apply a batch of changes to the walking times between locations: slower or faster paths, new
+   * paths and closed ones. Queries see either none or all of the batch.
+   * @param updates the path changes to apply, in order
+   * @throws NoSuchElementException if a location in updates does not exist, in which case nothing
+   *         is changed
+   */
+  public void updateEdges(List<EdgeUpdate> updates) throws NoSuchElementException;
+
 }
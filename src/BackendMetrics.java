@@ -0,0 +1,418 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Measurements of a Backend's query pipeline: how long each load spent parsing, interning names
+ * and building the search structures, a latency histogram for each of findShortestPath(),
+ * getTravelTimesOnPath() and getMostDistantLocation(), the nodes settled and heap operations of
+ * every search those queries ran, and the route cache's hit rate. Metrics are off until
+ * setEnabled(true); until then every query pays for one volatile read and nothing else. Recording
+ * never locks, so any number of query threads can be measured at once.
+ *
+ * The metrics can be read from code, watched over JMX after register(), or written out as text or
+ * JSON every so often with dumpEvery().
+ */
+public class BackendMetrics implements BackendMetricsMXBean {
+
+  /**
+   * The queries that are measured.
+   */
+  public enum Query {
+    FIND_SHORTEST_PATH("findShortestPath"),
+    GET_TRAVEL_TIMES_ON_PATH("getTravelTimesOnPath"),
+    GET_MOST_DISTANT_LOCATION("getMostDistantLocation");
+
+    /**
+     * Name of the Backend method, used in dumps.
+     */
+    private final String method;
+
+    private Query(String method) {
+      this.method = method;
+    }
+
+    /**
+     * Returns the name of the Backend method this query is answered by.
+     *
+     * @return the method name
+     */
+    public String getMethod() {
+      return method;
+    }
+  }
+
+  /**
+   * Domain of the names metrics are registered under in the platform MBean server.
+   */
+  public static final String JMX_DOMAIN = "campusmap";
+
+  /**
+   * Number handed to the next BackendMetrics registered, so several Backends get distinct names.
+   */
+  private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+  /**
+   * Whether queries and loads are being measured.
+   */
+  private volatile boolean enabled;
+
+  /**
+   * The cache whose hit rate is reported.
+   */
+  private final RouteCache routeCache;
+
+  /**
+   * Latency of every measured query in nanoseconds, indexed by Query ordinal.
+   */
+  private final ConcurrentHistogram[] latency;
+
+  /**
+   * Nodes settled by every search of a measured query, indexed by Query ordinal.
+   */
+  private final ConcurrentHistogram[] settled;
+
+  /**
+   * Heap operations made by every search of a measured query, indexed by Query ordinal.
+   */
+  private final ConcurrentHistogram[] heapOperations;
+
+  /**
+   * Parse, intern and build nanoseconds of the last measured load, replaced as a whole.
+   */
+  private volatile long[] lastLoad = new long[3];
+
+  /**
+   * Number of measured loads.
+   */
+  private volatile long loadCount;
+
+  /**
+   * Name the metrics are registered under, or null if they are not.
+   */
+  private ObjectName name;
+
+  /**
+   * Number of scheduled dumps that failed.
+   */
+  private final AtomicLong dumpFailures = new AtomicLong();
+
+  /**
+   * Why the last failed dump failed, or null.
+   */
+  private volatile RuntimeException lastDumpFailure;
+
+  /**
+   * Creates disabled metrics that report on routeCache.
+   *
+   * @param routeCache the route cache of the Backend being measured
+   */
+  public BackendMetrics(RouteCache routeCache) {
+    this.routeCache = routeCache;
+    int queries = Query.values().length;
+    latency = new ConcurrentHistogram[queries];
+    settled = new ConcurrentHistogram[queries];
+    heapOperations = new ConcurrentHistogram[queries];
+    for (int i = 0; i < queries; i++) {
+      latency[i] = new ConcurrentHistogram();
+      settled[i] = new ConcurrentHistogram();
+      heapOperations[i] = new ConcurrentHistogram();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Records how long a query took.
+   *
+   * @param query the query that was answered
+   * @param nanos the time it took in nanoseconds
+   */
+  public void recordLatency(Query query, long nanos) {
+    latency[query.ordinal()].record(nanos);
+  }
+
+  /**
+   * Records the work of the search a query just ran on this thread.
+   *
+   * @param query the query the search was for
+   * @param counters the search, read right after it finished
+   */
+  public void recordSearch(Query query, SearchCounters counters) {
+    settled[query.ordinal()].record(counters.getSettledCount());
+    heapOperations[query.ordinal()].record(counters.getHeapOperationCount());
+  }
+
+  /**
+   * Records how long a load took in each of its phases. Loads are serialized by the Backend, so
+   * this is only ever called from one thread at a time.
+   *
+   * @param parseNanos time spent reading the file and adding its edges
+   * @param internNanos time spent giving location names ids
+   * @param buildNanos time spent preparing the map for queries
+   */
+  public void recordLoad(long parseNanos, long internNanos, long buildNanos) {
+    lastLoad = new long[] {parseNanos, internNanos, buildNanos};
+    loadCount++;
+  }
+
+  /**
+   * Returns the latency histogram of a query, in nanoseconds.
+   *
+   * @param query the query
+   * @return its latency histogram
+   */
+  public ConcurrentHistogram getLatency(Query query) {
+    return latency[query.ordinal()];
+  }
+
+  /**
+   * Returns the histogram of the nodes settled by a query's searches.
+   *
+   * @param query the query
+   * @return its settled node histogram
+   */
+  public ConcurrentHistogram getSettled(Query query) {
+    return settled[query.ordinal()];
+  }
+
+  /**
+   * Returns the histogram of the heap operations made by a query's searches.
+   *
+   * @param query the query
+   * @return its heap operation histogram
+   */
+  public ConcurrentHistogram getHeapOperations(Query query) {
+    return heapOperations[query.ordinal()];
+  }
+
+  /**
+   * Summarizes what has been recorded for a query.
+   *
+   * @param query the query
+   * @return its current statistics
+   */
+  public QueryStatistics getStatistics(Query query) {
+    ConcurrentHistogram time = latency[query.ordinal()];
+    ConcurrentHistogram nodes = settled[query.ordinal()];
+    return new QueryStatistics(time.getCount(), time.getMean() / 1e3,
+        time.getValueAtPercentile(50.0) / 1e3, time.getValueAtPercentile(90.0) / 1e3,
+        time.getValueAtPercentile(99.0) / 1e3, time.getValueAtPercentile(99.9) / 1e3,
+        time.getMax() / 1e3, nodes.getCount(), nodes.getMean(), nodes.getMax(),
+        heapOperations[query.ordinal()].getMean());
+  }
+
+  public long getLoadCount() {
+    return loadCount;
+  }
+
+  public double getParseMillis() {
+    return lastLoad[0] / 1e6;
+  }
+
+  public double getInternMillis() {
+    return lastLoad[1] / 1e6;
+  }
+
+  public double getBuildMillis() {
+    return lastLoad[2] / 1e6;
+  }
+
+  public long getRouteCacheHits() {
+    return routeCache.getHitCount();
+  }
+
+  public long getRouteCacheMisses() {
+    return routeCache.getMissCount();
+  }
+
+  public double getRouteCacheHitRate() {
+    return routeCache.getHitRate();
+  }
+
+  public QueryStatistics getFindShortestPathStatistics() {
+    return getStatistics(Query.FIND_SHORTEST_PATH);
+  }
+
+  public QueryStatistics getTravelTimesOnPathStatistics() {
+    return getStatistics(Query.GET_TRAVEL_TIMES_ON_PATH);
+  }
+
+  public QueryStatistics getMostDistantLocationStatistics() {
+    return getStatistics(Query.GET_MOST_DISTANT_LOCATION);
+  }
+
+  public void reset() {
+    for (int i = 0; i < latency.length; i++) {
+      latency[i].reset();
+      settled[i].reset();
+      heapOperations[i].reset();
+    }
+    lastLoad = new long[3];
+    loadCount = 0;
+  }
+
+  /**
+   * Returns every metric as human-readable text, one line for the last load, one for the route
+   * cache and one for each query.
+   *
+   * @return the metrics as text
+   */
+  public String toText() {
+    long[] load = lastLoad;
+    StringBuilder text = new StringBuilder();
+    text.append(String.format(Locale.ROOT, "loads %d: parse %.1f ms, intern %.1f ms, "
+        + "build %.1f ms%n", loadCount, load[0] / 1e6, load[1] / 1e6, load[2] / 1e6));
+    text.append(String.format(Locale.ROOT, "route cache: %d hits, %d misses, hit rate %.3f%n",
+        getRouteCacheHits(), getRouteCacheMisses(), getRouteCacheHitRate()));
+    for (Query query : Query.values()) {
+      QueryStatistics stats = getStatistics(query);
+      text.append(String.format(Locale.ROOT, "%s: %d queries, mean %.1f us, p50 %.1f us, "
+          + "p90 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us; %d searches, "
+          + "mean %.1f settled, max %d settled, mean %.1f heap operations%n", query.getMethod(),
+          stats.getCount(), stats.getMeanMicros(), stats.getP50Micros(), stats.getP90Micros(),
+          stats.getP99Micros(), stats.getP999Micros(), stats.getMaxMicros(),
+          stats.getSearches(), stats.getMeanSettled(), stats.getMaxSettled(),
+          stats.getMeanHeapOperations()));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Returns every metric as a single line of JSON, with the last load, the route cache and each
+   * query, by method name, as objects. Times are in milliseconds for loads and microseconds for
+   * queries.
+   *
+   * @return the metrics as JSON
+   */
+  public String toJson() {
+    long[] load = lastLoad;
+    StringBuilder json = new StringBuilder();
+    json.append(String.format(Locale.ROOT, "{\"enabled\":%b,\"loads\":%d,\"load\":{"
+        + "\"parseMillis\":%.3f,\"internMillis\":%.3f,\"buildMillis\":%.3f},", enabled,
+        loadCount, load[0] / 1e6, load[1] / 1e6, load[2] / 1e6));
+    json.append(String.format(Locale.ROOT, "\"routeCache\":{\"hits\":%d,\"misses\":%d,"
+        + "\"hitRate\":%.4f},\"queries\":{", getRouteCacheHits(), getRouteCacheMisses(),
+        getRouteCacheHitRate()));
+    for (Query query : Query.values()) {
+      QueryStatistics stats = getStatistics(query);
+      if (query.ordinal() > 0) {
+        json.append(',');
+      }
+      json.append(String.format(Locale.ROOT, "\"%s\":{\"count\":%d,\"meanMicros\":%.3f,"
+          + "\"p50Micros\":%.3f,\"p90Micros\":%.3f,\"p99Micros\":%.3f,\"p999Micros\":%.3f,"
+          + "\"maxMicros\":%.3f,\"searches\":%d,\"meanSettled\":%.3f,\"maxSettled\":%d,"
+          + "\"meanHeapOperations\":%.3f}", query.getMethod(), stats.getCount(),
+          stats.getMeanMicros(), stats.getP50Micros(), stats.getP90Micros(),
+          stats.getP99Micros(), stats.getP999Micros(), stats.getMaxMicros(),
+          stats.getSearches(), stats.getMeanSettled(), stats.getMaxSettled(),
+          stats.getMeanHeapOperations()));
+    }
+    return json.append("}}").toString();
+  }
+
+  /**
+   * Hands the metrics to out every period, as JSON or as text, on a shared daemon thread that
+   * does not keep the JVM alive. The first dump is one period from now. A dump that throws is
+   * counted and kept for getLastDumpFailure() rather than cancelling the dumps after it.
+   *
+   * @param period the time between dumps
+   * @param unit the unit of period
+   * @param json true for toJson(), false for toText()
+   * @param out receives each dump, for example System.out::println or a log
+   * @return the scheduled dump, which cancel() stops
+   */
+  public ScheduledFuture<?> dumpEvery(long period, TimeUnit unit, boolean json,
+      Consumer<String> out) {
+    return Dumper.EXECUTOR.scheduleAtFixedRate(() -> {
+      try {
+        out.accept(json ? toJson() : toText());
+      } catch (RuntimeException e) {
+        // An exception escaping the task would silently cancel every later dump
+        lastDumpFailure = e;
+        dumpFailures.incrementAndGet();
+      }
+    }, period, period, unit);
+  }
+
+  /**
+   * Returns how many scheduled dumps have failed.
+   *
+   * @return the failure count
+   */
+  public long getDumpFailureCount() {
+    return dumpFailures.get();
+  }
+
+  /**
+   * Returns why the last failed dump failed.
+   *
+   * @return the exception it threw, or null if no dump has failed
+   */
+  public RuntimeException getLastDumpFailure() {
+    return lastDumpFailure;
+  }
+
+  /**
+   * Registers the metrics with the platform MBean server, under a name like
+   * "campusmap:type=BackendMetrics,id=0". Registering again does nothing.
+   *
+   * @return the name the metrics are registered under
+   * @throws JMException if the server refuses the registration
+   */
+  public synchronized ObjectName register() throws JMException {
+    if (name == null) {
+      ObjectName candidate = new ObjectName(JMX_DOMAIN + ":type=BackendMetrics,id="
+          + NEXT_ID.getAndIncrement());
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+      name = candidate;
+    }
+    return name;
+  }
+
+  /**
+   * Removes the metrics from the platform MBean server, if register() put them there.
+   *
+   * @throws JMException if the server cannot remove them
+   */
+  public synchronized void unregister() throws JMException {
+    if (name != null) {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      name = null;
+    }
+  }
+
+  /**
+   * Holds the thread dumps run on, started the first time a dump is scheduled.
+   */
+  private static class Dumper {
+
+    /**
+     * Single daemon thread shared by every BackendMetrics' dumps.
+     */
+    private static final ScheduledExecutorService EXECUTOR =
+        Executors.newSingleThreadScheduledExecutor(task -> {
+          Thread thread = new Thread(task, "backend-metrics-dump");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * Management interface of BackendMetrics, as JConsole and other JMX clients see it once
+ * BackendMetrics.register() has been called.
+ */
+public interface BackendMetricsMXBean {
+
+  /**
+   * Returns whether queries and loads are being measured.
+   *
+   * @return true if metrics are being recorded
+   */
+  public boolean isEnabled();
+
+  /**
+   * Starts or stops measuring queries and loads. What was recorded so far is kept.
+   *
+   * @param enabled true to record metrics
+   */
+  public void setEnabled(boolean enabled);
+
+  /**
+   * Returns the number of maps loaded while metrics were enabled.
+   *
+   * @return the load count
+   */
+  public long getLoadCount();
+
+  /**
+   * Returns how long the last measured load spent reading and parsing the file, including adding
+   * its edges to the graph.
+   *
+   * @return the parse time in milliseconds
+   */
+  public double getParseMillis();
+
+  /**
+   * Returns how long the last measured load spent turning location names into ids.
+   *
+   * @return the intern time in milliseconds
+   */
+  public double getInternMillis();
+
+  /**
+   * Returns how long the last measured load spent preparing the map for queries: calibrating or
+   * loading the heuristic, contracting the graph and freezing it.
+   *
+   * @return the build time in milliseconds
+   */
+  public double getBuildMillis();
+
+  /**
+   * Returns the number of route cache lookups that found a route.
+   *
+   * @return the hit count
+   */
+  public long getRouteCacheHits();
+
+  /**
+   * Returns the number of route cache lookups that found nothing.
+   *
+   * @return the miss count
+   */
+  public long getRouteCacheMisses();
+
+  /**
+   * Returns the fraction of route cache lookups that found a route.
+   *
+   * @return the hit rate between 0 and 1
+   */
+  public double getRouteCacheHitRate();
+
+  /**
+   * Returns the statistics of findShortestPath().
+   *
+   * @return the query statistics
+   */
+  public QueryStatistics getFindShortestPathStatistics();
+
+  /**
+   * Returns the statistics of getTravelTimesOnPath().
+   *
+   * @return the query statistics
+   */
+  public QueryStatistics getTravelTimesOnPathStatistics();
+
+  /**
+   * Returns the statistics of getMostDistantLocation().
+   *
+   * @return the query statistics
+   */
+  public QueryStatistics getMostDistantLocationStatistics();
+
+  /**
+   * Returns how many scheduled dumps have failed.
+   *
+   * @return the failure count
+   */
+  public long getDumpFailureCount();
+
+  /**
+   * Returns every metric as a JSON object.
+   *
+   * @return the metrics in JSON
+   */
+  public String toJson();
+
+  /**
+   * Forgets the recorded query and load metrics. The route cache keeps its own counts.
+   */
+  public void reset();
+}
@@ -1,4 +1,5 @@
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -9,6 +10,14 @@ public class BackendPlaceholder implements BackendInterface {
 
   public void loadGraphData(String filename) throws IOException {}
 
+  public void loadGraphSnapshot(String filename) throws IOException {}
+
+  public void saveGraphSnapshot(String filename) throws IOException {}
+
+  public boolean reloadGraphData() throws IOException {
+    return false;
+  }
+
   public List<String> getListOfAllLocations() {
     return Arrays.asList("Union South", "Computer Sciences and Statistics", "Atmospheric, Oceanic and Space Sciences");
   }
@@ -21,8 +30,37 @@ public class BackendPlaceholder implements BackendInterface {
     return Arrays.asList(176.0, 80.0);
   }
 
+  public Route<String> findRoute(String startLocation, String endLocation) {
+    return new Route<>(new String[] {"Union South", "Computer Sciences and Statistics", "Atmospheric, Oceanic and Space Sciences"},
+        new double[] {176.0, 80.0}, 256.0);
+  }
+
+  public List<Route<String>> findRoutes(List<RouteRequest> requests) {
+    List<Route<String>> routes = new ArrayList<>();
+    for (RouteRequest request : requests) {
+      routes.add(findRoute(request.getStart(), request.getEnd()));
+    }
+    return routes;
+  }
+
   public String getMostDistantLocation(String location) throws NoSuchElementException {
     return "Atmospheric, Oceanic and Space Sciences";
   }
 
+  public DistantLocation getMostDistantLocationDetails(String location) throws NoSuchElementException {
+    return new DistantLocation("Atmospheric, Oceanic and Space Sciences", 256.0, findShortestPath(location, ""));
+  }
+
+  public DistanceMatrix getTravelTimeMatrix() {
+    ArrayGraph graph = new ArrayGraph();
+    graph.insertNode("Union South");
+    graph.insertNode("Computer Sciences and Statistics");
+    graph.insertNode("Atmospheric, Oceanic and Space Sciences");
+    graph.insertEdge("Union South", "Computer Sciences and Statistics", 176.0);
+    graph.insertEdge("Computer Sciences and Statistics", "Atmospheric, Oceanic and Space Sciences", 80.0);
+    return DistanceMatrix.compute(graph);
+  }
+
+  public void updateEdges(List<EdgeUpdate> updates) throws NoSuchElementException {}
+
 }
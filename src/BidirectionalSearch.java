@@ -0,0 +1,311 @@
+import java.util.Arrays;
+
+/**
+ * Reusable bidirectional Dijkstra search for point-to-point queries over an IntGraph. One search
+ * runs forward from the source over outgoing edges while a second runs backward from the target
+ * over the graph's reverse adjacency (incoming edges). Each step advances the side whose queue
+ * has the smaller minimum. Whenever an edge links the two explored regions, the best
+ * source-to-target distance seen so far (mu) is updated. The search stops once the two queue
+ * minimums add up to at least mu, since no undiscovered path can beat it. Each side then covers
+ * roughly half the shortest path's radius, so on large graphs far fewer nodes are settled than
+ * with a single search.
+ *
+ * Like DijkstraSearch, all state is kept between queries and invalidated with a generation counter,
+ * so steady-state queries allocate only their result. Not thread-safe; one instance can serve
+ * several graphs in turn through setGraph().
+ */
+public class BidirectionalSearch implements SearchCounters {
+
+  /**
+   * Per-direction search state.
+   */
+  protected static class Side {
+
+    /**
+     * Nodes reached but not yet settled by this side, keyed by distance.
+     */
+    protected final IndexedMinHeap queue;
+
+    /**
+     * Distance from this side's origin for every node reached in the current generation.
+     */
+    protected double[] dist;
+
+    /**
+     * Neighbor one step closer to this side's origin on the best known path, for every node reached
+     * in the current generation. The origin is its own neighbor.
+     */
+    protected int[] prev;
+
+    /**
+     * Weight of the edge between each node and its prev neighbor.
+     */
+    protected double[] prevWeight;
+
+    /**
+     * Generation in which each node was last reached by this side.
+     */
+    protected int[] reached;
+
+    /**
+     * Creates state for one direction sized for ids in [0, capacity).
+     */
+    protected Side(int capacity) {
+      queue = new IndexedMinHeap(capacity);
+      dist = new double[capacity];
+      prev = new int[capacity];
+      prevWeight = new double[capacity];
+      reached = new int[capacity];
+    }
+
+    /**
+     * Grows the per-node arrays to hold ids in [0, capacity).
+     */
+    protected void ensureCapacity(int capacity) {
+      if (capacity > dist.length) {
+        dist = Arrays.copyOf(dist, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        prevWeight = Arrays.copyOf(prevWeight, capacity);
+        reached = Arrays.copyOf(reached, capacity);
+        queue.ensureCapacity(capacity);
+      }
+    }
+  }
+
+  /**
+   * The graph being searched.
+   */
+  protected IntGraph graph;
+
+  /**
+   * State of the search from the source along outgoing edges.
+   */
+  protected final Side forward;
+
+  /**
+   * State of the search from the target along incoming edges.
+   */
+  protected final Side backward;
+
+  /**
+   * Counter identifying the current query's entries in both sides' reached arrays.
+   */
+  protected int generation;
+
+  /**
+   * Source node of the most recent query.
+   */
+  protected int source = -1;
+
+  /**
+   * Target node of the most recent query.
+   */
+  protected int target = -1;
+
+  /**
+   * Node where the best forward and backward paths of the most recent query meet, or -1 if the
+   * target was not reachable.
+   */
+  protected int meeting = -1;
+
+  /**
+   * Length of the shortest path found by the most recent query.
+   */
+  protected double best;
+
+  /**
+   * Number of nodes settled by both sides of the most recent query.
+   */
+  protected int settledCount;
+
+  /**
+   * Creates a search over graph, sized for the graph's current ids.
+   *
+   * @param graph the graph to search, which must provide incoming edges
+   */
+  public BidirectionalSearch(IntGraph graph) {
+    this.graph = graph;
+    int capacity = Math.max(1, graph.getIdLimit());
+    forward = new Side(capacity);
+    backward = new Side(capacity);
+  }
+
+  /**
+   * Points the search at graph for the following queries. Both sides keep their arrays, which grow
+   * on the next query if graph has more ids than they hold.
+   *
+   * @param graph the graph to search from now on, which must provide incoming edges
+   */
+  public void setGraph(IntGraph graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * Finds the shortest path from source to target.
+   *
+   * @param source id of the node to search from
+   * @param target id of the node to search to
+   * @return true if target is reachable from source
+   */
+  public boolean run(int source, int target) {
+    begin(source, target);
+    while (!forward.queue.isEmpty() && !backward.queue.isEmpty()) {
+      double forwardMin = forward.queue.peekPriority();
+      double backwardMin = backward.queue.peekPriority();
+      if (forwardMin + backwardMin >= best) {
+        break;
+      }
+      if (forwardMin <= backwardMin) {
+        settleForward(forward.queue.poll());
+      } else {
+        settleBackward(backward.queue.poll());
+      }
+    }
+    return meeting >= 0;
+  }
+
+  /**
+   * Returns the length of the shortest path found by the last query.
+   *
+   * @return the distance from source to target, or positive infinity if unreachable
+   */
+  public double getDistance() {
+    return best;
+  }
+
+  /**
+   * Returns the number of nodes both sides of the last query settled.
+   *
+   * @return the settled node count
+   */
+  public int getSettledCount() {
+    return settledCount;
+  }
+
+  /**
+   * Returns the number of heap inserts, decreases and polls both sides of the last query made.
+   *
+   * @return the heap operation count
+   */
+  public long getHeapOperationCount() {
+    return forward.queue.getOperationCount() + backward.queue.getOperationCount();
+  }
+
+  /**
+   * Returns the shortest route found by the last query, stitched together from the forward path
+   * to the meeting node and the backward path from it.
+   *
+   * @return the route from source to target
+   * @throws IllegalStateException if the last query found no path
+   */
+  public Route<String> route() {
+    if (meeting < 0) {
+      throw new IllegalStateException("The last query found no path");
+    }
+    int before = 0;
+    for (int v = meeting; v != source; v = forward.prev[v]) {
+      before++;
+    }
+    int after = 0;
+    for (int v = meeting; v != target; v = backward.prev[v]) {
+      after++;
+    }
+    String[] nodes = new String[before + after + 1];
+    double[] weights = new double[before + after];
+    int v = meeting;
+    for (int i = before; i > 0; i--, v = forward.prev[v]) {
+      nodes[i] = graph.nameOf(v);
+      weights[i - 1] = forward.prevWeight[v];
+    }
+    nodes[0] = graph.nameOf(source);
+    v = meeting;
+    for (int i = before; i < before + after; i++, v = backward.prev[v]) {
+      weights[i] = backward.prevWeight[v];
+      nodes[i + 1] = graph.nameOf(backward.prev[v]);
+    }
+    return new Route<>(nodes, weights, best);
+  }
+
+  /**
+   * Starts a new generation with source queued forward and target queued backward.
+   */
+  protected void begin(int source, int target) {
+    int capacity = graph.getIdLimit();
+    forward.ensureCapacity(capacity);
+    backward.ensureCapacity(capacity);
+    if (++generation == 0) {
+      // The counter wrapped around, so stale stamps could collide with new generations
+      Arrays.fill(forward.reached, 0);
+      Arrays.fill(backward.reached, 0);
+      generation = 1;
+    }
+    forward.queue.clear();
+    backward.queue.clear();
+    this.source = source;
+    this.target = target;
+    settledCount = 0;
+    best = Double.POSITIVE_INFINITY;
+    meeting = -1;
+    start(forward, source);
+    start(backward, target);
+    if (source == target) {
+      best = 0.0;
+      meeting = source;
+    }
+  }
+
+  /**
+   * Marks origin as reached at distance 0 by side and queues it.
+   */
+  private void start(Side side, int origin) {
+    side.reached[origin] = generation;
+    side.dist[origin] = 0.0;
+    side.prev[origin] = origin;
+    side.queue.insertOrDecrease(origin, 0.0);
+  }
+
+  /**
+   * Settles u on the forward side and relaxes its outgoing edges.
+   */
+  private void settleForward(int u) {
+    settledCount++;
+    double base = forward.dist[u];
+    int degree = graph.outDegree(u);
+    for (int i = 0; i < degree; i++) {
+      relax(forward, backward, u, graph.outTarget(u, i), base, graph.outWeight(u, i));
+    }
+  }
+
+  /**
+   * Settles u on the backward side and relaxes its incoming edges.
+   */
+  private void settleBackward(int u) {
+    settledCount++;
+    double base = backward.dist[u];
+    int degree = graph.inDegree(u);
+    for (int i = 0; i < degree; i++) {
+      relax(backward, forward, u, graph.inSource(u, i), base, graph.inWeight(u, i));
+    }
+  }
+
+  /**
+   * Offers side the path to v through u, and if v has also been reached by the other side, checks
+   * whether joining the two paths at v beats the best path found so far.
+   */
+  private void relax(Side side, Side other, int u, int v, double base, double weight) {
+    double candidate = base + weight;
+    if (side.reached[v] != generation) {
+      side.reached[v] = generation;
+    } else if (candidate >= side.dist[v]) {
+      return;
+    }
+    side.dist[v] = candidate;
+    side.prev[v] = u;
+    side.prevWeight[v] = weight;
+    side.queue.insertOrDecrease(v, candidate);
+    if (other.reached[v] == generation && candidate + other.dist[v] < best) {
+      best = candidate + other.dist[v];
+      meeting = v;
+    }
+  }
+}
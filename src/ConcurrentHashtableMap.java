@@ -0,0 +1,370 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Thread-safe implementation of MapADT, for indexes such as node names that many query threads
+ * read while a loader adds to them. Lookups take no locks: every bin is a chain of immutable nodes
+ * read through an AtomicReferenceArray, so a reader always sees a complete chain. Writers lock one
+ * of a fixed set of stripes, chosen by the low bits of the key's hash, so writers to different
+ * stripes never block each other.
+ *
+ * The table doubles when it is three quarters full, but no single put pays for the whole rehash.
+ * A put that finds the table full only allocates the next table; from then on every put claims
+ * the next few bins of the old table and moves their entries across, so the move is shared
+ * between all writing threads and each of them does a bounded amount of it. A moved bin is marked
+ * in the old table, and readers and writers that reach a marked bin carry on in the next table.
+ * Because the table never has fewer bins than there are stripes, a key's stripe does not change
+ * when the table grows, and the lock that guards a bin in the old table also guards both bins it
+ * splits into.
+ *
+ * getSize() is exact when no writes are in progress, and otherwise a recent count.
+ *
+ * @param <KeyType> the type of the keys
+ * @param <ValueType> the type of the values
+ */
+public class ConcurrentHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  /**
+   * Number of lock stripes, a power of two and the smallest number of bins a table may have.
+   */
+  private static final int STRIPES = 16;
+
+  /**
+   * Number of old bins a put moves to the next table while a resize is in progress.
+   */
+  private static final int BINS_PER_MOVE = 16;
+
+  /**
+   * Placeholder left in a bin of the old table once its entries have been moved.
+   */
+  private static final Node<Object, Object> MOVED = new Node<>(0, null, null, null);
+
+  /**
+   * The current table. Its next field is set while its entries are being moved to a larger one.
+   */
+  private final AtomicReference<Table<KeyType, ValueType>> table;
+
+  /**
+   * Locks guarding writes to the bins of each stripe, together with the stripe's entry counts.
+   */
+  private final Stripe[] stripes;
+
+  /**
+   * Creates an empty map with 64 bins.
+   */
+  public ConcurrentHashtableMap() {
+    this(64);
+  }
+
+  /**
+   * Creates an empty map with at least the given number of bins, rounded up to a power of two and
+   * to at least the number of lock stripes.
+   *
+   * @param capacity the minimum number of bins
+   * @throws IllegalArgumentException if capacity is not positive
+   */
+  public ConcurrentHashtableMap(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    int bins = STRIPES;
+    while (bins < capacity) {
+      bins <<= 1;
+    }
+    table = new AtomicReference<>(new Table<>(bins));
+    stripes = new Stripe[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Adds a new key-value pair to the map.
+   *
+   * @param key the key of the new pair
+   * @param value the value stored for key
+   * @throws IllegalArgumentException if the map already contains key
+   * @throws NullPointerException if key is null
+   */
+  @Override
+  public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+    if (key == null) {
+      throw new NullPointerException("Cannot put a null key");
+    }
+    int hash = OpenHashtableMap.hash(key);
+    Stripe stripe = stripes[hash & (STRIPES - 1)];
+    int count;
+    synchronized (stripe) {
+      Table<KeyType, ValueType> t = table.get();
+      int bin;
+      Node<KeyType, ValueType> head;
+      while ((head = t.bins.get(bin = hash & (t.bins.length() - 1))) == MOVED) {
+        t = t.next;
+      }
+      for (Node<KeyType, ValueType> n = head; n != null; n = n.next) {
+        if (n.hash == hash && (n.key == key || key.equals(n.key))) {
+          throw new IllegalArgumentException("Key is already in the map: " + key);
+        }
+      }
+      t.bins.set(bin, new Node<>(hash, key, value, head));
+      count = ++stripe.count;
+    }
+
+    Table<KeyType, ValueType> current = table.get();
+    if (current.next == null && (long) count * STRIPES > current.threshold) {
+      // Stripes fill evenly, so one stripe holding more than its share means the table is full
+      current.startResize();
+    }
+    if (current.next != null) {
+      moveBins(current);
+    }
+  }
+
+  /**
+   * Checks whether a key is in the map.
+   *
+   * @param key the key to look for
+   * @return true if the key is in the map, false otherwise
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    return key != null && find(key) != null;
+  }
+
+  /**
+   * Retrieves the value stored for a key.
+   *
+   * @param key the key to look up
+   * @return the value stored for key
+   * @throws NoSuchElementException if key is not in the map
+   */
+  @Override
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    Node<KeyType, ValueType> node = key == null ? null : find(key);
+    if (node == null) {
+      throw new NoSuchElementException("Key is not in the map: " + key);
+    }
+    return node.value;
+  }
+
+  /**
+   * Removes a key and its value from the map. Nodes are immutable, so the part of the key's chain
+   * in front of it is copied and the copy links to the part behind it.
+   *
+   * @param key the key to remove
+   * @return the value that was stored for key
+   * @throws NoSuchElementException if key is not in the map
+   */
+  @Override
+  public ValueType remove(KeyType key) throws NoSuchElementException {
+    if (key == null) {
+      throw new NoSuchElementException("Key is not in the map: null");
+    }
+    int hash = OpenHashtableMap.hash(key);
+    Stripe stripe = stripes[hash & (STRIPES - 1)];
+    synchronized (stripe) {
+      Table<KeyType, ValueType> t = table.get();
+      int bin;
+      Node<KeyType, ValueType> head;
+      while ((head = t.bins.get(bin = hash & (t.bins.length() - 1))) == MOVED) {
+        t = t.next;
+      }
+      Node<KeyType, ValueType> found = head;
+      while (found != null
+          && !(found.hash == hash && (found.key == key || key.equals(found.key)))) {
+        found = found.next;
+      }
+      if (found == null) {
+        throw new NoSuchElementException("Key is not in the map: " + key);
+      }
+      Node<KeyType, ValueType> rest = found.next;
+      for (Node<KeyType, ValueType> n = head; n != found; n = n.next) {
+        rest = new Node<>(n.hash, n.key, n.value, rest);
+      }
+      t.bins.set(bin, rest);
+      stripe.count--;
+      return found.value;
+    }
+  }
+
+  /**
+   * Removes every key-value pair and goes back to a table of the current capacity. All stripes are
+   * locked while the table is replaced, so no write is lost into the discarded table.
+   */
+  @Override
+  public void clear() {
+    lockAndClear(0);
+  }
+
+  /**
+   * Returns the number of key-value pairs in the map.
+   *
+   * @return the number of pairs
+   */
+  @Override
+  public int getSize() {
+    int size = 0;
+    for (Stripe stripe : stripes) {
+      size += stripe.count;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of bins in the current table. While a resize is in progress this is the
+   * capacity of the table being moved out of.
+   *
+   * @return the table's capacity
+   */
+  @Override
+  public int getCapacity() {
+    return table.get().bins.length();
+  }
+
+  /**
+   * Returns the node holding key, or null. Takes no locks.
+   */
+  private Node<KeyType, ValueType> find(Object key) {
+    int hash = OpenHashtableMap.hash(key);
+    Table<KeyType, ValueType> t = table.get();
+    Node<KeyType, ValueType> n;
+    while ((n = t.bins.get(hash & (t.bins.length() - 1))) == MOVED) {
+      t = t.next;
+    }
+    for (; n != null; n = n.next) {
+      if (n.hash == hash && (n.key == key || key.equals(n.key))) {
+        return n;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Claims the next BINS_PER_MOVE bins of from and moves their entries to from's next table. The
+   * thread that moves the last bin makes the next table current.
+   */
+  private void moveBins(Table<KeyType, ValueType> from) {
+    int length = from.bins.length();
+    int start = from.claimed.getAndAdd(BINS_PER_MOVE);
+    if (start >= length) {
+      return;
+    }
+    int end = Math.min(start + BINS_PER_MOVE, length);
+    Table<KeyType, ValueType> to = from.next;
+    for (int bin = start; bin < end; bin++) {
+      synchronized (stripes[bin & (STRIPES - 1)]) {
+        // Split the chain by the one hash bit the larger table adds to the bin index
+        Node<KeyType, ValueType> low = null;
+        Node<KeyType, ValueType> high = null;
+        for (Node<KeyType, ValueType> n = from.bins.get(bin); n != null; n = n.next) {
+          if ((n.hash & length) == 0) {
+            low = new Node<>(n.hash, n.key, n.value, low);
+          } else {
+            high = new Node<>(n.hash, n.key, n.value, high);
+          }
+        }
+        to.bins.set(bin, low);
+        to.bins.set(bin + length, high);
+        from.bins.set(bin, moved());
+      }
+    }
+    if (from.moved.addAndGet(end - start) == length) {
+      table.compareAndSet(from, to);
+    }
+  }
+
+  /**
+   * Locks the stripes from index on, then replaces the table once every stripe is held.
+   */
+  private void lockAndClear(int index) {
+    if (index == STRIPES) {
+      table.set(new Table<>(getCapacity()));
+      for (Stripe stripe : stripes) {
+        stripe.count = 0;
+      }
+      return;
+    }
+    synchronized (stripes[index]) {
+      lockAndClear(index + 1);
+    }
+  }
+
+  /**
+   * Returns the MOVED marker typed for this map's bins.
+   */
+  @SuppressWarnings("unchecked")
+  private static <K, V> Node<K, V> moved() {
+    return (Node<K, V>) (Node<?, ?>) MOVED;
+  }
+
+  /**
+   * One entry of a bin's chain. Nodes are never changed once they are published.
+   */
+  private static class Node<K, V> {
+    private final int hash;
+    private final K key;
+    private final V value;
+    private final Node<K, V> next;
+
+    private Node(int hash, K key, V value, Node<K, V> next) {
+      this.hash = hash;
+      this.key = key;
+      this.value = value;
+      this.next = next;
+    }
+  }
+
+  /**
+   * An array of bins, plus the state of moving them to a larger table.
+   */
+  private static class Table<K, V> {
+
+    private final AtomicReferenceArray<Node<K, V>> bins;
+
+    /**
+     * Number of entries, summed over the stripes, above which the table should grow.
+     */
+    private final long threshold;
+
+    /**
+     * The table these bins are being moved to, or null if no resize has started.
+     */
+    private volatile Table<K, V> next;
+
+    /**
+     * Number of bins claimed by threads moving them, which may exceed the bin count.
+     */
+    private final AtomicInteger claimed = new AtomicInteger();
+
+    /**
+     * Number of bins whose entries have been moved.
+     */
+    private final AtomicInteger moved = new AtomicInteger();
+
+    private Table(int capacity) {
+      bins = new AtomicReferenceArray<>(capacity);
+      threshold = capacity * 3L / 4;
+    }
+
+    /**
+     * Allocates the table twice this size to move into, unless another thread already has.
+     */
+    private void startResize() {
+      synchronized (this) {
+        if (next == null) {
+          next = new Table<>(bins.length() * 2);
+        }
+      }
+    }
+  }
+
+  /**
+   * Lock for one stripe of bins, and the number of entries whose keys fall in it. The count is
+   * only written while the lock is held.
+   */
+  private static class Stripe {
+    private volatile int count;
+  }
+}
@@ -0,0 +1,162 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative long values, such as latencies in nanoseconds, that any number of
+ * threads can record into at once without locking. Buckets are laid out like an HdrHistogram's:
+ * every power of two is split into SUB_BUCKETS equal buckets, so a value is kept to within
+ * 1/SUB_BUCKETS (under 2%) of itself across the whole range of long, and recording is a shift, a
+ * leading-zero count and one atomic increment. Percentiles read while other threads record are
+ * approximate, as each bucket is read at a slightly different moment.
+ */
+public class ConcurrentHistogram {
+
+  /**
+   * Log2 of the number of buckets each power of two is split into.
+   */
+  private static final int SUB_BUCKET_BITS = 6;
+
+  /**
+   * Number of buckets each power of two is split into.
+   */
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Number of buckets needed for every non-negative long: values below SUB_BUCKETS get a bucket
+   * each, and every larger power of two up to 2^62 gets SUB_BUCKETS of them.
+   */
+  private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  /**
+   * Number of values recorded into each bucket.
+   */
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Sum of every recorded value, spread over cells so recording threads rarely contend.
+   */
+  private final LongAdder total = new LongAdder();
+
+  /**
+   * Largest recorded value.
+   */
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value. Negative values are recorded as 0.
+   *
+   * @param value the value to record
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    counts.getAndIncrement(bucketOf(value));
+    total.add(value);
+    long largest = max.get();
+    while (value > largest && !max.compareAndSet(largest, value)) {
+      largest = max.get();
+    }
+  }
+
+  /**
+   * Returns the number of values recorded since the histogram was created or last reset.
+   *
+   * @return the value count
+   */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the exact mean of the recorded values.
+   *
+   * @return the mean, or 0 if nothing was recorded
+   */
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0.0 : total.sum() / (double) count;
+  }
+
+  /**
+   * Returns the exact largest recorded value.
+   *
+   * @return the maximum, or 0 if nothing was recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns the value that percentile percent of the recorded values are at or below, as the
+   * largest value that falls in the same bucket, so the result is never below the true percentile
+   * and overstates it by under 2%. It is never above the largest recorded value.
+   *
+   * @param percentile the percentile, from 0 to 100
+   * @return the value at that percentile, or 0 if nothing was recorded
+   * @throws IllegalArgumentException if percentile is outside [0, 100]
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (!(percentile >= 0.0 && percentile <= 100.0)) {
+      throw new IllegalArgumentException("Percentile out of range: " + percentile);
+    }
+    long[] snapshot = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValueIn(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Forgets every recorded value. Values recorded while the reset runs may be partly kept.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    total.reset();
+    max.set(0);
+  }
+
+  /**
+   * Returns the bucket a non-negative value is counted in.
+   */
+  private static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    // Keep the top SUB_BUCKET_BITS + 1 bits; the leading one picks the power of two
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /**
+   * Returns the largest value counted in bucket.
+   */
+  private static long highestValueIn(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+    long mantissa = (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+    return ((mantissa + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,506 @@
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchies preprocessing for a mostly static graph. Nodes are contracted one at a
+ * time in order of importance. Contracting a node v removes it from the remaining graph and, for
+ * every pair of remaining neighbors u -> v -> w whose shortest path runs through v, inserts a
+ * shortcut edge u -> w that remembers v as its middle node. A node's rank is the position at
+ * which it was contracted.
+ *
+ * Afterwards every shortest path can be found by a bidirectional search that only ever moves to
+ * higher-ranked nodes: forward from the source over upward edges, backward from the target over
+ * edges coming down from higher ranks (see ContractionHierarchySearch). These upward graphs are
+ * tiny compared to the full graph, which is what makes queries fast. Shortcuts are unpacked back
+ * into the original edges through their middle nodes, so results are identical to Dijkstra's.
+ *
+ * A hierarchy is an immutable snapshot of the graph it was built from; it has to be rebuilt after
+ * the graph changes.
+ */
+public class ContractionHierarchy {
+
+  /**
+   * Maximum number of nodes a witness search settles before giving up. Giving up early only adds
+   * shortcuts that were not strictly needed, never wrong ones.
+   */
+  private static final int WITNESS_SETTLE_LIMIT = 500;
+
+  /**
+   * Lower settle limit for the witness searches that only estimate a node's priority. Those run
+   * far more often than real contractions and only need to be roughly right.
+   */
+  private static final int SIMULATION_SETTLE_LIMIT = 50;
+
+  /**
+   * Read-only names and ids of the source graph at build time.
+   */
+  protected final SymbolTable symbols;
+
+  /**
+   * Contraction rank of every node; higher ranks were contracted later.
+   */
+  protected final int[] rank;
+
+  /**
+   * Source node of every edge, original or shortcut.
+   */
+  protected int[] edgeFrom;
+
+  /**
+   * Target node of every edge.
+   */
+  protected int[] edgeTo;
+
+  /**
+   * Weight of every edge.
+   */
+  protected double[] edgeWeight;
+
+  /**
+   * Middle node of every shortcut, or -1 for original edges.
+   */
+  protected int[] edgeMiddle;
+
+  /**
+   * Number of original edges every edge stands for once fully unpacked.
+   */
+  protected int[] edgeHops;
+
+  /**
+   * Number of edges (original and shortcut) in the hierarchy.
+   */
+  protected int edgeCount;
+
+  /**
+   * Number of edges of the source graph.
+   */
+  protected final int originalEdgeCount;
+
+  /**
+   * Edge id of every (from, to) pair, used to unpack shortcuts.
+   */
+  protected final LongIntHashMap edgeIndex;
+
+  /**
+   * CSR offsets into upEdges: the edges leaving u towards higher ranks are
+   * upEdges[upOffsets[u] .. upOffsets[u + 1]).
+   */
+  protected int[] upOffsets;
+
+  /**
+   * Ids of edges going from a node to a higher-ranked node, grouped by source node.
+   */
+  protected int[] upEdges;
+
+  /**
+   * CSR offsets into downEdges: the edges entering v from higher ranks are
+   * downEdges[downOffsets[v] .. downOffsets[v + 1]).
+   */
+  protected int[] downOffsets;
+
+  /**
+   * Ids of edges coming into a node from a higher-ranked node, grouped by target node.
+   */
+  protected int[] downEdges;
+
+  // Working state used only while contracting
+
+  /**
+   * Edge ids leaving every node during contraction.
+   */
+  private int[][] outEdges;
+
+  /**
+   * Number of entries in use in every outEdges list.
+   */
+  private int[] outCount;
+
+  /**
+   * Edge ids entering every node during contraction.
+   */
+  private int[][] inEdges;
+
+  /**
+   * Number of entries in use in every inEdges list.
+   */
+  private int[] inCount;
+
+  /**
+   * Whether every node has already been contracted.
+   */
+  private boolean[] contracted;
+
+  /**
+   * Number of already contracted neighbors of every node, which spreads contraction evenly.
+   */
+  private int[] deletedNeighbors;
+
+  /**
+   * Upper bound on the length of the shortcut hierarchy below every node, which keeps the
+   * hierarchy shallow.
+   */
+  private int[] level;
+
+  /**
+   * Witness search queue.
+   */
+  private IndexedMinHeap witnessQueue;
+
+  /**
+   * Witness search distances, valid where witnessStamp matches witnessGeneration.
+   */
+  private double[] witnessDist;
+
+  /**
+   * Generation in which each node was last reached by a witness search.
+   */
+  private int[] witnessStamp;
+
+  /**
+   * Counter identifying the current witness search.
+   */
+  private int witnessGeneration;
+
+  /**
+   * Builds the hierarchy for the current state of graph.
+   *
+   * @param graph the graph to preprocess
+   */
+  public ContractionHierarchy(IntGraph graph) {
+    symbols = graph.getSymbols();
+    int n = symbols.getIdLimit();
+    rank = new int[n];
+    outEdges = new int[n][];
+    outCount = new int[n];
+    inEdges = new int[n][];
+    inCount = new int[n];
+    contracted = new boolean[n];
+    deletedNeighbors = new int[n];
+    level = new int[n];
+    witnessQueue = new IndexedMinHeap(Math.max(1, n));
+    witnessDist = new double[n];
+    witnessStamp = new int[n];
+
+    int edges = 0;
+    for (int u = 0; u < n; u++) {
+      if (symbols.nameOf(u) == null) {
+        contracted[u] = true;
+      } else {
+        edges += graph.outDegree(u);
+      }
+    }
+    edgeFrom = new int[Math.max(16, edges * 2)];
+    edgeTo = new int[edgeFrom.length];
+    edgeWeight = new double[edgeFrom.length];
+    edgeMiddle = new int[edgeFrom.length];
+    edgeHops = new int[edgeFrom.length];
+    edgeIndex = new LongIntHashMap(edges * 2);
+    for (int u = 0; u < n; u++) {
+      if (symbols.nameOf(u) == null) {
+        continue;
+      }
+      for (int i = 0; i < graph.outDegree(u); i++) {
+        int v = graph.outTarget(u, i);
+        if (v != u) {
+          addOrImprove(u, v, graph.outWeight(u, i), -1, 1);
+        }
+      }
+    }
+    originalEdgeCount = edgeCount;
+
+    contractAll();
+    buildSearchGraphs();
+
+    // Release the working state; only the search graphs and edge arrays are needed from now on
+    outEdges = null;
+    inEdges = null;
+    outCount = null;
+    inCount = null;
+    contracted = null;
+    deletedNeighbors = null;
+    level = null;
+    witnessQueue = null;
+    witnessDist = null;
+    witnessStamp = null;
+  }
+
+  /**
+   * Returns the exclusive upper bound on node ids covered by the hierarchy.
+   *
+   * @return the source graph's id limit at build time
+   */
+  public int getIdLimit() {
+    return symbols.getIdLimit();
+  }
+
+  /**
+   * Returns the number of shortcut edges added during preprocessing.
+   *
+   * @return the shortcut count
+   */
+  public int getShortcutCount() {
+    return edgeCount - originalEdgeCount;
+  }
+
+  /**
+   * Returns the contraction rank of a node.
+   *
+   * @param id a node id
+   * @return the node's rank, higher for nodes contracted later
+   */
+  public int getRank(int id) {
+    return rank[id];
+  }
+
+  /**
+   * Contracts every node in order of priority, re-evaluating a node's priority lazily when it
+   * reaches the front of the queue.
+   */
+  private void contractAll() {
+    int n = symbols.getIdLimit();
+    IndexedMinHeap order = new IndexedMinHeap(Math.max(1, n));
+    for (int v = 0; v < n; v++) {
+      if (!contracted[v]) {
+        order.insertOrDecrease(v, priority(v));
+      }
+    }
+    int nextRank = 0;
+    while (!order.isEmpty()) {
+      int v = order.poll();
+      double current = priority(v);
+      if (!order.isEmpty() && current > order.peekPriority()) {
+        order.insertOrDecrease(v, current);
+        continue;
+      }
+      contract(v, true);
+      contracted[v] = true;
+      rank[v] = nextRank++;
+      for (int i = 0; i < inCount[v]; i++) {
+        prune(edgeFrom[inEdges[v][i]]);
+      }
+      for (int i = 0; i < outCount[v]; i++) {
+        prune(edgeTo[outEdges[v][i]]);
+      }
+    }
+  }
+
+  /**
+   * Drops the edges between node and already contracted nodes from node's working lists, so later
+   * witness searches and contractions do not keep skipping over them.
+   */
+  private void prune(int node) {
+    if (contracted[node]) {
+      return;
+    }
+    int kept = 0;
+    for (int i = 0; i < outCount[node]; i++) {
+      int e = outEdges[node][i];
+      if (!contracted[edgeTo[e]]) {
+        outEdges[node][kept++] = e;
+      }
+    }
+    outCount[node] = kept;
+    kept = 0;
+    for (int i = 0; i < inCount[node]; i++) {
+      int e = inEdges[node][i];
+      if (!contracted[edgeFrom[e]]) {
+        inEdges[node][kept++] = e;
+      }
+    }
+    inCount[node] = kept;
+  }
+
+  /**
+   * Returns how attractive it is to contract v next, lower being better: twice the number of
+   * shortcuts it would add minus the edges it would remove, plus its already contracted neighbors
+   * and its level. Weighting the edge difference keeps the shortcut count down, while the last two
+   * terms spread contraction evenly over the graph.
+   */
+  private double priority(int v) {
+    int shortcuts = contract(v, false);
+    int removed = 0;
+    for (int i = 0; i < inCount[v]; i++) {
+      if (!contracted[edgeFrom[inEdges[v][i]]]) {
+        removed++;
+      }
+    }
+    for (int i = 0; i < outCount[v]; i++) {
+      if (!contracted[edgeTo[outEdges[v][i]]]) {
+        removed++;
+      }
+    }
+    return 2 * (shortcuts - removed) + deletedNeighbors[v] + level[v];
+  }
+
+  /**
+   * Finds the shortcuts contracting v requires, and adds them if apply is true.
+   *
+   * @return the number of shortcuts needed
+   */
+  private int contract(int v, boolean apply) {
+    int shortcuts = 0;
+    for (int i = 0; i < inCount[v]; i++) {
+      int in = inEdges[v][i];
+      int u = edgeFrom[in];
+      if (contracted[u]) {
+        continue;
+      }
+      if (apply) {
+        deletedNeighbors[u]++;
+        level[u] = Math.max(level[u], level[v] + 1);
+      }
+
+      // Search from u without v for the longest detour that a shortcut would have to beat
+      double maxDetour = 0.0;
+      for (int j = 0; j < outCount[v]; j++) {
+        int w = edgeTo[outEdges[v][j]];
+        if (!contracted[w] && w != u) {
+          maxDetour = Math.max(maxDetour, edgeWeight[in] + edgeWeight[outEdges[v][j]]);
+        }
+      }
+      witnessSearch(u, v, maxDetour, apply ? WITNESS_SETTLE_LIMIT : SIMULATION_SETTLE_LIMIT);
+
+      for (int j = 0; j < outCount[v]; j++) {
+        int out = outEdges[v][j];
+        int w = edgeTo[out];
+        if (contracted[w] || w == u) {
+          continue;
+        }
+        double via = edgeWeight[in] + edgeWeight[out];
+        double witness = witnessStamp[w] == witnessGeneration ? witnessDist[w] : Double.POSITIVE_INFINITY;
+        if (witness > via) {
+          shortcuts++;
+          if (apply) {
+            addOrImprove(u, w, via, v, edgeHops[in] + edgeHops[out]);
+          }
+        }
+      }
+    }
+    if (apply) {
+      for (int j = 0; j < outCount[v]; j++) {
+        int w = edgeTo[outEdges[v][j]];
+        if (!contracted[w]) {
+          deletedNeighbors[w]++;
+          level[w] = Math.max(level[w], level[v] + 1);
+        }
+      }
+    }
+    return shortcuts;
+  }
+
+  /**
+   * Runs a bounded Dijkstra from u over the remaining graph, skipping the node being contracted,
+   * until every remaining node within maxDistance has been settled or limit nodes have been.
+   */
+  private void witnessSearch(int u, int skip, double maxDistance, int limit) {
+    if (++witnessGeneration == 0) {
+      Arrays.fill(witnessStamp, 0);
+      witnessGeneration = 1;
+    }
+    witnessQueue.clear();
+    witnessStamp[u] = witnessGeneration;
+    witnessDist[u] = 0.0;
+    witnessQueue.insertOrDecrease(u, 0.0);
+    int settled = 0;
+    while (!witnessQueue.isEmpty() && settled < limit) {
+      if (witnessQueue.peekPriority() > maxDistance) {
+        break;
+      }
+      int x = witnessQueue.poll();
+      settled++;
+      for (int i = 0; i < outCount[x]; i++) {
+        int e = outEdges[x][i];
+        int y = edgeTo[e];
+        if (y == skip || contracted[y]) {
+          continue;
+        }
+        double candidate = witnessDist[x] + edgeWeight[e];
+        if (witnessStamp[y] != witnessGeneration || candidate < witnessDist[y]) {
+          witnessStamp[y] = witnessGeneration;
+          witnessDist[y] = candidate;
+          witnessQueue.insertOrDecrease(y, candidate);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the edge from -> to, or lowers the weight of the existing edge between them if the new
+   * one is shorter.
+   */
+  private void addOrImprove(int from, int to, double weight, int middle, int hops) {
+    long key = LongIntHashMap.pack(from, to);
+    int existing = edgeIndex.get(key, -1);
+    if (existing >= 0) {
+      if (weight < edgeWeight[existing]) {
+        edgeWeight[existing] = weight;
+        edgeMiddle[existing] = middle;
+        edgeHops[existing] = hops;
+      }
+      return;
+    }
+    if (edgeCount == edgeFrom.length) {
+      int capacity = edgeCount * 2;
+      edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+      edgeTo = Arrays.copyOf(edgeTo, capacity);
+      edgeWeight = Arrays.copyOf(edgeWeight, capacity);
+      edgeMiddle = Arrays.copyOf(edgeMiddle, capacity);
+      edgeHops = Arrays.copyOf(edgeHops, capacity);
+    }
+    int e = edgeCount++;
+    edgeFrom[e] = from;
+    edgeTo[e] = to;
+    edgeWeight[e] = weight;
+    edgeMiddle[e] = middle;
+    edgeHops[e] = hops;
+    edgeIndex.put(key, e);
+    outCount[from] = append(outEdges, outCount[from], from, e);
+    inCount[to] = append(inEdges, inCount[to], to, e);
+  }
+
+  /**
+   * Appends edge id e to lists[node], which holds count entries, growing it as needed.
+   *
+   * @return the new entry count
+   */
+  private static int append(int[][] lists, int count, int node, int e) {
+    if (lists[node] == null) {
+      lists[node] = new int[4];
+    } else if (count == lists[node].length) {
+      lists[node] = Arrays.copyOf(lists[node], count * 2);
+    }
+    lists[node][count] = e;
+    return count + 1;
+  }
+
+  /**
+   * Splits the final edge set into the upward graph used by forward searches and the downward
+   * graph used by backward searches, both in compressed sparse row form.
+   */
+  private void buildSearchGraphs() {
+    int n = symbols.getIdLimit();
+    upOffsets = new int[n + 1];
+    downOffsets = new int[n + 1];
+    for (int e = 0; e < edgeCount; e++) {
+      if (rank[edgeFrom[e]] < rank[edgeTo[e]]) {
+        upOffsets[edgeFrom[e] + 1]++;
+      } else {
+        downOffsets[edgeTo[e] + 1]++;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      upOffsets[v + 1] += upOffsets[v];
+      downOffsets[v + 1] += downOffsets[v];
+    }
+    upEdges = new int[upOffsets[n]];
+    downEdges = new int[downOffsets[n]];
+    int[] upFill = Arrays.copyOf(upOffsets, n);
+    int[] downFill = Arrays.copyOf(downOffsets, n);
+    for (int e = 0; e < edgeCount; e++) {
+      if (rank[edgeFrom[e]] < rank[edgeTo[e]]) {
+        upEdges[upFill[edgeFrom[e]]++] = e;
+      } else {
+        downEdges[downFill[edgeTo[e]]++] = e;
+      }
+    }
+  }
+}
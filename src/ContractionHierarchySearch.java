@@ -0,0 +1,428 @@
+import java.util.Arrays;
+
+/**
+ * Reusable query state for a ContractionHierarchy. A query runs Dijkstra forward from the source
+ * over edges leading to higher-ranked nodes and backward from the target over edges coming down
+ * from higher-ranked nodes. The shortest path is the best combination of the two at a node both
+ * sides settled, which is its highest-ranked node. A side stops once its queue minimum reaches the
+ * best distance found so far. The path's shortcut edges are then unpacked recursively through
+ * their middle nodes into the original edges.
+ *
+ * For one-to-many queries the forward search can instead be run once to completion with
+ * runForward(), after which each runBackward() finds the path to one target with a backward search
+ * alone, stopping as soon as its queue minimum reaches the best distance found.
+ *
+ * Like the other searches, state is kept between queries and invalidated with a generation
+ * counter. Not thread-safe; many searches can share one hierarchy, and one search can serve
+ * several hierarchies in turn through setHierarchy().
+ */
+public class ContractionHierarchySearch implements SearchCounters {
+
+  /**
+   * The hierarchy being searched.
+   */
+  protected ContractionHierarchy hierarchy;
+
+  /**
+   * Forward search queue.
+   */
+  protected final IndexedMinHeap forwardQueue;
+
+  /**
+   * Backward search queue.
+   */
+  protected final IndexedMinHeap backwardQueue;
+
+  /**
+   * Forward distance of every node reached in the current generation.
+   */
+  protected double[] forwardDist;
+
+  /**
+   * Backward distance of every node reached in the current generation.
+   */
+  protected double[] backwardDist;
+
+  /**
+   * Hierarchy edge through which each node was reached forward, or -1 for the source.
+   */
+  protected int[] forwardEdge;
+
+  /**
+   * Hierarchy edge through which each node was reached backward, or -1 for the target.
+   */
+  protected int[] backwardEdge;
+
+  /**
+   * Generation in which each node was last reached forward.
+   */
+  protected int[] forwardReached;
+
+  /**
+   * Generation in which each node was last reached backward.
+   */
+  protected int[] backwardReached;
+
+  /**
+   * Stack of edge ids used while unpacking shortcuts.
+   */
+  protected int[] unpackStack;
+
+  /**
+   * Counter from which each search side takes a new generation when it starts.
+   */
+  protected int generation;
+
+  /**
+   * Generation of the current forward search's entries in forwardReached.
+   */
+  protected int forwardGeneration;
+
+  /**
+   * Generation of the current backward search's entries in backwardReached.
+   */
+  protected int backwardGeneration;
+
+  /**
+   * Node where the forward and backward searches of the last query met, or -1 if none.
+   */
+  protected int meeting = -1;
+
+  /**
+   * Length of the shortest path found by the last query.
+   */
+  protected double best;
+
+  /**
+   * Number of nodes settled by both sides of the last query.
+   */
+  protected int settledCount;
+
+  /**
+   * Creates query state for hierarchy.
+   *
+   * @param hierarchy the preprocessed hierarchy to search
+   */
+  public ContractionHierarchySearch(ContractionHierarchy hierarchy) {
+    this.hierarchy = hierarchy;
+    int n = Math.max(1, hierarchy.getIdLimit());
+    forwardQueue = new IndexedMinHeap(n);
+    backwardQueue = new IndexedMinHeap(n);
+    forwardDist = new double[n];
+    backwardDist = new double[n];
+    forwardEdge = new int[n];
+    backwardEdge = new int[n];
+    forwardReached = new int[n];
+    backwardReached = new int[n];
+    unpackStack = new int[16];
+  }
+
+  /**
+   * Points the search at hierarchy for the following queries, growing the per-node arrays if it
+   * has more ids than they hold. A one-to-many query must call runForward() again before
+   * runBackward().
+   *
+   * @param hierarchy the preprocessed hierarchy to search from now on
+   */
+  public void setHierarchy(ContractionHierarchy hierarchy) {
+    this.hierarchy = hierarchy;
+    int n = hierarchy.getIdLimit();
+    if (n > forwardDist.length) {
+      forwardQueue.ensureCapacity(n);
+      backwardQueue.ensureCapacity(n);
+      forwardDist = Arrays.copyOf(forwardDist, n);
+      backwardDist = Arrays.copyOf(backwardDist, n);
+      forwardEdge = Arrays.copyOf(forwardEdge, n);
+      backwardEdge = Arrays.copyOf(backwardEdge, n);
+      forwardReached = Arrays.copyOf(forwardReached, n);
+      backwardReached = Arrays.copyOf(backwardReached, n);
+    }
+    // Forward entries of the old hierarchy must not meet backward searches of the new one
+    forwardGeneration = nextGeneration();
+  }
+
+  /**
+   * Finds the shortest path from source to target.
+   *
+   * @param source id of the node to search from
+   * @param target id of the node to search to
+   * @return true if target is reachable from source
+   */
+  public boolean run(int source, int target) {
+    forwardGeneration = nextGeneration();
+    backwardGeneration = forwardGeneration;
+    forwardQueue.clear();
+    backwardQueue.clear();
+    best = Double.POSITIVE_INFINITY;
+    meeting = -1;
+    settledCount = 0;
+    forwardReached[source] = generation;
+    forwardDist[source] = 0.0;
+    forwardEdge[source] = -1;
+    forwardQueue.insertOrDecrease(source, 0.0);
+    backwardReached[target] = generation;
+    backwardDist[target] = 0.0;
+    backwardEdge[target] = -1;
+    backwardQueue.insertOrDecrease(target, 0.0);
+
+    while (true) {
+      double forwardMin = forwardQueue.peekPriority();
+      double backwardMin = backwardQueue.peekPriority();
+      if (forwardMin >= best && backwardMin >= best) {
+        break;
+      }
+      if (forwardMin <= backwardMin) {
+        int u = forwardQueue.poll();
+        settle(u, forwardDist[u], backwardReached, backwardGeneration, backwardDist);
+        scanForward(u);
+      } else {
+        int u = backwardQueue.poll();
+        settle(u, backwardDist[u], forwardReached, forwardGeneration, forwardDist);
+        scanBackward(u);
+      }
+    }
+    return meeting >= 0;
+  }
+
+  /**
+   * Runs the forward search from source over every upward edge it can reach, as the first half of
+   * a one-to-many query. Each following runBackward() call then finds the shortest path from
+   * source to one target.
+   *
+   * @param source id of the node to search from
+   */
+  public void runForward(int source) {
+    forwardGeneration = nextGeneration();
+    forwardQueue.clear();
+    settledCount = 0;
+    forwardReached[source] = forwardGeneration;
+    forwardDist[source] = 0.0;
+    forwardEdge[source] = -1;
+    forwardQueue.insertOrDecrease(source, 0.0);
+    while (!forwardQueue.isEmpty()) {
+      int u = forwardQueue.poll();
+      settledCount++;
+      scanForward(u);
+    }
+  }
+
+  /**
+   * Finds the shortest path to target from the source of the last runForward() call, with a
+   * backward search that meets the finished forward search. Afterwards getDistance() and route()
+   * describe the path to target, and the next runBackward() can ask for another target.
+   *
+   * @param target id of the node to search to
+   * @return true if target is reachable from the forward search's source
+   */
+  public boolean runBackward(int target) {
+    backwardGeneration = nextGeneration();
+    backwardQueue.clear();
+    best = Double.POSITIVE_INFINITY;
+    meeting = -1;
+    settledCount = 0;
+    backwardReached[target] = backwardGeneration;
+    backwardDist[target] = 0.0;
+    backwardEdge[target] = -1;
+    backwardQueue.insertOrDecrease(target, 0.0);
+    while (!backwardQueue.isEmpty() && backwardQueue.peekPriority() < best) {
+      int u = backwardQueue.poll();
+      settle(u, backwardDist[u], forwardReached, forwardGeneration, forwardDist);
+      scanBackward(u);
+    }
+    return meeting >= 0;
+  }
+
+  /**
+   * Returns the length of the shortest path found by the last query.
+   *
+   * @return the distance from source to target, or positive infinity if unreachable
+   */
+  public double getDistance() {
+    return best;
+  }
+
+  /**
+   * Returns the number of nodes both sides of the last query settled.
+   *
+   * @return the settled node count
+   */
+  public int getSettledCount() {
+    return settledCount;
+  }
+
+  /**
+   * Returns the number of heap inserts, decreases and polls both sides of the last query made.
+   *
+   * @return the heap operation count
+   */
+  public long getHeapOperationCount() {
+    return forwardQueue.getOperationCount() + backwardQueue.getOperationCount();
+  }
+
+  /**
+   * Returns the shortest route found by the last query with every shortcut unpacked into the
+   * original edges it stands for.
+   *
+   * @return the route from source to target over original edges
+   * @throws IllegalStateException if the last query found no path
+   */
+  public Route<String> route() {
+    if (meeting < 0) {
+      throw new IllegalStateException("The last query found no path");
+    }
+    int before = 0;
+    for (int v = meeting; forwardEdge[v] >= 0; v = hierarchy.edgeFrom[forwardEdge[v]]) {
+      before += hierarchy.edgeHops[forwardEdge[v]];
+    }
+    int after = 0;
+    for (int v = meeting; backwardEdge[v] >= 0; v = hierarchy.edgeTo[backwardEdge[v]]) {
+      after += hierarchy.edgeHops[backwardEdge[v]];
+    }
+    String[] nodes = new String[before + after + 1];
+    double[] weights = new double[before + after];
+    nodes[before] = hierarchy.symbols.nameOf(meeting);
+
+    // Unpack the forward half from the meeting node back to the source, filling from the middle
+    int position = before;
+    for (int v = meeting; forwardEdge[v] >= 0; v = hierarchy.edgeFrom[forwardEdge[v]]) {
+      int e = forwardEdge[v];
+      position -= hierarchy.edgeHops[e];
+      unpack(e, position, nodes, weights);
+    }
+
+    // Unpack the backward half from the meeting node on to the target
+    position = before;
+    for (int v = meeting; backwardEdge[v] >= 0; v = hierarchy.edgeTo[backwardEdge[v]]) {
+      int e = backwardEdge[v];
+      unpack(e, position, nodes, weights);
+      position += hierarchy.edgeHops[e];
+    }
+
+    double total = 0.0;
+    for (double weight : weights) {
+      total += weight;
+    }
+    return new Route<>(nodes, weights, total);
+  }
+
+  /**
+   * Returns a new generation for one side's reached stamps. When the counter wraps around, stale
+   * stamps could collide with new generations, so the arrays are cleared except for the current
+   * forward search, which a one-to-many query is still meeting.
+   */
+  private int nextGeneration() {
+    if (++generation == 0) {
+      for (int v = 0; v < forwardReached.length; v++) {
+        forwardReached[v] = forwardReached[v] == forwardGeneration ? 1 : 0;
+      }
+      Arrays.fill(backwardReached, 0);
+      forwardGeneration = 1;
+      backwardGeneration = 1;
+      generation = 2;
+    }
+    return generation;
+  }
+
+  /**
+   * Relaxes the upward edges of u, just settled by the forward search, unless u is stalled.
+   */
+  private void scanForward(int u) {
+    if (stalled(u, forwardDist, forwardReached, forwardGeneration, hierarchy.downOffsets,
+        hierarchy.downEdges, hierarchy.edgeFrom)) {
+      return;
+    }
+    for (int i = hierarchy.upOffsets[u]; i < hierarchy.upOffsets[u + 1]; i++) {
+      int e = hierarchy.upEdges[i];
+      relax(forwardQueue, forwardDist, forwardEdge, forwardReached, forwardGeneration,
+          hierarchy.edgeTo[e], forwardDist[u] + hierarchy.edgeWeight[e], e);
+    }
+  }
+
+  /**
+   * Relaxes the downward edges into u, just settled by the backward search, unless u is stalled.
+   */
+  private void scanBackward(int u) {
+    if (stalled(u, backwardDist, backwardReached, backwardGeneration, hierarchy.upOffsets,
+        hierarchy.upEdges, hierarchy.edgeTo)) {
+      return;
+    }
+    for (int i = hierarchy.downOffsets[u]; i < hierarchy.downOffsets[u + 1]; i++) {
+      int e = hierarchy.downEdges[i];
+      relax(backwardQueue, backwardDist, backwardEdge, backwardReached, backwardGeneration,
+          hierarchy.edgeFrom[e], backwardDist[u] + hierarchy.edgeWeight[e], e);
+    }
+  }
+
+  /**
+   * Checks whether u, just settled by one side at distance d, has also been reached by the other
+   * side, and if so whether the combined path beats the best one found so far.
+   */
+  private void settle(int u, double d, int[] otherReached, int otherGeneration,
+      double[] otherDist) {
+    settledCount++;
+    if (otherReached[u] == otherGeneration && d + otherDist[u] < best) {
+      best = d + otherDist[u];
+      meeting = u;
+    }
+  }
+
+  /**
+   * Stall-on-demand: checks whether this side already reached a higher-ranked neighbor of u from
+   * which the edge back down to u is shorter than u's own distance. If so u's distance is not a
+   * shortest one, so nothing reached through it can be on a shortest path and u's edges need not
+   * be relaxed. The edges scanned are the ones the other side would use, read in reverse.
+   */
+  private boolean stalled(int u, double[] dist, int[] reached, int stamp, int[] offsets,
+      int[] edges, int[] higherEnd) {
+    for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+      int e = edges[i];
+      int v = higherEnd[e];
+      if (reached[v] == stamp && dist[v] + hierarchy.edgeWeight[e] < dist[u]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Offers one side the path to v through hierarchy edge e with the given distance.
+   */
+  private void relax(IndexedMinHeap queue, double[] dist, int[] edge, int[] reached, int stamp,
+      int v, double candidate, int e) {
+    if (reached[v] != stamp) {
+      reached[v] = stamp;
+    } else if (candidate >= dist[v]) {
+      return;
+    }
+    dist[v] = candidate;
+    edge[v] = e;
+    queue.insertOrDecrease(v, candidate);
+  }
+
+  /**
+   * Writes the original edges that hierarchy edge e stands for into nodes and weights, starting at
+   * hop index position. nodes[position] receives e's source and each hop writes its target.
+   */
+  private void unpack(int e, int position, String[] nodes, double[] weights) {
+    int top = 0;
+    unpackStack[top++] = e;
+    nodes[position] = hierarchy.symbols.nameOf(hierarchy.edgeFrom[e]);
+    while (top > 0) {
+      int current = unpackStack[--top];
+      int middle = hierarchy.edgeMiddle[current];
+      if (middle < 0) {
+        weights[position] = hierarchy.edgeWeight[current];
+        nodes[++position] = hierarchy.symbols.nameOf(hierarchy.edgeTo[current]);
+        continue;
+      }
+      if (top + 2 > unpackStack.length) {
+        unpackStack = Arrays.copyOf(unpackStack, unpackStack.length * 2);
+      }
+      // Push the second half first so the first half is unpacked first
+      unpackStack[top++] = hierarchy.edgeIndex.get(
+          LongIntHashMap.pack(middle, hierarchy.edgeTo[current]), -1);
+      unpackStack[top++] = hierarchy.edgeIndex.get(
+          LongIntHashMap.pack(hierarchy.edgeFrom[current], middle), -1);
+    }
+  }
+}
@@ -0,0 +1,360 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable Dijkstra shortest path search over an IntGraph. All per-node search state (tentative
+ * distance, predecessor and settled flag) lives in primitive arrays that are kept between queries.
+ * Instead of clearing those arrays before every query, each query bumps a generation counter and a
+ * node's entries only count as valid while its stamp matches the current generation. Once the
+ * arrays have grown to the graph's size, a query allocates nothing except the path it returns.
+ *
+ * A DijkstraSearch is not thread-safe; give each thread its own instance. One instance can serve
+ * several graphs in turn through setGraph().
+ */
+public class DijkstraSearch implements SearchCounters {
+
+  /**
+   * The graph being searched.
+   */
+  protected IntGraph graph;
+
+  /**
+   * Priority queue of reached but not yet settled nodes, keyed by tentative distance.
+   */
+  protected final IndexedMinHeap queue;
+
+  /**
+   * Tentative distance from the source for every node reached in the current generation.
+   */
+  protected double[] dist;
+
+  /**
+   * Predecessor on the best known path for every node reached in the current generation. The
+   * source is its own predecessor.
+   */
+  protected int[] prev;
+
+  /**
+   * Weight of the edge from prev[v] to v for every node v reached in the current generation, so
+   * that routes can report per-hop weights without looking edges up again.
+   */
+  protected double[] prevWeight;
+
+  /**
+   * Heuristic estimate of the remaining distance to the target for every node reached in the
+   * current generation. All zeros when the query has no heuristic.
+   */
+  protected double[] estimate;
+
+  /**
+   * Generation in which each node was last reached. dist and prev are only valid for a node whose
+   * stamp equals generation.
+   */
+  protected int[] reached;
+
+  /**
+   * Generation in which each node was last settled.
+   */
+  protected int[] settled;
+
+  /**
+   * Generation in which each node was last made a target of a multi-target query.
+   */
+  protected int[] wanted;
+
+  /**
+   * Counter identifying the current query's entries in reached and settled.
+   */
+  protected int generation;
+
+  /**
+   * Source node of the most recent query.
+   */
+  protected int source = -1;
+
+  /**
+   * Target of the most recent query, or -1 for a full search.
+   */
+  protected int target = -1;
+
+  /**
+   * Heuristic guiding the most recent query, or null for plain Dijkstra.
+   */
+  protected SearchHeuristic heuristic;
+
+  /**
+   * Number of nodes settled by the most recent query.
+   */
+  protected int settledCount;
+
+  /**
+   * Creates a search over graph, sized for the graph's current ids.
+   *
+   * @param graph the graph to search
+   */
+  public DijkstraSearch(IntGraph graph) {
+    this.graph = graph;
+    int capacity = Math.max(1, graph.getIdLimit());
+    queue = new IndexedMinHeap(capacity);
+    dist = new double[capacity];
+    prev = new int[capacity];
+    prevWeight = new double[capacity];
+    estimate = new double[capacity];
+    reached = new int[capacity];
+    settled = new int[capacity];
+    wanted = new int[capacity];
+  }
+
+  /**
+   * Points the search at graph for the following queries. The per-node arrays are kept and grow
+   * on the next query if graph has more ids than they hold, so switching between graphs of about
+   * the same size allocates nothing.
+   *
+   * @param graph the graph to search from now on
+   */
+  public void setGraph(IntGraph graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source. When target is a node id the search stops as soon as
+   * target is settled; when target is -1 it settles every node reachable from source.
+   *
+   * @param source id of the node to search from
+   * @param target id of the node to stop at, or -1 to build the full shortest path tree
+   * @return true if target was reached (always true when target is -1)
+   */
+  public boolean run(int source, int target) {
+    return run(source, target, null);
+  }
+
+  /**
+   * Runs an A* search from source to target guided by heuristic: nodes are settled in order of
+   * their distance from source plus the heuristic's estimate of their distance to target. With an
+   * admissible heuristic the distance found for target is exactly the one Dijkstra finds, while
+   * far fewer nodes are settled along the way. A null heuristic gives plain Dijkstra.
+   *
+   * @param source id of the node to search from
+   * @param target id of the node to stop at, or -1 to build the full shortest path tree
+   * @param heuristic lower bound on the remaining distance to target, or null for none
+   * @return true if target was reached (always true when target is -1)
+   */
+  public boolean run(int source, int target, SearchHeuristic heuristic) {
+    this.target = target;
+    this.heuristic = target < 0 ? null : heuristic;
+    begin(source);
+    while (!queue.isEmpty()) {
+      int u = queue.poll();
+      settled[u] = generation;
+      settledCount++;
+      if (u == target) {
+        return true;
+      }
+      double base = dist[u];
+      int degree = graph.outDegree(u);
+      for (int i = 0; i < degree; i++) {
+        relax(u, graph.outTarget(u, i), base, graph.outWeight(u, i));
+      }
+    }
+    return target < 0;
+  }
+
+  /**
+   * Runs Dijkstra's algorithm from source until every node in targets is settled, so that one
+   * search answers a whole group of queries sharing a source. Afterwards getDistance(), pathTo()
+   * and routeTo() work for every target that was reached. Targets may repeat.
+   *
+   * @param source id of the node to search from
+   * @param targets ids of the nodes to stop after
+   * @return true if every target was reached
+   */
+  public boolean run(int source, int[] targets) {
+    this.target = -1;
+    this.heuristic = null;
+    begin(source);
+    int remaining = 0;
+    for (int t : targets) {
+      if (wanted[t] != generation) {
+        wanted[t] = generation;
+        remaining++;
+      }
+    }
+    while (remaining > 0 && !queue.isEmpty()) {
+      int u = queue.poll();
+      settled[u] = generation;
+      settledCount++;
+      if (wanted[u] == generation && --remaining == 0) {
+        break;
+      }
+      double base = dist[u];
+      int degree = graph.outDegree(u);
+      for (int i = 0; i < degree; i++) {
+        relax(u, graph.outTarget(u, i), base, graph.outWeight(u, i));
+      }
+    }
+    return remaining == 0;
+  }
+
+  /**
+   * Returns the shortest distance from the last query's source to v, as far as the last query
+   * explored.
+   *
+   * @param v a node id
+   * @return the distance to v, or positive infinity if v was not reached
+   */
+  public double getDistance(int v) {
+    return reached[v] == generation ? dist[v] : Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns v's predecessor on the shortest path from the last query's source.
+   *
+   * @param v a node id
+   * @return the predecessor's id, v itself for the source, or -1 if v was not reached
+   */
+  public int getPredecessor(int v) {
+    return reached[v] == generation ? prev[v] : -1;
+  }
+
+  /**
+   * Returns whether v was settled, meaning its distance is final, by the last query.
+   *
+   * @param v a node id
+   * @return true if v was settled
+   */
+  public boolean isSettled(int v) {
+    return settled[v] == generation;
+  }
+
+  /**
+   * Returns the number of nodes the last query settled.
+   *
+   * @return the settled node count
+   */
+  public int getSettledCount() {
+    return settledCount;
+  }
+
+  /**
+   * Returns the number of heap inserts, decreases and polls the last query made.
+   *
+   * @return the heap operation count
+   */
+  public long getHeapOperationCount() {
+    return queue.getOperationCount();
+  }
+
+  /**
+   * Returns the names of the nodes on the shortest path from the last query's source to target.
+   *
+   * @param target id of a node reached by the last query
+   * @return the node names from source to target, inclusive
+   */
+  public List<String> pathTo(int target) {
+    int length = 1;
+    for (int v = target; v != source; v = prev[v]) {
+      length++;
+    }
+    String[] path = new String[length];
+    for (int v = target; length > 0; v = prev[v]) {
+      path[--length] = graph.nameOf(v);
+    }
+    return Arrays.asList(path);
+  }
+
+  /**
+   * Returns the shortest route from the last query's source to target, including the weight of
+   * every hop and the total cost.
+   *
+   * @param target id of a node reached by the last query
+   * @return the route from source to target
+   */
+  public Route<String> routeTo(int target) {
+    int hops = 0;
+    for (int v = target; v != source; v = prev[v]) {
+      hops++;
+    }
+    String[] nodes = new String[hops + 1];
+    double[] weights = new double[hops];
+    int v = target;
+    for (int i = hops; i > 0; i--, v = prev[v]) {
+      nodes[i] = graph.nameOf(v);
+      weights[i - 1] = prevWeight[v];
+    }
+    nodes[0] = graph.nameOf(source);
+    return new Route<>(nodes, weights, dist[target]);
+  }
+
+  /**
+   * Copies the distances and predecessors found by the last query into a standalone
+   * ShortestPathTree. This is meant to follow a full search (run with target -1), after which the
+   * tree covers every node reachable from the source.
+   *
+   * @return the shortest path tree of the last query
+   */
+  public ShortestPathTree<String> toTree() {
+    int limit = graph.getIdLimit();
+    String[] nodes = new String[limit];
+    double[] distances = new double[limit];
+    int[] predecessors = new int[limit];
+    for (int v = 0; v < limit; v++) {
+      nodes[v] = graph.nameOf(v);
+      distances[v] = getDistance(v);
+      predecessors[v] = getPredecessor(v);
+    }
+    return new ShortestPathTree<>(nodes, distances, predecessors, source);
+  }
+
+  /**
+   * Starts a new generation and queues source, growing the per-node arrays if the graph has
+   * gained ids since the last query.
+   */
+  protected void begin(int source) {
+    int capacity = graph.getIdLimit();
+    if (capacity > dist.length) {
+      dist = Arrays.copyOf(dist, capacity);
+      prev = Arrays.copyOf(prev, capacity);
+      prevWeight = Arrays.copyOf(prevWeight, capacity);
+      estimate = Arrays.copyOf(estimate, capacity);
+      reached = Arrays.copyOf(reached, capacity);
+      settled = Arrays.copyOf(settled, capacity);
+      wanted = Arrays.copyOf(wanted, capacity);
+      queue.ensureCapacity(capacity);
+    }
+    if (++generation == 0) {
+      // The counter wrapped around, so stale stamps could collide with new generations
+      Arrays.fill(reached, 0);
+      Arrays.fill(settled, 0);
+      Arrays.fill(wanted, 0);
+      generation = 1;
+    }
+    queue.clear();
+    this.source = source;
+    settledCount = 0;
+    reached[source] = generation;
+    dist[source] = 0.0;
+    prev[source] = source;
+    estimate[source] = heuristic == null ? 0.0 : heuristic.estimate(source, target);
+    queue.insertOrDecrease(source, estimate[source]);
+  }
+
+  /**
+   * Offers the path to v that reaches u at distance base and then takes an edge of the given
+   * weight, keeping it if it improves on the best path to v found so far. An improved node is
+   * queued again even if it was already settled, which only happens under an inconsistent
+   * heuristic and keeps A* exact in that case.
+   */
+  protected void relax(int u, int v, double base, double weight) {
+    double candidate = base + weight;
+    if (reached[v] != generation) {
+      reached[v] = generation;
+      estimate[v] = heuristic == null ? 0.0 : heuristic.estimate(v, target);
+    } else if (candidate >= dist[v]) {
+      return;
+    }
+    dist[v] = candidate;
+    prev[v] = u;
+    prevWeight[v] = weight;
+    queue.insertOrDecrease(v, candidate + estimate[v]);
+  }
+}
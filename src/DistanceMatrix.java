@@ -0,0 +1,707 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * All-pairs shortest path costs, the same values shortestPathCost() returns for every pair of
+ * nodes, together with a next-hop table for path reconstruction. Row s holds the distance from
+ * node s to every node and the first node after s on a shortest path to each of them, so both
+ * lookups are O(1) and a path is rebuilt by following next hops to its end. Row s also keeps the
+ * predecessor of every node in the shortest path tree its search from s built.
+ *
+ * The matrix is computed with one full Dijkstra search per node, spread over a ForkJoinPool with
+ * one reusable search per thread at work on it. Rows are stored in flat, row-major blocks of at
+ * most 1 GiB each, either on the heap or memory-mapped from a file for matrices that should stay
+ * off the heap. The graph must not change while the matrix is being computed; afterwards the
+ * matrix is an independent snapshot and is safe to read from any number of threads.
+ *
+ * When edge weights change, repair() derives the new graph's matrix from the old one's shortest
+ * path trees in the way of Ramalingam and Reps: a row is only searched again if a changed edge is
+ * in its tree or shortens one of its paths, and then only over the subtrees that changed.
+ */
+public class DistanceMatrix {
+
+  /**
+   * Number of source rows below which a task stops splitting and computes its rows directly.
+   */
+  private static final int ROWS_PER_TASK = 8;
+
+  /**
+   * Largest size in bytes of one storage block, which keeps blocks within the limits of both Java
+   * arrays and mapped buffers.
+   */
+  private static final long MAX_BLOCK_BYTES = 1L << 30;
+
+  /**
+   * Read-only names and ids of the source graph.
+   */
+  private final SymbolTable symbols;
+
+  /**
+   * Number of rows and columns, the source graph's id limit.
+   */
+  private final int size;
+
+  /**
+   * Number of rows stored in every block.
+   */
+  private final int rowsPerBlock;
+
+  /**
+   * Distance blocks; the distance from s to t is entry (s % rowsPerBlock) * size + t of block
+   * s / rowsPerBlock.
+   */
+  private final DoubleBuffer[] distances;
+
+  /**
+   * Next-hop blocks, laid out like distances.
+   */
+  private final IntBuffer[] nextHops;
+
+  /**
+   * Shortest path tree predecessor blocks, laid out like distances.
+   */
+  private final IntBuffer[] predecessors;
+
+  /**
+   * Creates an empty matrix for graph's current nodes, on the heap or mapped from mapFile.
+   */
+  private DistanceMatrix(IntGraph graph, File mapFile) throws IOException {
+    symbols = graph.getSymbols();
+    size = symbols.getIdLimit();
+    rowsPerBlock = (int) Math.max(1, Math.min(size, MAX_BLOCK_BYTES / Math.max(1L, size * 8L)));
+    int blocks = (size + rowsPerBlock - 1) / rowsPerBlock;
+    distances = new DoubleBuffer[blocks];
+    nextHops = new IntBuffer[blocks];
+    predecessors = new IntBuffer[blocks];
+
+    if (mapFile == null) {
+      for (int b = 0; b < blocks; b++) {
+        int entries = rows(b) * size;
+        distances[b] = DoubleBuffer.wrap(new double[entries]);
+        nextHops[b] = IntBuffer.wrap(new int[entries]);
+        predecessors[b] = IntBuffer.wrap(new int[entries]);
+      }
+      return;
+    }
+    // Distance blocks first, then next-hop and predecessor blocks. Mappings stay valid after the
+    // file is closed
+    try (RandomAccessFile file = new RandomAccessFile(mapFile, "rw");
+        FileChannel channel = file.getChannel()) {
+      long cells = (long) size * size;
+      file.setLength(cells * (Double.BYTES + 2 * Integer.BYTES));
+      long offset = 0;
+      for (int b = 0; b < blocks; b++) {
+        long bytes = (long) rows(b) * size * Double.BYTES;
+        distances[b] = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes)
+            .order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        offset += bytes;
+      }
+      for (int b = 0; b < blocks; b++) {
+        long bytes = (long) rows(b) * size * Integer.BYTES;
+        nextHops[b] = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes)
+            .order(ByteOrder.nativeOrder()).asIntBuffer();
+        offset += bytes;
+      }
+      for (int b = 0; b < blocks; b++) {
+        long bytes = (long) rows(b) * size * Integer.BYTES;
+        predecessors[b] = channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes)
+            .order(ByteOrder.nativeOrder()).asIntBuffer();
+        offset += bytes;
+      }
+    }
+  }
+
+  /**
+   * Creates a matrix that shares every block with matrix, for repair() to copy the blocks it
+   * changes.
+   */
+  private DistanceMatrix(DistanceMatrix matrix) {
+    symbols = matrix.symbols;
+    size = matrix.size;
+    rowsPerBlock = matrix.rowsPerBlock;
+    distances = matrix.distances.clone();
+    nextHops = matrix.nextHops.clone();
+    predecessors = matrix.predecessors.clone();
+  }
+
+  /**
+   * Computes the matrix for graph on the common ForkJoinPool, stored on the heap.
+   *
+   * @param graph the graph to compute all shortest path costs of
+   * @return the distance matrix of graph's current state
+   */
+  public static DistanceMatrix compute(IntGraph graph) {
+    return compute(graph, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Computes the matrix for graph on pool, stored on the heap.
+   *
+   * @param graph the graph to compute all shortest path costs of
+   * @param pool the pool to run the single-source searches on
+   * @return the distance matrix of graph's current state
+   */
+  public static DistanceMatrix compute(IntGraph graph, ForkJoinPool pool) {
+    try {
+      return compute(graph, pool, null);
+    } catch (IOException e) {
+      // Only mapping a file can fail
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Computes the matrix for graph on pool, memory-mapped from mapFile so that it lives outside the
+   * heap. The file is created or overwritten and needs 16 bytes per pair of node ids.
+   *
+   * @param graph the graph to compute all shortest path costs of
+   * @param pool the pool to run the single-source searches on
+   * @param mapFile the file to store the matrix in, or null to store it on the heap
+   * @return the distance matrix of graph's current state
+   * @throws IOException if mapFile cannot be created or mapped
+   */
+  public static DistanceMatrix compute(IntGraph graph, ForkJoinPool pool, File mapFile)
+      throws IOException {
+    DistanceMatrix matrix = new DistanceMatrix(graph, mapFile);
+    pool.invoke(matrix.new RowTask(new Workers(graph), 0, matrix.size, null, null));
+    return matrix;
+  }
+
+  /**
+   * Returns graph's matrix, repaired from this one on the common ForkJoinPool. See
+   * repair(IntGraph, List, ForkJoinPool).
+   *
+   * @param graph the graph after the changes
+   * @param changes every edge whose weight differs between this matrix's graph and graph
+   * @return the distance matrix of graph's current state
+   * @throws IllegalArgumentException if graph does not have this matrix's node ids
+   */
+  public DistanceMatrix repair(IntGraph graph, List<EdgeChange> changes) {
+    return repair(graph, changes, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Returns graph's matrix, repaired from this one, which must be the matrix of the same nodes
+   * before changes were made to their edges. A row only needs repairing if one of its tree edges
+   * got slower or closed, or if a faster or new edge shortens a path from its source; every other
+   * row is kept as it is. Within a row, the subtrees below slower tree edges are cut off and
+   * searched again from their unaffected neighbors, together with the nodes a faster edge brings
+   * closer, while the rest of the tree is left untouched.
+   *
+   * This matrix is not changed and stays valid for its own graph. The repaired one shares the
+   * blocks of rows it did not repair with this one, and keeps the rest on the heap.
+   *
+   * @param graph the graph after the changes
+   * @param changes every edge whose weight differs between this matrix's graph and graph
+   * @param pool the pool to repair rows on
+   * @return the distance matrix of graph's current state
+   * @throws IllegalArgumentException if graph does not have this matrix's node ids
+   */
+  public DistanceMatrix repair(IntGraph graph, List<EdgeChange> changes, ForkJoinPool pool) {
+    if (graph.getIdLimit() != size) {
+      throw new IllegalArgumentException("The graph has " + graph.getIdLimit()
+          + " node ids, but the matrix has " + size);
+    }
+    DistanceMatrix repaired = new DistanceMatrix(this);
+    boolean[] affected = new boolean[size];
+    boolean[] copied = new boolean[distances.length];
+    for (int s = 0; s < size; s++) {
+      if (symbols.nameOf(s) != null && affects(s, changes)) {
+        affected[s] = true;
+        int b = s / rowsPerBlock;
+        if (!copied[b]) {
+          repaired.copyBlock(b);
+          copied[b] = true;
+        }
+      }
+    }
+    pool.invoke(repaired.new RowTask(new Workers(graph), 0, size, affected, changes));
+    return repaired;
+  }
+
+  /**
+   * Returns the number of rows and columns, which is the source graph's id limit.
+   *
+   * @return the matrix dimension
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the id of the node with the given name.
+   *
+   * @param name the node name to look up
+   * @return the node's id, or -1 if there is no such node
+   */
+  public int idOf(String name) {
+    return symbols.idOf(name);
+  }
+
+  /**
+   * Returns the name of the node with the given id.
+   *
+   * @param id a node id
+   * @return the node's name, or null if the id was not in use
+   */
+  public String nameOf(int id) {
+    return symbols.nameOf(id);
+  }
+
+  /**
+   * Returns the shortest path cost from source to target.
+   *
+   * @param source id of the node the path starts at
+   * @param target id of the node the path ends at
+   * @return the cost, or positive infinity if target is unreachable from source
+   */
+  public double getDistance(int source, int target) {
+    return distances[source / rowsPerBlock].get(index(source, target));
+  }
+
+  /**
+   * Returns the node that follows source on a shortest path from source to target.
+   *
+   * @param source id of the node the path starts at
+   * @param target id of the node the path ends at
+   * @return the next node's id, source itself if source equals target, or -1 if unreachable
+   */
+  public int getNextHop(int source, int target) {
+    return nextHops[source / rowsPerBlock].get(index(source, target));
+  }
+
+  /**
+   * Returns the node before target on the shortest path from source, in the shortest path tree
+   * row source was computed or repaired with.
+   *
+   * @param source id of the node the path starts at
+   * @param target id of the node the path ends at
+   * @return the predecessor's id, source itself if source equals target, or -1 if unreachable
+   */
+  public int getPredecessor(int source, int target) {
+    return predecessors[source / rowsPerBlock].get(index(source, target));
+  }
+
+  /**
+   * Returns the shortest travel time between two nodes by name.
+   *
+   * @param start the node the path starts at
+   * @param end the node the path ends at
+   * @return the cost, or positive infinity if end is unreachable from start
+   * @throws NoSuchElementException if either node is missing
+   */
+  public double getDistance(String start, String end) {
+    return getDistance(requireId(start), requireId(end));
+  }
+
+  /**
+   * Rebuilds the shortest path between two nodes by following next hops.
+   *
+   * @param start the node the path starts at
+   * @param end the node the path ends at
+   * @return the node names from start to end, inclusive
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public List<String> getPath(String start, String end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    if (getNextHop(source, target) < 0) {
+      throw new NoSuchElementException("No path from " + start + " to " + end);
+    }
+    String[] path = new String[size];
+    int length = 0;
+    path[length++] = start;
+    for (int v = source; v != target; v = getNextHop(v, target)) {
+      if (length == size) {
+        // Only possible when a cycle of zero-weight edges lets rows pick different equal paths
+        throw new IllegalStateException("Next hops from " + start + " to " + end + " loop");
+      }
+      path[length++] = symbols.nameOf(getNextHop(v, target));
+    }
+    return Arrays.asList(Arrays.copyOf(path, length));
+  }
+
+  /**
+   * Returns the number of rows in block b.
+   */
+  private int rows(int b) {
+    return Math.min(rowsPerBlock, size - b * rowsPerBlock);
+  }
+
+  /**
+   * Replaces block b with a copy on the heap, so its rows can be changed without changing the
+   * matrix it was shared with.
+   */
+  private void copyBlock(int b) {
+    int entries = rows(b) * size;
+    distances[b] = DoubleBuffer.allocate(entries).put(distances[b].duplicate().clear());
+    nextHops[b] = IntBuffer.allocate(entries).put(nextHops[b].duplicate().clear());
+    predecessors[b] = IntBuffer.allocate(entries).put(predecessors[b].duplicate().clear());
+  }
+
+  /**
+   * Returns whether any of changes alters row source: a slower or closed edge that is in the row's
+   * tree, or a faster or new edge that shortens the distance to its successor.
+   */
+  private boolean affects(int source, List<EdgeChange> changes) {
+    for (EdgeChange change : changes) {
+      if (change.isIncrease()) {
+        if (change.getTo() != source && getPredecessor(source, change.getTo()) == change.getFrom()) {
+          return true;
+        }
+      } else if (change.isDecrease() && getDistance(source, change.getFrom())
+          + change.getNewWeight() < getDistance(source, change.getTo())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the position of (source, target) within its block.
+   */
+  private int index(int source, int target) {
+    return (source % rowsPerBlock) * size + target;
+  }
+
+  /**
+   * Returns the id of name.
+   *
+   * @throws NoSuchElementException if there is no such node
+   */
+  private int requireId(String name) {
+    int id = symbols.idOf(name);
+    if (id < 0) {
+      throw new NoSuchElementException(name + " does not exist");
+    }
+    return id;
+  }
+
+  /**
+   * State of one thread computing rows: a reusable search and scratch arrays for next hops, and
+   * the queue and subtree marks for repairing rows.
+   */
+  private static class Worker {
+
+    /**
+     * The graph rows are computed or repaired for.
+     */
+    private final IntGraph graph;
+
+    /**
+     * Search reused for every row the Worker computes.
+     */
+    private final DijkstraSearch search;
+
+    /**
+     * Next hop of every target in the row being computed.
+     */
+    private final int[] hop;
+
+    /**
+     * Nodes whose next hop is waiting on their predecessor's, or nodes of a subtree being cut
+     * off.
+     */
+    private final int[] stack;
+
+    /**
+     * Nodes whose distance is being repaired, keyed by tentative distance.
+     */
+    private final IndexedMinHeap queue;
+
+    /**
+     * Generation in which each node was cut off from the tree of the row being repaired.
+     */
+    private final int[] cut;
+
+    /**
+     * Counter identifying the current row's entries in cut.
+     */
+    private int generation;
+
+    /**
+     * Creates state for computing rows of graph.
+     */
+    private Worker(IntGraph graph) {
+      this.graph = graph;
+      search = new DijkstraSearch(graph);
+      hop = new int[graph.getIdLimit()];
+      stack = new int[graph.getIdLimit()];
+      queue = new IndexedMinHeap(graph.getIdLimit());
+      cut = new int[graph.getIdLimit()];
+    }
+  }
+
+  /**
+   * The idle Workers of one computation or repair, which its tasks borrow for each run of rows.
+   * Once the computation is done the pool and its Workers are dropped together; Workers held in
+   * ThreadLocals instead would keep the graph reachable from the pool's threads long after.
+   */
+  private static class Workers {
+
+    /**
+     * The graph rows are computed or repaired for.
+     */
+    private final IntGraph graph;
+
+    /**
+     * Workers not in use by any task, at most one per thread that has taken part.
+     */
+    private final ConcurrentLinkedQueue<Worker> idle = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates an empty pool for graph.
+     */
+    private Workers(IntGraph graph) {
+      this.graph = graph;
+    }
+
+    /**
+     * Takes an idle Worker, or creates one if all are busy.
+     */
+    private Worker take() {
+      Worker worker = idle.poll();
+      return worker != null ? worker : new Worker(graph);
+    }
+
+    /**
+     * Returns a Worker taken with take() once its task is done with it.
+     */
+    private void give(Worker worker) {
+      idle.offer(worker);
+    }
+  }
+
+  /**
+   * Computes rows [from, to), or repairs those of them that are marked, splitting the range in
+   * half until it is small enough.
+   */
+  private class RowTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Search state shared out between the tasks.
+     */
+    private final transient Workers workers;
+
+    /**
+     * First row to compute.
+     */
+    private final int from;
+
+    /**
+     * One past the last row to compute.
+     */
+    private final int to;
+
+    /**
+     * Which rows to repair, or null to compute every row.
+     */
+    private final boolean[] affected;
+
+    /**
+     * The edge changes to repair rows for, or null to compute every row.
+     */
+    private final transient List<EdgeChange> changes;
+
+    /**
+     * Creates a task for rows [from, to).
+     */
+    private RowTask(Workers workers, int from, int to, boolean[] affected,
+        List<EdgeChange> changes) {
+      this.workers = workers;
+      this.from = from;
+      this.to = to;
+      this.affected = affected;
+      this.changes = changes;
+    }
+
+    /**
+     * Computes or repairs the rows, or splits them between two subtasks.
+     */
+    protected void compute() {
+      if (to - from > ROWS_PER_TASK) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new RowTask(workers, from, middle, affected, changes),
+            new RowTask(workers, middle, to, affected, changes));
+        return;
+      }
+      Worker worker = workers.take();
+      try {
+        for (int s = from; s < to; s++) {
+          if (affected == null) {
+            fillRow(worker, s);
+          } else if (affected[s]) {
+            repairRow(worker, s, changes);
+          }
+        }
+      } finally {
+        workers.give(worker);
+      }
+    }
+  }
+
+  /**
+   * Runs a full search from source and writes its distances and next hops into row source. The
+   * next hop of a target is found by walking its predecessors back towards source; every node
+   * passed on the way shares that next hop, so each node is resolved only once.
+   */
+  private void fillRow(Worker worker, int source) {
+    DoubleBuffer distanceBlock = distances[source / rowsPerBlock];
+    IntBuffer hopBlock = nextHops[source / rowsPerBlock];
+    IntBuffer predecessorBlock = predecessors[source / rowsPerBlock];
+    int base = index(source, 0);
+    if (symbols.nameOf(source) == null) {
+      for (int t = 0; t < size; t++) {
+        distanceBlock.put(base + t, Double.POSITIVE_INFINITY);
+        hopBlock.put(base + t, -1);
+        predecessorBlock.put(base + t, -1);
+      }
+      return;
+    }
+
+    DijkstraSearch search = worker.search;
+    int[] hop = worker.hop;
+    int[] stack = worker.stack;
+    search.run(source, -1);
+    for (int t = 0; t < size; t++) {
+      // -2 marks a reachable node whose next hop is not known yet
+      hop[t] = search.getDistance(t) == Double.POSITIVE_INFINITY ? -1 : -2;
+    }
+    hop[source] = source;
+    for (int t = 0; t < size; t++) {
+      int top = 0;
+      int v = t;
+      while (hop[v] == -2 && search.getPredecessor(v) != source) {
+        stack[top++] = v;
+        v = search.getPredecessor(v);
+      }
+      if (hop[v] == -2) {
+        // v is reached directly from source, so it is its own next hop
+        hop[v] = v;
+      }
+      while (top > 0) {
+        hop[stack[--top]] = hop[v];
+      }
+      distanceBlock.put(base + t, search.getDistance(t));
+      hopBlock.put(base + t, hop[t]);
+      predecessorBlock.put(base + t, search.getPredecessor(t));
+    }
+  }
+
+  /**
+   * Brings row source up to date with changes. First every subtree hanging below a tree edge that
+   * got slower or closed is cut off and its distances forgotten. Each cut node is then queued at
+   * its best distance through an in-edge from the rest of the tree, each faster or new edge queues
+   * its successor if it now gets there sooner, and a Dijkstra search from the queue settles the
+   * new distances. A node's next hop is recomputed when it is settled, from its predecessor's.
+   * Nodes the search never reaches keep their distance, predecessor and next hop.
+   */
+  private void repairRow(Worker worker, int source, List<EdgeChange> changes) {
+    DoubleBuffer distanceBlock = distances[source / rowsPerBlock];
+    IntBuffer hopBlock = nextHops[source / rowsPerBlock];
+    IntBuffer predecessorBlock = predecessors[source / rowsPerBlock];
+    int base = index(source, 0);
+    IntGraph graph = worker.graph;
+    IndexedMinHeap queue = worker.queue;
+    int[] cut = worker.cut;
+    int[] stack = worker.stack;
+    if (++worker.generation == 0) {
+      // The counter wrapped around, so stale stamps could collide with new generations
+      Arrays.fill(cut, 0);
+      worker.generation = 1;
+    }
+    int generation = worker.generation;
+    queue.clear();
+
+    // Cut off the subtree below every slower tree edge, collecting the cut nodes in stack and
+    // visiting them in the order they were cut
+    int cutCount = 0;
+    for (EdgeChange change : changes) {
+      int root = change.getTo();
+      if (!change.isIncrease() || root == source || cut[root] == generation
+          || predecessorBlock.get(base + root) != change.getFrom()) {
+        continue;
+      }
+      cut[root] = generation;
+      int visited = cutCount;
+      stack[cutCount++] = root;
+      while (visited < cutCount) {
+        int u = stack[visited++];
+        for (int i = 0; i < graph.outDegree(u); i++) {
+          int v = graph.outTarget(u, i);
+          if (v != source && cut[v] != generation && predecessorBlock.get(base + v) == u) {
+            cut[v] = generation;
+            stack[cutCount++] = v;
+          }
+        }
+      }
+    }
+    for (int k = 0; k < cutCount; k++) {
+      int v = stack[k];
+      distanceBlock.put(base + v, Double.POSITIVE_INFINITY);
+      predecessorBlock.put(base + v, -1);
+      hopBlock.put(base + v, -1);
+    }
+    for (int k = 0; k < cutCount; k++) {
+      int v = stack[k];
+      for (int i = 0; i < graph.inDegree(v); i++) {
+        int u = graph.inSource(v, i);
+        if (cut[u] != generation) {
+          relax(queue, distanceBlock, predecessorBlock, base, u, v, graph.inWeight(v, i));
+        }
+      }
+    }
+    for (EdgeChange change : changes) {
+      if (change.isDecrease()) {
+        relax(queue, distanceBlock, predecessorBlock, base, change.getFrom(), change.getTo(),
+            change.getNewWeight());
+      }
+    }
+
+    while (!queue.isEmpty()) {
+      int u = queue.poll();
+      int predecessor = predecessorBlock.get(base + u);
+      hopBlock.put(base + u, predecessor == source ? u : hopBlock.get(base + predecessor));
+      double distance = distanceBlock.get(base + u);
+      for (int i = 0; i < graph.outDegree(u); i++) {
+        int v = graph.outTarget(u, i);
+        double candidate = distance + graph.outWeight(u, i);
+        double current = distanceBlock.get(base + v);
+        if (candidate < current) {
+          distanceBlock.put(base + v, candidate);
+          predecessorBlock.put(base + v, u);
+          queue.insertOrDecrease(v, candidate);
+        } else if (candidate == current && predecessorBlock.get(base + v) == u) {
+          // A child whose distance rounds to the same value still needs u's new next hop
+          queue.insertOrDecrease(v, candidate);
+        }
+      }
+    }
+  }
+
+  /**
+   * Queues v through the edge from u if that is shorter than v's distance in the row at base.
+   */
+  private static void relax(IndexedMinHeap queue, DoubleBuffer distanceBlock,
+      IntBuffer predecessorBlock, int base, int u, int v, double weight) {
+    double candidate = distanceBlock.get(base + u) + weight;
+    if (candidate < distanceBlock.get(base + v)) {
+      distanceBlock.put(base + v, candidate);
+      predecessorBlock.put(base + v, u);
+      queue.insertOrDecrease(v, candidate);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+import java.util.List;
+
+/**
+ * The answer to a most-distant-location query: the location that takes the longest to walk to
+ * from a start location, how long that walk takes, and the path it follows.
+ */
+public class DistantLocation {
+
+  /**
+   * Name of the most distant location, or an empty string if nothing is reachable.
+   */
+  private final String location;
+
+  /**
+   * Walking time in seconds along the shortest path to location.
+   */
+  private final double travelTime;
+
+  /**
+   * Locations along the shortest path, from the start location to location.
+   */
+  private final List<String> path;
+
+  /**
+   * Creates a result for a most-distant-location query.
+   *
+   * @param location name of the most distant location, or an empty string if nothing is reachable
+   * @param travelTime walking time in seconds along the shortest path to location
+   * @param path locations along the shortest path, from the start location to location
+   */
+  public DistantLocation(String location, double travelTime, List<String> path) {
+    this.location = location;
+    this.travelTime = travelTime;
+    this.path = path;
+  }
+
+  /**
+   * Returns the name of the most distant location.
+   *
+   * @return the location's name, or an empty string if no other location is reachable
+   */
+  public String getLocation() {
+    return location;
+  }
+
+  /**
+   * Returns the walking time to the most distant location.
+   *
+   * @return the walking time in seconds, or 0 if no other location is reachable
+   */
+  public double getTravelTime() {
+    return travelTime;
+  }
+
+  /**
+   * Returns the shortest path to the most distant location.
+   *
+   * @return the locations from the start location to the most distant one, inclusive, or an empty
+   *     list if no other location is reachable
+   */
+  public List<String> getPath() {
+    return path;
+  }
+}
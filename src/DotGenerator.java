@@ -0,0 +1,563 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Writes synthetic maps in the same DOT dialect as campus.dot, one "A" -> "B" [seconds=X];
+ * statement per edge with every edge of a node after its first, for load and scaling tests. Three
+ * layouts are available:
+ *
+ * GRID: buildings on a jittered, nearly square grid, each linked to its four neighbors.
+ * GEOMETRIC: buildings scattered at random, each linked to every building within walking range.
+ * CLUSTERED: a grid of campuses the size of campus.dot, each a random cluster of about 160
+ * buildings linked to their five nearest neighbors like campus.dot, plus a long path between the
+ * buildings facing each other across every pair of neighboring campuses.
+ *
+ * Walking times come from Tobler's hiking function over a smooth, random terrain, so going uphill
+ * takes longer than coming back down and the two directions of a link have different weights. In
+ * the clustered layout, as in campus.dot, a link only has a reverse when each building is among
+ * the other's nearest neighbors. Sizes are given as a number of edges, which grids and clustered
+ * maps match to within a few percent from 10^3 up to 10^7 edges and beyond. The number of
+ * buildings in a geometric map is itself random, so below about 10^4 edges its size varies by
+ * up to a third between seeds. write() returns the exact count.
+ *
+ * The output depends only on the layout, size and seed, so the same arguments always write the
+ * same file. It is written as it is generated, one building, row of cells or campus at a time, so
+ * the memory used grows at most with the width of the map and never with its size.
+ */
+public class DotGenerator {
+
+  /**
+   * The layouts a map can be generated in.
+   */
+  public enum Topology {
+    GRID, GEOMETRIC, CLUSTERED
+  }
+
+  /**
+   * Meters between neighboring buildings of the grid layout, before jitter.
+   */
+  private static final double GRID_SPACING = 150.0;
+
+  /**
+   * Greatest distance in meters a grid building is moved from its place on the grid, on each axis.
+   */
+  private static final double GRID_JITTER = 40.0;
+
+  /**
+   * Meters within which the geometric layout links two buildings.
+   */
+  private static final double GEOMETRIC_RANGE = 250.0;
+
+  /**
+   * Average number of buildings within range of a building in the geometric layout.
+   */
+  private static final double GEOMETRIC_DEGREE = 6.0;
+
+  /**
+   * Number of buildings on each campus of the clustered layout, which varies a little to get
+   * close to the number of edges asked for.
+   */
+  private static final int CAMPUS_BUILDINGS = 160;
+
+  /**
+   * Number of nearest neighbors each building of the clustered layout is linked to.
+   */
+  private static final int CAMPUS_NEIGHBORS = 5;
+
+  /**
+   * Radius in meters of the disc a campus of CAMPUS_BUILDINGS buildings is scattered over.
+   * Campuses with more or fewer buildings cover a disc with the same density of buildings.
+   */
+  private static final double CAMPUS_RADIUS = 800.0;
+
+  /**
+   * Meters between the centers of neighboring campuses, before jitter.
+   */
+  private static final double CAMPUS_SPACING = 5000.0;
+
+  /**
+   * Walking speed in meters per second on flat ground before Tobler's slope penalty, 6 km/h.
+   */
+  private static final double TOBLER_SPEED = 6000.0 / 3600.0;
+
+  /**
+   * Number of sine waves summed to make the terrain.
+   */
+  private static final int WAVES = 3;
+
+  private final Topology topology;
+
+  private final int edges;
+
+  private final long seed;
+
+  private final boolean positions;
+
+  /**
+   * Amplitude in meters, x and y frequencies in radians per meter and x and y phases of every
+   * terrain wave, five values per wave.
+   */
+  private final double[] terrain = new double[5 * WAVES];
+
+  /**
+   * Creates a generator for maps of the given layout and size.
+   *
+   * @param topology the layout of the map
+   * @param edges the number of edges the map should have, approximately
+   * @param seed the seed all of the map's randomness comes from
+   * @param positions whether to give every building a pos attribute with its coordinates in
+   * meters, which lets searches use straight-line walking times; campus.dot has none
+   * @throws IllegalArgumentException if edges is not positive
+   */
+  public DotGenerator(Topology topology, int edges, long seed, boolean positions) {
+    if (edges <= 0) {
+      throw new IllegalArgumentException("The number of edges must be positive: " + edges);
+    }
+    this.topology = topology;
+    this.edges = edges;
+    this.seed = seed;
+    this.positions = positions;
+    Random random = new Random(mix(seed, -1, -1));
+    for (int i = 0; i < terrain.length; i += 5) {
+      terrain[i] = 5.0 + random.nextDouble() * 10.0;
+      terrain[i + 1] = 2 * Math.PI / (800.0 + random.nextDouble() * 2200.0);
+      terrain[i + 2] = 2 * Math.PI / (800.0 + random.nextDouble() * 2200.0);
+      terrain[i + 3] = random.nextDouble() * 2 * Math.PI;
+      terrain[i + 4] = random.nextDouble() * 2 * Math.PI;
+    }
+  }
+
+  /**
+   * Writes the map to a file, replacing anything already there.
+   *
+   * @param file the file to write
+   * @return the number of edges written
+   * @throws IOException if the file cannot be written
+   */
+  public long write(File file) throws IOException {
+    try (Writer out = Files.newBufferedWriter(file.toPath())) {
+      return write(out);
+    }
+  }
+
+  /**
+   * Writes the map to out, which is neither buffered nor closed here.
+   *
+   * @param out where to write the map
+   * @return the number of edges written
+   * @throws IOException if out throws
+   */
+  public long write(Writer out) throws IOException {
+    Output output = new Output(out);
+    out.write("digraph campus {\n");
+    switch (topology) {
+      case GRID:
+        writeGrid(output);
+        break;
+      case GEOMETRIC:
+        writeGeometric(output);
+        break;
+      default:
+        writeClustered(output);
+        break;
+    }
+    out.write("}\n");
+    return output.written;
+  }
+
+  /**
+   * Writes a grid with about as many edges as asked for. A grid w buildings wide and h high has
+   * 4wh - 2w - 2h edges, so the width is that of a square grid rounded down and the height is
+   * the smallest that reaches the number of edges.
+   */
+  private void writeGrid(Output out) throws IOException {
+    int width = Math.max(2, (int) ((1 + Math.sqrt(1.0 + edges)) / 2));
+    int height = Math.max(2, (int) Math.ceil((edges + 2.0 * width) / (4.0 * width - 2)));
+    int[][] steps = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    for (int x = 0; x < width; x++) {
+      for (int y = 0; y < height; y++) {
+        String name = "Building " + x + "-" + y;
+        double bx = gridX(x, y);
+        double by = gridY(x, y);
+        double bz = elevation(bx, by);
+        out.node(name, bx, by);
+        for (int[] step : steps) {
+          int nx = x + step[0];
+          int ny = y + step[1];
+          if (nx >= 0 && nx < width && ny >= 0 && ny < height) {
+            double tx = gridX(nx, ny);
+            double ty = gridY(nx, ny);
+            out.edge(name, "Building " + nx + "-" + ny,
+                seconds(bx, by, bz, tx, ty, elevation(tx, ty)));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the x coordinate of the grid building at (x, y).
+   */
+  private double gridX(int x, int y) {
+    return x * GRID_SPACING + (unit(mix(seed, x, y)) * 2 - 1) * GRID_JITTER;
+  }
+
+  /**
+   * Returns the y coordinate of the grid building at (x, y).
+   */
+  private double gridY(int x, int y) {
+    return y * GRID_SPACING + (unit(mix(~seed, x, y)) * 2 - 1) * GRID_JITTER;
+  }
+
+  /**
+   * Writes a random geometric graph with about as many edges as asked for. The area is split into
+   * square cells as wide as the linking range, and each cell's buildings are drawn from a random
+   * generator seeded by the cell's position, so any cell can be drawn again without the rest.
+   * Links from a building can only reach the 3 by 3 cells around it, so only three rows of cells
+   * are kept while the rows are written one after another.
+   */
+  private void writeGeometric(Output out) throws IOException {
+    double perCell = GEOMETRIC_DEGREE / Math.PI;
+    int columns = Math.max(1, (int) Math.sqrt(edges / (perCell * GEOMETRIC_DEGREE)));
+    int rows = 1;
+    while (geometricEdges(columns, rows + 1) <= edges
+        || edges - geometricEdges(columns, rows) > geometricEdges(columns, rows + 1) - edges) {
+      rows++;
+    }
+    double range2 = GEOMETRIC_RANGE * GEOMETRIC_RANGE;
+
+    double[][] above = null;
+    double[][] row = geometricRow(0, columns, perCell);
+    for (int cy = 0; cy < rows; cy++) {
+      double[][] below = cy + 1 < rows ? geometricRow(cy + 1, columns, perCell) : null;
+      for (int cx = 0; cx < columns; cx++) {
+        double[] cell = row[cx];
+        for (int i = 0; i < cell.length; i += 3) {
+          String name = "Building " + cx + "-" + cy + "-" + i / 3;
+          double bx = cell[i];
+          double by = cell[i + 1];
+          out.node(name, bx, by);
+          for (int dy = -1; dy <= 1; dy++) {
+            double[][] other = dy < 0 ? above : dy == 0 ? row : below;
+            if (other == null) {
+              continue;
+            }
+            for (int nx = Math.max(0, cx - 1); nx <= Math.min(columns - 1, cx + 1); nx++) {
+              double[] neighbors = other[nx];
+              for (int j = 0; j < neighbors.length; j += 3) {
+                double ddx = neighbors[j] - bx;
+                double ddy = neighbors[j + 1] - by;
+                if ((dy != 0 || nx != cx || j != i) && ddx * ddx + ddy * ddy <= range2) {
+                  out.edge(name, "Building " + nx + "-" + (cy + dy) + "-" + j / 3,
+                      seconds(bx, by, cell[i + 2], neighbors[j], neighbors[j + 1],
+                          neighbors[j + 2]));
+                }
+              }
+            }
+          }
+        }
+      }
+      above = row;
+      row = below;
+    }
+  }
+
+  /**
+   * Returns the expected number of edges of a geometric layout columns by rows cells in size.
+   * Buildings near the border have fewer neighbors, as part of the disc within range of them lies
+   * outside; for an a by b rectangle, in units of the range, the part inside averages
+   * 1 - 4 / (3 pi) (1 / a + 1 / b) + 1 / (2 pi a b).
+   */
+  private static double geometricEdges(int columns, int rows) {
+    double inside = 1 - 4 / (3 * Math.PI) * (1.0 / columns + 1.0 / rows)
+        + 1 / (2 * Math.PI * columns * rows);
+    return columns * rows * GEOMETRIC_DEGREE / Math.PI * GEOMETRIC_DEGREE * inside;
+  }
+
+  /**
+   * Draws the buildings of every cell in row cy of the geometric layout, as the x, y and
+   * elevation of each building in turn.
+   */
+  private double[][] geometricRow(int cy, int columns, double perCell) {
+    double[][] row = new double[columns][];
+    for (int cx = 0; cx < columns; cx++) {
+      Random random = new Random(mix(seed, cx, cy));
+      int count = poisson(random, perCell);
+      double[] cell = new double[3 * count];
+      for (int i = 0; i < cell.length; i += 3) {
+        cell[i] = (cx + random.nextDouble()) * GEOMETRIC_RANGE;
+        cell[i + 1] = (cy + random.nextDouble()) * GEOMETRIC_RANGE;
+        cell[i + 2] = elevation(cell[i], cell[i + 1]);
+      }
+      row[cx] = cell;
+    }
+    return row;
+  }
+
+  /**
+   * Writes campuses until there are about as many edges as asked for. Each campus is drawn from
+   * a random generator seeded by its number, so its neighbors can be drawn again to find the
+   * buildings the paths between campuses end at.
+   */
+  private void writeClustered(Output out) throws IOException {
+    int campuses = Math.max(1, (int) Math.round((double) edges / CAMPUS_BUILDINGS
+        / CAMPUS_NEIGHBORS));
+    int buildings = Math.max(CAMPUS_NEIGHBORS + 1,
+        (int) Math.round((double) edges / campuses / CAMPUS_NEIGHBORS));
+    int columns = (int) Math.ceil(Math.sqrt(campuses));
+
+    int[] nearest = new int[CAMPUS_NEIGHBORS];
+    double[] nearestDistance = new double[CAMPUS_NEIGHBORS];
+    for (int c = 0; c < campuses; c++) {
+      double[] campus = campus(c, columns, buildings);
+      for (int i = 0; i < campus.length; i += 3) {
+        String name = "Campus " + c + " Building " + i / 3;
+        double bx = campus[i];
+        double by = campus[i + 1];
+        out.node(name, bx, by);
+
+        // Keep the nearest neighbors found so far sorted by distance
+        int found = 0;
+        for (int j = 0; j < campus.length; j += 3) {
+          if (j == i) {
+            continue;
+          }
+          double ddx = campus[j] - bx;
+          double ddy = campus[j + 1] - by;
+          double distance = ddx * ddx + ddy * ddy;
+          if (found < CAMPUS_NEIGHBORS || distance < nearestDistance[found - 1]) {
+            int k = found < CAMPUS_NEIGHBORS ? found++ : found - 1;
+            while (k > 0 && nearestDistance[k - 1] > distance) {
+              nearest[k] = nearest[k - 1];
+              nearestDistance[k] = nearestDistance[k - 1];
+              k--;
+            }
+            nearest[k] = j;
+            nearestDistance[k] = distance;
+          }
+        }
+        for (int k = 0; k < found; k++) {
+          int j = nearest[k];
+          out.edge(name, "Campus " + c + " Building " + j / 3,
+              seconds(bx, by, campus[i + 2], campus[j], campus[j + 1], campus[j + 2]));
+        }
+      }
+
+      int column = c % columns;
+      int[] neighbors = {column > 0 ? c - 1 : -1, column < columns - 1 ? c + 1 : -1,
+          c - columns, c + columns};
+      for (int n : neighbors) {
+        if (n < 0 || n >= campuses) {
+          continue;
+        }
+        double[] other = campus(n, columns, buildings);
+        int from = closest(campus, campusX(n, columns), campusY(n, columns));
+        int to = closest(other, campusX(c, columns), campusY(c, columns));
+        out.edge("Campus " + c + " Building " + from / 3, "Campus " + n + " Building " + to / 3,
+            seconds(campus[from], campus[from + 1], campus[from + 2], other[to], other[to + 1],
+                other[to + 2]));
+      }
+    }
+  }
+
+  /**
+   * Draws the buildings of campus c, as the x, y and elevation of each building in turn.
+   */
+  private double[] campus(int c, int columns, int buildings) {
+    Random random = new Random(mix(seed, c, -2));
+    double cx = campusX(c, columns);
+    double cy = campusY(c, columns);
+    double radius = CAMPUS_RADIUS * Math.sqrt((double) buildings / CAMPUS_BUILDINGS);
+    double[] campus = new double[3 * buildings];
+    for (int i = 0; i < campus.length; i += 3) {
+      double r = radius * Math.sqrt(random.nextDouble());
+      double angle = random.nextDouble() * 2 * Math.PI;
+      campus[i] = cx + r * Math.cos(angle);
+      campus[i + 1] = cy + r * Math.sin(angle);
+      campus[i + 2] = elevation(campus[i], campus[i + 1]);
+    }
+    return campus;
+  }
+
+  /**
+   * Returns the x coordinate of the center of campus c.
+   */
+  private double campusX(int c, int columns) {
+    return (c % columns) * CAMPUS_SPACING + unit(mix(seed, c, -3)) * CAMPUS_RADIUS;
+  }
+
+  /**
+   * Returns the y coordinate of the center of campus c.
+   */
+  private double campusY(int c, int columns) {
+    return (c / columns) * CAMPUS_SPACING + unit(mix(seed, c, -4)) * CAMPUS_RADIUS;
+  }
+
+  /**
+   * Returns the offset in campus of the building closest to (x, y).
+   */
+  private static int closest(double[] campus, double x, double y) {
+    int best = 0;
+    double bestDistance = Double.POSITIVE_INFINITY;
+    for (int i = 0; i < campus.length; i += 3) {
+      double dx = campus[i] - x;
+      double dy = campus[i + 1] - y;
+      if (dx * dx + dy * dy < bestDistance) {
+        bestDistance = dx * dx + dy * dy;
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Returns the height in meters of the terrain at (x, y).
+   */
+  private double elevation(double x, double y) {
+    double z = 0.0;
+    for (int i = 0; i < terrain.length; i += 5) {
+      z += terrain[i] * Math.sin(terrain[i + 1] * x + terrain[i + 3])
+          * Math.sin(terrain[i + 2] * y + terrain[i + 4]);
+    }
+    return z;
+  }
+
+  /**
+   * Returns the seconds it takes to walk straight from one point to another by Tobler's hiking
+   * function, which is fastest going slightly downhill and slows exponentially with the grade.
+   */
+  private static double seconds(double x1, double y1, double z1, double x2, double y2,
+      double z2) {
+    double run = Math.hypot(x2 - x1, y2 - y1);
+    if (run == 0.0) {
+      return 0.0;
+    }
+    double grade = (z2 - z1) / run;
+    return run / (TOBLER_SPEED * Math.exp(-3.5 * Math.abs(grade + 0.05)));
+  }
+
+  /**
+   * Draws a Poisson distributed count with the given mean, by Knuth's method.
+   */
+  private static int poisson(Random random, double mean) {
+    double limit = Math.exp(-mean);
+    int count = 0;
+    double product = random.nextDouble();
+    while (product > limit) {
+      count++;
+      product *= random.nextDouble();
+    }
+    return count;
+  }
+
+  /**
+   * Mixes a seed and two coordinates into a well-spread 64-bit value (MurmurHash3's finalizer).
+   */
+  private static long mix(long seed, long a, long b) {
+    long h = seed ^ (a * 0x9E3779B97F4A7C15L) ^ (b * 0xC2B2AE3D27D4EB4FL);
+    h ^= h >>> 33;
+    h *= 0xFF51AFD7ED558CCDL;
+    h ^= h >>> 33;
+    h *= 0xC4CEB9FE1A85EC53L;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /**
+   * Returns a double in [0, 1) from the top 53 bits of a mixed value.
+   */
+  private static double unit(long mixed) {
+    return (mixed >>> 11) * 0x1.0p-53;
+  }
+
+  /**
+   * Formats statements into a reused buffer and counts the edges written.
+   */
+  private class Output {
+
+    private final Writer out;
+
+    private final StringBuilder line = new StringBuilder(128);
+
+    private char[] chars = new char[128];
+
+    private long written;
+
+    private Output(Writer out) {
+      this.out = out;
+    }
+
+    /**
+     * Writes a node statement with the building's coordinates, if positions were asked for.
+     */
+    private void node(String name, double x, double y) throws IOException {
+      if (positions) {
+        line.append("\t\"").append(name).append("\" [pos=\"");
+        tenths(x);
+        line.append(',');
+        tenths(y);
+        line.append("\"];\n");
+        flush();
+      }
+    }
+
+    /**
+     * Writes an edge statement, with the walking time rounded to a tenth of a second.
+     */
+    private void edge(String from, String to, double seconds) throws IOException {
+      line.append("\t\"").append(from).append("\" -> \"").append(to).append("\" [seconds=");
+      tenths(seconds);
+      line.append("];\n");
+      flush();
+      written++;
+    }
+
+    /**
+     * Appends value rounded to one decimal place, without going through Double.toString.
+     */
+    private void tenths(double value) {
+      long tenths = Math.round(value * 10);
+      if (tenths < 0) {
+        line.append('-');
+        tenths = -tenths;
+      }
+      line.append(tenths / 10).append('.').append((char) ('0' + tenths % 10));
+    }
+
+    /**
+     * Writes the buffered statement and empties the buffer.
+     */
+    private void flush() throws IOException {
+      int length = line.length();
+      if (length > chars.length) {
+        chars = new char[Math.max(length, 2 * chars.length)];
+      }
+      line.getChars(0, length, chars, 0);
+      out.write(chars, 0, length);
+      line.setLength(0);
+    }
+  }
+
+  /**
+   * Writes a map to a file: java DotGenerator grid|geometric|clustered edges seed file [pos]
+   *
+   * @param args the layout, the number of edges, the seed, the file to write and, optionally,
+   * "pos" to give every building coordinates
+   * @throws IOException if the file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 4 || args.length > 5 || (args.length == 5 && !args[4].equals("pos"))) {
+      System.err.println("Usage: java DotGenerator grid|geometric|clustered edges seed file [pos]");
+      System.exit(1);
+    }
+    DotGenerator generator = new DotGenerator(Topology.valueOf(args[0].toUpperCase()),
+        Integer.parseInt(args[1]), Long.parseLong(args[2]), args.length == 5);
+    long start = System.nanoTime();
+    long written = generator.write(new File(args[3]));
+    System.out.printf("Wrote %d edges to %s in %.1f s%n", written, args[3],
+        (System.nanoTime() - start) / 1e9);
+  }
+}
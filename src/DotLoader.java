@@ -0,0 +1,341 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads map files: DOT files whose edges carry walking times in a seconds attribute and whose
+ * nodes may carry coordinates in a pos attribute. What is read goes to a Sink, either straight
+ * from one streaming DotParser or from several parsers running in parallel over a memory-mapped
+ * file.
+ *
+ * The parallel loader splits the file at newlines into chunks and parses each chunk on its own
+ * thread into buffers of names, edges and positions, with names numbered within the chunk. The
+ * chunks are then replayed to the sink in file order, giving each name the id the sequential
+ * loader would have given it, so the sink sees the same nodes, edges and positions in the same
+ * order either way. If a chunk boundary splits a statement, which only happens in files that put
+ * statements across several lines, the file is loaded sequentially instead.
+ */
+public class DotLoader {
+
+  /**
+   * Receives the contents of a map file.
+   */
+  public interface Sink {
+
+    /**
+     * Called the first time a node name appears, before any edge or position of that node.
+     *
+     * @param id the node's id, the number of distinct names seen before it
+     * @param name the node's name
+     * @throws IOException to abort loading
+     */
+    public void node(int id, String name) throws IOException;
+
+    /**
+     * Called for every node statement with a pos attribute.
+     *
+     * @param id the node's id
+     * @param pos the pos attribute's value
+     * @throws IOException to abort loading, with the statement's line added to the message
+     */
+    public void position(int id, String pos) throws IOException;
+
+    /**
+     * Called for every edge, in file order.
+     *
+     * @param from id of the edge's tail
+     * @param to id of the edge's head
+     * @param seconds the edge's seconds attribute, or NaN if it has none
+     * @throws IOException to abort loading
+     */
+    public void edge(int from, int to, double seconds) throws IOException;
+  }
+
+  /**
+   * Smallest file, in bytes, that load() splits between threads. Below this, starting the tasks
+   * and merging their buffers costs more than parsing in parallel saves.
+   */
+  public static final long PARALLEL_THRESHOLD = 8L << 20;
+
+  /**
+   * Number of chunks per pool thread, so threads that finish early can take on more work.
+   */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  /**
+   * Smallest chunk, in bytes, the file is split into.
+   */
+  private static final long MIN_CHUNK_BYTES = 1L << 20;
+
+  /**
+   * Largest chunk, in bytes, which keeps each chunk's buffers and mapping moderately sized.
+   */
+  private static final long MAX_CHUNK_BYTES = 64L << 20;
+
+  /**
+   * Loads file into sink, in parallel on the common ForkJoinPool if the file is at least
+   * PARALLEL_THRESHOLD bytes long.
+   *
+   * @param file the map file to load
+   * @param sink the receiver of the file's contents
+   * @throws IOException if the file cannot be read, is not valid DOT or the sink aborts
+   */
+  public static void load(File file, Sink sink) throws IOException {
+    if (file.length() >= PARALLEL_THRESHOLD) {
+      loadParallel(file, sink, ForkJoinPool.commonPool());
+    } else {
+      loadSequential(file, sink);
+    }
+  }
+
+  /**
+   * Loads file into sink with a single streaming parser.
+   *
+   * @param file the map file to load
+   * @param sink the receiver of the file's contents
+   * @throws IOException if the file cannot be read, is not valid DOT or the sink aborts
+   */
+  public static void loadSequential(File file, Sink sink) throws IOException {
+    try (Reader reader = new InputStreamReader(new FileInputStream(file),
+        StandardCharsets.UTF_8)) {
+      new DotParser(reader, new DotParser.Handler() {
+        public void node(int id, String name) throws IOException {
+          sink.node(id, name);
+        }
+
+        public void nodeStatement(int id, DotParser.Attributes attributes) throws IOException {
+          String pos = attributes.get("pos");
+          if (pos != null) {
+            sink.position(id, pos);
+          }
+        }
+
+        public void edge(int from, int to, DotParser.Attributes attributes) throws IOException {
+          sink.edge(from, to, attributes.getNumber("seconds", Double.NaN));
+        }
+      }).parse();
+    }
+  }
+
+  /**
+   * Loads file into sink by parsing newline-separated chunks of it on pool. The sink is called
+   * from the calling thread only, after every chunk has been parsed, with the same ids, edges and
+   * positions in the same order as loadSequential() would. Only the new names of each chunk are
+   * reported together, before the chunk's edges.
+   *
+   * @param file the map file to load
+   * @param sink the receiver of the file's contents
+   * @param pool the pool to parse chunks on
+   * @throws IOException if the file cannot be read, is not valid DOT or the sink aborts
+   */
+  public static void loadParallel(File file, Sink sink, ForkJoinPool pool) throws IOException {
+    List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+    // Mappings stay valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      long count = Math.min(pool.getParallelism() * (long) CHUNKS_PER_THREAD,
+          size / MIN_CHUNK_BYTES);
+      count = Math.max(Math.max(1, count), (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+      long start = 0;
+      for (long i = 1; i <= count && start < size; i++) {
+        long end = i == count ? size : lineEnd(channel, Math.max(start, size * i / count));
+        if (end > start) {
+          MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+          tasks.add(pool.submit(() -> Chunk.parse(bytes)));
+        }
+        start = end;
+      }
+    }
+
+    Chunk[] chunks = new Chunk[tasks.size()];
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i] = tasks.get(i).join();
+    }
+    for (Chunk chunk : chunks) {
+      if (chunk.failed) {
+        // A statement spans a chunk boundary, or the file has an error the sequential parser
+        // reports with its proper line number
+        loadSequential(file, sink);
+        return;
+      }
+    }
+
+    SymbolTable symbols = new SymbolTable();
+    // Number of lines before the chunk, to give positions the sink rejects their line in the file
+    int lineBase = 0;
+    for (Chunk chunk : chunks) {
+      int[] global = new int[chunk.nameCount];
+      for (int local = 0; local < chunk.nameCount; local++) {
+        int id = symbols.idOf(chunk.names[local]);
+        if (id < 0) {
+          id = symbols.add(chunk.names[local]);
+          sink.node(id, chunk.names[local]);
+        }
+        global[local] = id;
+      }
+      int p = 0;
+      for (int e = 0; e < chunk.edgeCount; e++) {
+        for (; p < chunk.positionCount && chunk.positionEdges[p] == e; p++) {
+          position(sink, chunk, p, global, lineBase);
+        }
+        sink.edge(global[chunk.from[e]], global[chunk.to[e]], chunk.seconds[e]);
+      }
+      for (; p < chunk.positionCount; p++) {
+        position(sink, chunk, p, global, lineBase);
+      }
+      lineBase += chunk.lines;
+    }
+  }
+
+  /**
+   * Hands the chunk's p-th position to sink, adding the position's line in the file to the
+   * message if the sink rejects it.
+   */
+  private static void position(Sink sink, Chunk chunk, int p, int[] global, int lineBase)
+      throws IOException {
+    try {
+      sink.position(global[chunk.positionNodes[p]], chunk.positions[p]);
+    } catch (IOException | NumberFormatException e) {
+      throw new IOException("line " + (lineBase + chunk.positionLines[p]) + ": " + e.getMessage(),
+          e);
+    }
+  }
+
+  /**
+   * Returns the offset just past the first newline at or after from, or the file's size if there
+   * is none.
+   */
+  private static long lineEnd(FileChannel channel, long from) throws IOException {
+    ByteBuffer window = ByteBuffer.allocate(8192);
+    long offset = from;
+    while (true) {
+      window.clear();
+      int read = channel.read(window, offset);
+      if (read < 0) {
+        return channel.size();
+      }
+      for (int i = 0; i < read; i++) {
+        // UTF-8 never uses this byte inside a multi-byte character
+        if (window.get(i) == '\n') {
+          return offset + i + 1;
+        }
+      }
+      offset += read;
+    }
+  }
+
+  /**
+   * What one chunk of the file contains, in the order it appears. Nodes are numbered by first
+   * appearance within the chunk.
+   */
+  private static class Chunk implements DotParser.Handler {
+
+    /**
+     * Name of every chunk-local node id.
+     */
+    private String[] names;
+
+    private int nameCount;
+
+    /**
+     * Tail, head and seconds of every edge.
+     */
+    private int[] from = new int[1024];
+    private int[] to = new int[1024];
+    private double[] seconds = new double[1024];
+
+    private int edgeCount;
+
+    /**
+     * Node, value, number of edges before and line within the chunk of every pos attribute.
+     */
+    private int[] positionNodes = new int[16];
+    private String[] positions = new String[16];
+    private int[] positionEdges = new int[16];
+    private int[] positionLines = new int[16];
+
+    /**
+     * Number of newlines in the chunk.
+     */
+    private int lines;
+
+    /**
+     * The parser reading the chunk, for the line of each pos attribute.
+     */
+    private DotParser parser;
+
+    private int positionCount;
+
+    /**
+     * Whether the chunk could not be parsed on its own.
+     */
+    private boolean failed;
+
+    /**
+     * Parses the UTF-8 DOT lines in bytes.
+     */
+    private static Chunk parse(ByteBuffer bytes) {
+      Chunk chunk = new Chunk();
+      DotParser parser = new DotParser(bytes, chunk);
+      chunk.parser = parser;
+      try {
+        parser.parseLines();
+      } catch (IOException | RuntimeException e) {
+        chunk.failed = true;
+        return chunk;
+      }
+      chunk.lines = parser.getLine() - 1;
+      chunk.parser = null;
+      chunk.nameCount = parser.getNodeCount();
+      chunk.names = new String[chunk.nameCount];
+      for (int id = 0; id < chunk.nameCount; id++) {
+        chunk.names[id] = parser.getName(id);
+      }
+      return chunk;
+    }
+
+    public void node(int id, String name) {
+      // Names are copied from the parser once the chunk is done
+    }
+
+    public void nodeStatement(int id, DotParser.Attributes attributes) {
+      String pos = attributes.get("pos");
+      if (pos == null) {
+        return;
+      }
+      if (positionCount == positions.length) {
+        positionNodes = Arrays.copyOf(positionNodes, positionCount * 2);
+        positions = Arrays.copyOf(positions, positionCount * 2);
+        positionEdges = Arrays.copyOf(positionEdges, positionCount * 2);
+        positionLines = Arrays.copyOf(positionLines, positionCount * 2);
+      }
+      positionLines[positionCount] = parser.getLine();
+      positionNodes[positionCount] = id;
+      positions[positionCount] = pos;
+      positionEdges[positionCount++] = edgeCount;
+    }
+
+    public void edge(int tail, int head, DotParser.Attributes attributes) {
+      if (edgeCount == from.length) {
+        from = Arrays.copyOf(from, edgeCount * 2);
+        to = Arrays.copyOf(to, edgeCount * 2);
+        seconds = Arrays.copyOf(seconds, edgeCount * 2);
+      }
+      from[edgeCount] = tail;
+      to[edgeCount] = head;
+      seconds[edgeCount++] = attributes.getNumber("seconds", Double.NaN);
+    }
+  }
+}
@@ -0,0 +1,855 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streaming tokenizer and parser for the subset of the Graphviz DOT language our map files use.
+ * The input is read from a Reader or decoded from UTF-8 bytes, such as a memory-mapped file,
+ * through a fixed-size char buffer in a single pass, so memory use does not depend on the file's
+ * size. It understands:
+ *
+ * - quoted IDs with backslash escapes, and unquoted IDs and numerals
+ * - node statements ("a" [pos="1,2"];) and edge chains ("a" -> "b" -> "c" [seconds=5];)
+ * - attribute lists, with attributes separated by commas or semicolons
+ * - graph, node and edge default statements and graph attributes (skipped)
+ * - subgraph braces (flattened into the enclosing graph)
+ * - comments in C and C++ style and lines starting with #
+ *
+ * Node names are interned through a hash index over their characters: each distinct name becomes
+ * one String and a dense id in order of first appearance, and later occurrences allocate nothing.
+ * The parser reports what it reads to a Handler, by id. Numeric attribute values are parsed
+ * straight from their characters with FastDoubleParser, so a typical edge statement does not
+ * allocate at all.
+ */
+public class DotParser {
+
+  /**
+   * Receives the nodes and statements of a DOT file as they are parsed.
+   */
+  public interface Handler {
+
+    /**
+     * Called the first time a node name appears, before any statement that mentions it.
+     *
+     * @param id the node's id, the number of distinct names seen before it
+     * @param name the node's name
+     * @throws IOException to abort parsing
+     */
+    public void node(int id, String name) throws IOException;
+
+    /**
+     * Called for every node statement.
+     *
+     * @param id the node's id
+     * @param attributes the statement's attributes, only valid during the call
+     * @throws IOException to abort parsing
+     */
+    public void nodeStatement(int id, Attributes attributes) throws IOException;
+
+    /**
+     * Called for every edge of an edge statement, in order.
+     *
+     * @param from id of the edge's tail
+     * @param to id of the edge's head
+     * @param attributes the statement's attributes, only valid during the call
+     * @throws IOException to abort parsing
+     */
+    public void edge(int from, int to, Attributes attributes) throws IOException;
+  }
+
+  /**
+   * The attribute list of the statement being reported. Keys are interned, so they can be compared
+   * with ==; values are kept as characters and only turned into Strings on request.
+   */
+  public static class Attributes {
+
+    /**
+     * Key of every attribute.
+     */
+    private String[] keys = new String[4];
+
+    /**
+     * Characters of all values, back to back.
+     */
+    private char[] chars = new char[64];
+
+    /**
+     * Start of every value in chars.
+     */
+    private int[] starts = new int[5];
+
+    /**
+     * Number of attributes.
+     */
+    private int size;
+
+    /**
+     * Returns the number of attributes.
+     *
+     * @return the attribute count
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Returns the key of the i-th attribute.
+     *
+     * @param i an index in [0, size())
+     * @return the attribute's key
+     */
+    public String getKey(int i) {
+      return keys[i];
+    }
+
+    /**
+     * Returns the value of the i-th attribute.
+     *
+     * @param i an index in [0, size())
+     * @return the attribute's value
+     */
+    public String getValue(int i) {
+      return new String(chars, starts[i], starts[i + 1] - starts[i]);
+    }
+
+    /**
+     * Returns the index of the last attribute with the given key, since later ones override
+     * earlier ones in DOT.
+     *
+     * @param key the key to look for
+     * @return the attribute's index, or -1 if there is none
+     */
+    public int indexOf(String key) {
+      for (int i = size - 1; i >= 0; i--) {
+        if (keys[i].equals(key)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Returns the value of the attribute with the given key.
+     *
+     * @param key the key to look for
+     * @return the value, or null if there is no such attribute
+     */
+    public String get(String key) {
+      int i = indexOf(key);
+      return i < 0 ? null : getValue(i);
+    }
+
+    /**
+     * Parses the value of the attribute with the given key as a number.
+     *
+     * @param key the key to look for
+     * @param missing the value to return if there is no such attribute
+     * @return the attribute's numeric value, or missing
+     * @throws NumberFormatException if the value is not a number
+     */
+    public double getNumber(String key, double missing) {
+      int i = indexOf(key);
+      return i < 0 ? missing : FastDoubleParser.parse(chars, starts[i], starts[i + 1]);
+    }
+
+    /**
+     * Removes every attribute.
+     */
+    private void clear() {
+      size = 0;
+    }
+
+    /**
+     * Appends an attribute whose value is the first length characters of value.
+     */
+    private void add(String key, char[] value, int length) {
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        starts = Arrays.copyOf(starts, size * 2 + 1);
+      }
+      int start = starts[size];
+      if (start + length > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, start + length));
+      }
+      System.arraycopy(value, 0, chars, start, length);
+      keys[size++] = key;
+      starts[size] = start + length;
+    }
+  }
+
+  /**
+   * Kinds of token.
+   */
+  private static final int END = 0;
+  private static final int ID = 1;
+  private static final int ARROW = 2;
+  private static final int PUNCTUATION = 3;
+
+  /**
+   * Source of the DOT text, or null if it is decoded from bytes.
+   */
+  private final Reader reader;
+
+  /**
+   * UTF-8 source of the DOT text, or null if it is read from reader.
+   */
+  private final ByteBuffer bytes;
+
+  /**
+   * Decoder for bytes, replacing malformed input like an InputStreamReader does.
+   */
+  private final CharsetDecoder decoder;
+
+  /**
+   * Receiver of parsed statements.
+   */
+  private final Handler handler;
+
+  /**
+   * Input buffer; chars [position, limit) have not been scanned yet.
+   */
+  private final char[] buffer;
+
+  private int position;
+
+  private int limit;
+
+  /**
+   * Current line number, for error messages.
+   */
+  private int line = 1;
+
+  /**
+   * Kind of the current token.
+   */
+  private int kind;
+
+  /**
+   * The current punctuation character, if kind is PUNCTUATION.
+   */
+  private char punctuation;
+
+  /**
+   * Characters of the current ID token, without quotes or escapes.
+   */
+  private char[] token = new char[64];
+
+  private int tokenLength;
+
+  /**
+   * Whether the current ID token was quoted, in which case it is never a keyword.
+   */
+  private boolean quotedToken;
+
+  /**
+   * Whether nothing but whitespace has been read since the last newline, which is where # starts
+   * a comment.
+   */
+  private boolean lineStart = true;
+
+  /**
+   * Node name of every id.
+   */
+  private String[] names = new String[64];
+
+  /**
+   * Number of distinct node names seen.
+   */
+  private int nameCount;
+
+  /**
+   * Open addressing table of names. Each slot holds a name's hash in the high 32 bits and its id
+   * plus one in the low 32 bits, so probing rarely has to look at the name itself; 0 is empty.
+   */
+  private long[] nameSlots = new long[128];
+
+  /**
+   * Attribute keys seen so far, interned so repeated keys allocate nothing.
+   */
+  private String[] keys = new String[8];
+
+  private int keyCount;
+
+  /**
+   * Attributes of the statement being parsed.
+   */
+  private final Attributes attributes = new Attributes();
+
+  /**
+   * Ids of the nodes in the edge chain being parsed.
+   */
+  private int[] chain = new int[4];
+
+  /**
+   * Creates a parser that reads from reader in chunks of bufferSize characters.
+   *
+   * @param reader the DOT text to parse
+   * @param handler the receiver of parsed nodes and statements
+   * @param bufferSize size of the read buffer in characters
+   */
+  public DotParser(Reader reader, Handler handler, int bufferSize) {
+    this(reader, null, handler, bufferSize);
+  }
+
+  /**
+   * Creates a parser with a 64 KiB read buffer.
+   *
+   * @param reader the DOT text to parse
+   * @param handler the receiver of parsed nodes and statements
+   */
+  public DotParser(Reader reader, Handler handler) {
+    this(reader, handler, 1 << 16);
+  }
+
+  /**
+   * Creates a parser that decodes the remaining UTF-8 bytes of utf8, with a 64 KiB char buffer.
+   *
+   * @param utf8 the DOT text to parse, consumed by parsing
+   * @param handler the receiver of parsed nodes and statements
+   */
+  public DotParser(ByteBuffer utf8, Handler handler) {
+    this(null, utf8, handler, 1 << 16);
+  }
+
+  /**
+   * Creates a parser for whichever of reader and bytes is not null.
+   */
+  private DotParser(Reader reader, ByteBuffer bytes, Handler handler, int bufferSize) {
+    this.reader = reader;
+    this.bytes = bytes;
+    this.decoder = bytes == null ? null : StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.handler = handler;
+    this.buffer = new char[Math.max(16, bufferSize)];
+  }
+
+  /**
+   * Parses the whole input, reporting to the handler as it goes. The reader is not closed.
+   *
+   * @throws IOException if reading fails, the handler aborts or the input is not valid DOT
+   */
+  public void parse() throws IOException {
+    next();
+    if (!header()) {
+      throw error("expected digraph");
+    }
+    expect('{');
+    statements(1);
+  }
+
+  /**
+   * Parses input that is a run of whole lines cut out of a DOT file, such as one chunk of a file
+   * split at newlines. Statements are parsed as in parse(); a graph header and braces may appear
+   * anywhere and are skipped, since the chunk may hold the start or the end of the graph.
+   *
+   * A chunk boundary that falls inside a statement, quoted ID or comment makes one of the two
+   * chunks a syntax error: either the first ends in the middle of something, or the second
+   * starts with something no statement starts with, such as -> or [. The first chunk may still
+   * parse, so the whole file has to be treated as failed if any chunk fails.
+   *
+   * @throws IOException if reading fails, the handler aborts or the input is not valid DOT
+   */
+  public void parseLines() throws IOException {
+    next();
+    statements(0);
+  }
+
+  /**
+   * Returns the line the parser has read up to, counting from 1.
+   *
+   * @return the current line number
+   */
+  public int getLine() {
+    return line;
+  }
+
+  /**
+   * Returns the number of distinct node names read so far.
+   *
+   * @return the node count
+   */
+  public int getNodeCount() {
+    return nameCount;
+  }
+
+  /**
+   * Returns the name of a node.
+   *
+   * @param id a node id reported to the handler
+   * @return the node's name
+   */
+  public String getName(int id) {
+    return names[id];
+  }
+
+  /**
+   * Skips a graph header, [strict] (graph | digraph) [ID], if the current token starts one. A
+   * graph keyword followed by [ starts a default attribute statement instead.
+   *
+   * @return whether a header was skipped
+   */
+  private boolean header() throws IOException {
+    boolean strict = kind == ID && matches("strict");
+    if (strict) {
+      next();
+    }
+    if (kind != ID || !(matches("digraph") || matches("graph") && (strict || skipSpace() != '['))) {
+      if (strict) {
+        throw error("expected digraph");
+      }
+      return false;
+    }
+    next();
+    if (kind == END) {
+      // Whatever follows, possibly the graph's name, is cut off
+      throw error("expected {");
+    }
+    if (kind == ID) {
+      next();
+    }
+    return true;
+  }
+
+  /**
+   * Parses statements until the braces close at depth 0 or, if depth starts at 0, until the end
+   * of the input, where headers are skipped and unbalanced braces are ignored.
+   *
+   * @param depth number of braces open before the first statement
+   */
+  private void statements(int depth) throws IOException {
+    boolean lines = depth == 0;
+    while (lines ? kind != END : depth > 0) {
+      if (kind == END) {
+        throw error("missing }");
+      }
+      if (kind == PUNCTUATION) {
+        if (punctuation == '}') {
+          depth--;
+        } else if (punctuation == '{') {
+          depth++;
+        } else if (punctuation != ';') {
+          throw error("unexpected " + punctuation);
+        }
+        next();
+      } else if (kind == ID) {
+        if (!(lines && header())) {
+          depth += statement();
+        }
+      } else {
+        throw error("unexpected ->");
+      }
+    }
+  }
+
+  /**
+   * Parses one statement starting at the current ID token.
+   *
+   * @return 1 if the statement opened a subgraph, 0 otherwise
+   */
+  private int statement() throws IOException {
+    if (matches("subgraph")) {
+      next();
+      if (kind == ID) {
+        next();
+      }
+      expect('{');
+      return 1;
+    }
+    if (matches("graph") || matches("node") || matches("edge")) {
+      // Default attributes apply to nothing we store
+      next();
+      attributeLists();
+      return 0;
+    }
+
+    if (skipSpace() == '=') {
+      // A graph attribute such as rankdir=LR, not a node
+      next();
+      next();
+      if (kind != ID) {
+        throw error("expected a value");
+      }
+      next();
+      return 0;
+    }
+    chain[0] = intern();
+    int length = 1;
+    next();
+    while (kind == ARROW) {
+      next();
+      if (kind != ID) {
+        throw error("expected a node after ->");
+      }
+      if (length == chain.length) {
+        chain = Arrays.copyOf(chain, length * 2);
+      }
+      chain[length++] = intern();
+      next();
+    }
+    attributeLists();
+    try {
+      if (length == 1) {
+        handler.nodeStatement(chain[0], attributes);
+      } else {
+        for (int i = 0; i + 1 < length; i++) {
+          handler.edge(chain[i], chain[i + 1], attributes);
+        }
+      }
+    } catch (IOException | NumberFormatException e) {
+      // The handler rejected a value, which is worth pointing out in the file
+      throw (IOException) error(e.getMessage()).initCause(e);
+    }
+    return 0;
+  }
+
+  /**
+   * Reads any number of bracketed attribute lists into attributes.
+   */
+  private void attributeLists() throws IOException {
+    attributes.clear();
+    while (kind == PUNCTUATION && punctuation == '[') {
+      next();
+      while (!(kind == PUNCTUATION && punctuation == ']')) {
+        if (kind != ID) {
+          throw error("expected an attribute name");
+        }
+        String key = internKey();
+        next();
+        expect('=');
+        if (kind != ID) {
+          throw error("expected a value for " + key);
+        }
+        attributes.add(key, token, tokenLength);
+        next();
+        if (kind == PUNCTUATION && (punctuation == ',' || punctuation == ';')) {
+          next();
+        }
+      }
+      next();
+    }
+  }
+
+  /**
+   * Checks that the current token is the punctuation character c and moves past it.
+   */
+  private void expect(char c) throws IOException {
+    if (kind != PUNCTUATION || punctuation != c) {
+      throw error("expected " + c);
+    }
+    next();
+  }
+
+  /**
+   * Checks whether the current ID token is the given keyword. Keywords are case-insensitive.
+   */
+  private boolean matches(String keyword) {
+    if (quotedToken || tokenLength != keyword.length()) {
+      return false;
+    }
+    for (int i = 0; i < tokenLength; i++) {
+      if (Character.toLowerCase(token[i]) != keyword.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the id of the node named by the current token, assigning the next id and reporting it
+   * to the handler if the name is new.
+   */
+  private int intern() throws IOException {
+    int hash = 0;
+    for (int i = 0; i < tokenLength; i++) {
+      hash = 31 * hash + token[i];
+    }
+    int mask = nameSlots.length - 1;
+    int slot = mix(hash) & mask;
+    long entry;
+    while ((entry = nameSlots[slot]) != 0) {
+      int id = (int) entry - 1;
+      if ((int) (entry >>> 32) == hash && sameAsToken(names[id])) {
+        return id;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    int id = nameCount++;
+    if (id == names.length) {
+      names = Arrays.copyOf(names, id * 2);
+    }
+    names[id] = new String(token, 0, tokenLength);
+    nameSlots[slot] = ((long) hash << 32) | (id + 1);
+    if (nameCount * 2 > nameSlots.length) {
+      rehash();
+    }
+    handler.node(id, names[id]);
+    return id;
+  }
+
+  /**
+   * Doubles the name table.
+   */
+  private void rehash() {
+    long[] old = nameSlots;
+    nameSlots = new long[old.length * 2];
+    int mask = nameSlots.length - 1;
+    for (long entry : old) {
+      if (entry != 0) {
+        int slot = mix((int) (entry >>> 32)) & mask;
+        while (nameSlots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        nameSlots[slot] = entry;
+      }
+    }
+  }
+
+  /**
+   * Returns the interned attribute key equal to the current token.
+   */
+  private String internKey() {
+    for (int i = 0; i < keyCount; i++) {
+      if (sameAsToken(keys[i])) {
+        return keys[i];
+      }
+    }
+    if (keyCount == keys.length) {
+      keys = Arrays.copyOf(keys, keyCount * 2);
+    }
+    keys[keyCount] = new String(token, 0, tokenLength);
+    return keys[keyCount++];
+  }
+
+  /**
+   * Checks whether s has exactly the characters of the current token.
+   */
+  private boolean sameAsToken(String s) {
+    if (s.length() != tokenLength) {
+      return false;
+    }
+    for (int i = 0; i < tokenLength; i++) {
+      if (s.charAt(i) != token[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Spreads the bits of a String-style hash so nearby hashes land in different slots.
+   */
+  private static int mix(int hash) {
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Scans the next token, skipping whitespace and comments.
+   */
+  private void next() throws IOException {
+    int c = skipSpace();
+    if (c < 0) {
+      kind = END;
+      return;
+    }
+    tokenLength = 0;
+    quotedToken = false;
+    if (c == '"') {
+      position++;
+      quoted();
+      quotedToken = true;
+      kind = ID;
+      return;
+    }
+    if (c == '-' && peek(1) == '>') {
+      position += 2;
+      kind = ARROW;
+      return;
+    }
+    if (isNameChar(c) && !(c >= '0' && c <= '9')) {
+      while (c >= 0 && isNameChar(c)) {
+        append((char) c);
+        position++;
+        c = peek(0);
+      }
+      kind = ID;
+      return;
+    }
+    if ((c >= '0' && c <= '9') || c == '.' || c == '-') {
+      // A numeral: an optional minus sign followed by digits and at most one point
+      do {
+        append((char) c);
+        position++;
+        c = peek(0);
+      } while ((c >= '0' && c <= '9') || c == '.');
+      kind = ID;
+      return;
+    }
+    position++;
+    punctuation = (char) c;
+    kind = PUNCTUATION;
+  }
+
+  /**
+   * Reads the rest of a quoted ID into token, resolving escaped quotes and joining lines split
+   * with a trailing backslash.
+   */
+  private void quoted() throws IOException {
+    while (true) {
+      int c = peek(0);
+      if (c < 0) {
+        throw error("unterminated string");
+      }
+      position++;
+      if (c == '"') {
+        return;
+      }
+      if (c == '\\') {
+        int escaped = peek(0);
+        if (escaped == '"') {
+          position++;
+          append('"');
+          continue;
+        }
+        if (escaped == '\n') {
+          position++;
+          line++;
+          continue;
+        }
+      } else if (c == '\n') {
+        line++;
+      }
+      append((char) c);
+    }
+  }
+
+  /**
+   * Skips whitespace and comments.
+   *
+   * @return the first character after them, not consumed, or -1 at the end of the input
+   */
+  private int skipSpace() throws IOException {
+    while (true) {
+      int c = peek(0);
+      if (c < 0) {
+        return c;
+      }
+      if (c == '\n') {
+        line++;
+        position++;
+        lineStart = true;
+      } else if (c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+        position++;
+      } else if (c == '#' && lineStart) {
+        skipLine();
+      } else if (c == '/' && peek(1) == '/') {
+        skipLine();
+      } else if (c == '/' && peek(1) == '*') {
+        position += 2;
+        while (true) {
+          int d = peek(0);
+          if (d < 0) {
+            throw error("unterminated comment");
+          }
+          position++;
+          if (d == '\n') {
+            line++;
+          } else if (d == '*' && peek(0) == '/') {
+            position++;
+            break;
+          }
+        }
+        lineStart = false;
+      } else {
+        lineStart = false;
+        return c;
+      }
+    }
+  }
+
+  /**
+   * Skips to the end of the current line, leaving the newline to be read.
+   */
+  private void skipLine() throws IOException {
+    int c = peek(0);
+    while (c >= 0 && c != '\n') {
+      position++;
+      c = peek(0);
+    }
+  }
+
+  /**
+   * Returns the character offset characters past the current position without consuming it,
+   * refilling the buffer as needed.
+   *
+   * @return the character, or -1 past the end of the input
+   */
+  private int peek(int offset) throws IOException {
+    if (position + offset >= limit) {
+      fill();
+      if (position + offset >= limit) {
+        return -1;
+      }
+    }
+    return buffer[position + offset];
+  }
+
+  /**
+   * Moves unscanned characters to the front of the buffer and reads more after them.
+   */
+  private void fill() throws IOException {
+    int remaining = limit - position;
+    System.arraycopy(buffer, position, buffer, 0, remaining);
+    position = 0;
+    limit = remaining;
+    if (reader == null) {
+      CharBuffer free = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+      decoder.decode(bytes, free, true);
+      limit = free.position();
+      return;
+    }
+    while (limit < buffer.length) {
+      int read = reader.read(buffer, limit, buffer.length - limit);
+      if (read < 0) {
+        return;
+      }
+      limit += read;
+      if (read > 0) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Appends c to the current token.
+   */
+  private void append(char c) {
+    if (tokenLength == token.length) {
+      token = Arrays.copyOf(token, tokenLength * 2);
+    }
+    token[tokenLength++] = c;
+  }
+
+  /**
+   * Checks whether c can be part of an unquoted name: letters, digits, underscores and any
+   * non-ASCII character. Names cannot start with a digit.
+   */
+  private static boolean isNameChar(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+        || c == '_' || c >= 0x80;
+  }
+
+  /**
+   * Returns an exception describing a syntax error at the current line.
+   */
+  private IOException error(String message) {
+    return new IOException("line " + line + ": " + message);
+  }
+}
@@ -0,0 +1,99 @@
+/**
+ * An edge whose weight changed between two versions of a graph, by node id. A missing edge has
+ * weight positive infinity, so an inserted edge is a change from infinity and a removed one a
+ * change to infinity. Structures computed from the old graph use these to repair themselves
+ * rather than start over.
+ */
+public class EdgeChange {
+
+  /**
+   * Id of the edge's predecessor node.
+   */
+  private final int from;
+
+  /**
+   * Id of the edge's successor node.
+   */
+  private final int to;
+
+  /**
+   * Weight before the change, or positive infinity if there was no edge.
+   */
+  private final double oldWeight;
+
+  /**
+   * Weight after the change, or positive infinity if the edge is gone.
+   */
+  private final double newWeight;
+
+  /**
+   * Creates a change.
+   *
+   * @param from id of the edge's predecessor node
+   * @param to id of the edge's successor node
+   * @param oldWeight weight before the change, or positive infinity if there was no edge
+   * @param newWeight weight after the change, or positive infinity if the edge is gone
+   */
+  public EdgeChange(int from, int to, double oldWeight, double newWeight) {
+    this.from = from;
+    this.to = to;
+    this.oldWeight = oldWeight;
+    this.newWeight = newWeight;
+  }
+
+  /**
+   * Returns the id of the edge's predecessor node.
+   *
+   * @return the predecessor's id
+   */
+  public int getFrom() {
+    return from;
+  }
+
+  /**
+   * Returns the id of the edge's successor node.
+   *
+   * @return the successor's id
+   */
+  public int getTo() {
+    return to;
+  }
+
+  /**
+   * Returns the weight before the change.
+   *
+   * @return the old weight, or positive infinity if there was no edge
+   */
+  public double getOldWeight() {
+    return oldWeight;
+  }
+
+  /**
+   * Returns the weight after the change.
+   *
+   * @return the new weight, or positive infinity if the edge is gone
+   */
+  public double getNewWeight() {
+    return newWeight;
+  }
+
+  /**
+   * Returns whether the change made the edge slower or removed it, which can only make paths
+   * longer.
+   *
+   * @return true if the new weight is larger
+   */
+  public boolean isIncrease() {
+    return newWeight > oldWeight;
+  }
+
+  /**
+   * Returns whether the change made the edge faster or inserted it, which can only make paths
+   * shorter.
+   *
+   * @return true if the new weight is smaller
+   */
+  public boolean isDecrease() {
+    return newWeight < oldWeight;
+  }
+}
@@ -0,0 +1,96 @@
+/**
+ * One change in a batch of walking time updates: a new walking time for the path from one location
+ * to another, or its closure. Giving a closed path a walking time reopens it.
+ */
+public class EdgeUpdate {
+
+  /**
+   * Name of the location the path leaves from.
+   */
+  private final String from;
+
+  /**
+   * Name of the location the path leads to.
+   */
+  private final String to;
+
+  /**
+   * New walking time in seconds, or positive infinity if the path is closed.
+   */
+  private final double seconds;
+
+  /**
+   * Creates an update that sets the walking time from one location to another, adding the path if
+   * the map has none.
+   *
+   * @param from name of the location the path leaves from
+   * @param to name of the location the path leads to
+   * @param seconds the new walking time in seconds
+   * @throws IllegalArgumentException if seconds is negative or NaN
+   */
+  public EdgeUpdate(String from, String to, double seconds) {
+    if (!(seconds >= 0.0)) {
+      throw new IllegalArgumentException("Walking times must be non-negative: " + seconds);
+    }
+    this.from = from;
+    this.to = to;
+    this.seconds = seconds;
+  }
+
+  /**
+   * Creates an update that closes the path from one location to another.
+   *
+   * @param from name of the location the path leaves from
+   * @param to name of the location the path leads to
+   * @return the closure
+   */
+  public static EdgeUpdate closure(String from, String to) {
+    return new EdgeUpdate(from, to, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Returns the location the path leaves from.
+   *
+   * @return the start location's name
+   */
+  public String getFrom() {
+    return from;
+  }
+
+  /**
+   * Returns the location the path leads to.
+   *
+   * @return the end location's name
+   */
+  public String getTo() {
+    return to;
+  }
+
+  /**
+   * Returns the new walking time.
+   *
+   * @return the walking time in seconds, or positive infinity for a closure
+   */
+  public double getSeconds() {
+    return seconds;
+  }
+
+  /**
+   * Returns whether the update closes the path.
+   *
+   * @return true for a closure
+   */
+  public boolean isClosure() {
+    return seconds == Double.POSITIVE_INFINITY;
+  }
+
+  /**
+   * Returns a description of the update for error messages and logs.
+   *
+   * @return the path and its new walking time or "closed"
+   */
+  @Override
+  public String toString() {
+    return from + " -> " + to + (isClosure() ? " closed" : " " + seconds + "s");
+  }
+}
@@ -0,0 +1,111 @@
+/**
+ * Straight-line walking time heuristic for graphs whose nodes carry coordinates. The estimate from
+ * a node to the target is their straight-line distance multiplied by a pace in seconds per unit of
+ * distance. Calibrating that pace as the smallest weight-to-length ratio over all edges guarantees
+ * the estimate never exceeds the real walking time, because every path is at least as long as the
+ * straight line between its ends, so A* with this heuristic returns the same costs as Dijkstra.
+ */
+public class EuclideanHeuristic implements SearchHeuristic {
+
+  /**
+   * X coordinate of every node id.
+   */
+  private final double[] xs;
+
+  /**
+   * Y coordinate of every node id.
+   */
+  private final double[] ys;
+
+  /**
+   * Seconds of walking per unit of straight-line distance, at most the fastest pace of any edge.
+   */
+  private final double pace;
+
+  /**
+   * Creates a heuristic over the given coordinates with an explicit pace. The caller is responsible
+   * for choosing a pace that no edge beats, otherwise the heuristic is not admissible.
+   *
+   * @param xs x coordinate of every node id
+   * @param ys y coordinate of every node id
+   * @param pace seconds of walking per unit of distance, no larger than any edge's ratio
+   */
+  public EuclideanHeuristic(double[] xs, double[] ys, double pace) {
+    this.xs = xs;
+    this.ys = ys;
+    this.pace = pace;
+  }
+
+  /**
+   * Builds a heuristic from the coordinates stored in graph, calibrating the pace from its edges.
+   * If any node lacks coordinates, or an edge of positive length has zero weight, no positive pace
+   * is safe and the heuristic degenerates to 0 (plain Dijkstra).
+   *
+   * @param graph the graph whose node coordinates and edge weights to use
+   * @return an admissible straight-line heuristic for the graph's current state
+   */
+  public static EuclideanHeuristic calibrate(ArrayGraph graph) {
+    int limit = graph.getIdLimit();
+    double[] xs = new double[limit];
+    double[] ys = new double[limit];
+    double pace = Double.POSITIVE_INFINITY;
+    for (int u = 0; u < limit; u++) {
+      if (graph.nameOf(u) == null) {
+        continue;
+      }
+      if (!graph.hasCoordinates(u)) {
+        pace = 0.0;
+        break;
+      }
+      xs[u] = graph.getX(u);
+      ys[u] = graph.getY(u);
+    }
+    for (int u = 0; u < limit && pace > 0.0; u++) {
+      for (int i = 0; i < graph.outDegree(u); i++) {
+        int v = graph.outTarget(u, i);
+        double length = distance(xs, ys, u, v);
+        if (length > 0.0) {
+          pace = Math.min(pace, graph.outWeight(u, i) / length);
+        }
+      }
+    }
+    if (pace == Double.POSITIVE_INFINITY) {
+      // No edge has positive length, so there is nothing to calibrate against
+      pace = 0.0;
+    }
+    // Shave off a little so rounding in the products can never push an estimate above a real cost
+    return new EuclideanHeuristic(xs, ys, pace * (1.0 - 1e-9));
+  }
+
+  /**
+   * Returns the pace this heuristic multiplies straight-line distances by.
+   *
+   * @return seconds of walking per unit of distance, 0 if the heuristic is disabled
+   */
+  public double getPace() {
+    return pace;
+  }
+
+  /**
+   * Returns the straight-line walking time from node to target.
+   *
+   * @param node the id of the node the estimate is for
+   * @param target the id of the node the search is heading to
+   * @return a lower bound on the walking time from node to target
+   */
+  public double estimate(int node, int target) {
+    if (pace == 0.0 || node >= xs.length || target >= xs.length) {
+      return 0.0;
+    }
+    return pace * distance(xs, ys, node, target);
+  }
+
+  /**
+   * Returns the straight-line distance between nodes u and v.
+   */
+  private static double distance(double[] xs, double[] ys, int u, int v) {
+    double dx = xs[u] - xs[v];
+    double dy = ys[u] - ys[v];
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+}
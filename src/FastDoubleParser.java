@@ -0,0 +1,213 @@
+import java.math.BigInteger;
+
+/**
+ * Parses decimal numbers straight from a char array, without creating a String. Results are
+ * bit-for-bit those of Double.parseDouble.
+ *
+ * Numbers with at most 19 significant digits are converted with the Eisel-Lemire algorithm: the
+ * digits, normalized to 64 bits, are multiplied by a 128-bit approximation of the power of ten,
+ * and the top bits of the product give the correctly rounded double unless they lie too close to
+ * a rounding boundary to tell. Those rare cases, longer numbers and anything that is not a plain
+ * decimal (hexadecimal, "NaN", "Infinity", type suffixes) go through Double.parseDouble. See
+ * Lemire, "Number Parsing at a Gigabyte per Second" (2021).
+ */
+public class FastDoubleParser {
+
+  /**
+   * Smallest power of ten in the table. Anything nonzero below 1e-342 is 0.0 as a double.
+   */
+  private static final int MIN_EXPONENT = -342;
+
+  /**
+   * Largest power of ten in the table. Anything nonzero above 1e308 is infinite as a double.
+   */
+  private static final int MAX_EXPONENT = 308;
+
+  /**
+   * Exact powers of ten for the fast path, where one correctly rounded operation suffices.
+   */
+  private static final double[] SMALL_POWERS = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+      1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  /**
+   * High and low 64 bits of 10^q for every q in [MIN_EXPONENT, MAX_EXPONENT], scaled by a power of
+   * two so the top bit is set and rounded down to 128 bits.
+   */
+  private static final long[] POWER_HIGH = new long[MAX_EXPONENT - MIN_EXPONENT + 1];
+  private static final long[] POWER_LOW = new long[POWER_HIGH.length];
+
+  static {
+    for (int q = MIN_EXPONENT; q <= MAX_EXPONENT; q++) {
+      BigInteger power;
+      if (q >= 0) {
+        power = BigInteger.TEN.pow(q);
+        int shift = power.bitLength() - 128;
+        power = shift > 0 ? power.shiftRight(shift) : power.shiftLeft(-shift);
+      } else {
+        BigInteger divisor = BigInteger.TEN.pow(-q);
+        power = BigInteger.ONE.shiftLeft(divisor.bitLength() + 127).divide(divisor);
+      }
+      POWER_HIGH[q - MIN_EXPONENT] = power.shiftRight(64).longValue();
+      POWER_LOW[q - MIN_EXPONENT] = power.longValue();
+    }
+  }
+
+  /**
+   * Parses chars [start, end) as a decimal number, ignoring surrounding whitespace.
+   *
+   * @param chars the characters to parse
+   * @param start index of the first character
+   * @param end index one past the last character
+   * @return the number's value
+   * @throws NumberFormatException if the characters are not a number
+   */
+  public static double parse(char[] chars, int start, int end) {
+    int first = start;
+    int last = end;
+    while (first < last && chars[first] <= ' ') {
+      first++;
+    }
+    while (last > first && chars[last - 1] <= ' ') {
+      last--;
+    }
+
+    int i = first;
+    boolean negative = false;
+    if (i < last && (chars[i] == '-' || chars[i] == '+')) {
+      negative = chars[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean any = false;
+    boolean point = false;
+    for (; i < last; i++) {
+      char c = chars[i];
+      if (c >= '0' && c <= '9') {
+        any = true;
+        if (point) {
+          exponent--;
+        }
+        if (mantissa != 0 || c != '0') {
+          if (++digits > 19) {
+            return slow(chars, first, last);
+          }
+          mantissa = mantissa * 10 + (c - '0');
+        }
+      } else if (c == '.' && !point) {
+        point = true;
+      } else {
+        break;
+      }
+    }
+    if (any && i < last && (chars[i] == 'e' || chars[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < last && (chars[i] == '-' || chars[i] == '+')) {
+        negativeExponent = chars[i] == '-';
+        i++;
+      }
+      int explicit = 0;
+      boolean exponentDigits = false;
+      for (; i < last && chars[i] >= '0' && chars[i] <= '9'; i++) {
+        exponentDigits = true;
+        // Saturate; anything this large is 0 or infinite anyway
+        explicit = Math.min(100_000, explicit * 10 + (chars[i] - '0'));
+      }
+      if (!exponentDigits) {
+        return slow(chars, first, last);
+      }
+      exponent += negativeExponent ? -explicit : explicit;
+    }
+    if (!any || i != last) {
+      return slow(chars, first, last);
+    }
+
+    if (mantissa == 0) {
+      return negative ? -0.0 : 0.0;
+    }
+    if (digits <= 15 && exponent >= -22 && exponent <= 22) {
+      // Mantissa and power are both exact, so the single rounding is the correct one
+      double value = exponent < 0 ? mantissa / SMALL_POWERS[-exponent]
+          : mantissa * SMALL_POWERS[exponent];
+      return negative ? -value : value;
+    }
+    if (exponent < MIN_EXPONENT || exponent > MAX_EXPONENT) {
+      return slow(chars, first, last);
+    }
+    long bits = eiselLemire(mantissa, exponent);
+    if (bits < 0) {
+      return slow(chars, first, last);
+    }
+    return Double.longBitsToDouble(negative ? bits | Long.MIN_VALUE : bits);
+  }
+
+  /**
+   * Converts mantissa * 10^exponent to the bits of the nearest double, for a nonzero mantissa of
+   * at most 19 digits and an exponent within the table.
+   *
+   * @return the double's bits without the sign, or -1 if the result cannot be decided cheaply
+   */
+  private static long eiselLemire(long mantissa, int exponent) {
+    int zeros = Long.numberOfLeadingZeros(mantissa);
+    long normalized = mantissa << zeros;
+    // floor(exponent * log2(10)) plus the product's width and the double exponent bias
+    long binaryExponent = ((217706L * exponent) >> 16) + 64 + 1023 - zeros;
+
+    int index = exponent - MIN_EXPONENT;
+    long high = unsignedMultiplyHigh(normalized, POWER_HIGH[index]);
+    long low = normalized * POWER_HIGH[index];
+    if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + normalized, normalized) < 0) {
+      // The truncated power might matter in the bits we keep, so bring in its low half
+      long lowHigh = unsignedMultiplyHigh(normalized, POWER_LOW[index]);
+      long lowLow = normalized * POWER_LOW[index];
+      long mergedHigh = high;
+      long mergedLow = low + lowHigh;
+      if (Long.compareUnsigned(mergedLow, low) < 0) {
+        mergedHigh++;
+      }
+      if ((mergedHigh & 0x1FF) == 0x1FF && mergedLow + 1 == 0
+          && Long.compareUnsigned(lowLow + normalized, normalized) < 0) {
+        return -1;
+      }
+      high = mergedHigh;
+      low = mergedLow;
+    }
+
+    // Keep 54 bits: the 53 of the result and one for rounding
+    long top = high >>> 63;
+    long result = high >>> (top + 9);
+    binaryExponent -= 1 ^ top;
+    if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+      // Exactly halfway between two doubles as far as these bits can tell
+      return -1;
+    }
+    result += result & 1;
+    result >>>= 1;
+    if ((result >>> 53) > 0) {
+      result >>>= 1;
+      binaryExponent++;
+    }
+    if (binaryExponent <= 0 || binaryExponent >= 0x7FF) {
+      // Subnormal or infinite
+      return -1;
+    }
+    return (binaryExponent << 52) | (result & 0x000FFFFFFFFFFFFFL);
+  }
+
+  /**
+   * Returns the high 64 bits of the unsigned 128-bit product of a and b.
+   */
+  private static long unsignedMultiplyHigh(long a, long b) {
+    return Math.multiplyHigh(a, b) + ((a >> 63) & b) + ((b >> 63) & a);
+  }
+
+  /**
+   * Parses chars [start, end) with Double.parseDouble.
+   */
+  private static double slow(char[] chars, int start, int end) {
+    return Double.parseDouble(new String(chars, start, end - start));
+  }
+}
@@ -0,0 +1,846 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable snapshot of an ArrayGraph in compressed sparse row (CSR) form, made by
+ * ArrayGraph.freeze(). The outgoing edges of node u are entries [offsets[u], offsets[u + 1]) of
+ * the flat targets and weights arrays, sorted by target, so a search scans each node's edges in
+ * one contiguous run and containsEdge and getEdge are binary searches. Incoming edges are stored
+ * the same way, sorted by source, for searches that run backwards.
+ *
+ * Node ids are those of the graph it was frozen from, and a contraction hierarchy that was current
+ * at freezing time is carried over, so heuristics and hierarchies built for the graph work on its
+ * frozen copy. Every method that changes the graph throws UnsupportedOperationException. Nothing
+ * changes after construction and every thread gets its own search state, so any number of threads
+ * can query a FrozenGraph at once without locking.
+ *
+ * That search state belongs to the thread rather than the graph: each thread keeps one set of
+ * searches and points it at whichever graph it queries next. A thread therefore holds on to no
+ * more than the last graph it queried, and snapshots that have been replaced can be collected
+ * even while long-lived threads keep answering queries.
+ */
+public class FrozenGraph implements GraphADT<String, Double>, IntGraph {
+
+  /**
+   * Number of ends per bit of the node count's logarithm from which shortestRoutes() answers a
+   * contracted graph with one Dijkstra search instead of one hierarchy query per end. A hierarchy
+   * query costs more the larger the graph, but far less so than a full Dijkstra search does;
+   * measured break-even points were about 10 ends on campus.dot and 25 on a 22,500 node grid.
+   */
+  private static final double DIJKSTRA_ENDS_PER_LOG_NODE = 1.5;
+
+  /**
+   * Read-only names and ids of the graph when it was frozen, shared with that graph's other
+   * copies.
+   */
+  private final SymbolTable symbols;
+
+  private final int nodeCount;
+
+  /**
+   * Start of every node's outgoing edges in targets and weights, plus the end of the last.
+   */
+  private final int[] offsets;
+
+  /**
+   * Successor of every outgoing edge, sorted within each node.
+   */
+  private final int[] targets;
+
+  /**
+   * Weight of every outgoing edge, parallel to targets.
+   */
+  private final double[] weights;
+
+  /**
+   * Start of every node's incoming edges in sources and inWeights, plus the end of the last.
+   */
+  private final int[] inOffsets;
+
+  /**
+   * Predecessor of every incoming edge, sorted within each node.
+   */
+  private final int[] sources;
+
+  /**
+   * Weight of every incoming edge, parallel to sources.
+   */
+  private final double[] inWeights;
+
+  /**
+   * Coordinates of every node, NaN if it has none.
+   */
+  private final double[] xs;
+  private final double[] ys;
+
+  /**
+   * Version of the graph this was frozen from.
+   */
+  private final long version;
+
+  /**
+   * Contraction hierarchy of the graph this was frozen from, or null if it had none.
+   */
+  private final ContractionHierarchy hierarchy;
+
+  /**
+   * Search state of every thread, shared by all frozen graphs. It must not be a field of the
+   * graph: the searches refer back to their graph, so an entry keyed by a per-graph ThreadLocal
+   * would keep that graph reachable for as long as the thread lives.
+   */
+  private static final ThreadLocal<Searches> SEARCHES = ThreadLocal.withInitial(Searches::new);
+
+  /**
+   * Copies graph's current state.
+   *
+   * @param graph the graph to freeze
+   * @param hierarchy graph's current contraction hierarchy, or null
+   */
+  FrozenGraph(ArrayGraph graph, ContractionHierarchy hierarchy) {
+    int limit = graph.getIdLimit();
+    symbols = graph.getSymbols();
+    nodeCount = graph.getNodeCount();
+    xs = new double[limit];
+    ys = new double[limit];
+    System.arraycopy(graph.xs, 0, xs, 0, limit);
+    System.arraycopy(graph.ys, 0, ys, 0, limit);
+    version = graph.getVersion();
+    this.hierarchy = hierarchy;
+
+    offsets = new int[limit + 1];
+    inOffsets = new int[limit + 1];
+    for (int u = 0; u < limit; u++) {
+      offsets[u + 1] = offsets[u] + graph.outDegree(u);
+      inOffsets[u + 1] = inOffsets[u] + graph.inDegree(u);
+    }
+    targets = new int[offsets[limit]];
+    weights = new double[offsets[limit]];
+    sources = new int[inOffsets[limit]];
+    inWeights = new double[inOffsets[limit]];
+    for (int u = 0; u < limit; u++) {
+      int degree = graph.outDegree(u);
+      if (degree > 0) {
+        System.arraycopy(graph.outTargets[u], 0, targets, offsets[u], degree);
+        System.arraycopy(graph.outWeights[u], 0, weights, offsets[u], degree);
+        sort(targets, weights, offsets[u], offsets[u + 1]);
+      }
+      degree = graph.inDegree(u);
+      if (degree > 0) {
+        System.arraycopy(graph.inSources[u], 0, sources, inOffsets[u], degree);
+        System.arraycopy(graph.inWeights[u], 0, inWeights, inOffsets[u], degree);
+        sort(sources, inWeights, inOffsets[u], inOffsets[u + 1]);
+      }
+    }
+  }
+
+  /**
+   * Wraps arrays that are already in compressed sparse row form, with every node's edges sorted
+   * by their other end, such as those of a GraphSnapshot. The arrays are used as they are, not
+   * copied, and the graph has no contraction hierarchy.
+   *
+   * @param symbols read-only table of the nodes' names
+   * @param offsets index of every node's first outgoing edge, and the edge count at the end
+   * @param targets target of every outgoing edge
+   * @param weights weight of every outgoing edge
+   * @param inOffsets index of every node's first incoming edge, and the edge count at the end
+   * @param sources source of every incoming edge
+   * @param inWeights weight of every incoming edge
+   * @param xs x coordinate of every node, NaN if it has none
+   * @param ys y coordinate of every node, NaN if it has none
+   * @param version the version to report
+   */
+  FrozenGraph(SymbolTable symbols, int[] offsets, int[] targets, double[] weights,
+      int[] inOffsets, int[] sources, double[] inWeights, double[] xs, double[] ys,
+      long version) {
+    this.symbols = symbols;
+    nodeCount = symbols.size();
+    this.offsets = offsets;
+    this.targets = targets;
+    this.weights = weights;
+    this.inOffsets = inOffsets;
+    this.sources = sources;
+    this.inWeights = inWeights;
+    this.xs = xs;
+    this.ys = ys;
+    this.version = version;
+    hierarchy = null;
+  }
+
+  /**
+   * Always fails, since a frozen graph cannot be changed.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  public boolean insertNode(String data) {
+    throw new UnsupportedOperationException("A frozen graph cannot be changed");
+  }
+
+  /**
+   * Always fails, since a frozen graph cannot be changed.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  public boolean removeNode(String data) {
+    throw new UnsupportedOperationException("A frozen graph cannot be changed");
+  }
+
+  /**
+   * Check if the graph contains a node with data.
+   *
+   * @param data the node contents to check for
+   * @return true if data item is stored in a node within the graph, or false otherwise
+   */
+  public boolean containsNode(String data) {
+    return symbols.idOf(data) >= 0;
+  }
+
+  /**
+   * Return the number of nodes in the graph.
+   *
+   * @return the number of nodes in the graph
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Always fails, since a frozen graph cannot be changed.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  public boolean insertEdge(String pred, String succ, Double weight) {
+    throw new UnsupportedOperationException("A frozen graph cannot be changed");
+  }
+
+  /**
+   * Always fails, since a frozen graph cannot be changed.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  public boolean removeEdge(String pred, String succ) {
+    throw new UnsupportedOperationException("A frozen graph cannot be changed");
+  }
+
+  /**
+   * Check if edge is in the graph, by binary search over the predecessor's edges.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return true if the edge is found in the graph, or false other
+   */
+  public boolean containsEdge(String pred, String succ) {
+    return edgeIndex(idOf(pred), idOf(succ)) >= 0;
+  }
+
+  /**
+   * Return the data associated with a specific edge, found by binary search over the
+   * predecessor's edges.
+   *
+   * @param pred the data item contained in the source node for the edge
+   * @param succ the data item contained in the target node for the edge
+   * @return the non-negative data from the edge between those nodes
+   * @throws NoSuchElementException if either node or the edge between them are not found within
+   *     this graph
+   */
+  public Double getEdge(String pred, String succ) {
+    int index = edgeIndex(idOf(pred), idOf(succ));
+    if (index < 0) {
+      throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+    }
+    return weights[index];
+  }
+
+  /**
+   * Return the number of edges in the graph.
+   *
+   * @return the number of edges in the graph
+   */
+  public int getEdgeCount() {
+    return targets.length;
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from start to end, found
+   * with the contraction hierarchy if the graph has one and with Dijkstra's algorithm otherwise.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public List<String> shortestPathData(String start, String end) {
+    return shortestRoute(start, end).getNodes();
+  }
+
+  /**
+   * Returns the list of data values from nodes along the shortest path from start to end, found
+   * with an A* search guided by heuristic.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @param heuristic admissible lower bound on the remaining distance, or null for Dijkstra
+   * @return list of data item from node along this shortest path
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public List<String> shortestPathData(String start, String end, SearchHeuristic heuristic) {
+    int source = requireId(start);
+    int target = requireId(end);
+    return search(source, target, heuristic).pathTo(target);
+  }
+
+  /**
+   * Returns the cost of the shortest path from start to end, found with the contraction hierarchy
+   * if the graph has one and with Dijkstra's algorithm otherwise.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the cost of the shortest path between these nodes
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public double shortestPathCost(String start, String end) {
+    int source = requireId(start);
+    int target = requireId(end);
+    if (isContracted()) {
+      return searchHierarchy(source, target).getDistance();
+    }
+    return search(source, target, null).getDistance(target);
+  }
+
+  /**
+   * Returns the shortest route from start to end, found with the contraction hierarchy if the
+   * graph has one and with Dijkstra's algorithm otherwise.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public Route<String> shortestRoute(String start, String end) {
+    return shortestRoute(requireId(start), requireId(end));
+  }
+
+  /**
+   * Returns the shortest route between two node ids, found with the contraction hierarchy if the
+   * graph has one and with Dijkstra's algorithm otherwise. Callers that already hold ids use this
+   * to skip looking the names up again.
+   *
+   * @param source the id of the route's start node
+   * @param target the id of the route's end node
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either id is not in use or target is unreachable from source
+   */
+  public Route<String> shortestRoute(int source, int target) {
+    requireNode(source);
+    requireNode(target);
+    if (isContracted()) {
+      return searchHierarchy(source, target).route();
+    }
+    return search(source, target, null).routeTo(target);
+  }
+
+  /**
+   * Returns the shortest route from start to end found with an A* search guided by heuristic.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @param heuristic admissible lower bound on the remaining distance, or null for Dijkstra
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public Route<String> shortestRoute(String start, String end, SearchHeuristic heuristic) {
+    return shortestRoute(requireId(start), requireId(end), heuristic);
+  }
+
+  /**
+   * Returns the shortest route between two node ids found with an A* search guided by heuristic.
+   *
+   * @param source the id of the route's start node
+   * @param target the id of the route's end node
+   * @param heuristic admissible lower bound on the remaining distance, or null for Dijkstra
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either id is not in use or target is unreachable from source
+   */
+  public Route<String> shortestRoute(int source, int target, SearchHeuristic heuristic) {
+    requireNode(source);
+    requireNode(target);
+    return search(source, target, heuristic).routeTo(target);
+  }
+
+  /**
+   * Returns the shortest route from start to end found with a bidirectional Dijkstra search.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either node is missing or end is unreachable from start
+   */
+  public Route<String> shortestRouteBidirectional(String start, String end) {
+    return shortestRouteBidirectional(requireId(start), requireId(end));
+  }
+
+  /**
+   * Returns the shortest route between two node ids found with a bidirectional Dijkstra search.
+   *
+   * @param source the id of the route's start node
+   * @param target the id of the route's end node
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either id is not in use or target is unreachable from source
+   */
+  public Route<String> shortestRouteBidirectional(int source, int target) {
+    requireNode(source);
+    requireNode(target);
+    BidirectionalSearch searcher = SEARCHES.get().bidirectional(this);
+    SearchEvent event = new SearchEvent();
+    event.begin();
+    boolean found = searcher.run(source, target);
+    commitSearch(event, "bidirectional", source, target, searcher,
+        found ? searcher.getDistance() : Double.NaN);
+    if (!found) {
+      throw new NoSuchElementException("No path from " + nameOf(source) + " to " + nameOf(target));
+    }
+    return searcher.route();
+  }
+
+  /**
+   * Returns the shortest routes from start to each of ends, sharing one search from start between
+   * them. For a few ends on a contracted graph that is the hierarchy's forward search, run once to
+   * completion, which each end then meets with a short backward search of its own. Otherwise it is
+   * a single Dijkstra search that stops once every end is settled.
+   *
+   * @param start the data item in the starting node for the routes
+   * @param ends the data items in the destination nodes, which may repeat
+   * @return the shortest route to each end in the same order, with null for ends that are missing
+   *     or unreachable from start
+   * @throws NoSuchElementException if start is not found in the graph
+   */
+  public List<Route<String>> shortestRoutes(String start, List<String> ends) {
+    int source = requireId(start);
+    List<Route<String>> routes = new ArrayList<>(ends.size());
+    double log = Math.log(Math.max(2, nodeCount)) / Math.log(2);
+    if (isContracted() && ends.size() < DIJKSTRA_ENDS_PER_LOG_NODE * log) {
+      ContractionHierarchySearch searcher = SEARCHES.get().hierarchy(this);
+      SearchEvent event = new SearchEvent();
+      event.begin();
+      searcher.runForward(source);
+      // The backward searches that follow are a handful of nodes each
+      commitSearch(event, "many", source, -1, searcher, Double.NaN);
+      for (String end : ends) {
+        int id = idOf(end);
+        routes.add(id >= 0 && searcher.runBackward(id) ? searcher.route() : null);
+      }
+      return routes;
+    }
+
+    int[] targets = new int[ends.size()];
+    int count = 0;
+    for (String end : ends) {
+      int id = idOf(end);
+      if (id >= 0) {
+        targets[count++] = id;
+      }
+    }
+    DijkstraSearch searcher = SEARCHES.get().dijkstra(this);
+    SearchEvent event = new SearchEvent();
+    event.begin();
+    searcher.run(source, Arrays.copyOf(targets, count));
+    commitSearch(event, "many", source, -1, searcher, Double.NaN);
+    for (String end : ends) {
+      int id = idOf(end);
+      routes.add(id >= 0 && searcher.isSettled(id) ? searcher.routeTo(id) : null);
+    }
+    return routes;
+  }
+
+  /**
+   * Returns the shortest paths from start to every node reachable from it, computed by a single
+   * run of Dijkstra's shortest path algorithm.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return the shortest path tree rooted at the start node
+   * @throws NoSuchElementException if start is not found in the graph
+   */
+  public ShortestPathTree<String> shortestPathTree(String start) {
+    DijkstraSearch searcher = SEARCHES.get().dijkstra(this);
+    int source = requireId(start);
+    SearchEvent event = new SearchEvent();
+    event.begin();
+    searcher.run(source, -1);
+    event.end();
+    ShortestPathTree<String> tree = searcher.toTree();
+    if (event.shouldCommit()) {
+      int farthest = tree.getFarthest();
+      commitSearch(event, "tree", source, -1, searcher,
+          farthest < 0 ? 0.0 : tree.getDistance(farthest));
+    }
+    return tree;
+  }
+
+  /**
+   * Returns whether the graph was frozen with a current contraction hierarchy.
+   *
+   * @return true if point-to-point queries are answered from the hierarchy
+   */
+  public boolean isContracted() {
+    return hierarchy != null;
+  }
+
+  /**
+   * Returns the counters of this thread's Dijkstra search, which describe the last A*, tree or
+   * one-to-many Dijkstra query this thread ran on any frozen graph.
+   *
+   * @return this thread's Dijkstra search
+   */
+  public SearchCounters getSearchCounters() {
+    return SEARCHES.get().dijkstra(this);
+  }
+
+  /**
+   * Returns the counters of this thread's bidirectional search, which describe the last
+   * bidirectional query this thread ran on any frozen graph.
+   *
+   * @return this thread's bidirectional search
+   */
+  public SearchCounters getBidirectionalSearchCounters() {
+    return SEARCHES.get().bidirectional(this);
+  }
+
+  /**
+   * Returns the counters of this thread's contraction hierarchy search, which describe the last
+   * hierarchy query this thread ran on any frozen graph.
+   *
+   * @return this thread's hierarchy search
+   * @throws IllegalStateException if the graph has no contraction hierarchy
+   */
+  public SearchCounters getHierarchySearchCounters() {
+    if (hierarchy == null) {
+      throw new IllegalStateException("The graph was frozen without a contraction hierarchy");
+    }
+    return SEARCHES.get().hierarchy(this);
+  }
+
+  /**
+   * Returns the version the graph had when it was frozen.
+   *
+   * @return the source graph's version counter at freezing time
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns whether a node has coordinates attached.
+   *
+   * @param id a node id
+   * @return true if the node had coordinates when the graph was frozen
+   */
+  public boolean hasCoordinates(int id) {
+    return !Double.isNaN(xs[id]) && !Double.isNaN(ys[id]);
+  }
+
+  /**
+   * Returns a node's x coordinate.
+   *
+   * @param id a node id
+   * @return the x coordinate, or NaN if the node has none
+   */
+  public double getX(int id) {
+    return xs[id];
+  }
+
+  /**
+   * Returns a node's y coordinate.
+   *
+   * @param id a node id
+   * @return the y coordinate, or NaN if the node has none
+   */
+  public double getY(int id) {
+    return ys[id];
+  }
+
+  /**
+   * Returns the id of a node, or -1 if the graph has no such node.
+   *
+   * @param data the node name to look up
+   * @return the node's id, or -1
+   */
+  public int idOf(String data) {
+    return symbols.idOf(data);
+  }
+
+  /**
+   * Returns the name of the node with the given id, or null if the id is not in use.
+   *
+   * @param id the node id to look up
+   * @return the node's name, or null
+   */
+  public String nameOf(int id) {
+    return symbols.nameOf(id);
+  }
+
+  /**
+   * Returns one past the largest node id in use when the graph was frozen.
+   *
+   * @return the exclusive upper bound on node ids
+   */
+  public int getIdLimit() {
+    return symbols.getIdLimit();
+  }
+
+  /**
+   * Returns the read-only symbol table the graph was frozen with.
+   *
+   * @return the graph's names and ids
+   */
+  public SymbolTable getSymbols() {
+    return symbols;
+  }
+
+  /**
+   * Returns the number of edges leaving node u.
+   *
+   * @param u a node id
+   * @return the out-degree of u
+   */
+  public int outDegree(int u) {
+    return offsets[u + 1] - offsets[u];
+  }
+
+  /**
+   * Returns the successor of the i-th edge leaving node u, in increasing order of successor.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the id of the edge's successor node
+   */
+  public int outTarget(int u, int i) {
+    return targets[offsets[u] + i];
+  }
+
+  /**
+   * Returns the weight of the i-th edge leaving node u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the non-negative weight of the edge
+   */
+  public double outWeight(int u, int i) {
+    return weights[offsets[u] + i];
+  }
+
+  /**
+   * Returns the number of edges entering node v.
+   *
+   * @param v a node id
+   * @return the in-degree of v
+   */
+  public int inDegree(int v) {
+    return inOffsets[v + 1] - inOffsets[v];
+  }
+
+  /**
+   * Returns the predecessor of the i-th edge entering node v, in increasing order of predecessor.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the id of the edge's predecessor node
+   */
+  public int inSource(int v, int i) {
+    return sources[inOffsets[v] + i];
+  }
+
+  /**
+   * Returns the weight of the i-th edge entering node v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the non-negative weight of the edge
+   */
+  public double inWeight(int v, int i) {
+    return inWeights[inOffsets[v] + i];
+  }
+
+  /**
+   * Returns the position of edge (from, to) in targets and weights, or -1 if there is none.
+   */
+  private int edgeIndex(int from, int to) {
+    if (from < 0 || to < 0) {
+      return -1;
+    }
+    int low = offsets[from];
+    int high = offsets[from + 1] - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (targets[middle] < to) {
+        low = middle + 1;
+      } else if (targets[middle] > to) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Sorts entries [from, to) of ends by node id, moving weights along with them. Degrees are
+   * small, so insertion sort is fastest in practice; long runs are sorted as packed (end, index)
+   * keys instead.
+   */
+  private static void sort(int[] ends, double[] weights, int from, int to) {
+    if (to - from <= 32) {
+      for (int i = from + 1; i < to; i++) {
+        int end = ends[i];
+        double weight = weights[i];
+        int j = i - 1;
+        while (j >= from && ends[j] > end) {
+          ends[j + 1] = ends[j];
+          weights[j + 1] = weights[j];
+          j--;
+        }
+        ends[j + 1] = end;
+        weights[j + 1] = weight;
+      }
+      return;
+    }
+    long[] keys = new long[to - from];
+    for (int i = from; i < to; i++) {
+      keys[i - from] = ((long) ends[i] << 32) | (i - from);
+    }
+    Arrays.sort(keys);
+    double[] sorted = new double[keys.length];
+    for (int k = 0; k < keys.length; k++) {
+      sorted[k] = weights[from + (int) keys[k]];
+      ends[from + k] = (int) (keys[k] >>> 32);
+    }
+    System.arraycopy(sorted, 0, weights, from, sorted.length);
+  }
+
+  /**
+   * Looks up the id of a node that a query requires to exist.
+   */
+  private int requireId(String data) {
+    int id = idOf(data);
+    if (id < 0) {
+      throw new NoSuchElementException(data + " is not in the graph");
+    }
+    return id;
+  }
+
+  /**
+   * Checks that id belongs to a node.
+   *
+   * @throws NoSuchElementException if the id is not in use
+   */
+  private void requireNode(int id) {
+    if (nameOf(id) == null) {
+      throw new NoSuchElementException("No node has id " + id);
+    }
+  }
+
+  /**
+   * Runs a contraction hierarchy query from start to end on this thread's search.
+   *
+   * @return the hierarchy search, positioned on the finished query
+   * @throws NoSuchElementException if either node is missing or end cannot be reached from start
+   */
+  private ContractionHierarchySearch searchHierarchy(int source, int target) {
+    ContractionHierarchySearch searcher = SEARCHES.get().hierarchy(this);
+    SearchEvent event = new SearchEvent();
+    event.begin();
+    boolean found = searcher.run(source, target);
+    commitSearch(event, "hierarchy", source, target, searcher,
+        found ? searcher.getDistance() : Double.NaN);
+    if (!found) {
+      throw new NoSuchElementException("No path from " + nameOf(source) + " to " + nameOf(target));
+    }
+    return searcher;
+  }
+
+  /**
+   * Runs this thread's search from start until end is settled, as A* if a heuristic is given and
+   * as Dijkstra otherwise.
+   *
+   * @return the search, positioned on the finished query
+   * @throws NoSuchElementException if either node is missing or end cannot be reached from start
+   */
+  private DijkstraSearch search(int source, int target, SearchHeuristic heuristic) {
+    DijkstraSearch searcher = SEARCHES.get().dijkstra(this);
+    SearchEvent event = new SearchEvent();
+    event.begin();
+    boolean found = searcher.run(source, target, heuristic);
+    commitSearch(event, heuristic == null ? "dijkstra" : "astar", source, target, searcher,
+        found ? searcher.getDistance(target) : Double.NaN);
+    if (!found) {
+      throw new NoSuchElementException("No path from " + nameOf(source) + " to " + nameOf(target));
+    }
+    return searcher;
+  }
+
+  /**
+   * Fills in and commits event for a search that just finished on this thread, if a flight
+   * recording wants it. Nothing is looked up unless one does.
+   *
+   * @param target the search's destination, or -1 if it had none or several
+   * @param cost the distance the search found, or NaN
+   */
+  private void commitSearch(SearchEvent event, String algorithm, int source, int target,
+      SearchCounters counters, double cost) {
+    if (event.shouldCommit()) {
+      event.algorithm = algorithm;
+      event.start = nameOf(source);
+      event.end = target < 0 ? null : nameOf(target);
+      event.settled = counters.getSettledCount();
+      event.heapOperations = counters.getHeapOperationCount();
+      event.cost = cost;
+      event.commit();
+    }
+  }
+  /**
+   * One thread's searches, created on its first query of each kind and pointed at the graph each
+   * query runs on. Their arrays grow to the largest graph the thread has queried.
+   */
+  private static final class Searches {
+
+    private DijkstraSearch search;
+    private BidirectionalSearch bidirectional;
+    private ContractionHierarchySearch hierarchySearch;
+
+    /**
+     * Returns the thread's Dijkstra search, pointed at graph.
+     */
+    DijkstraSearch dijkstra(FrozenGraph graph) {
+      if (search == null) {
+        search = new DijkstraSearch(graph);
+      } else if (search.graph != graph) {
+        search.setGraph(graph);
+      }
+      return search;
+    }
+
+    /**
+     * Returns the thread's bidirectional search, pointed at graph.
+     */
+    BidirectionalSearch bidirectional(FrozenGraph graph) {
+      if (bidirectional == null) {
+        bidirectional = new BidirectionalSearch(graph);
+      } else if (bidirectional.graph != graph) {
+        bidirectional.setGraph(graph);
+      }
+      return bidirectional;
+    }
+
+    /**
+     * Returns the thread's hierarchy search, pointed at graph's hierarchy.
+     */
+    ContractionHierarchySearch hierarchy(FrozenGraph graph) {
+      if (hierarchySearch == null) {
+        hierarchySearch = new ContractionHierarchySearch(graph.hierarchy);
+      } else if (hierarchySearch.hierarchy != graph.hierarchy) {
+        hierarchySearch.setHierarchy(graph.hierarchy);
+      }
+      return hierarchySearch;
+    }
+  }
+}
@@ -117,4 +117,28 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    * @return the cost of the shortest path between these nodes
    */
   public double shortestPathCost(NodeType start, NodeType end);
+
+  /**
+   * Returns the shortest path from the node containing the start data to the node containing the
+   * end data as a single Route: the data values along the path, the weight of each edge on it, and
+   * its total cost. All three come from one run of Dijkstra's shortest path algorithm, so callers
+   * that need both the path and its edge weights don't have to look the edges up afterwards.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the shortest route between these nodes
+   * @throws NoSuchElementException if either node is not found or no path connects them
+   */
+  public Route<NodeType> shortestRoute(NodeType start, NodeType end);
+
+  /**
+   * Returns the shortest paths from the node containing the start data to every node reachable
+   * from it, computed by a single run of Dijkstra's shortest path algorithm. This answers
+   * one-to-all questions, like finding the most distant node, without a search per destination.
+   *
+   * @param start the data item in the starting node for the paths
+   * @return the shortest path tree rooted at the start node
+   * @throws NoSuchElementException if start is not found in the graph
+   */
+  public ShortestPathTree<NodeType> shortestPathTree(NodeType start);
 }
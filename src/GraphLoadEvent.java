@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one phase of loading a map into a Backend. The parse phase reads the
+ * DOT file or graph snapshot and adds its locations and edges to the graph; the build phase
+ * calibrates or loads the heuristic, contracts the graph and freezes it. Names are interned one at
+ * a time in between parsing, so the time that took is a field of the parse phase rather than a
+ * phase of its own.
+ */
+@Name("campusmap.GraphLoad")
+@Label("Graph Load Phase")
+@Category({"Campus Map", "Loading"})
+@Description("A phase of loading a map: parse or build")
+public class GraphLoadEvent extends Event {
+
+  @Label("File")
+  String file;
+
+  @Label("Phase")
+  String phase;
+
+  @Label("Intern Time")
+  @Description("Time the parse phase spent giving location names ids")
+  @Timespan(Timespan.NANOSECONDS)
+  long internTime;
+}
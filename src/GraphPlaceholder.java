@@ -65,4 +65,13 @@ public class GraphPlaceholder implements GraphADT<String, Double> {
   public double shortestPathCost(String start, String end) {
     return 303.2;
   }
+
+  public Route<String> shortestRoute(String start, String end) {
+    return new Route<>(path.toArray(new String[0]), new double[] {176.0, 127.2}, 303.2);
+  }
+
+  public ShortestPathTree<String> shortestPathTree(String start) {
+    String[] nodes = path.toArray(new String[0]);
+    return new ShortestPathTree<>(nodes, new double[] {0.0, 176.0, 303.2}, new int[] {0, 0, 1}, 0);
+  }
 }
@@ -0,0 +1,688 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * A graph saved in a compact binary file that is memory-mapped rather than parsed, so opening it
+ * takes the same time whatever its size and processes that open the same snapshot share its pages
+ * in the OS page cache. The snapshot is read-only and safe to read from any number of threads.
+ *
+ * The file is little-endian, with every section aligned to its element size:
+ *
+ * - an 80-byte header: magic number, format version, node, edge and name-slot counts, the
+ *   modification time, length and CRC32C of the DOT file the graph was loaded from, the lengths
+ *   of the name and source path bytes, CRC32C checksums of the index and of the body, and the
+ *   pace of the graph's straight-line heuristic
+ * - the index: the start of every node's name within the name bytes, an open addressing hash
+ *   index from name to node id, the offset of every node's first outgoing and first incoming
+ *   edge, and the UTF-8 bytes of the source file's absolute path
+ * - the body: outgoing edge targets, incoming edge sources, outgoing and incoming edge weights,
+ *   x and y coordinates (NaN if a node has none) and the UTF-8 bytes of all names
+ *
+ * Opening a snapshot only checks the header and index, which grow with the number of nodes; the
+ * body, which holds every edge, is checked by verify() when the caller chooses. freeze() copies
+ * the edge arrays out in bulk into a FrozenGraph, so a map is ready for queries without a single
+ * edge being inserted or hashed.
+ *
+ * Node ids are dense and keep the order of the graph the snapshot was written from, and every
+ * node's edges are sorted by their other end, the order a FrozenGraph keeps them in.
+ */
+public class GraphSnapshot implements IntGraph {
+
+  /**
+   * The bytes "UWMAPSN1" read as a little-endian long.
+   */
+  private static final long MAGIC = 0x314E5350414D5755L;
+
+  private static final int FORMAT_VERSION = 2;
+
+  /**
+   * Positions of the header fields.
+   */
+  private static final int VERSION_AT = 8;
+  private static final int NODES_AT = 12;
+  private static final int EDGES_AT = 16;
+  private static final int SLOTS_AT = 20;
+  private static final int MODIFIED_AT = 24;
+  private static final int LENGTH_AT = 32;
+  private static final int HASH_AT = 40;
+  private static final int NAME_BYTES_AT = 48;
+  private static final int PATH_BYTES_AT = 52;
+  private static final int INDEX_CHECKSUM_AT = 56;
+  private static final int BODY_CHECKSUM_AT = 64;
+  private static final int PACE_AT = 72;
+  private static final int HEADER_BYTES = 80;
+
+  /**
+   * Largest snapshot, in bytes, since it is mapped as a single buffer.
+   */
+  private static final long MAX_BYTES = Integer.MAX_VALUE;
+
+  /**
+   * Largest piece of a source file mapped at once while hashing it.
+   */
+  private static final long HASH_CHUNK_BYTES = 1L << 30;
+
+  /**
+   * The DOT file the graph was loaded from.
+   */
+  private final File source;
+
+  /**
+   * Modification time, length and CRC32C of source when the snapshot was written.
+   */
+  private final long sourceModified;
+  private final long sourceLength;
+  private final long sourceHash;
+
+  /**
+   * Pace of the graph's straight-line heuristic, or 0 if it had none.
+   */
+  private final double pace;
+
+  private final int nodeCount;
+
+  private final int edgeCount;
+
+  /**
+   * Start of every name in nameBytes, plus the end of the last.
+   */
+  private final IntBuffer nameStarts;
+
+  /**
+   * Hash index of names: id plus one of the name in each slot, 0 for empty slots.
+   */
+  private final IntBuffer nameSlots;
+
+  /**
+   * Outgoing edges of node u are entries [outOffsets[u], outOffsets[u + 1]) of outTargets and
+   * outWeights, and likewise for incoming edges.
+   */
+  private final IntBuffer outOffsets;
+  private final IntBuffer outTargets;
+  private final DoubleBuffer outWeights;
+  private final IntBuffer inOffsets;
+  private final IntBuffer inSources;
+  private final DoubleBuffer inWeights;
+
+  /**
+   * Coordinates of every node, NaN if it has none.
+   */
+  private final DoubleBuffer xs;
+  private final DoubleBuffer ys;
+
+  /**
+   * UTF-8 bytes of every name, back to back.
+   */
+  private final ByteBuffer nameBytes;
+
+  /**
+   * Names decoded so far, so each is only decoded once.
+   */
+  private final String[] names;
+
+  /**
+   * The whole mapped file, for verify().
+   */
+  private final ByteBuffer file;
+
+  /**
+   * Where the body starts.
+   */
+  private final long bodyAt;
+
+  /**
+   * Name of the snapshot file, for error messages.
+   */
+  private final String label;
+
+  /**
+   * Maps the sections of a snapshot file whose index has been verified.
+   */
+  private GraphSnapshot(ByteBuffer file, Layout layout, String label) {
+    this.file = file;
+    this.label = label;
+    nodeCount = layout.nodeCount;
+    edgeCount = layout.edgeCount;
+    bodyAt = layout.outTargetsAt;
+    sourceModified = file.getLong(MODIFIED_AT);
+    sourceLength = file.getLong(LENGTH_AT);
+    sourceHash = file.getLong(HASH_AT);
+    pace = file.getDouble(PACE_AT);
+    nameStarts = section(file, layout.nameStartsAt, layout.slotsAt).asIntBuffer();
+    nameSlots = section(file, layout.slotsAt, layout.outOffsetsAt).asIntBuffer();
+    outOffsets = section(file, layout.outOffsetsAt, layout.inOffsetsAt).asIntBuffer();
+    inOffsets = section(file, layout.inOffsetsAt, layout.pathAt).asIntBuffer();
+    byte[] path = new byte[(int) (layout.pathEnd - layout.pathAt)];
+    section(file, layout.pathAt, layout.pathEnd).get(path);
+    source = new File(new String(path, StandardCharsets.UTF_8));
+    outTargets = section(file, layout.outTargetsAt, layout.inSourcesAt).asIntBuffer();
+    inSources = section(file, layout.inSourcesAt, layout.inSourcesAt + 4L * edgeCount)
+        .asIntBuffer();
+    outWeights = section(file, layout.outWeightsAt, layout.inWeightsAt).asDoubleBuffer();
+    inWeights = section(file, layout.inWeightsAt, layout.xsAt).asDoubleBuffer();
+    xs = section(file, layout.xsAt, layout.ysAt).asDoubleBuffer();
+    ys = section(file, layout.ysAt, layout.nameBytesAt).asDoubleBuffer();
+    nameBytes = section(file, layout.nameBytesAt, layout.size);
+    names = new String[nodeCount];
+  }
+
+  /**
+   * Writes graph to snapshotFile, recording source as the file it was loaded from. The snapshot
+   * is written to a temporary file first and then moved into place, so a process opening
+   * snapshotFile at the same time sees either the old snapshot or the new one.
+   *
+   * @param graph the graph to save
+   * @param source the DOT file graph was loaded from
+   * @param snapshotFile the file to write the snapshot to
+   * @throws IOException if source cannot be read, snapshotFile cannot be written or the graph is
+   *     too large for a snapshot
+   */
+  public static void write(ArrayGraph graph, File source, File snapshotFile) throws IOException {
+    // A frozen copy has every node's edges sorted, which dense ids keep
+    FrozenGraph frozen = graph.freeze();
+    double pace = EuclideanHeuristic.calibrate(graph).getPace();
+    // Give the live nodes dense ids in their current order
+    int limit = graph.getIdLimit();
+    int[] dense = new int[limit];
+    int[] live = new int[graph.getNodeCount()];
+    int n = 0;
+    for (int v = 0; v < limit; v++) {
+      dense[v] = graph.nameOf(v) == null ? -1 : n;
+      if (dense[v] >= 0) {
+        live[n++] = v;
+      }
+    }
+    byte[][] encoded = new byte[n][];
+    long nameBytes = 0;
+    for (int id = 0; id < n; id++) {
+      encoded[id] = graph.nameOf(live[id]).getBytes(StandardCharsets.UTF_8);
+      nameBytes += encoded[id].length;
+    }
+    byte[] path = source.getAbsolutePath().getBytes(StandardCharsets.UTF_8);
+    int slots = Integer.highestOneBit(Math.max(1, n) * 2 - 1) * 2;
+    if (nameBytes > MAX_BYTES) {
+      throw new IOException("The graph's names are too large for a snapshot");
+    }
+    Layout layout = new Layout(n, graph.getEdgeCount(), slots, (int) nameBytes, path.length);
+    if (layout.size > MAX_BYTES) {
+      throw new IOException("The graph is too large for a snapshot: " + layout.size + " bytes");
+    }
+
+    File directory = snapshotFile.getAbsoluteFile().getParentFile();
+    File temporary = File.createTempFile(snapshotFile.getName() + ".new", ".tmp", directory);
+    try {
+      try (RandomAccessFile out = new RandomAccessFile(temporary, "rw");
+          FileChannel channel = out.getChannel()) {
+        out.setLength(layout.size);
+        MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, layout.size);
+        file.order(ByteOrder.LITTLE_ENDIAN);
+        file.putLong(0, MAGIC);
+        file.putInt(VERSION_AT, FORMAT_VERSION);
+        file.putInt(NODES_AT, n);
+        file.putInt(EDGES_AT, layout.edgeCount);
+        file.putInt(SLOTS_AT, slots);
+        file.putLong(MODIFIED_AT, source.lastModified());
+        file.putLong(LENGTH_AT, source.length());
+        file.putLong(HASH_AT, hash(source));
+        file.putInt(NAME_BYTES_AT, (int) nameBytes);
+        file.putInt(PATH_BYTES_AT, path.length);
+        file.putDouble(PACE_AT, pace);
+
+        int start = 0;
+        for (int id = 0; id < n; id++) {
+          file.putInt((int) layout.nameStartsAt + 4 * id, start);
+          file.put((int) layout.nameBytesAt + start, encoded[id]);
+          start += encoded[id].length;
+          int slot = mix(graph.nameOf(live[id]).hashCode()) & (slots - 1);
+          while (file.getInt((int) layout.slotsAt + 4 * slot) != 0) {
+            slot = (slot + 1) & (slots - 1);
+          }
+          file.putInt((int) layout.slotsAt + 4 * slot, id + 1);
+          boolean located = graph.hasCoordinates(live[id]);
+          file.putDouble((int) layout.xsAt + 8 * id, located ? graph.getX(live[id]) : Double.NaN);
+          file.putDouble((int) layout.ysAt + 8 * id, located ? graph.getY(live[id]) : Double.NaN);
+        }
+        file.putInt((int) layout.nameStartsAt + 4 * n, start);
+        file.put((int) layout.pathAt, path);
+
+        int outEdge = 0;
+        int inEdge = 0;
+        for (int id = 0; id < n; id++) {
+          int u = live[id];
+          file.putInt((int) layout.outOffsetsAt + 4 * id, outEdge);
+          for (int i = 0; i < frozen.outDegree(u); i++, outEdge++) {
+            file.putInt((int) layout.outTargetsAt + 4 * outEdge, dense[frozen.outTarget(u, i)]);
+            file.putDouble((int) layout.outWeightsAt + 8 * outEdge, frozen.outWeight(u, i));
+          }
+          file.putInt((int) layout.inOffsetsAt + 4 * id, inEdge);
+          for (int i = 0; i < frozen.inDegree(u); i++, inEdge++) {
+            file.putInt((int) layout.inSourcesAt + 4 * inEdge, dense[frozen.inSource(u, i)]);
+            file.putDouble((int) layout.inWeightsAt + 8 * inEdge, frozen.inWeight(u, i));
+          }
+        }
+        file.putInt((int) layout.outOffsetsAt + 4 * n, outEdge);
+        file.putInt((int) layout.inOffsetsAt + 4 * n, inEdge);
+
+        file.putLong(BODY_CHECKSUM_AT, bodyChecksum(file, layout.outTargetsAt));
+        file.putLong(INDEX_CHECKSUM_AT, indexChecksum(file, layout.outTargetsAt));
+        file.force();
+      }
+      Files.move(temporary.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      temporary.delete();
+    }
+  }
+
+  /**
+   * Maps a snapshot written by write(). Only the header and index are read and checked, which
+   * takes time in proportion to the number of nodes; the edges are not touched until they are
+   * used, and verify() checks them.
+   *
+   * @param snapshotFile the snapshot to open
+   * @return the mapped snapshot
+   * @throws IOException if the file cannot be read, is not a snapshot or its index is corrupt
+   */
+  public static GraphSnapshot open(File snapshotFile) throws IOException {
+    // Mappings stay valid after the channel is closed
+    try (FileChannel channel = FileChannel.open(snapshotFile.toPath(),
+        StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES || size > MAX_BYTES) {
+        throw new IOException(snapshotFile + " is not a graph snapshot");
+      }
+      MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      file.order(ByteOrder.LITTLE_ENDIAN);
+      if (file.getLong(0) != MAGIC) {
+        throw new IOException(snapshotFile + " is not a graph snapshot");
+      }
+      if (file.getInt(VERSION_AT) != FORMAT_VERSION) {
+        throw new IOException(snapshotFile + " has unsupported format version "
+            + file.getInt(VERSION_AT));
+      }
+      int nodes = file.getInt(NODES_AT);
+      int edges = file.getInt(EDGES_AT);
+      int slots = file.getInt(SLOTS_AT);
+      int nameBytes = file.getInt(NAME_BYTES_AT);
+      int pathBytes = file.getInt(PATH_BYTES_AT);
+      if (nodes < 0 || edges < 0 || slots <= nodes || Integer.bitCount(slots) != 1
+          || nameBytes < 0 || pathBytes < 0
+          || new Layout(nodes, edges, slots, nameBytes, pathBytes).size != size) {
+        throw new IOException(snapshotFile + " is truncated or corrupt");
+      }
+      Layout layout = new Layout(nodes, edges, slots, nameBytes, pathBytes);
+      if (file.getLong(INDEX_CHECKSUM_AT) != indexChecksum(file, layout.outTargetsAt)) {
+        throw new IOException(snapshotFile + " is corrupt: its index checksum does not match");
+      }
+      return new GraphSnapshot(file, layout, snapshotFile.toString());
+    }
+  }
+
+  /**
+   * Checks the body of the snapshot, every edge, coordinate and name, against its checksum. This
+   * reads the whole file, so open() leaves it to the caller, which may run it after the map is
+   * already answering queries.
+   *
+   * @throws IOException if the body is corrupt
+   */
+  public void verify() throws IOException {
+    if (file.getLong(BODY_CHECKSUM_AT) != bodyChecksum(file, bodyAt)) {
+      throw new IOException(label + " is corrupt: its body checksum does not match");
+    }
+  }
+
+  /**
+   * Returns a FrozenGraph of the snapshot, with its arrays copied out of the mapped file in bulk.
+   * Nothing is sorted, and only the names are hashed, so this takes a memory copy per array
+   * rather than an insert per edge. The body is not verified.
+   *
+   * @param version the version to give the frozen graph
+   * @return the snapshot's graph, without a contraction hierarchy
+   * @throws IOException if the offsets in the index do not describe the body
+   */
+  public FrozenGraph freeze(long version) throws IOException {
+    int[] offsets = new int[nodeCount + 1];
+    int[] inStarts = new int[nodeCount + 1];
+    outOffsets.get(0, offsets);
+    inOffsets.get(0, inStarts);
+    for (int u = 0; u < nodeCount; u++) {
+      // A bad offset would send searches outside the edge arrays
+      if (offsets[u] > offsets[u + 1] || inStarts[u] > inStarts[u + 1]) {
+        throw new IOException(label + " is corrupt: node " + u + " has bad edge offsets");
+      }
+    }
+    if (offsets[0] != 0 || inStarts[0] != 0 || offsets[nodeCount] != edgeCount
+        || inStarts[nodeCount] != edgeCount) {
+      throw new IOException(label + " is corrupt: its edge offsets do not match its edge count");
+    }
+    int[] targets = new int[edgeCount];
+    int[] sources = new int[edgeCount];
+    double[] weights = new double[edgeCount];
+    double[] inWeightArray = new double[edgeCount];
+    double[] xArray = new double[nodeCount];
+    double[] yArray = new double[nodeCount];
+    outTargets.get(0, targets);
+    inSources.get(0, sources);
+    outWeights.get(0, weights);
+    inWeights.get(0, inWeightArray);
+    xs.get(0, xArray);
+    ys.get(0, yArray);
+    return new FrozenGraph(SymbolTable.copyOf(this), offsets, targets, weights, inStarts,
+        sources, inWeightArray, xArray, yArray, version);
+  }
+
+  /**
+   * Returns the pace of the straight-line heuristic calibrated for the graph when it was written.
+   *
+   * @return seconds per unit of distance, or 0 if some node had no coordinates
+   */
+  public double getPace() {
+    return pace;
+  }
+
+  /**
+   * Returns the DOT file the graph was loaded from.
+   *
+   * @return the snapshot's source file
+   */
+  public File getSource() {
+    return source;
+  }
+
+  /**
+   * Checks whether the source file has changed since the snapshot was written. An unchanged
+   * modification time and length are taken as unchanged; otherwise the file's contents are
+   * hashed, so a file that was only touched or copied is not stale. A source file that no longer
+   * exists is not stale either, which lets a snapshot be used on its own.
+   *
+   * @return true if the source file's contents differ from the snapshot's
+   * @throws IOException if the source file exists but cannot be read
+   */
+  public boolean isStale() throws IOException {
+    if (!source.isFile()) {
+      return false;
+    }
+    if (source.lastModified() == sourceModified && source.length() == sourceLength) {
+      return false;
+    }
+    return source.length() != sourceLength || hash(source) != sourceHash;
+  }
+
+  /**
+   * Returns the number of nodes, which is also the id limit.
+   *
+   * @return the node count
+   */
+  public int getNodeCount() {
+    return nodeCount;
+  }
+
+  /**
+   * Returns the number of edges.
+   *
+   * @return the edge count
+   */
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  /**
+   * Checks whether a node has coordinates.
+   *
+   * @param id a node id
+   * @return true if the node has coordinates
+   */
+  public boolean hasCoordinates(int id) {
+    return !Double.isNaN(xs.get(id));
+  }
+
+  /**
+   * Returns a node's x coordinate.
+   *
+   * @param id a node id
+   * @return the x coordinate, or NaN if the node has none
+   */
+  public double getX(int id) {
+    return xs.get(id);
+  }
+
+  /**
+   * Returns a node's y coordinate.
+   *
+   * @param id a node id
+   * @return the y coordinate, or NaN if the node has none
+   */
+  public double getY(int id) {
+    return ys.get(id);
+  }
+
+  /**
+   * Returns the number of node ids, all of which are in use.
+   *
+   * @return the exclusive upper bound on node ids
+   */
+  public int getIdLimit() {
+    return nodeCount;
+  }
+
+  /**
+   * Looks a name up in the snapshot's hash index.
+   *
+   * @param name the node name to look up
+   * @return the node's id, or -1 if there is no such node
+   */
+  public int idOf(String name) {
+    if (name == null) {
+      return -1;
+    }
+    int mask = nameSlots.limit() - 1;
+    for (int slot = mix(name.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+      int entry = nameSlots.get(slot);
+      if (entry == 0) {
+        return -1;
+      }
+      if (nameOf(entry - 1).equals(name)) {
+        return entry - 1;
+      }
+    }
+  }
+
+  /**
+   * Returns the name of a node, decoding it from the string table on first use.
+   *
+   * @param id the node id to look up
+   * @return the node's name, or null if there is no such id
+   */
+  public String nameOf(int id) {
+    if (id < 0 || id >= nodeCount) {
+      return null;
+    }
+    String name = names[id];
+    if (name == null) {
+      // Racing threads decode equal Strings, so either may win
+      int start = nameStarts.get(id);
+      byte[] bytes = new byte[nameStarts.get(id + 1) - start];
+      nameBytes.get(start, bytes);
+      name = new String(bytes, StandardCharsets.UTF_8);
+      names[id] = name;
+    }
+    return name;
+  }
+
+  /**
+   * Returns the number of edges leaving node u.
+   *
+   * @param u a node id
+   * @return the out-degree of u
+   */
+  public int outDegree(int u) {
+    return outOffsets.get(u + 1) - outOffsets.get(u);
+  }
+
+  /**
+   * Returns the successor of the i-th edge leaving node u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the id of the edge's target
+   */
+  public int outTarget(int u, int i) {
+    return outTargets.get(outOffsets.get(u) + i);
+  }
+
+  /**
+   * Returns the weight of the i-th edge leaving node u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the edge's weight
+   */
+  public double outWeight(int u, int i) {
+    return outWeights.get(outOffsets.get(u) + i);
+  }
+
+  /**
+   * Returns the number of edges entering node v.
+   *
+   * @param v a node id
+   * @return the in-degree of v
+   */
+  public int inDegree(int v) {
+    return inOffsets.get(v + 1) - inOffsets.get(v);
+  }
+
+  /**
+   * Returns the predecessor of the i-th edge entering node v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the id of the edge's source
+   */
+  public int inSource(int v, int i) {
+    return inSources.get(inOffsets.get(v) + i);
+  }
+
+  /**
+   * Returns the weight of the i-th edge entering node v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the edge's weight
+   */
+  public double inWeight(int v, int i) {
+    return inWeights.get(inOffsets.get(v) + i);
+  }
+
+  /**
+   * Returns the CRC32C of a file's contents.
+   */
+  private static long hash(File file) throws IOException {
+    CRC32C crc = new CRC32C();
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long at = 0; at < size; at += HASH_CHUNK_BYTES) {
+        crc.update(channel.map(FileChannel.MapMode.READ_ONLY, at,
+            Math.min(HASH_CHUNK_BYTES, size - at)));
+      }
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * Returns the CRC32C of a snapshot file's header, but for the index checksum itself, and of its
+   * index, which ends where the body starts at bodyAt.
+   */
+  private static long indexChecksum(ByteBuffer file, long bodyAt) {
+    CRC32C crc = new CRC32C();
+    crc.update(file.slice(0, INDEX_CHECKSUM_AT));
+    crc.update(file.slice(BODY_CHECKSUM_AT, (int) bodyAt - BODY_CHECKSUM_AT));
+    return crc.getValue();
+  }
+
+  /**
+   * Returns the CRC32C of a snapshot file's body, from bodyAt to the end.
+   */
+  private static long bodyChecksum(ByteBuffer file, long bodyAt) {
+    CRC32C crc = new CRC32C();
+    crc.update(file.slice((int) bodyAt, file.capacity() - (int) bodyAt));
+    return crc.getValue();
+  }
+
+  /**
+   * Returns bytes [from, to) of a snapshot file as a little-endian buffer.
+   */
+  private static ByteBuffer section(ByteBuffer file, long from, long to) {
+    return file.slice((int) from, (int) (to - from)).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Spreads the bits of a String hash so nearby hashes land in different slots.
+   */
+  private static int mix(int hash) {
+    hash *= 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Where each section of a snapshot with the given counts starts.
+   */
+  private static class Layout {
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final long nameStartsAt;
+    private final long slotsAt;
+    private final long outOffsetsAt;
+    private final long inOffsetsAt;
+    private final long pathAt;
+    private final long pathEnd;
+    private final long outTargetsAt;
+    private final long inSourcesAt;
+    private final long outWeightsAt;
+    private final long inWeightsAt;
+    private final long xsAt;
+    private final long ysAt;
+    private final long nameBytesAt;
+
+    /**
+     * Total size of the file in bytes.
+     */
+    private final long size;
+
+    /**
+     * Lays out a snapshot of nodes nodes, edges edges, the given number of name slots and the
+     * given lengths of name and path bytes.
+     */
+    private Layout(int nodes, int edges, int slots, int nameBytes, int pathBytes) {
+      nodeCount = nodes;
+      edgeCount = edges;
+      nameStartsAt = HEADER_BYTES;
+      slotsAt = nameStartsAt + 4L * (nodes + 1);
+      outOffsetsAt = slotsAt + 4L * slots;
+      inOffsetsAt = outOffsetsAt + 4L * (nodes + 1);
+      pathAt = inOffsetsAt + 4L * (nodes + 1);
+      pathEnd = pathAt + pathBytes;
+      // The body and its doubles start at the next multiple of 8
+      outTargetsAt = (pathEnd + 7) & ~7L;
+      inSourcesAt = outTargetsAt + 4L * edges;
+      outWeightsAt = (inSourcesAt + 4L * edges + 7) & ~7L;
+      inWeightsAt = outWeightsAt + 8L * edges;
+      xsAt = inWeightsAt + 8L * edges;
+      ysAt = xsAt + 8L * nodes;
+      nameBytesAt = ysAt + 8L * nodes;
+      size = nameBytesAt + nameBytes;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int node ids ordered by double priorities, with an index from every id to its
+ * position in the heap so that a queued id's priority can be lowered in place (decrease-key).
+ * Unlike a PriorityQueue of entry objects, each id is queued at most once and no objects are
+ * allocated per operation. The heap only allocates when it has to grow to hold larger ids.
+ */
+public class IndexedMinHeap {
+
+  /**
+   * Ids in heap order: heap[0] has the smallest priority.
+   */
+  private int[] heap;
+
+  /**
+   * Priority of every queued id, indexed by id.
+   */
+  private double[] priority;
+
+  /**
+   * Position of every id within heap, or -1 if the id is not queued.
+   */
+  private int[] position;
+
+  /**
+   * Number of ids currently queued.
+   */
+  private int size;
+
+  /**
+   * Number of inserts, decreases and polls since the heap was last cleared.
+   */
+  private long operations;
+
+  /**
+   * Creates an empty heap that can hold ids in [0, capacity).
+   *
+   * @param capacity the exclusive upper bound on ids
+   */
+  public IndexedMinHeap(int capacity) {
+    heap = new int[capacity];
+    priority = new double[capacity];
+    position = new int[capacity];
+    Arrays.fill(position, -1);
+  }
+
+  /**
+   * Makes room for ids in [0, capacity), keeping any ids already queued.
+   *
+   * @param capacity the exclusive upper bound on ids
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity > position.length) {
+      int old = position.length;
+      heap = Arrays.copyOf(heap, capacity);
+      priority = Arrays.copyOf(priority, capacity);
+      position = Arrays.copyOf(position, capacity);
+      Arrays.fill(position, old, capacity, -1);
+    }
+  }
+
+  /**
+   * Returns whether the heap has no queued ids.
+   *
+   * @return true if the heap is empty
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the number of queued ids.
+   *
+   * @return the heap's size
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether id is currently queued.
+   *
+   * @param id the id to check
+   * @return true if id is in the heap
+   */
+  public boolean contains(int id) {
+    return position[id] >= 0;
+  }
+
+  /**
+   * Returns the number of ids queued, priorities lowered and ids polled since the heap was created
+   * or last cleared, which is what a search that clears its queue up front spent on the heap.
+   *
+   * @return the operation count
+   */
+  public long getOperationCount() {
+    return operations;
+  }
+
+  /**
+   * Returns the smallest priority in the heap without removing it.
+   *
+   * @return the minimum priority, or positive infinity if the heap is empty
+   */
+  public double peekPriority() {
+    return size == 0 ? Double.POSITIVE_INFINITY : priority[heap[0]];
+  }
+
+  /**
+   * Queues id with the given priority, or lowers its priority if it is already queued with a
+   * larger one. A larger priority for an already queued id is ignored.
+   *
+   * @param id the id to queue
+   * @param value the priority for id
+   * @return true if id was added or its priority lowered, false otherwise
+   */
+  public boolean insertOrDecrease(int id, double value) {
+    int pos = position[id];
+    if (pos < 0) {
+      pos = size++;
+      heap[pos] = id;
+      position[id] = pos;
+    } else if (value >= priority[id]) {
+      return false;
+    }
+    operations++;
+    priority[id] = value;
+    siftUp(pos);
+    return true;
+  }
+
+  /**
+   * Removes and returns the id with the smallest priority.
+   *
+   * @return the id with the minimum priority
+   * @throws IllegalStateException if the heap is empty
+   */
+  public int poll() {
+    if (size == 0) {
+      throw new IllegalStateException("Cannot poll an empty heap");
+    }
+    operations++;
+    int min = heap[0];
+    position[min] = -1;
+    size--;
+    if (size > 0) {
+      int last = heap[size];
+      heap[0] = last;
+      position[last] = 0;
+      siftDown(0);
+    }
+    return min;
+  }
+
+  /**
+   * Removes every queued id and resets the operation count. This only touches the ids still in the
+   * heap, so it is cheap after a search that emptied most of the queue.
+   */
+  public void clear() {
+    for (int i = 0; i < size; i++) {
+      position[heap[i]] = -1;
+    }
+    size = 0;
+    operations = 0;
+  }
+
+  /**
+   * Moves the id at pos towards the root until its parent's priority is not larger.
+   */
+  private void siftUp(int pos) {
+    int id = heap[pos];
+    double value = priority[id];
+    while (pos > 0) {
+      int parent = (pos - 1) >>> 1;
+      int parentId = heap[parent];
+      if (priority[parentId] <= value) {
+        break;
+      }
+      heap[pos] = parentId;
+      position[parentId] = pos;
+      pos = parent;
+    }
+    heap[pos] = id;
+    position[id] = pos;
+  }
+
+  /**
+   * Moves the id at pos towards the leaves until neither child has a smaller priority.
+   */
+  private void siftDown(int pos) {
+    int id = heap[pos];
+    double value = priority[id];
+    int half = size >>> 1;
+    while (pos < half) {
+      int child = 2 * pos + 1;
+      int right = child + 1;
+      if (right < size && priority[heap[right]] < priority[heap[child]]) {
+        child = right;
+      }
+      int childId = heap[child];
+      if (priority[childId] >= value) {
+        break;
+      }
+      heap[pos] = childId;
+      position[childId] = pos;
+      pos = child;
+    }
+    heap[pos] = id;
+    position[id] = pos;
+  }
+}
@@ -0,0 +1,227 @@
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from primitive int keys to primitive double values, for sparse
+ * per-node or per-edge numbers such as edge weights keyed by an edge or node id. Keys are stored in
+ * a flat int[] and probed linearly, with the values in a parallel double[], and removals shift
+ * later entries of the same probe run backwards instead of leaving tombstones. Nothing is boxed
+ * and no objects are allocated per entry.
+ *
+ * Negative keys are reserved: -1 marks an empty slot, so callers must only store keys >= 0.
+ */
+public class IntDoubleHashMap {
+
+  /**
+   * Key value used to mark empty slots in the keys array.
+   */
+  private static final int EMPTY = -1;
+
+  /**
+   * Largest fraction of slots that may be occupied before the table doubles.
+   */
+  private static final double MAX_LOAD = 0.6;
+
+  /**
+   * Keys of all entries, or EMPTY for unused slots. The length is always a power of two.
+   */
+  private int[] keys;
+
+  /**
+   * Values of all entries, parallel to keys.
+   */
+  private double[] values;
+
+  /**
+   * Number of entries currently stored.
+   */
+  private int size;
+
+  /**
+   * Number of entries allowed before the next resize.
+   */
+  private int threshold;
+
+  /**
+   * Creates an empty map with room for a handful of entries.
+   */
+  public IntDoubleHashMap() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty map that can hold expectedSize entries without resizing.
+   *
+   * @param expectedSize number of entries the map should be sized for
+   */
+  public IntDoubleHashMap(int expectedSize) {
+    int capacity = 16;
+    while (capacity * MAX_LOAD < expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  /**
+   * Returns the value stored for key, or missing if the key is not present.
+   *
+   * @param key the key to look up, must be >= 0
+   * @param missing the value to return when key is not in the map
+   * @return the value for key, or missing
+   */
+  public double get(int key, double missing) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return missing;
+  }
+
+  /**
+   * Checks whether key is in the map.
+   *
+   * @param key the key to look for, must be >= 0
+   * @return true if the key is present, false otherwise
+   */
+  public boolean containsKey(int key) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * Stores value for key, replacing any value that was already stored for it.
+   *
+   * @param key the key to store, must be >= 0
+   * @param value the value to associate with key
+   * @throws IllegalArgumentException if key is negative
+   */
+  public void put(int key, double value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("Negative keys are reserved: " + key);
+    }
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+    if (size > threshold) {
+      resize(keys.length << 1);
+    }
+  }
+
+  /**
+   * Removes key from the map. Entries later in the same probe run are shifted back into the freed
+   * slot so that lookups never have to skip over deleted markers.
+   *
+   * @param key the key to remove
+   * @param missing the value to return when key is not in the map
+   * @return the value that was stored for key, or missing
+   */
+  public double remove(int key, double missing) {
+    if (key < 0) {
+      return missing;
+    }
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != key) {
+      if (keys[slot] == EMPTY) {
+        return missing;
+      }
+      slot = (slot + 1) & mask;
+    }
+    double removed = values[slot];
+
+    // Backward-shift deletion: move any entry whose home slot lies at or before the gap into it
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = mix(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = EMPTY;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Removes every entry while keeping the current table allocation.
+   */
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  /**
+   * Returns the number of entries in the map.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Allocates empty key and value arrays of the given power-of-two capacity.
+   */
+  private void allocate(int capacity) {
+    keys = new int[capacity];
+    values = new double[capacity];
+    Arrays.fill(keys, EMPTY);
+    threshold = (int) (capacity * MAX_LOAD);
+  }
+
+  /**
+   * Re-inserts every entry into freshly allocated arrays of the given capacity.
+   */
+  private void resize(int capacity) {
+    int[] oldKeys = keys;
+    double[] oldValues = values;
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = mix(oldKeys[i]) & mask;
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of a key so that consecutive ids do not fill one run of adjacent slots (the
+   * 32-bit finalizer from MurmurHash3).
+   */
+  private static int mix(int key) {
+    key ^= key >>> 16;
+    key *= 0x85ebca6b;
+    key ^= key >>> 13;
+    key *= 0xc2b2ae35;
+    key ^= key >>> 16;
+    return key;
+  }
+}
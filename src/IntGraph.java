@@ -0,0 +1,94 @@
+/**
+ * Read-only view of a directed, non-negatively weighted graph whose nodes are identified by dense
+ * int ids. This is the interface the shortest path engines run against: it exposes adjacency by id
+ * so that searches never hash node names or box edge weights in their inner loops. Names are only
+ * translated to and from ids at the edges of a query.
+ */
+public interface IntGraph {
+
+  /**
+   * Returns one past the largest node id in use. Every node has an id in [0, getIdLimit()), though
+   * some ids in that range may be unused.
+   *
+   * @return the exclusive upper bound on node ids
+   */
+  public int getIdLimit();
+
+  /**
+   * Returns the id of the node with the given name.
+   *
+   * @param name the node name to look up
+   * @return the node's id, or -1 if there is no such node
+   */
+  public int idOf(String name);
+
+  /**
+   * Returns the name of the node with the given id.
+   *
+   * @param id the node id to look up
+   * @return the node's name, or null if the id is not in use
+   */
+  public String nameOf(int id);
+
+  /**
+   * Returns a read-only symbol table with the graph's current names and ids. By default this
+   * copies every name; graphs that keep their names in a SymbolTable share it instead.
+   *
+   * @return the graph's names and ids
+   */
+  public default SymbolTable getSymbols() {
+    return SymbolTable.copyOf(this);
+  }
+
+  /**
+   * Returns the number of edges leaving node u.
+   *
+   * @param u a node id
+   * @return the out-degree of u
+   */
+  public int outDegree(int u);
+
+  /**
+   * Returns the successor of the i-th edge leaving node u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the id of the edge's successor node
+   */
+  public int outTarget(int u, int i);
+
+  /**
+   * Returns the weight of the i-th edge leaving node u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the non-negative weight of the edge
+   */
+  public double outWeight(int u, int i);
+
+  /**
+   * Returns the number of edges entering node v.
+   *
+   * @param v a node id
+   * @return the in-degree of v
+   */
+  public int inDegree(int v);
+
+  /**
+   * Returns the predecessor of the i-th edge entering node v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the id of the edge's predecessor node
+   */
+  public int inSource(int v, int i);
+
+  /**
+   * Returns the weight of the i-th edge entering node v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the non-negative weight of the edge
+   */
+  public double inWeight(int v, int i);
+}
@@ -0,0 +1,358 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ALT heuristic (A*, landmarks and the triangle inequality) for graphs without coordinates. A few
+ * landmark nodes are chosen and the shortest distances from every landmark to every node and from
+ * every node to every landmark are precomputed. For a landmark L, the triangle inequality gives two
+ * lower bounds on the distance from v to t:
+ *
+ * d(v, t) >= d(L, t) - d(L, v) and d(v, t) >= d(v, L) - d(t, L)
+ *
+ * The estimate is the largest of these bounds over all landmarks. It is admissible and consistent,
+ * so A* with it returns the same costs as Dijkstra. Landmarks are picked by farthest-point
+ * selection: the first is the most distant location from an arbitrary node, the same notion
+ * getMostDistantLocation() uses, and each further one is the node farthest from all landmarks
+ * chosen so far. Landmarks on the edge of the map give the tightest bounds.
+ *
+ * The index describes the graph it was built from and is only admissible as long as no edge of
+ * that graph gets cheaper. save() writes it to a plain binary file, so a loaded map can reuse the
+ * index saved on an earlier run after checking it with matches(). The file holds a magic number,
+ * a format version, the id limit, landmark count and graph fingerprint, every name as a length
+ * and its UTF-8 bytes (length -1 for unused ids), the landmark ids and then both distance tables,
+ * all big-endian. Nothing in it is ever turned into objects other than strings and arrays.
+ */
+public class LandmarkHeuristic implements SearchHeuristic {
+
+  /**
+   * The bytes "UWMAPLM1" read as a big-endian long.
+   */
+  private static final long MAGIC = 0x55574D41504C4D31L;
+
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * Node name of every id of the source graph, null for unused ids.
+   */
+  private final String[] names;
+
+  /**
+   * Fingerprint of the source graph's nodes and edges, see fingerprint().
+   */
+  private final long fingerprint;
+
+  /**
+   * Node id of every landmark.
+   */
+  private final int[] landmarks;
+
+  /**
+   * fromLandmark[i][v] is the distance from landmark i to node v, infinite if unreachable.
+   */
+  private final double[][] fromLandmark;
+
+  /**
+   * toLandmark[i][v] is the distance from node v to landmark i, infinite if unreachable.
+   */
+  private final double[][] toLandmark;
+
+  /**
+   * Creates a heuristic from precomputed landmark distances.
+   */
+  private LandmarkHeuristic(String[] names, long fingerprint, int[] landmarks,
+      double[][] fromLandmark, double[][] toLandmark) {
+    this.names = names;
+    this.fingerprint = fingerprint;
+    this.landmarks = landmarks;
+    this.fromLandmark = fromLandmark;
+    this.toLandmark = toLandmark;
+  }
+
+  /**
+   * Chooses up to count landmarks in graph by farthest-point selection and precomputes their
+   * distances. Fewer landmarks are chosen if the graph has fewer nodes.
+   *
+   * @param graph the graph to build the index for, which must provide incoming edges
+   * @param count the number of landmarks to choose
+   * @return a landmark heuristic for the graph's current state
+   * @throws IllegalArgumentException if count is negative
+   */
+  public static LandmarkHeuristic select(IntGraph graph, int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("The landmark count cannot be negative");
+    }
+    int limit = graph.getIdLimit();
+    String[] names = new String[limit];
+    int first = -1;
+    int nodeCount = 0;
+    for (int v = 0; v < limit; v++) {
+      names[v] = graph.nameOf(v);
+      if (names[v] != null) {
+        nodeCount++;
+        if (first < 0) {
+          first = v;
+        }
+      }
+    }
+    count = Math.min(count, nodeCount);
+
+    DijkstraSearch forward = new DijkstraSearch(graph);
+    DijkstraSearch backward = new DijkstraSearch(new ReversedGraph(graph));
+    int[] landmarks = new int[count];
+    double[][] fromLandmark = new double[count][];
+    double[][] toLandmark = new double[count][];
+    // Distance from the nearest landmark chosen so far; nodes no landmark reaches stay infinite
+    double[] nearest = new double[limit];
+    Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+
+    for (int i = 0; i < count; i++) {
+      int landmark;
+      if (i == 0) {
+        // Like getMostDistantLocation(): the reachable node with the longest travel time
+        forward.run(first, -1);
+        landmark = farthest(forward, names, null);
+        if (landmark < 0) {
+          landmark = first;
+        }
+      } else {
+        landmark = farthest(null, names, nearest);
+      }
+      landmarks[i] = landmark;
+      fromLandmark[i] = distances(forward, landmark, limit);
+      toLandmark[i] = distances(backward, landmark, limit);
+      for (int v = 0; v < limit; v++) {
+        nearest[v] = Math.min(nearest[v], fromLandmark[i][v]);
+      }
+      // A node that is already a landmark must never be chosen again
+      nearest[landmark] = -1.0;
+    }
+    return new LandmarkHeuristic(names, fingerprint(graph), landmarks, fromLandmark, toLandmark);
+  }
+
+  /**
+   * Reads a heuristic written by save().
+   *
+   * @param file the file to read
+   * @return the heuristic stored in file
+   * @throws IOException if the file cannot be read or does not hold a landmark heuristic
+   */
+  public static LandmarkHeuristic load(File file) throws IOException {
+    long length = file.length();
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readLong() != MAGIC || in.readInt() != FORMAT_VERSION) {
+        throw new IOException(file + " does not contain a landmark index");
+      }
+      int limit = in.readInt();
+      int count = in.readInt();
+      long fingerprint = in.readLong();
+      // Check the counts against the file's size before allocating anything for them
+      if (limit < 0 || count < 0 || count > limit
+          || 4L * limit + 4L * count + 16L * count * limit > length) {
+        throw new IOException(file + " is corrupt: " + count + " landmarks of " + limit + " ids");
+      }
+      String[] names = new String[limit];
+      for (int v = 0; v < limit; v++) {
+        int bytes = in.readInt();
+        if (bytes < -1 || bytes > length) {
+          throw new IOException(file + " is corrupt: name " + v + " has " + bytes + " bytes");
+        }
+        if (bytes >= 0) {
+          byte[] name = new byte[bytes];
+          in.readFully(name);
+          names[v] = new String(name, StandardCharsets.UTF_8);
+        }
+      }
+      int[] landmarks = new int[count];
+      for (int i = 0; i < count; i++) {
+        landmarks[i] = in.readInt();
+        if (landmarks[i] < 0 || landmarks[i] >= limit || names[landmarks[i]] == null) {
+          throw new IOException(file + " is corrupt: landmark " + i + " is not a node");
+        }
+      }
+      double[][] fromLandmark = readTable(in, count, limit);
+      double[][] toLandmark = readTable(in, count, limit);
+      return new LandmarkHeuristic(names, fingerprint, landmarks, fromLandmark, toLandmark);
+    }
+  }
+
+  /**
+   * Writes this heuristic to file so it can be loaded again instead of recomputed.
+   *
+   * @param file the file to write
+   * @throws IOException if the file cannot be written
+   */
+  public void save(File file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeLong(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(names.length);
+      out.writeInt(landmarks.length);
+      out.writeLong(fingerprint);
+      for (String name : names) {
+        if (name == null) {
+          out.writeInt(-1);
+        } else {
+          byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+      }
+      for (int landmark : landmarks) {
+        out.writeInt(landmark);
+      }
+      for (double[][] table : new double[][][] {fromLandmark, toLandmark}) {
+        for (double[] row : table) {
+          for (double distance : row) {
+            out.writeDouble(distance);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks whether this index was built from a graph with exactly the same node ids, names and
+   * edges as graph, which is what a loaded index needs to be usable.
+   *
+   * @param graph the graph to compare against
+   * @return true if the index describes graph's current state
+   */
+  public boolean matches(IntGraph graph) {
+    if (graph.getIdLimit() != names.length) {
+      return false;
+    }
+    for (int v = 0; v < names.length; v++) {
+      String name = graph.nameOf(v);
+      if (name == null ? names[v] != null : !name.equals(names[v])) {
+        return false;
+      }
+    }
+    return fingerprint(graph) == fingerprint;
+  }
+
+  /**
+   * Returns the number of landmarks.
+   *
+   * @return the landmark count
+   */
+  public int getLandmarkCount() {
+    return landmarks.length;
+  }
+
+  /**
+   * Returns the name of the i-th landmark, in the order they were chosen.
+   *
+   * @param i an index in [0, getLandmarkCount())
+   * @return the landmark's node name
+   */
+  public String getLandmark(int i) {
+    return names[landmarks[i]];
+  }
+
+  /**
+   * Returns the largest triangle inequality bound on the distance from node to target over all
+   * landmarks.
+   *
+   * @param node the id of the node the estimate is for
+   * @param target the id of the node the search is heading to
+   * @return a lower bound on the distance from node to target
+   */
+  public double estimate(int node, int target) {
+    if (node >= names.length || target >= names.length) {
+      return 0.0;
+    }
+    double best = 0.0;
+    for (int i = 0; i < landmarks.length; i++) {
+      double[] from = fromLandmark[i];
+      double[] to = toLandmark[i];
+      // Bounds involving an unreachable distance say nothing and are skipped
+      if (from[node] != Double.POSITIVE_INFINITY && from[target] != Double.POSITIVE_INFINITY) {
+        best = Math.max(best, from[target] - from[node]);
+      }
+      if (to[node] != Double.POSITIVE_INFINITY && to[target] != Double.POSITIVE_INFINITY) {
+        best = Math.max(best, to[node] - to[target]);
+      }
+    }
+    // Shave off a little so rounding in the precomputed sums never pushes a bound above a real cost
+    return best * (1.0 - 1e-12);
+  }
+
+  /**
+   * Returns the in-use node with the largest distance, taken from the finished search if given and
+   * from distance otherwise. Infinite distances count only when taken from the array, where they
+   * mark nodes no landmark reaches yet. Ties go to the smallest id.
+   *
+   * @return the farthest node's id, or -1 if there is none
+   */
+  private static int farthest(DijkstraSearch search, String[] names, double[] distance) {
+    int farthest = -1;
+    double max = -1.0;
+    for (int v = 0; v < names.length; v++) {
+      if (names[v] == null) {
+        continue;
+      }
+      double d = search != null ? search.getDistance(v) : distance[v];
+      if (search != null && d == Double.POSITIVE_INFINITY) {
+        continue;
+      }
+      if (d > max) {
+        max = d;
+        farthest = v;
+      }
+    }
+    return farthest;
+  }
+
+  /**
+   * Reads rows of limit distances each, as save() writes them.
+   */
+  private static double[][] readTable(DataInputStream in, int rows, int limit)
+      throws IOException {
+    double[][] table = new double[rows][limit];
+    for (double[] row : table) {
+      for (int v = 0; v < limit; v++) {
+        row[v] = in.readDouble();
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Runs a full search from origin and copies out the distance of every id.
+   */
+  private static double[] distances(DijkstraSearch search, int origin, int limit) {
+    search.run(origin, -1);
+    double[] distances = new double[limit];
+    for (int v = 0; v < limit; v++) {
+      distances[v] = search.getDistance(v);
+    }
+    return distances;
+  }
+
+  /**
+   * Hashes every edge of graph together with its end ids and weight. The hash is a sum, so it does
+   * not depend on the order edges are stored in.
+   */
+  private static long fingerprint(IntGraph graph) {
+    long hash = graph.getIdLimit();
+    for (int u = 0; u < graph.getIdLimit(); u++) {
+      for (int i = 0; i < graph.outDegree(u); i++) {
+        long h = LongIntHashMap.pack(u, graph.outTarget(u, i)) * 0x9E3779B97F4A7C15L;
+        h ^= Double.doubleToLongBits(graph.outWeight(u, i));
+        h *= 0xBF58476D1CE4E5B9L;
+        hash += h ^ (h >>> 31);
+      }
+    }
+    return hash;
+  }
+}
@@ -0,0 +1,234 @@
+import java.util.Arrays;
+
+/**
+ * A small open-addressing hash map from primitive long keys to primitive int values. Keys are
+ * stored in a flat long[] and probed linearly, and removals shift later entries of the same probe
+ * run backwards instead of leaving tombstones. Nothing is boxed and no objects are allocated per
+ * entry, which makes this suitable for indexing edges by a packed (pred, succ) id pair.
+ *
+ * Negative keys are reserved: -1 marks an empty slot, so callers must only store keys >= 0.
+ */
+public class LongIntHashMap {
+
+  /**
+   * Key value used to mark empty slots in the keys array.
+   */
+  private static final long EMPTY = -1L;
+
+  /**
+   * Largest fraction of slots that may be occupied before the table doubles.
+   */
+  private static final double MAX_LOAD = 0.6;
+
+  /**
+   * Keys of all entries, or EMPTY for unused slots. The length is always a power of two.
+   */
+  private long[] keys;
+
+  /**
+   * Values of all entries, parallel to keys.
+   */
+  private int[] values;
+
+  /**
+   * Number of entries currently stored.
+   */
+  private int size;
+
+  /**
+   * Number of entries allowed before the next resize.
+   */
+  private int threshold;
+
+  /**
+   * Creates an empty map with room for a handful of entries.
+   */
+  public LongIntHashMap() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty map that can hold expectedSize entries without resizing.
+   *
+   * @param expectedSize number of entries the map should be sized for
+   */
+  public LongIntHashMap(int expectedSize) {
+    int capacity = 16;
+    while (capacity * MAX_LOAD < expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  /**
+   * Packs two non-negative int ids into a single non-negative long key.
+   *
+   * @param high the id stored in the upper 32 bits
+   * @param low the id stored in the lower 32 bits
+   * @return the packed key
+   */
+  public static long pack(int high, int low) {
+    return ((long) high << 32) | (low & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the value stored for key, or missing if the key is not present.
+   *
+   * @param key the key to look up, must be >= 0
+   * @param missing the value to return when key is not in the map
+   * @return the value for key, or missing
+   */
+  public int get(long key, int missing) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return missing;
+  }
+
+  /**
+   * Checks whether key is in the map.
+   *
+   * @param key the key to look for, must be >= 0
+   * @return true if the key is present, false otherwise
+   */
+  public boolean containsKey(long key) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return true;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * Stores value for key, replacing any value that was already stored for it.
+   *
+   * @param key the key to store, must be >= 0
+   * @param value the value to associate with key
+   * @throws IllegalArgumentException if key is negative
+   */
+  public void put(long key, int value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("Negative keys are reserved: " + key);
+    }
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    size++;
+    if (size > threshold) {
+      resize(keys.length << 1);
+    }
+  }
+
+  /**
+   * Removes key from the map. Entries later in the same probe run are shifted back into the freed
+   * slot so that lookups never have to skip over deleted markers.
+   *
+   * @param key the key to remove
+   * @param missing the value to return when key is not in the map
+   * @return the value that was stored for key, or missing
+   */
+  public int remove(long key, int missing) {
+    int mask = keys.length - 1;
+    int slot = mix(key) & mask;
+    while (keys[slot] != key) {
+      if (keys[slot] == EMPTY) {
+        return missing;
+      }
+      slot = (slot + 1) & mask;
+    }
+    int removed = values[slot];
+
+    // Backward-shift deletion: move any entry whose home slot lies at or before the gap into it
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (keys[next] != EMPTY) {
+      int home = mix(keys[next]) & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = EMPTY;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Removes every entry while keeping the current table allocation.
+   */
+  public void clear() {
+    Arrays.fill(keys, EMPTY);
+    size = 0;
+  }
+
+  /**
+   * Returns the number of entries in the map.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Allocates empty key and value arrays of the given power-of-two capacity.
+   */
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    Arrays.fill(keys, EMPTY);
+    threshold = (int) (capacity * MAX_LOAD);
+  }
+
+  /**
+   * Re-inserts every entry into freshly allocated arrays of the given capacity.
+   */
+  private void resize(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = mix(oldKeys[i]) & mask;
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of a key so that packed ids with similar high or low halves still land in
+   * different slots (the 64-bit finalizer from MurmurHash3).
+   */
+  private static int mix(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key;
+  }
+}
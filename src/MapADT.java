@@ -0,0 +1,66 @@
+import java.util.NoSuchElementException;
+
+/**
+ * A map from keys to values, where every key is stored at most once. Implementations are hash
+ * tables whose capacity can be queried, so callers can see how full the table is.
+ *
+ * @param <KeyType> the type of the keys
+ * @param <ValueType> the type of the values
+ */
+public interface MapADT<KeyType, ValueType> {
+
+  /**
+   * Adds a new key-value pair to the map.
+   *
+   * @param key the key of the new pair
+   * @param value the value stored for key
+   * @throws IllegalArgumentException if the map already contains key
+   * @throws NullPointerException if key is null
+   */
+  public void put(KeyType key, ValueType value) throws IllegalArgumentException;
+
+  /**
+   * Checks whether a key is in the map.
+   *
+   * @param key the key to look for
+   * @return true if the key is in the map, false otherwise
+   */
+  public boolean containsKey(KeyType key);
+
+  /**
+   * Retrieves the value stored for a key.
+   *
+   * @param key the key to look up
+   * @return the value stored for key
+   * @throws NoSuchElementException if key is not in the map
+   */
+  public ValueType get(KeyType key) throws NoSuchElementException;
+
+  /**
+   * Removes a key and its value from the map.
+   *
+   * @param key the key to remove
+   * @return the value that was stored for key
+   * @throws NoSuchElementException if key is not in the map
+   */
+  public ValueType remove(KeyType key) throws NoSuchElementException;
+
+  /**
+   * Removes every key-value pair from the map.
+   */
+  public void clear();
+
+  /**
+   * Returns the number of key-value pairs in the map.
+   *
+   * @return the number of pairs
+   */
+  public int getSize();
+
+  /**
+   * Returns the number of slots in the map's table.
+   *
+   * @return the table's capacity
+   */
+  public int getCapacity();
+}
@@ -0,0 +1,167 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the DOT file a Backend loaded its map from and calls reloadGraphData() whenever the file
+ * is written, so a revised map goes live without restarting. Changes are picked up through a
+ * WatchService on the file's directory, which also sees editors and deploy scripts that replace
+ * the file by renaming a new one over it.
+ *
+ * A save usually arrives as several events, and a large file is written in many pieces, so the
+ * watcher waits until the file has been quiet for a moment before reloading. Reloads run on the
+ * watcher's own daemon thread; queries never wait for them and keep running on the last map until
+ * the new one is swapped in. If the file cannot be parsed, for example while it is still being
+ * copied, the map stays as it was and the next write tries again.
+ *
+ * The watcher only reloads the file it was started for. Once the Backend loads a different map,
+ * changes to the old file are ignored until the watcher is closed.
+ */
+public class MapWatcher implements Closeable {
+
+  /**
+   * How long the file must go without events before it is reloaded, in milliseconds.
+   */
+  private static final long QUIET_MILLIS = 200;
+
+  private final Backend backend;
+
+  /**
+   * The watched DOT file, as the Backend loaded it.
+   */
+  private final File file;
+
+  /**
+   * The watched file's name within its directory, which events are reported by.
+   */
+  private final Path name;
+
+  private final WatchService service;
+
+  private final Thread thread;
+
+  private final AtomicLong reloads = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+
+  /**
+   * Why the last failed reload failed, or null if none has.
+   */
+  private volatile Exception lastFailure;
+
+  /**
+   * Starts watching file for backend, which must have loaded its map from it.
+   *
+   * @param backend the Backend to reload
+   * @param file the DOT file the Backend loaded
+   * @throws IOException if the file's directory cannot be watched
+   */
+  MapWatcher(Backend backend, File file) throws IOException {
+    this.backend = backend;
+    this.file = file;
+    Path path = file.toPath().toAbsolutePath();
+    name = path.getFileName();
+    service = path.getFileSystem().newWatchService();
+    path.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY);
+    thread = new Thread(this::run, "backend-map-watcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Returns the number of times a change to the file was applied to the map.
+   *
+   * @return the reload count
+   */
+  public long getReloadCount() {
+    return reloads.get();
+  }
+
+  /**
+   * Returns the number of times the file changed but could not be loaded.
+   *
+   * @return the failure count
+   */
+  public long getFailureCount() {
+    return failures.get();
+  }
+
+  /**
+   * Returns why the last failed reload failed.
+   *
+   * @return the exception it threw, or null if no reload has failed
+   */
+  public Exception getLastFailure() {
+    return lastFailure;
+  }
+
+  /**
+   * Stops watching. A reload that is already running finishes first.
+   *
+   * @throws IOException if the watch service cannot be closed
+   */
+  @Override
+  public void close() throws IOException {
+    service.close();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Waits for the file to change and settle, then reloads it, until the watcher is closed.
+   */
+  private void run() {
+    try {
+      while (true) {
+        boolean changed = drain(service.take());
+        WatchKey key;
+        while ((key = service.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          changed |= drain(key);
+        }
+        if (changed) {
+          reload();
+        }
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      // Closed
+    }
+  }
+
+  /**
+   * Returns whether key's events include a change to the file, and readies key for more.
+   */
+  private boolean drain(WatchKey key) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      // Events were lost, so the file may have changed
+      changed |= event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+    }
+    key.reset();
+    return changed;
+  }
+
+  /**
+   * Reloads the map, counting a failure rather than stopping if the file is bad.
+   */
+  private void reload() {
+    try {
+      if (backend.reloadGraphData(file)) {
+        reloads.incrementAndGet();
+      }
+    } catch (IOException | RuntimeException e) {
+      lastFailure = e;
+      failures.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,232 @@
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from object keys to primitive int values, used to intern node names
+ * to their dense int ids. Each slot's mixed key hash and value sit next to each other in one int[]
+ * and are probed linearly, and a key is only read from the parallel Object[] when its hash
+ * matches, so a lookup touches the key objects of little more than the entry it finds. No Integer
+ * is boxed on put or get and no entry objects are allocated. Like LongIntHashMap, removals shift
+ * later entries of the same probe run backwards instead of leaving tombstones.
+ *
+ * Null is never a key. Looking up null finds nothing, and storing it throws a
+ * NullPointerException.
+ *
+ * @param <K> the type of the keys
+ */
+public class ObjectIntHashMap<K> {
+
+  /**
+   * Largest fraction of slots that may be occupied before the table doubles.
+   */
+  private static final double MAX_LOAD = 0.6;
+
+  /**
+   * Key of every slot, or null for unused slots. The length is always a power of two.
+   */
+  private Object[] keys;
+
+  /**
+   * Mixed hash (from OpenHashtableMap.hash) and value of every slot, interleaved: slot i's hash is
+   * at 2i and its value at 2i + 1. Unused slots have hash 0.
+   */
+  private int[] entries;
+
+  /**
+   * Number of entries currently stored.
+   */
+  private int size;
+
+  /**
+   * Number of entries allowed before the next resize.
+   */
+  private int threshold;
+
+  /**
+   * Creates an empty map with room for a handful of entries.
+   */
+  public ObjectIntHashMap() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty map that can hold expectedSize entries without resizing.
+   *
+   * @param expectedSize number of entries the map should be sized for
+   */
+  public ObjectIntHashMap(int expectedSize) {
+    int capacity = 16;
+    while (capacity * MAX_LOAD < expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  /**
+   * Creates a map holding the same entries as other. The copy shares no state with other, and
+   * since it copies other's arrays directly no key is hashed again.
+   *
+   * @param other the map to copy
+   */
+  public ObjectIntHashMap(ObjectIntHashMap<K> other) {
+    keys = other.keys.clone();
+    entries = other.entries.clone();
+    size = other.size;
+    threshold = other.threshold;
+  }
+
+  /**
+   * Returns the value stored for key, or missing if the key is not present.
+   *
+   * @param key the key to look up
+   * @param missing the value to return when key is not in the map
+   * @return the value for key, or missing
+   */
+  public int get(Object key, int missing) {
+    int slot = key == null ? -1 : find(key);
+    return slot < 0 ? missing : entries[(slot << 1) + 1];
+  }
+
+  /**
+   * Checks whether key is in the map.
+   *
+   * @param key the key to look for
+   * @return true if the key is present, false otherwise
+   */
+  public boolean containsKey(Object key) {
+    return key != null && find(key) >= 0;
+  }
+
+  /**
+   * Stores value for key, replacing any value that was already stored for it.
+   *
+   * @param key the key to store
+   * @param value the value to associate with key
+   * @throws NullPointerException if key is null
+   */
+  public void put(K key, int value) {
+    if (key == null) {
+      throw new NullPointerException("Cannot store a null key");
+    }
+    int hash = OpenHashtableMap.hash(key);
+    int mask = keys.length - 1;
+    int slot = hash & mask;
+    int h;
+    while ((h = entries[slot << 1]) != 0) {
+      if (h == hash && (keys[slot] == key || key.equals(keys[slot]))) {
+        entries[(slot << 1) + 1] = value;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    keys[slot] = key;
+    entries[slot << 1] = hash;
+    entries[(slot << 1) + 1] = value;
+    size++;
+    if (size > threshold) {
+      resize(keys.length << 1);
+    }
+  }
+
+  /**
+   * Removes key from the map. Entries later in the same probe run are shifted back into the freed
+   * slot so that lookups never have to skip over deleted markers.
+   *
+   * @param key the key to remove
+   * @param missing the value to return when key is not in the map
+   * @return the value that was stored for key, or missing
+   */
+  public int remove(Object key, int missing) {
+    int slot = key == null ? -1 : find(key);
+    if (slot < 0) {
+      return missing;
+    }
+    int removed = entries[(slot << 1) + 1];
+
+    // Backward-shift deletion: move any entry whose home slot lies at or before the gap into it
+    int mask = keys.length - 1;
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    int h;
+    while ((h = entries[next << 1]) != 0) {
+      int home = h & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        entries[gap << 1] = h;
+        entries[(gap << 1) + 1] = entries[(next << 1) + 1];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    keys[gap] = null;
+    entries[gap << 1] = 0;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Removes every entry while keeping the current table allocation.
+   */
+  public void clear() {
+    Arrays.fill(keys, null);
+    Arrays.fill(entries, 0);
+    size = 0;
+  }
+
+  /**
+   * Returns the number of entries in the map.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the slot holding key, or -1 if key is not in the map.
+   */
+  private int find(Object key) {
+    int hash = OpenHashtableMap.hash(key);
+    int mask = keys.length - 1;
+    int slot = hash & mask;
+    int h;
+    while ((h = entries[slot << 1]) != 0) {
+      if (h == hash && (keys[slot] == key || key.equals(keys[slot]))) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Allocates empty key and entry arrays of the given power-of-two capacity.
+   */
+  private void allocate(int capacity) {
+    keys = new Object[capacity];
+    entries = new int[capacity << 1];
+    threshold = (int) (capacity * MAX_LOAD);
+  }
+
+  /**
+   * Re-inserts every entry into freshly allocated arrays of the given capacity, placing keys by
+   * their stored hashes.
+   */
+  private void resize(int capacity) {
+    Object[] oldKeys = keys;
+    int[] oldEntries = entries;
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      int h = oldEntries[i << 1];
+      if (h != 0) {
+        int slot = h & mask;
+        while (entries[slot << 1] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        entries[slot << 1] = h;
+        entries[(slot << 1) + 1] = oldEntries[(i << 1) + 1];
+      }
+    }
+  }
+}
@@ -0,0 +1,261 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Open-addressing implementation of MapADT. Keys and values are stored next to each other in a
+ * single Object[] (the key of slot i at index 2i and its value at 2i + 1), so a lookup reads one
+ * contiguous run of the table instead of following a chain of list nodes, and put allocates
+ * nothing unless the table has to grow. Collisions are resolved by linear probing, and removals
+ * shift later entries of the same probe run backwards instead of leaving tombstones, so a table
+ * that sees many removals never slows down or needs rebuilding.
+ *
+ * Every key's hash code is mixed so that all of its bits affect the slot, and the mixed hash is
+ * kept in a parallel int[]. Probes compare those hashes first and only call equals on a match, and
+ * resizing and removal never call hashCode again. The slot is the low bits of the mixed hash, so
+ * it is never negative.
+ *
+ * @param <KeyType> the type of the keys
+ * @param <ValueType> the type of the values
+ */
+public class OpenHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+  /**
+   * Largest fraction of slots that may be occupied before the table doubles.
+   */
+  private static final double MAX_LOAD = 0.6;
+
+  /**
+   * Keys and values of all slots, interleaved. A null key marks an empty slot. The number of
+   * slots, half the array's length, is always a power of two.
+   */
+  private Object[] table;
+
+  /**
+   * Mixed hash of the key in every slot, or 0 for empty slots.
+   */
+  private int[] hashes;
+
+  /**
+   * Number of pairs currently stored.
+   */
+  private int size;
+
+  /**
+   * Number of pairs allowed before the next resize.
+   */
+  private int threshold;
+
+  /**
+   * Creates an empty map with 64 slots.
+   */
+  public OpenHashtableMap() {
+    this(64);
+  }
+
+  /**
+   * Creates an empty map with at least the given number of slots, rounded up to a power of two.
+   *
+   * @param capacity the minimum number of slots
+   * @throws IllegalArgumentException if capacity is not positive
+   */
+  public OpenHashtableMap(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    int slots = 2;
+    while (slots < capacity) {
+      slots <<= 1;
+    }
+    allocate(slots);
+  }
+
+  /**
+   * Adds a new key-value pair to the map.
+   *
+   * @param key the key of the new pair
+   * @param value the value stored for key
+   * @throws IllegalArgumentException if the map already contains key
+   * @throws NullPointerException if key is null
+   */
+  @Override
+  public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+    if (key == null) {
+      throw new NullPointerException("Cannot put a null key");
+    }
+    int hash = hash(key);
+    int mask = hashes.length - 1;
+    int slot = hash & mask;
+    while (hashes[slot] != 0) {
+      if (hashes[slot] == hash && (table[slot << 1] == key || key.equals(table[slot << 1]))) {
+        throw new IllegalArgumentException("Key is already in the map: " + key);
+      }
+      slot = (slot + 1) & mask;
+    }
+    hashes[slot] = hash;
+    table[slot << 1] = key;
+    table[(slot << 1) + 1] = value;
+    size++;
+    if (size > threshold) {
+      resize(getCapacity() << 1);
+    }
+  }
+
+  /**
+   * Checks whether a key is in the map.
+   *
+   * @param key the key to look for
+   * @return true if the key is in the map, false otherwise
+   */
+  @Override
+  public boolean containsKey(KeyType key) {
+    return key != null && find(key) >= 0;
+  }
+
+  /**
+   * Retrieves the value stored for a key.
+   *
+   * @param key the key to look up
+   * @return the value stored for key
+   * @throws NoSuchElementException if key is not in the map
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType get(KeyType key) throws NoSuchElementException {
+    int slot = key == null ? -1 : find(key);
+    if (slot < 0) {
+      throw new NoSuchElementException("Key is not in the map: " + key);
+    }
+    return (ValueType) table[(slot << 1) + 1];
+  }
+
+  /**
+   * Removes a key and its value from the map. Entries later in the same probe run are shifted back
+   * into the freed slot so that lookups never have to skip over deleted markers.
+   *
+   * @param key the key to remove
+   * @return the value that was stored for key
+   * @throws NoSuchElementException if key is not in the map
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public ValueType remove(KeyType key) throws NoSuchElementException {
+    int slot = key == null ? -1 : find(key);
+    if (slot < 0) {
+      throw new NoSuchElementException("Key is not in the map: " + key);
+    }
+    ValueType removed = (ValueType) table[(slot << 1) + 1];
+
+    // Backward-shift deletion: move any entry whose home slot lies at or before the gap into it
+    int mask = hashes.length - 1;
+    int gap = slot;
+    int next = (gap + 1) & mask;
+    while (hashes[next] != 0) {
+      int home = hashes[next] & mask;
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        hashes[gap] = hashes[next];
+        table[gap << 1] = table[next << 1];
+        table[(gap << 1) + 1] = table[(next << 1) + 1];
+        gap = next;
+      }
+      next = (next + 1) & mask;
+    }
+    hashes[gap] = 0;
+    table[gap << 1] = null;
+    table[(gap << 1) + 1] = null;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Removes every key-value pair while keeping the current table allocation.
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(table, null);
+    Arrays.fill(hashes, 0);
+    size = 0;
+  }
+
+  /**
+   * Returns the number of key-value pairs in the map.
+   *
+   * @return the number of pairs
+   */
+  @Override
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Returns the number of slots in the table. This doubles whenever more than 60% of the slots
+   * are in use.
+   *
+   * @return the table's capacity
+   */
+  @Override
+  public int getCapacity() {
+    return hashes.length;
+  }
+
+  /**
+   * Returns the slot holding key, or -1 if key is not in the map.
+   */
+  private int find(Object key) {
+    int hash = hash(key);
+    int mask = hashes.length - 1;
+    int slot = hash & mask;
+    while (hashes[slot] != 0) {
+      if (hashes[slot] == hash && (table[slot << 1] == key || key.equals(table[slot << 1]))) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Allocates an empty table with the given power-of-two number of slots.
+   */
+  private void allocate(int slots) {
+    table = new Object[slots << 1];
+    hashes = new int[slots];
+    threshold = (int) (slots * MAX_LOAD);
+  }
+
+  /**
+   * Re-inserts every pair into a freshly allocated table with the given number of slots. Keys are
+   * known to be distinct, so they are placed by their stored hashes without comparing them.
+   */
+  private void resize(int slots) {
+    Object[] oldTable = table;
+    int[] oldHashes = hashes;
+    allocate(slots);
+    int mask = slots - 1;
+    for (int i = 0; i < oldHashes.length; i++) {
+      if (oldHashes[i] != 0) {
+        int slot = oldHashes[i] & mask;
+        while (hashes[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        hashes[slot] = oldHashes[i];
+        table[slot << 1] = oldTable[i << 1];
+        table[(slot << 1) + 1] = oldTable[(i << 1) + 1];
+      }
+    }
+  }
+
+  /**
+   * Mixes a key's hash code with the 32-bit finalizer from MurmurHash3, so that every bit of it
+   * affects the low bits used to pick a slot. The top bit is always set, which keeps 0 free to
+   * mark empty slots without changing the slot of any table smaller than 2^31.
+   */
+  static int hash(Object key) {
+    int h = key.hashCode();
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h | 0x80000000;
+  }
+}
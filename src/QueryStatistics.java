@@ -0,0 +1,154 @@
+import java.beans.ConstructorProperties;
+
+/**
+ * Summary of one kind of Backend query taken from BackendMetrics at one moment: how many were
+ * answered and how long they took, and for the ones that had to search rather than come from the
+ * route cache, how much work the search did. Over JMX it shows up as a composite value with one
+ * item per getter.
+ */
+public class QueryStatistics {
+
+  private final long count;
+  private final double meanMicros;
+  private final double p50Micros;
+  private final double p90Micros;
+  private final double p99Micros;
+  private final double p999Micros;
+  private final double maxMicros;
+  private final long searches;
+  private final double meanSettled;
+  private final long maxSettled;
+  private final double meanHeapOperations;
+
+  /**
+   * Creates a summary from its parts.
+   *
+   * @param count number of queries answered
+   * @param meanMicros mean latency in microseconds
+   * @param p50Micros median latency in microseconds
+   * @param p90Micros 90th percentile latency in microseconds
+   * @param p99Micros 99th percentile latency in microseconds
+   * @param p999Micros 99.9th percentile latency in microseconds
+   * @param maxMicros largest latency in microseconds
+   * @param searches number of queries that ran a search
+   * @param meanSettled mean number of nodes a search settled
+   * @param maxSettled largest number of nodes a search settled
+   * @param meanHeapOperations mean number of heap operations a search made
+   */
+  @ConstructorProperties({"count", "meanMicros", "p50Micros", "p90Micros", "p99Micros",
+      "p999Micros", "maxMicros", "searches", "meanSettled", "maxSettled", "meanHeapOperations"})
+  public QueryStatistics(long count, double meanMicros, double p50Micros, double p90Micros,
+      double p99Micros, double p999Micros, double maxMicros, long searches, double meanSettled,
+      long maxSettled, double meanHeapOperations) {
+    this.count = count;
+    this.meanMicros = meanMicros;
+    this.p50Micros = p50Micros;
+    this.p90Micros = p90Micros;
+    this.p99Micros = p99Micros;
+    this.p999Micros = p999Micros;
+    this.maxMicros = maxMicros;
+    this.searches = searches;
+    this.meanSettled = meanSettled;
+    this.maxSettled = maxSettled;
+    this.meanHeapOperations = meanHeapOperations;
+  }
+
+  /**
+   * Returns the number of queries answered, from the cache or by searching.
+   *
+   * @return the query count
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the mean time a query took.
+   *
+   * @return the mean latency in microseconds
+   */
+  public double getMeanMicros() {
+    return meanMicros;
+  }
+
+  /**
+   * Returns the time half of the queries took at most.
+   *
+   * @return the median latency in microseconds
+   */
+  public double getP50Micros() {
+    return p50Micros;
+  }
+
+  /**
+   * Returns the time 90% of the queries took at most.
+   *
+   * @return the 90th percentile latency in microseconds
+   */
+  public double getP90Micros() {
+    return p90Micros;
+  }
+
+  /**
+   * Returns the time 99% of the queries took at most.
+   *
+   * @return the 99th percentile latency in microseconds
+   */
+  public double getP99Micros() {
+    return p99Micros;
+  }
+
+  /**
+   * Returns the time 99.9% of the queries took at most.
+   *
+   * @return the 99.9th percentile latency in microseconds
+   */
+  public double getP999Micros() {
+    return p999Micros;
+  }
+
+  /**
+   * Returns the time the slowest query took.
+   *
+   * @return the largest latency in microseconds
+   */
+  public double getMaxMicros() {
+    return maxMicros;
+  }
+
+  /**
+   * Returns the number of queries that were not answered from the route cache and ran a search.
+   *
+   * @return the search count
+   */
+  public long getSearches() {
+    return searches;
+  }
+
+  /**
+   * Returns the mean number of nodes a search settled.
+   *
+   * @return the mean settled node count, or 0 if nothing was searched
+   */
+  public double getMeanSettled() {
+    return meanSettled;
+  }
+
+  /**
+   * Returns the largest number of nodes a search settled.
+   *
+   * @return the largest settled node count
+   */
+  public long getMaxSettled() {
+    return maxSettled;
+  }
+
+  /**
+   * Returns the mean number of heap inserts, decreases and polls a search made.
+   *
+   * @return the mean heap operation count, or 0 if nothing was searched
+   */
+  public double getMeanHeapOperations() {
+    return meanHeapOperations;
+  }
+}
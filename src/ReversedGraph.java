@@ -0,0 +1,125 @@
+/**
+ * View of an IntGraph with every edge turned around: the outgoing edges of a node are the incoming
+ * edges of the underlying graph and vice versa. Running a single-source search over the reversed
+ * graph finds the distances from every node to the source in the original one. The view copies
+ * nothing, so it always reflects the underlying graph's current state.
+ */
+public class ReversedGraph implements IntGraph {
+
+  /**
+   * The graph whose edges are reversed.
+   */
+  private final IntGraph graph;
+
+  /**
+   * Creates a reversed view of graph.
+   *
+   * @param graph the graph to reverse, which must provide incoming edges
+   */
+  public ReversedGraph(IntGraph graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * Returns the underlying graph's id limit.
+   *
+   * @return the exclusive upper bound on node ids
+   */
+  public int getIdLimit() {
+    return graph.getIdLimit();
+  }
+
+  /**
+   * Returns the id of the node with the given name.
+   *
+   * @param name the node name to look up
+   * @return the node's id, or -1 if there is no such node
+   */
+  public int idOf(String name) {
+    return graph.idOf(name);
+  }
+
+  /**
+   * Returns the name of the node with the given id.
+   *
+   * @param id the node id to look up
+   * @return the node's name, or null if the id is not in use
+   */
+  public String nameOf(int id) {
+    return graph.nameOf(id);
+  }
+
+  /**
+   * Returns the underlying graph's symbol table.
+   *
+   * @return the graph's names and ids
+   */
+  public SymbolTable getSymbols() {
+    return graph.getSymbols();
+  }
+
+  /**
+   * Returns the number of reversed edges leaving u, which is u's in-degree in the underlying graph.
+   *
+   * @param u a node id
+   * @return the out-degree of u in this view
+   */
+  public int outDegree(int u) {
+    return graph.inDegree(u);
+  }
+
+  /**
+   * Returns the successor of the i-th reversed edge leaving u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the predecessor of the i-th edge entering u in the underlying graph
+   */
+  public int outTarget(int u, int i) {
+    return graph.inSource(u, i);
+  }
+
+  /**
+   * Returns the weight of the i-th reversed edge leaving u.
+   *
+   * @param u a node id
+   * @param i an index in [0, outDegree(u))
+   * @return the weight of the i-th edge entering u in the underlying graph
+   */
+  public double outWeight(int u, int i) {
+    return graph.inWeight(u, i);
+  }
+
+  /**
+   * Returns the number of reversed edges entering v, which is v's out-degree in the underlying
+   * graph.
+   *
+   * @param v a node id
+   * @return the in-degree of v in this view
+   */
+  public int inDegree(int v) {
+    return graph.outDegree(v);
+  }
+
+  /**
+   * Returns the predecessor of the i-th reversed edge entering v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the successor of the i-th edge leaving v in the underlying graph
+   */
+  public int inSource(int v, int i) {
+    return graph.outTarget(v, i);
+  }
+
+  /**
+   * Returns the weight of the i-th reversed edge entering v.
+   *
+   * @param v a node id
+   * @param i an index in [0, inDegree(v))
+   * @return the weight of the i-th edge leaving v in the underlying graph
+   */
+  public double inWeight(int v, int i) {
+    return graph.outWeight(v, i);
+  }
+}
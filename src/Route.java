@@ -0,0 +1,135 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A shortest path found by a single search: the nodes along it, the weight of every hop between
+ * consecutive nodes, and the total cost. Hop weights are kept in a primitive array so that callers
+ * can read or sum them without boxing, and the total is computed once by the search instead of
+ * being re-derived from the edges.
+ *
+ * @param <NodeType> the data type stored at each graph node
+ */
+public class Route<NodeType> {
+
+  /**
+   * Node data along the path, from start to end. Empty if no path exists.
+   */
+  private final NodeType[] nodes;
+
+  /**
+   * Weight of the edge from nodes[i] to nodes[i + 1], for every i.
+   */
+  private final double[] hopWeights;
+
+  /**
+   * Sum of all hop weights.
+   */
+  private final double totalCost;
+
+  /**
+   * Creates a route from arrays produced by a search. The arrays are used directly, not copied.
+   *
+   * @param nodes node data along the path, from start to end, or an empty array for no path
+   * @param hopWeights weight of each hop, one fewer entry than nodes (or none for no path)
+   * @param totalCost sum of the hop weights
+   */
+  public Route(NodeType[] nodes, double[] hopWeights, double totalCost) {
+    this.nodes = nodes;
+    this.hopWeights = hopWeights;
+    this.totalCost = totalCost;
+  }
+
+  /**
+   * Returns whether this route is empty, which is how a missing path is reported.
+   *
+   * @return true if the route has no nodes
+   */
+  public boolean isEmpty() {
+    return nodes.length == 0;
+  }
+
+  /**
+   * Returns the number of nodes on the route.
+   *
+   * @return the node count, including start and end
+   */
+  public int getNodeCount() {
+    return nodes.length;
+  }
+
+  /**
+   * Returns the node data at a position along the route.
+   *
+   * @param i a position in [0, getNodeCount())
+   * @return the node data
+   */
+  public NodeType getNode(int i) {
+    return nodes[i];
+  }
+
+  /**
+   * Returns the node data along the route as a read-only list view, since routes may be shared
+   * between callers through a RouteCache.
+   *
+   * @return the nodes from start to end, or an empty list if no path exists
+   */
+  public List<NodeType> getNodes() {
+    return Collections.unmodifiableList(Arrays.asList(nodes));
+  }
+
+  /**
+   * Returns the number of hops (edges) on the route.
+   *
+   * @return the hop count
+   */
+  public int getHopCount() {
+    return hopWeights.length;
+  }
+
+  /**
+   * Returns the weight of the hop from getNode(i) to getNode(i + 1).
+   *
+   * @param i a hop index in [0, getHopCount())
+   * @return the hop's weight
+   */
+  public double getHopWeight(int i) {
+    return hopWeights[i];
+  }
+
+  /**
+   * Returns a copy of the hop weights.
+   *
+   * @return the weight of every hop, in order
+   */
+  public double[] getHopWeights() {
+    return hopWeights.clone();
+  }
+
+  /**
+   * Returns the hop weights as a read-only list view. Elements are boxed only as they are read.
+   *
+   * @return the weight of every hop, in order
+   */
+  public List<Double> getHopWeightList() {
+    return new AbstractList<Double>() {
+      public Double get(int i) {
+        return hopWeights[i];
+      }
+
+      public int size() {
+        return hopWeights.length;
+      }
+    };
+  }
+
+  /**
+   * Returns the total cost of the route.
+   *
+   * @return the sum of all hop weights, or 0 for an empty route
+   */
+  public double getTotalCost() {
+    return totalCost;
+  }
+}
@@ -0,0 +1,649 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded, concurrent cache of routes keyed by the ids of their start and end nodes. Keys are the
+ * node ids of the graph the routes were found in, packed into one long, so a lookup hashes two
+ * ints rather than two location names. Every entry belongs to one graph version: the first lookup
+ * or insert with a newer version empties the cache, so routes never outlive an edit to the graph.
+ * TINY_LFU keeps its access frequencies through that, since which routes are popular rarely
+ * changes with the graph, and the frequencies age out on their own.
+ *
+ * The cache is split into segments, each guarded by its own lock and given an equal share of the
+ * byte limit, so threads working on different keys rarely contend. Within a segment entries are
+ * kept in access order and evicted least recently used first. Two eviction policies are offered:
+ *
+ * LRU admits every new route and evicts the least recently used routes to make room.
+ *
+ * TINY_LFU puts new routes in a small LRU window, and when a route falls out of the window it only
+ * enters the main area if a frequency sketch says it has been asked for more often than the route
+ * it would evict there. Under skewed traffic this keeps the popular routes cached while bursts of
+ * one-off queries pass through the window without flushing them out.
+ *
+ * Sizes are estimates of the heap used by each entry's map node, key, route object and arrays. The
+ * location names a route refers to belong to the graph and are not counted.
+ */
+public class RouteCache {
+
+  /**
+   * How the cache chooses which routes to keep.
+   */
+  public enum Policy {
+
+    /**
+     * Keep the most recently used routes.
+     */
+    LRU,
+
+    /**
+     * Keep the most frequently used routes, with a small window for new ones.
+     */
+    TINY_LFU
+  }
+
+  /**
+   * Number of segments, a power of two.
+   */
+  private static final int SEGMENTS = 16;
+
+  /**
+   * Fraction of each segment's bytes given to the admission window under TINY_LFU.
+   */
+  private static final double WINDOW_FRACTION = 0.01;
+
+  /**
+   * Estimated bytes of one entry apart from its route's arrays: the map node, the boxed key, the
+   * entry object and the route object, with their headers.
+   */
+  private static final long ENTRY_OVERHEAD = 136;
+
+  /**
+   * Route used for every start and end that no path connects.
+   */
+  private static final Route<String> NO_ROUTE = new Route<>(new String[0], new double[0], 0.0);
+
+  /**
+   * How the cache chooses which routes to keep.
+   */
+  private final Policy policy;
+
+  /**
+   * The most bytes the cached routes may take up.
+   */
+  private final long maxBytes;
+
+  /**
+   * The independently locked parts of the cache, picked by the top bits of a key's hash.
+   */
+  private final Segment[] segments;
+
+  /**
+   * Graph version the cached routes were found in, or -1 before the first.
+   */
+  private volatile long version = -1;
+
+  /**
+   * Number of lookups that found a route.
+   */
+  private final LongAdder hits = new LongAdder();
+
+  /**
+   * Number of lookups that found nothing.
+   */
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Number of routes removed to make room for others.
+   */
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Number of routes TINY_LFU kept out of the main area.
+   */
+  private final LongAdder rejections = new LongAdder();
+
+  /**
+   * Number of times the cache was emptied because the graph changed.
+   */
+  private final LongAdder invalidations = new LongAdder();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxBytes the most bytes the cached routes may take up
+   * @param policy how to choose which routes to keep
+   * @throws IllegalArgumentException if maxBytes is negative
+   */
+  public RouteCache(long maxBytes, Policy policy) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Negative cache size: " + maxBytes);
+    }
+    this.policy = policy;
+    this.maxBytes = maxBytes;
+    segments = new Segment[SEGMENTS];
+    long share = maxBytes / SEGMENTS;
+    long window = policy == Policy.TINY_LFU ? (long) (share * WINDOW_FRACTION) : share;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment(window, share);
+    }
+  }
+
+  /**
+   * Returns the cached route from start to end, counting a hit or a miss.
+   *
+   * @param version the version of the graph the ids belong to
+   * @param start id of the route's start node
+   * @param end id of the route's end node
+   * @return the cached route, an empty route if start and end were cached as unconnected, or null
+   *     if nothing is cached for them
+   */
+  public Route<String> get(long version, int start, int end) {
+    checkVersion(version);
+    long key = LongIntHashMap.pack(start, end);
+    long hash = spread(key);
+    Route<String> route = segmentFor(hash).get(key, hash, version);
+    if (route == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return route;
+  }
+
+  /**
+   * Caches the route from start to end, if the policy admits it.
+   *
+   * @param version the version of the graph the route was found in
+   * @param start id of the route's start node
+   * @param end id of the route's end node
+   * @param route the route, or an empty route if no path connects start and end
+   */
+  public void put(long version, int start, int end, Route<String> route) {
+    checkVersion(version);
+    if (version != this.version) {
+      // Found in an older graph than the one now cached
+      return;
+    }
+    long key = LongIntHashMap.pack(start, end);
+    long hash = spread(key);
+    segmentFor(hash).put(key, new Entry(route.isEmpty() ? NO_ROUTE : route, sizeOf(route),
+        version));
+  }
+
+  /**
+   * Moves the routes cached for graph version from to version to, for an edit that is known to
+   * leave some of them shortest: those for which keep returns true stay cached under the new
+   * version and the rest are removed. Does nothing unless the cached routes are of version from,
+   * in which case the next lookup with version to empties the cache as usual. Lookups of version
+   * from that run meanwhile miss once their routes have moved.
+   *
+   * @param from the version of the graph before the edit
+   * @param to the version of the graph after it, which is newer than from
+   * @param keep tells whether a route is still shortest after the edit
+   */
+  public void carryOver(long from, long to, Predicate<Route<String>> keep) {
+    synchronized (this) {
+      if (version != from || to <= from) {
+        return;
+      }
+      for (Segment segment : segments) {
+        synchronized (segment) {
+          segment.windowBytes -= segment.carryOver(segment.window, to, keep);
+          segment.mainBytes -= segment.carryOver(segment.main, to, keep);
+        }
+      }
+      version = to;
+    }
+  }
+
+  /**
+   * Removes every cached route and, under TINY_LFU, forgets how often routes were asked for.
+   */
+  public void clear() {
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        segment.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns the eviction policy.
+   *
+   * @return how the cache chooses which routes to keep
+   */
+  public Policy getPolicy() {
+    return policy;
+  }
+
+  /**
+   * Returns the byte limit.
+   *
+   * @return the most bytes the cached routes may take up
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the estimated bytes taken up by the cached routes.
+   *
+   * @return the current size in bytes
+   */
+  public long getBytes() {
+    long bytes = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        bytes += segment.windowBytes + segment.mainBytes;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the number of cached routes.
+   *
+   * @return the current number of entries
+   */
+  public int getSize() {
+    int size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.window.size() + segment.main.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of lookups that found a route.
+   *
+   * @return the hit count
+   */
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups that found nothing.
+   *
+   * @return the miss count
+   */
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the fraction of lookups that found a route.
+   *
+   * @return the hit rate between 0 and 1, or 0 before the first lookup
+   */
+  public double getHitRate() {
+    long hit = hits.sum();
+    long total = hit + misses.sum();
+    return total == 0 ? 0.0 : (double) hit / total;
+  }
+
+  /**
+   * Returns the number of cached routes removed to make room for others.
+   *
+   * @return the eviction count
+   */
+  public long getEvictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Returns the number of routes that TINY_LFU declined to move from the window into the main
+   * area because they were used less often than the route they would have replaced.
+   *
+   * @return the rejection count
+   */
+  public long getRejectionCount() {
+    return rejections.sum();
+  }
+
+  /**
+   * Returns the number of times the cache was emptied because the graph changed.
+   *
+   * @return the invalidation count
+   */
+  public long getInvalidationCount() {
+    return invalidations.sum();
+  }
+
+  /**
+   * Returns a one-line summary of the cache's size and metrics.
+   *
+   * @return the summary
+   */
+  @Override
+  public String toString() {
+    return String.format("RouteCache[%s, %d routes, %d/%d bytes, hit rate %.3f, %d evictions, "
+        + "%d rejections, %d invalidations]", policy, getSize(), getBytes(), maxBytes,
+        getHitRate(), getEvictionCount(), getRejectionCount(), getInvalidationCount());
+  }
+
+  /**
+   * Empties the cache if version is newer than the version of the routes in it.
+   */
+  private void checkVersion(long version) {
+    if (version > this.version) {
+      synchronized (this) {
+        if (version > this.version) {
+          if (this.version >= 0) {
+            invalidations.increment();
+          }
+          for (Segment segment : segments) {
+            synchronized (segment) {
+              segment.removeEntries();
+            }
+          }
+          this.version = version;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the estimated heap bytes of an entry for route.
+   */
+  private static long sizeOf(Route<String> route) {
+    if (route.isEmpty()) {
+      return ENTRY_OVERHEAD;
+    }
+    // A reference per node and a double per hop, each array with a 16 byte header
+    return ENTRY_OVERHEAD + 16 + 4L * route.getNodeCount() + 16 + 8L * route.getHopCount();
+  }
+
+  /**
+   * Scrambles a packed key so that neighboring ids spread over segments and sketch counters.
+   */
+  private static long spread(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 29);
+  }
+
+  private Segment segmentFor(long hash) {
+    return segments[(int) (hash >>> 60) & (SEGMENTS - 1)];
+  }
+
+  /**
+   * A cached route, its estimated size and the graph version it was found in. A put racing with
+   * an invalidation can still store an entry of the old version, so lookups check it.
+   */
+  private static class Entry {
+
+    /**
+     * The cached route, or NO_ROUTE if no path connects its start and end.
+     */
+    private final Route<String> route;
+
+    /**
+     * Estimated heap bytes of the entry, see sizeOf().
+     */
+    private final long bytes;
+
+    /**
+     * Graph version the route was found in.
+     */
+    private final long version;
+
+    private Entry(Route<String> route, long bytes, long version) {
+      this.route = route;
+      this.bytes = bytes;
+      this.version = version;
+    }
+  }
+
+  /**
+   * One independently locked part of the cache. Under LRU every entry lives in window and main is
+   * unused; under TINY_LFU new entries enter window and graduate to main if admitted.
+   */
+  private class Segment {
+
+    /**
+     * Recently added entries, least recently used first.
+     */
+    private final LinkedHashMap<Long, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Admitted entries, least recently used first.
+     */
+    private final LinkedHashMap<Long, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * The most bytes the entries in window may take up.
+     */
+    private final long windowLimit;
+
+    /**
+     * The most bytes the entries in main may take up.
+     */
+    private final long mainLimit;
+
+    /**
+     * Estimated bytes of the entries in window.
+     */
+    private long windowBytes;
+
+    /**
+     * Estimated bytes of the entries in main.
+     */
+    private long mainBytes;
+
+    /**
+     * Approximate access counts of keys hashed to this segment, or null under LRU.
+     */
+    private final FrequencySketch sketch;
+
+    private Segment(long windowLimit, long limit) {
+      this.windowLimit = windowLimit;
+      this.mainLimit = limit - windowLimit;
+      sketch = policy == Policy.TINY_LFU ? new FrequencySketch(limit / ENTRY_OVERHEAD) : null;
+    }
+
+    private synchronized Route<String> get(long key, long hash, long version) {
+      if (sketch != null) {
+        sketch.increment(hash);
+      }
+      Entry entry = window.get(key);
+      if (entry == null) {
+        entry = main.get(key);
+      }
+      return entry == null || entry.version != version ? null : entry.route;
+    }
+
+    private synchronized void put(long key, Entry entry) {
+      if (entry.bytes > windowLimit + mainLimit) {
+        return;
+      }
+      Entry old = window.remove(key);
+      if (old != null) {
+        windowBytes -= old.bytes;
+      }
+      old = main.remove(key);
+      if (old != null) {
+        mainBytes -= old.bytes;
+      }
+      window.put(key, entry);
+      windowBytes += entry.bytes;
+
+      while (windowBytes > windowLimit) {
+        Iterator<Map.Entry<Long, Entry>> eldest = window.entrySet().iterator();
+        Map.Entry<Long, Entry> candidate = eldest.next();
+        eldest.remove();
+        windowBytes -= candidate.getValue().bytes;
+        if (sketch == null) {
+          evictions.increment();
+        } else {
+          admit(candidate.getKey(), candidate.getValue());
+        }
+      }
+    }
+
+    /**
+     * Moves an entry that fell out of the window into main, evicting main's least recently used
+     * entries while the candidate is used more often than they are. If a victim is used at least
+     * as often, the candidate is dropped instead.
+     */
+    private void admit(long key, Entry candidate) {
+      if (candidate.bytes > mainLimit) {
+        evictions.increment();
+        return;
+      }
+      int frequency = sketch.frequency(spread(key));
+      while (mainBytes + candidate.bytes > mainLimit) {
+        Iterator<Map.Entry<Long, Entry>> eldest = main.entrySet().iterator();
+        Map.Entry<Long, Entry> victim = eldest.next();
+        if (sketch.frequency(spread(victim.getKey())) >= frequency) {
+          rejections.increment();
+          evictions.increment();
+          return;
+        }
+        eldest.remove();
+        mainBytes -= victim.getValue().bytes;
+        evictions.increment();
+      }
+      main.put(key, candidate);
+      mainBytes += candidate.bytes;
+    }
+
+    /**
+     * Moves the entries of area that keep accepts to version and removes the others, returning
+     * the bytes removed.
+     */
+    private long carryOver(LinkedHashMap<Long, Entry> area, long version,
+        Predicate<Route<String>> keep) {
+      long removed = 0;
+      for (Iterator<Map.Entry<Long, Entry>> it = area.entrySet().iterator(); it.hasNext();) {
+        Map.Entry<Long, Entry> next = it.next();
+        Entry entry = next.getValue();
+        if (keep.test(entry.route)) {
+          next.setValue(new Entry(entry.route, entry.bytes, version));
+        } else {
+          it.remove();
+          removed += entry.bytes;
+        }
+      }
+      return removed;
+    }
+
+    /**
+     * Removes every entry but keeps the sketch's counts.
+     */
+    private void removeEntries() {
+      window.clear();
+      main.clear();
+      windowBytes = 0;
+      mainBytes = 0;
+    }
+
+    private void clear() {
+      removeEntries();
+      if (sketch != null) {
+        sketch.clear();
+      }
+    }
+  }
+
+  /**
+   * Count-min sketch of recent access counts with four rows of saturating counters up to 15. Once
+   * the number of increments reaches ten times the number of keys the segment can hold, every
+   * counter is halved, so counts describe recent traffic rather than all traffic since the cache
+   * was made. Rows have four counters per key the segment can hold, which keeps the average
+   * counter low enough between halvings for one-off keys to look rare.
+   */
+  private static class FrequencySketch {
+
+    /**
+     * Number of rows of counters, each hashed with its own seed.
+     */
+    private static final int ROWS = 4;
+
+    /**
+     * Largest value a counter saturates at, so that it fits in four bits.
+     */
+    private static final int MAX_COUNT = 15;
+
+    /**
+     * Seed of every row's hash.
+     */
+    private static final long[] SEEDS = {
+        0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+
+    /**
+     * Counters of every row, one row after the other.
+     */
+    private final byte[] counters;
+
+    /**
+     * Row width minus one, for masking a hash to a counter within a row.
+     */
+    private final int mask;
+
+    /**
+     * Number of increments after which every counter is halved.
+     */
+    private final int sampleSize;
+
+    /**
+     * Number of increments since counters were last halved.
+     */
+    private int increments;
+
+    /**
+     * Creates a sketch for a segment that can hold about expected keys.
+     */
+    private FrequencySketch(long expected) {
+      int keys = (int) Math.max(16, Math.min(1 << 22, expected));
+      int width = Integer.highestOneBit(keys * 8 - 1);
+      counters = new byte[ROWS * width];
+      mask = width - 1;
+      sampleSize = 10 * keys;
+    }
+
+    private void increment(long hash) {
+      boolean added = false;
+      for (int row = 0; row < ROWS; row++) {
+        int index = index(hash, row);
+        if (counters[index] < MAX_COUNT) {
+          counters[index]++;
+          added = true;
+        }
+      }
+      if (added && ++increments >= sampleSize) {
+        for (int i = 0; i < counters.length; i++) {
+          counters[i] >>= 1;
+        }
+        increments /= 2;
+      }
+    }
+
+    private int frequency(long hash) {
+      int frequency = MAX_COUNT;
+      for (int row = 0; row < ROWS; row++) {
+        frequency = Math.min(frequency, counters[index(hash, row)]);
+      }
+      return frequency;
+    }
+
+    /**
+     * Returns the position in counters of the counter for hash in row, rehashing with a different
+     * seed for each row.
+     */
+    private int index(long hash, int row) {
+      long h = (hash + SEEDS[row]) * 0x9E3779B97F4A7C15L;
+      return row * (mask + 1) + ((int) (h >>> 32) & mask);
+    }
+
+    private void clear() {
+      Arrays.fill(counters, (byte) 0);
+      increments = 0;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one route cache lookup made by Backend.findRoute(). A hit spans only
+ * the lookup; a miss spans the lookup, the search and caching its result, so its duration is what
+ * the query cost.
+ */
+@Name("campusmap.RouteCache")
+@Label("Route Cache Lookup")
+@Category({"Campus Map", "Routing"})
+@Description("A lookup in the route cache, and for a miss the search that followed")
+@StackTrace(false)
+public class RouteCacheEvent extends Event {
+
+  @Label("Hit")
+  boolean hit;
+
+  @Label("Start")
+  String start;
+
+  @Label("End")
+  String end;
+
+  @Label("Graph Version")
+  long version;
+}
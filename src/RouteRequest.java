@@ -0,0 +1,54 @@
+/**
+ * One route asked for in a batch query: the location it starts at and the location it ends at.
+ */
+public class RouteRequest {
+
+  /**
+   * Name of the location the route starts at.
+   */
+  private final String start;
+
+  /**
+   * Name of the location the route ends at.
+   */
+  private final String end;
+
+  /**
+   * Creates a request for the route from start to end.
+   *
+   * @param start name of the location the route starts at
+   * @param end name of the location the route ends at
+   */
+  public RouteRequest(String start, String end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * Returns the location the route starts at.
+   *
+   * @return the start location's name
+   */
+  public String getStart() {
+    return start;
+  }
+
+  /**
+   * Returns the location the route ends at.
+   *
+   * @return the end location's name
+   */
+  public String getEnd() {
+    return end;
+  }
+
+  /**
+   * Returns a description of the request for error messages and logs.
+   *
+   * @return the start and end locations separated by an arrow
+   */
+  @Override
+  public String toString() {
+    return start + " -> " + end;
+  }
+}
@@ -0,0 +1,286 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Everything a routing query needs, frozen at one moment: the map as a FrozenGraph, the heuristic
+ * that guides its searches, the location names in load order and the file they were loaded from.
+ * Backend publishes one snapshot at a time and swaps in a new one after every load, so a query that
+ * reads the current snapshot once sees one consistent map from start to finish, however many loads
+ * happen meanwhile.
+ *
+ * Nothing in a snapshot changes after construction apart from the travel time matrix, which is
+ * computed the first time it is asked for, unless the snapshot was updated from one that had it.
+ * All methods may be called from any number of threads; searches use per-thread state inside the
+ * FrozenGraph and never lock.
+ */
+public class RoutingSnapshot {
+
+  /**
+   * Result of a batch request whose locations are missing or not connected.
+   */
+  private static final Route<String> EMPTY = new Route<>(new String[0], new double[0], 0.0);
+
+  /**
+   * The map every query of this snapshot runs on.
+   */
+  private final FrozenGraph graph;
+
+  /**
+   * Heuristic for A* searches over graph, or null if there is none.
+   */
+  private final SearchHeuristic heuristic;
+
+  /**
+   * Every location name, in the order they were first loaded.
+   */
+  private final List<String> locations;
+
+  /**
+   * The map file the snapshot was loaded from, or null for the empty map.
+   */
+  private final File source;
+
+  /**
+   * Travel times between every pair of locations, or null until they are first asked for.
+   */
+  private volatile DistanceMatrix travelTimes;
+
+  /**
+   * Creates a snapshot of a prepared map.
+   *
+   * @param graph the frozen map
+   * @param heuristic heuristic for A* searches over graph, or null
+   * @param locations every location name in load order, which is copied
+   * @param source the file the map was loaded from, or null
+   */
+  public RoutingSnapshot(FrozenGraph graph, SearchHeuristic heuristic, List<String> locations,
+      File source) {
+    this(graph, heuristic, locations, source, null);
+  }
+
+  /**
+   * Creates a snapshot of a prepared map whose travel times are already known.
+   */
+  private RoutingSnapshot(FrozenGraph graph, SearchHeuristic heuristic, List<String> locations,
+      File source, DistanceMatrix travelTimes) {
+    this.graph = graph;
+    this.heuristic = heuristic;
+    this.locations = List.copyOf(locations);
+    this.source = source;
+    this.travelTimes = travelTimes;
+  }
+
+  /**
+   * Returns a snapshot of the same locations after changes to the weights of their edges. If this
+   * snapshot's travel times have been computed, the new snapshot gets them repaired with
+   * DistanceMatrix.repair() rather than computing them again from scratch.
+   *
+   * @param graph the map after the changes, frozen from the same graph as this snapshot's
+   * @param heuristic heuristic for A* searches over graph, or null
+   * @param changes every edge whose weight differs between this snapshot's map and graph
+   * @return the updated snapshot
+   */
+  public RoutingSnapshot update(FrozenGraph graph, SearchHeuristic heuristic,
+      List<EdgeChange> changes) {
+    DistanceMatrix matrix = travelTimes;
+    return new RoutingSnapshot(graph, heuristic, locations, source,
+        matrix == null ? null : matrix.repair(graph, changes));
+  }
+
+  /**
+   * Returns the frozen map.
+   *
+   * @return the graph every query of this snapshot runs on
+   */
+  public FrozenGraph getGraph() {
+    return graph;
+  }
+
+  /**
+   * Returns the heuristic for A* searches over the map.
+   *
+   * @return the heuristic, or null if there is none
+   */
+  public SearchHeuristic getHeuristic() {
+    return heuristic;
+  }
+
+  /**
+   * Returns every location name, in the order they were first loaded.
+   *
+   * @return an unmodifiable list of the map's locations
+   */
+  public List<String> getLocations() {
+    return locations;
+  }
+
+  /**
+   * Returns the file the map was loaded from.
+   *
+   * @return the map file, or null for the empty map
+   */
+  public File getSource() {
+    return source;
+  }
+
+  /**
+   * Returns the version of the graph the map was frozen from.
+   *
+   * @return the source graph's version counter at freezing time
+   */
+  public long getVersion() {
+    return graph.getVersion();
+  }
+
+  /**
+   * Finds the shortest route from start to end: a contraction hierarchy search if the map was
+   * contracted, otherwise an A* search if there is a heuristic and a bidirectional search if not.
+   *
+   * @param start the location the route starts at
+   * @param end the location the route ends at
+   * @return the shortest route from start to end
+   * @throws NoSuchElementException if either location is missing or no path connects them
+   */
+  public Route<String> route(String start, String end) {
+    int source = graph.idOf(start);
+    int target = graph.idOf(end);
+    if (source < 0 || target < 0) {
+      throw new NoSuchElementException((source < 0 ? start : end) + " is not in the graph");
+    }
+    return route(source, target);
+  }
+
+  /**
+   * Finds the shortest route between two node ids of this snapshot's graph, the same way as
+   * route(String, String) but without looking the names up.
+   *
+   * @param start the id of the location the route starts at
+   * @param end the id of the location the route ends at
+   * @return the shortest route from start to end
+   * @throws NoSuchElementException if either id is not in use or no path connects them
+   */
+  public Route<String> route(int start, int end) {
+    if (graph.isContracted()) {
+      return graph.shortestRoute(start, end);
+    }
+    if (heuristic != null) {
+      return graph.shortestRoute(start, end, heuristic);
+    }
+    return graph.shortestRouteBidirectional(start, end);
+  }
+
+  /**
+   * Returns the counters of the search route() runs on this thread, which describe the last route
+   * this thread found on the snapshot.
+   *
+   * @return the calling thread's route search
+   */
+  public SearchCounters getRouteCounters() {
+    if (graph.isContracted()) {
+      return graph.getHierarchySearchCounters();
+    }
+    if (heuristic != null) {
+      return graph.getSearchCounters();
+    }
+    return graph.getBidirectionalSearchCounters();
+  }
+
+  /**
+   * Finds the shortest route for every request. Requests are grouped by start location and each
+   * group is answered on pool: a group with a single end by route(), and a larger group by
+   * FrozenGraph.shortestRoutes(), which shares one search from the start between all of its ends.
+   * Batches deliberately bypass the Backend's RouteCache and BackendMetrics, so that one batch
+   * neither evicts the cached routes of single queries nor counts as that many of them.
+   *
+   * @param requests the routes to find
+   * @param pool the pool to answer groups on
+   * @return the shortest route for each request in the same order, or an empty route where either
+   *     location is missing or no path connects them
+   */
+  public List<Route<String>> routes(List<RouteRequest> requests, ForkJoinPool pool) {
+    Map<String, List<Integer>> groups = new LinkedHashMap<>();
+    for (int i = 0; i < requests.size(); i++) {
+      groups.computeIfAbsent(requests.get(i).getStart(), start -> new ArrayList<>()).add(i);
+    }
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    Route<String>[] results = new Route[requests.size()];
+    if (groups.size() == 1) {
+      // Not worth handing to another thread
+      for (List<Integer> group : groups.values()) {
+        answer(requests, group, results);
+      }
+    } else {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+      for (List<Integer> group : groups.values()) {
+        tasks.add(pool.submit(() -> answer(requests, group, results)));
+      }
+      for (ForkJoinTask<?> task : tasks) {
+        // Joining also makes each task's results visible to this thread
+        task.join();
+      }
+    }
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Stores the routes for one group of requests that share a start location in results. Like
+   * routes(), it neither reads nor fills the RouteCache and records no metrics.
+   */
+  private void answer(List<RouteRequest> requests, List<Integer> group, Route<String>[] results) {
+    String start = requests.get(group.get(0)).getStart();
+    if (group.size() == 1 || !graph.containsNode(start)) {
+      for (int i : group) {
+        results[i] = tryRoute(start, requests.get(i).getEnd());
+      }
+      return;
+    }
+    List<String> ends = new ArrayList<>(group.size());
+    for (int i : group) {
+      ends.add(requests.get(i).getEnd());
+    }
+    List<Route<String>> routes = graph.shortestRoutes(start, ends);
+    for (int k = 0; k < group.size(); k++) {
+      Route<String> route = routes.get(k);
+      results[group.get(k)] = route != null ? route : EMPTY;
+    }
+  }
+
+  /**
+   * Returns route(start, end), or an empty route if either location is missing or no path
+   * connects them.
+   */
+  private Route<String> tryRoute(String start, String end) {
+    try {
+      return route(start, end);
+    } catch (NoSuchElementException e) {
+      return EMPTY;
+    }
+  }
+
+  /**
+   * Returns the walking time between every pair of locations, computing it on the common
+   * ForkJoinPool the first time. Concurrent first calls compute it once and share the result.
+   *
+   * @return the all-pairs travel time matrix of this snapshot's map
+   */
+  public DistanceMatrix getTravelTimes() {
+    DistanceMatrix matrix = travelTimes;
+    if (matrix == null) {
+      synchronized (this) {
+        matrix = travelTimes;
+        if (matrix == null) {
+          matrix = DistanceMatrix.compute(graph);
+          travelTimes = matrix;
+        }
+      }
+    }
+    return matrix;
+  }
+}
@@ -0,0 +1,21 @@
+/**
+ * What a search spent on its last query, for metrics. Searches keep these counts in plain fields
+ * as they run, so reading them afterwards costs nothing extra and they are only meaningful on the
+ * thread that ran the query.
+ */
+public interface SearchCounters {
+
+  /**
+   * Returns the number of nodes the last query settled.
+   *
+   * @return the settled node count
+   */
+  public int getSettledCount();
+
+  /**
+   * Returns the number of heap inserts, decreases and polls the last query made.
+   *
+   * @return the heap operation count
+   */
+  public long getHeapOperationCount();
+}
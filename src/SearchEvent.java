@@ -0,0 +1,42 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event for one shortest path search over a FrozenGraph, spanning the search
+ * itself but not building the route it returns. Searches are emitted as they happen, so a slow
+ * query in JDK Mission Control lines up with the GC pauses and other events around it. Searches
+ * run often and their stack traces all look alike, so none are recorded.
+ */
+@Name("campusmap.Search")
+@Label("Route Search")
+@Category({"Campus Map", "Routing"})
+@Description("A shortest path search over the frozen map")
+@StackTrace(false)
+public class SearchEvent extends Event {
+
+  @Label("Algorithm")
+  @Description("dijkstra, astar, bidirectional, hierarchy, tree or many")
+  String algorithm;
+
+  @Label("Start")
+  String start;
+
+  @Label("End")
+  @Description("The destination, or null for a search to every location or to several")
+  String end;
+
+  @Label("Settled Nodes")
+  int settled;
+
+  @Label("Heap Operations")
+  long heapOperations;
+
+  @Label("Cost")
+  @Description("Walking seconds to the destination, or to the farthest location of a tree; NaN if"
+      + " the destination was not reached")
+  double cost;
+}
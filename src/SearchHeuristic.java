@@ -0,0 +1,18 @@
+/**
+ * Lower bound on the remaining cost of a shortest path, used to turn Dijkstra's algorithm into A*.
+ * Implementations must be admissible: estimate(node, target) may never exceed the true shortest
+ * distance from node to target. Heuristics that are also consistent (the estimate drops by at most
+ * an edge's weight across that edge) let the search settle every node exactly once; admissible but
+ * inconsistent ones still give exact results, at the cost of occasionally re-queuing a node.
+ */
+public interface SearchHeuristic {
+
+  /**
+   * Returns a lower bound on the shortest distance from node to target.
+   *
+   * @param node the id of the node the estimate is for
+   * @param target the id of the node the search is heading to
+   * @return a non-negative value no larger than the true distance from node to target
+   */
+  public double estimate(int node, int target);
+}
@@ -0,0 +1,148 @@
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The result of a single-source shortest path search: the shortest distance from one source node
+ * to every node of a graph, plus the predecessor links that spell out each shortest path. Nodes are
+ * addressed by the graph's dense int ids, and distances and predecessors are kept in primitive
+ * arrays indexed by those ids, so a whole tree costs three arrays no matter how many nodes it
+ * covers.
+ *
+ * @param <NodeType> the data type stored at each graph node
+ */
+public class ShortestPathTree<NodeType> {
+
+  /**
+   * Node data for every id, or null for ids not in use.
+   */
+  private final NodeType[] nodes;
+
+  /**
+   * Shortest distance from the source to every id, or positive infinity if unreachable.
+   */
+  private final double[] distances;
+
+  /**
+   * Predecessor on the shortest path to every id. The source is its own predecessor and
+   * unreachable ids have -1.
+   */
+  private final int[] predecessors;
+
+  /**
+   * Id of the source node.
+   */
+  private final int source;
+
+  /**
+   * Creates a tree from arrays produced by a search. The arrays are used directly, not copied.
+   *
+   * @param nodes node data for every id, null for ids not in use
+   * @param distances shortest distance to every id, positive infinity if unreachable
+   * @param predecessors predecessor of every id, the source for itself and -1 if unreachable
+   * @param source id of the source node
+   */
+  public ShortestPathTree(NodeType[] nodes, double[] distances, int[] predecessors, int source) {
+    this.nodes = nodes;
+    this.distances = distances;
+    this.predecessors = predecessors;
+    this.source = source;
+  }
+
+  /**
+   * Returns the id of the tree's source node.
+   *
+   * @return the source id
+   */
+  public int getSource() {
+    return source;
+  }
+
+  /**
+   * Returns the exclusive upper bound on node ids covered by this tree.
+   *
+   * @return the number of entries in the distance array
+   */
+  public int size() {
+    return distances.length;
+  }
+
+  /**
+   * Returns the node data stored for an id.
+   *
+   * @param id a node id
+   * @return the node data, or null if the id was not in use
+   */
+  public NodeType getNode(int id) {
+    return nodes[id];
+  }
+
+  /**
+   * Returns the distance array itself, indexed by node id, with positive infinity for unreachable
+   * nodes. Callers must not modify it.
+   *
+   * @return the shortest distance from the source to every node id
+   */
+  public double[] getDistances() {
+    return distances;
+  }
+
+  /**
+   * Returns the shortest distance from the source to a node.
+   *
+   * @param id a node id
+   * @return the distance, or positive infinity if the node is unreachable
+   */
+  public double getDistance(int id) {
+    return distances[id];
+  }
+
+  /**
+   * Returns whether a node can be reached from the source.
+   *
+   * @param id a node id
+   * @return true if a path from the source to the node exists
+   */
+  public boolean isReachable(int id) {
+    return predecessors[id] >= 0;
+  }
+
+  /**
+   * Returns the id of the reachable node, other than the source, with the largest distance from
+   * the source. Ties go to the smallest id.
+   *
+   * @return the farthest node's id, or -1 if no other node is reachable
+   */
+  public int getFarthest() {
+    int farthest = -1;
+    double max = 0.0;
+    for (int id = 0; id < distances.length; id++) {
+      if (id != source && predecessors[id] >= 0 && (farthest < 0 || distances[id] > max)) {
+        farthest = id;
+        max = distances[id];
+      }
+    }
+    return farthest;
+  }
+
+  /**
+   * Returns the node data along the shortest path from the source to a node.
+   *
+   * @param id the id of a reachable node
+   * @return the node data from source to id, inclusive
+   * @throws IllegalArgumentException if the node is not reachable
+   */
+  public List<NodeType> getPathTo(int id) {
+    if (!isReachable(id)) {
+      throw new IllegalArgumentException(nodes[id] + " is not reachable from " + nodes[source]);
+    }
+    int length = 1;
+    for (int v = id; v != source; v = predecessors[v]) {
+      length++;
+    }
+    NodeType[] path = Arrays.copyOf(nodes, length);
+    for (int v = id; length > 0; v = predecessors[v]) {
+      path[--length] = nodes[v];
+    }
+    return Arrays.asList(path);
+  }
+}
@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for a Backend publishing a new RoutingSnapshot, after which new queries
+ * run on the new map while queries already running finish on the old one.
+ */
+@Name("campusmap.SnapshotSwap")
+@Label("Snapshot Swap")
+@Category({"Campus Map", "Loading"})
+@Description("A new map was published to queries")
+public class SnapshotSwapEvent extends Event {
+
+  @Label("File")
+  String file;
+
+  @Label("Previous Version")
+  long previousVersion;
+
+  @Label("Version")
+  long version;
+
+  @Label("Locations")
+  int nodes;
+
+  @Label("Edges")
+  int edges;
+
+  @Label("Contracted")
+  boolean contracted;
+}
@@ -0,0 +1,237 @@
+import java.util.Arrays;
+
+/**
+ * Interns location names to dense int ids and translates between the two. Every layer below the
+ * Backend's String API works in these ids: graphs index their adjacency arrays by them, the search
+ * engines, route cache and distance matrix key everything by them, and names are only looked up
+ * again to build the lists handed back to callers. Ids of removed names are recycled by later
+ * additions, so the ids in use stay dense.
+ *
+ * A table is either mutable, as owned by an ArrayGraph, or read-only. freeze() returns a read-only
+ * copy that is cached until the table next changes, so every snapshot, hierarchy and matrix built
+ * from one state of a graph shares a single copy instead of each hashing all the names again.
+ * Read-only tables never change and may be shared between threads; a mutable table must only be
+ * used by one thread at a time.
+ */
+public class SymbolTable {
+
+  /**
+   * Number of ids allocated up front.
+   */
+  private static final int INITIAL_IDS = 16;
+
+  /**
+   * Id of every name in the table.
+   */
+  private final ObjectIntHashMap<String> ids;
+
+  /**
+   * Name for every id, or null if the id is currently unused.
+   */
+  private String[] names;
+
+  /**
+   * One past the largest id that has ever been handed out.
+   */
+  private int limit;
+
+  /**
+   * Number of names in the table.
+   */
+  private int size;
+
+  /**
+   * Stack of ids freed by remove, reused before limit grows. Null for read-only tables.
+   */
+  private int[] freeIds;
+
+  /**
+   * Number of ids on the freeIds stack.
+   */
+  private int freeCount;
+
+  /**
+   * Read-only copy of the current state, or null if there is none yet or the table has changed
+   * since it was made.
+   */
+  private SymbolTable frozen;
+
+  /**
+   * Creates an empty, mutable table.
+   */
+  public SymbolTable() {
+    ids = new ObjectIntHashMap<>();
+    names = new String[INITIAL_IDS];
+    freeIds = new int[INITIAL_IDS];
+  }
+
+  /**
+   * Creates a read-only copy of source.
+   */
+  private SymbolTable(SymbolTable source) {
+    ids = new ObjectIntHashMap<>(source.ids);
+    names = Arrays.copyOf(source.names, source.limit);
+    limit = source.limit;
+    size = source.size;
+  }
+
+  /**
+   * Creates a read-only table of graph's node names and ids.
+   *
+   * @param graph the graph to copy the names of
+   * @return a read-only table with the same ids as graph
+   */
+  public static SymbolTable copyOf(IntGraph graph) {
+    SymbolTable table = new SymbolTable();
+    int limit = graph.getIdLimit();
+    table.names = new String[limit];
+    for (int id = 0; id < limit; id++) {
+      String name = graph.nameOf(id);
+      if (name != null) {
+        table.names[id] = name;
+        table.ids.put(name, id);
+        table.size++;
+      }
+    }
+    table.limit = limit;
+    table.freeIds = null;
+    table.frozen = table;
+    return table;
+  }
+
+  /**
+   * Adds a name, giving it a recycled id if one is free and otherwise the next unused one.
+   *
+   * @param name the name to add
+   * @return the name's new id, or -1 if the name is already in the table
+   * @throws NullPointerException if name is null
+   * @throws UnsupportedOperationException if the table is read-only
+   */
+  public int add(String name) {
+    if (name == null) {
+      throw new NullPointerException("Cannot add a null name");
+    }
+    checkMutable();
+    if (ids.containsKey(name)) {
+      return -1;
+    }
+    int id;
+    if (freeCount > 0) {
+      id = freeIds[--freeCount];
+    } else {
+      if (limit == names.length) {
+        names = Arrays.copyOf(names, names.length * 2);
+        freeIds = Arrays.copyOf(freeIds, names.length);
+      }
+      id = limit++;
+    }
+    names[id] = name;
+    ids.put(name, id);
+    size++;
+    frozen = null;
+    return id;
+  }
+
+  /**
+   * Returns the id of name, adding it first if it is not yet in the table.
+   *
+   * @param name the name to look up or add
+   * @return the name's id
+   * @throws NullPointerException if name is null
+   * @throws UnsupportedOperationException if the name is new and the table is read-only
+   */
+  public int intern(String name) {
+    int id = ids.get(name, -1);
+    return id >= 0 ? id : add(name);
+  }
+
+  /**
+   * Removes a name and frees its id for reuse.
+   *
+   * @param name the name to remove
+   * @return the id the name had, or -1 if it was not in the table
+   * @throws UnsupportedOperationException if the table is read-only
+   */
+  public int remove(String name) {
+    checkMutable();
+    int id = ids.remove(name, -1);
+    if (id < 0) {
+      return -1;
+    }
+    names[id] = null;
+    freeIds[freeCount++] = id;
+    size--;
+    frozen = null;
+    return id;
+  }
+
+  /**
+   * Returns the id of a name.
+   *
+   * @param name the name to look up
+   * @return the name's id, or -1 if it is not in the table
+   */
+  public int idOf(String name) {
+    return ids.get(name, -1);
+  }
+
+  /**
+   * Returns the name with the given id.
+   *
+   * @param id the id to look up
+   * @return the name, or null if the id is not in use
+   */
+  public String nameOf(int id) {
+    return id >= 0 && id < limit ? names[id] : null;
+  }
+
+  /**
+   * Returns one past the largest id in use or freed. Every name has an id in [0, getIdLimit()).
+   *
+   * @return the exclusive upper bound on ids
+   */
+  public int getIdLimit() {
+    return limit;
+  }
+
+  /**
+   * Returns the number of names in the table.
+   *
+   * @return the number of names
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the table can be changed.
+   *
+   * @return false if the table is a read-only copy
+   */
+  public boolean isReadOnly() {
+    return freeIds == null;
+  }
+
+  /**
+   * Returns a read-only table with the same names and ids as this one. A read-only table returns
+   * itself, and a mutable one returns the same copy until it is next changed.
+   *
+   * @return the read-only copy
+   */
+  public SymbolTable freeze() {
+    if (frozen == null) {
+      frozen = new SymbolTable(this);
+      frozen.frozen = frozen;
+    }
+    return frozen;
+  }
+
+  /**
+   * Throws if the table is read-only.
+   */
+  private void checkMutable() {
+    if (freeIds == null) {
+      throw new UnsupportedOperationException("This symbol table is read-only");
+    }
+  }
+}